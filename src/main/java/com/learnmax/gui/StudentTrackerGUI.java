@@ -1,8 +1,12 @@
 package com.learnmax.gui;
 
+import com.learnmax.manager.ClassReport;
 import com.learnmax.manager.StudentManager;
 import com.learnmax.model.Student;
 import com.learnmax.model.Assessment;
+import com.learnmax.model.SubjectTrend;
+import com.learnmax.persistence.Durability;
+import com.learnmax.persistence.PersistenceService;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -54,6 +58,11 @@ public class StudentTrackerGUI extends JFrame {
     public StudentTrackerGUI() {
         manager = new StudentManager();
         
+        // Journal syncs and checkpoints run in the background so the UI never waits on disk
+        PersistenceService persistence = new PersistenceService(Durability.WRITE, 200, 256);
+        persistence.installShutdownHook();
+        manager.setPersistenceService(persistence);
+        
         setTitle("LearnMax Enhanced - Student Performance Tracker 2.0");
         setSize(1400, 900);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -345,33 +354,25 @@ public class StudentTrackerGUI extends JFrame {
         JPanel statsPanel = new JPanel(new GridLayout(2, 4, 10, 10));
         statsPanel.setBackground(LIGHT_BG);
         
+        // All dashboard figures come from one report snapshot
+        ClassReport classReport = manager.buildClassReport();
+        
         // Add statistics cards
-        statsPanel.add(createStatCard("Total Students", String.valueOf(manager.getStudentCount()), PRIMARY_COLOR));
+        statsPanel.add(createStatCard("Total Students", String.valueOf(classReport.getTotalStudents()), PRIMARY_COLOR));
         
-        double classAvg = manager.getClassAverage();
+        double classAvg = classReport.getClassAverage();
         String avgText = classAvg >= 0 ? String.format("%.1f%%", classAvg) : "N/A";
         statsPanel.add(createStatCard("Class Average", avgText, SUCCESS_COLOR));
         
-        List<Student> underperforming = manager.getUnderperformingStudents(50);
-        statsPanel.add(createStatCard("Need Support", String.valueOf(underperforming.size()), DANGER_COLOR));
+        statsPanel.add(createStatCard("Need Support", String.valueOf(classReport.getStudentsNeedingSupport().size()), DANGER_COLOR));
         
-        List<Student> topPerformers = manager.getTopPerformers(5);
-        statsPanel.add(createStatCard("Top Performers", String.valueOf(topPerformers.size()), WARNING_COLOR));
+        statsPanel.add(createStatCard("Top Performers", String.valueOf(classReport.getTopPerformers().size()), WARNING_COLOR));
         
         // Add more stats
-        int excellent = 0, good = 0, needsImprovement = 0, poor = 0;
-        for (Student s : manager.getAllStudents()) {
-            double avg = s.calculateOverallAverage();
-            if (avg >= 90) excellent++;
-            else if (avg >= 75) good++;
-            else if (avg >= 50) needsImprovement++;
-            else if (avg >= 0) poor++;
-        }
-        
-        statsPanel.add(createStatCard("Excellent (90+)", String.valueOf(excellent), SUCCESS_COLOR));
-        statsPanel.add(createStatCard("Good (75-89)", String.valueOf(good), PRIMARY_COLOR));
-        statsPanel.add(createStatCard("Needs Work (50-74)", String.valueOf(needsImprovement), WARNING_COLOR));
-        statsPanel.add(createStatCard("At Risk (<50)", String.valueOf(poor), DANGER_COLOR));
+        statsPanel.add(createStatCard("Excellent (90+)", String.valueOf(classReport.getExcellentCount()), SUCCESS_COLOR));
+        statsPanel.add(createStatCard("Good (75-89)", String.valueOf(classReport.getGoodCount()), PRIMARY_COLOR));
+        statsPanel.add(createStatCard("Needs Work (50-74)", String.valueOf(classReport.getNeedsImprovementCount()), WARNING_COLOR));
+        statsPanel.add(createStatCard("At Risk (<50)", String.valueOf(classReport.getRequiresAttentionCount()), DANGER_COLOR));
         
         panel.add(statsPanel, BorderLayout.NORTH);
         
@@ -380,7 +381,7 @@ public class StudentTrackerGUI extends JFrame {
         chartPanel.setBackground(LIGHT_BG);
         
         // Performance distribution pie chart
-        chartPanel.add(createPerformanceDistributionChart());
+        chartPanel.add(createPerformanceDistributionChart(classReport));
         
         // Class average bar chart (placeholder)
         JPanel placeholderPanel = new JPanel(new BorderLayout());
@@ -559,8 +560,7 @@ public class StudentTrackerGUI extends JFrame {
         try {
             int score = Integer.parseInt(scoreText);
             String assessmentType = (String) assessmentTypeCombo.getSelectedItem();
-            student.addAssessment(subject, score, assessmentType);
-            manager.saveData();
+            manager.addAssessment(id, subject, score, assessmentType);
             
             showSuccess("✓ Assessment added successfully!\n\n" + formatStudentInfo(student));
             refreshStudentList();
@@ -617,12 +617,13 @@ public class StudentTrackerGUI extends JFrame {
         trends.append("Grade: ").append(student.getGradeLevel()).append("\n\n");
         
         for (String subject : student.getSubjects()) {
-            String trend = student.analyzeSubjectTrend(subject);
+            SubjectTrend model = student.getSubjectTrend(subject);
+            String trend = model.getLabel();
             String trendIcon = getTrendIcon(trend);
             double avg = student.calculateSubjectAverage(subject);
             
-            trends.append(String.format("%-20s: %s %-15s (Avg: %.1f%%)\n", 
-                subject, trendIcon, formatTrend(trend), avg));
+            trends.append(String.format("%-20s: %s %-15s (Avg: %.1f%%, Slope: %+.2f/day, Confidence: %.0f%%)\n", 
+                subject, trendIcon, formatTrend(trend), avg, model.getSlope(), model.getConfidence() * 100));
         }
         
         trends.append("\n");
@@ -692,7 +693,7 @@ public class StudentTrackerGUI extends JFrame {
             student.getId(),
             student.getName(),
             student.getGradeLevel(),
-            student.getSubjects().size(),
+            student.getSubjectCount(),
             student.getAssessmentCount(),
             avgText,
             status
@@ -818,19 +819,14 @@ public class StudentTrackerGUI extends JFrame {
     /**
      * Create performance distribution pie chart
      */
-    private ChartPanel createPerformanceDistributionChart() {
+    private ChartPanel createPerformanceDistributionChart(ClassReport classReport) {
         DefaultPieDataset dataset = new DefaultPieDataset();
         
-        int excellent = 0, good = 0, needsImprovement = 0, poor = 0, noData = 0;
-        
-        for (Student s : manager.getAllStudents()) {
-            double avg = s.calculateOverallAverage();
-            if (avg < 0) noData++;
-            else if (avg >= 90) excellent++;
-            else if (avg >= 75) good++;
-            else if (avg >= 50) needsImprovement++;
-            else poor++;
-        }
+        int excellent = classReport.getExcellentCount();
+        int good = classReport.getGoodCount();
+        int needsImprovement = classReport.getNeedsImprovementCount();
+        int poor = classReport.getRequiresAttentionCount();
+        int noData = classReport.getNoDataCount();
         
         if (excellent > 0) dataset.setValue("Excellent (90-100)", excellent);
         if (good > 0) dataset.setValue("Good (75-89)", good);
@@ -885,7 +881,7 @@ public class StudentTrackerGUI extends JFrame {
                 double avg = student.calculateSubjectAverage(subject);
                 int latest = student.getLatestScore(subject);
                 String trend = student.analyzeSubjectTrend(subject);
-                int count = student.getAssessmentsBySubject(subject).size();
+                int count = student.getAssessmentCount(subject);
                 
                 info.append(String.format("%-20s: %.1f%% (Latest: %d) %s [%d assessments]\n", 
                     subject, avg, latest, getTrendIcon(trend), count));
@@ -0,0 +1,36 @@
+package com.learnmax.kpi.ingest;
+
+import java.time.LocalDateTime;
+
+/**
+ * An assessment or lab completion as captured by the publishing thread.
+ * Holds copies of the values so later changes to the source objects do not leak in.
+ */
+final class KpiEvent {
+
+    enum Kind {
+        ASSESSMENT,
+        LAB_COMPLETION
+    }
+
+    final Kind kind;
+    final String studentId;
+    final String subject;
+    final String detail; // Assessment type or exercise ID
+    final double score;
+    final int minutes;
+    final int attempts;
+    final LocalDateTime time;
+
+    KpiEvent(Kind kind, String studentId, String subject, String detail, double score, int minutes, int attempts,
+             LocalDateTime time) {
+        this.kind = kind;
+        this.studentId = studentId;
+        this.subject = subject;
+        this.detail = detail;
+        this.score = score;
+        this.minutes = minutes;
+        this.attempts = attempts;
+        this.time = time;
+    }
+}
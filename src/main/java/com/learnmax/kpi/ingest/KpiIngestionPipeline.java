@@ -0,0 +1,354 @@
+package com.learnmax.kpi.ingest;
+
+import com.learnmax.kpi.model.KpiDataPoint;
+import com.learnmax.kpi.model.KpiDataPoint.EntityType;
+import com.learnmax.kpi.model.KpiDataPoint.KpiCategory;
+import com.learnmax.kpi.store.KpiStore;
+import com.learnmax.manager.StudentManager;
+import com.learnmax.model.Assessment;
+import com.learnmax.virtuallab.manager.VirtualLabManager;
+import com.learnmax.virtuallab.model.LabActivity;
+import com.learnmax.virtuallab.model.LabExercise;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns assessment and lab events into KPI data points off the caller's thread.
+ *
+ * Publishers (StudentManager and VirtualLabManager through their listeners, or
+ * direct calls) copy an event's values into a bounded queue and return; publishing
+ * costs an allocation and a queue insert. When the queue is full the
+ * {@link OverflowPolicy} decides whether the publisher waits or an event is dropped.
+ * A single daemon thread drains the queue in batches of up to {@code batchSize}
+ * events, builds the points listed below and hands each batch to the {@link KpiSink};
+ * while the queue is empty it blocks until an event or {@link #close()} arrives.
+ *
+ * Points per event, all for the student entity:
+ * - assessment: {@link #ASSESSMENT_SCORE} (ASSESSMENT) and {@link #ACTIVITY_COUNT} (ENGAGEMENT)
+ * - lab completion: {@link #LAB_SCORE} and {@link #LAB_ATTEMPTS} (LAB_ACTIVITY),
+ *   {@link #LAB_MINUTES} and {@link #ACTIVITY_COUNT} (ENGAGEMENT)
+ * Sink failures are reported on System.err; the batch is lost and the pipeline carries on.
+ */
+public final class KpiIngestionPipeline implements StudentManager.AssessmentListener,
+        VirtualLabManager.ActivityListener, AutoCloseable {
+
+    public static final String ASSESSMENT_SCORE = "assessment_score";
+    public static final String LAB_SCORE = "lab_score";
+    public static final String LAB_ATTEMPTS = "lab_attempts";
+    public static final String LAB_MINUTES = "lab_minutes";
+    public static final String ACTIVITY_COUNT = "activity_count";
+
+    public static final int DEFAULT_CAPACITY = 65_536;
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    private static final class Barrier {
+        final long target;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Barrier(long target) {
+            this.target = target;
+        }
+    }
+
+    private final KpiSink sink;
+    private final ArrayBlockingQueue<KpiEvent> queue;
+    private final int batchSize;
+    private final OverflowPolicy policy;
+    private final Thread worker;
+
+    private final AtomicLong accepted = new AtomicLong(); // Events queued
+    private final AtomicLong finished = new AtomicLong(); // Events written, failed or evicted
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder pointsWritten = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private volatile boolean closed;
+
+    // Guarded by this
+    private final List<Barrier> barriers = new ArrayList<>();
+    private boolean waiting; // Consumer is blocked in take(), so close() may interrupt it
+
+    /**
+     * Write points into {@code store} with the default capacity, batch size and
+     * {@link OverflowPolicy#DROP_NEWEST}, so publishers never wait
+     */
+    public KpiIngestionPipeline(KpiStore store) {
+        this(store::addAll, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * @param capacity most events that can wait in the queue
+     * @param batchSize most events converted and written per sink call
+     */
+    public KpiIngestionPipeline(KpiSink sink, int capacity, int batchSize, OverflowPolicy policy) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be >= 1");
+        }
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.policy = policy;
+        this.worker = new Thread(this::run, "learnmax-kpi-ingest");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // ==================== PUBLISHING ====================
+
+    @Override
+    public void onAssessmentAdded(String studentId, Assessment assessment) {
+        publishAssessment(studentId, assessment.getSubject(), assessment.getAssessmentType(),
+                assessment.getScore(), assessment.getDateRecorded());
+    }
+
+    @Override
+    public void onActivityCompleted(LabActivity activity, LabExercise exercise) {
+        publishLabCompletion(activity.getStudentId(), activity.getExerciseId(),
+                exercise != null ? exercise.getSubject() : null, activity.getScore(),
+                activity.getTimeSpentMinutes(), activity.getAttemptsCount(), activity.getCompletionTime());
+    }
+
+    /**
+     * @param recordedAt null for now
+     * @return false if the event was dropped or the pipeline is closed
+     */
+    public boolean publishAssessment(String studentId, String subject, String assessmentType, int score,
+                                     LocalDateTime recordedAt) {
+        return publish(new KpiEvent(KpiEvent.Kind.ASSESSMENT, studentId, subject, assessmentType, score, 0, 0,
+                recordedAt));
+    }
+
+    /**
+     * @param completedAt null for now
+     * @return false if the event was dropped or the pipeline is closed
+     */
+    public boolean publishLabCompletion(String studentId, String exerciseId, String subject, double score,
+                                        int minutesSpent, int attempts, LocalDateTime completedAt) {
+        return publish(new KpiEvent(KpiEvent.Kind.LAB_COMPLETION, studentId, subject, exerciseId, score,
+                minutesSpent, attempts, completedAt));
+    }
+
+    private boolean publish(KpiEvent event) {
+        if (closed || event.studentId == null) {
+            dropped.increment();
+            return false;
+        }
+
+        boolean queued = queue.offer(event);
+        if (!queued) {
+            switch (policy) {
+                case BLOCK:
+                    queued = putBlocking(event);
+                    break;
+                case DROP_OLDEST:
+                    while (!(queued = queue.offer(event))) {
+                        if (queue.poll() != null) {
+                            dropped.increment();
+                            finished.incrementAndGet();
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (queued) {
+            accepted.incrementAndGet();
+        } else {
+            dropped.increment();
+        }
+        return queued;
+    }
+
+    /**
+     * Wait for room, giving up if the pipeline closes or the thread is interrupted
+     */
+    private boolean putBlocking(KpiEvent event) {
+        try {
+            while (!closed) {
+                if (queue.offer(event, 50, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    // ==================== CONSUMER ====================
+
+    private void run() {
+        List<KpiEvent> events = new ArrayList<>(batchSize);
+        List<KpiDataPoint> points = new ArrayList<>(batchSize * 4);
+        while (true) {
+            KpiEvent first = closed ? queue.poll() : take();
+            if (first == null) {
+                if (closed && queue.isEmpty()) break;
+                continue;
+            }
+
+            events.add(first);
+            queue.drainTo(events, batchSize - 1);
+            for (KpiEvent event : events) {
+                toPoints(event, points);
+            }
+            try {
+                sink.write(points);
+                pointsWritten.add(points.size());
+            } catch (RuntimeException e) {
+                failedBatches.increment();
+                System.err.println("✗ Error writing KPI batch: " + e.getMessage());
+            }
+            batches.increment();
+            finished.addAndGet(events.size());
+            events.clear();
+            points = new ArrayList<>(batchSize * 4); // The sink may keep the list it was given
+            completeBarriers(false);
+        }
+        completeBarriers(true);
+    }
+
+    /**
+     * Wait for the next event
+     * @return null once close() or another thread interrupts the wait
+     */
+    private KpiEvent take() {
+        synchronized (this) {
+            if (closed) return null;
+            waiting = true;
+        }
+        KpiEvent event;
+        try {
+            event = queue.take();
+        } catch (InterruptedException e) {
+            closed = true; // Treat as a request to drain and stop
+            event = null;
+        }
+        synchronized (this) {
+            waiting = false;
+        }
+        Thread.interrupted(); // close() may interrupt just after take() returns; keep it from the sink
+        return event;
+    }
+
+    private static void toPoints(KpiEvent event, List<KpiDataPoint> points) {
+        LocalDateTime time = event.time != null ? event.time : LocalDateTime.now();
+        if (event.kind == KpiEvent.Kind.ASSESSMENT) {
+            KpiDataPoint score = point(ASSESSMENT_SCORE, event, KpiCategory.ASSESSMENT, event.score, time);
+            if (event.subject != null) score.addMetadata("subject", event.subject);
+            if (event.detail != null) score.addMetadata("assessmentType", event.detail);
+            points.add(score);
+        } else {
+            KpiDataPoint score = point(LAB_SCORE, event, KpiCategory.LAB_ACTIVITY, event.score, time);
+            if (event.subject != null) score.addMetadata("subject", event.subject);
+            if (event.detail != null) score.addMetadata("exerciseId", event.detail);
+            points.add(score);
+            points.add(point(LAB_ATTEMPTS, event, KpiCategory.LAB_ACTIVITY, event.attempts, time));
+            points.add(point(LAB_MINUTES, event, KpiCategory.ENGAGEMENT, event.minutes, time));
+        }
+        points.add(point(ACTIVITY_COUNT, event, KpiCategory.ENGAGEMENT, 1, time));
+    }
+
+    private static KpiDataPoint point(String kpiId, KpiEvent event, KpiCategory category, double value,
+                                      LocalDateTime time) {
+        KpiDataPoint point = new KpiDataPoint(kpiId, event.studentId, EntityType.STUDENT, category, value);
+        point.setTimestamp(time);
+        return point;
+    }
+
+    /**
+     * Complete the flushes whose events are all finished, or every flush once the queue is drained for good
+     */
+    private synchronized void completeBarriers(boolean all) {
+        long done = finished.get();
+        Iterator<Barrier> it = barriers.iterator();
+        while (it.hasNext()) {
+            Barrier barrier = it.next();
+            if (all || barrier.target <= done) {
+                barrier.done.complete(null);
+                it.remove();
+            }
+        }
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * @return completes once every event published before this call has been written
+     *         (or dropped)
+     */
+    public CompletableFuture<Void> flush() {
+        Barrier barrier = new Barrier(accepted.get());
+        synchronized (this) {
+            if (barrier.target <= finished.get() || !worker.isAlive()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            barriers.add(barrier);
+        }
+        return barrier.done;
+    }
+
+    /**
+     * Stop accepting events, write the ones already queued and stop the consumer thread.
+     * An event published while this runs may be dropped. The consumer is interrupted only
+     * while it waits for events, never while the sink is writing.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (waiting) worker.interrupt();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== STATISTICS ====================
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Events accepted into the queue
+     */
+    public long getPublishedCount() {
+        return accepted.get();
+    }
+
+    /**
+     * Events discarded by the overflow policy or published after close
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getPointsWritten() {
+        return pointsWritten.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,14 @@
+package com.learnmax.kpi.ingest;
+
+import com.learnmax.kpi.model.KpiDataPoint;
+
+import java.util.List;
+
+/**
+ * Destination of the points built by {@link KpiIngestionPipeline}, such as
+ * {@code KpiStore::addAll}. Called on the pipeline's consumer thread only.
+ */
+@FunctionalInterface
+public interface KpiSink {
+    void write(List<KpiDataPoint> batch);
+}
@@ -0,0 +1,10 @@
+package com.learnmax.kpi.ingest;
+
+/**
+ * What {@link KpiIngestionPipeline} does with an event published while its queue is full
+ */
+public enum OverflowPolicy {
+    BLOCK,       // Wait for room; the publisher slows down to the consumer's pace
+    DROP_NEWEST, // Discard the event being published
+    DROP_OLDEST  // Discard the oldest queued event to make room
+}
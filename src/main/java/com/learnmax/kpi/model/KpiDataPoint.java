@@ -1,5 +1,7 @@
 package com.learnmax.kpi.model;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -7,6 +9,7 @@ import java.util.Map;
 /**
  * Represents a single KPI data point for performance tracking
  */
+@JsonAdapter(KpiDataPointJsonAdapter.class)
 public class KpiDataPoint {
     
     public enum EntityType {
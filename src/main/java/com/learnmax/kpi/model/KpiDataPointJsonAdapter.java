@@ -0,0 +1,105 @@
+package com.learnmax.kpi.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.learnmax.persistence.JsonStreams.*;
+
+/**
+ * Gson mapping for KpiDataPoint, attached with {@code @JsonAdapter}.
+ *
+ * Fields in declaration order with nulls omitted, as the reflective mapping wrote
+ * them, and the timestamp as an ISO-8601 string ({@code LocalDateTime.toString()}).
+ * Fields missing from the document keep the no-argument constructor's defaults.
+ */
+final class KpiDataPointJsonAdapter extends TypeAdapter<KpiDataPoint> {
+
+    @Override
+    public void write(JsonWriter out, KpiDataPoint point) throws IOException {
+        if (point == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeString(out, "kpiId", point.getKpiId());
+        writeString(out, "entityId", point.getEntityId());
+        writeEnum(out, "entityType", point.getEntityType());
+        writeEnum(out, "category", point.getCategory());
+        out.name("value").value(point.getValue());
+        writeDate(out, "timestamp", point.getTimestamp());
+        Map<String, String> metadata = point.getMetadata();
+        if (metadata != null) {
+            out.name("metadata").beginObject();
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                writeString(out, String.valueOf(entry.getKey()), entry.getValue());
+            }
+            out.endObject();
+        } else if (out.getSerializeNulls()) {
+            out.name("metadata").nullValue();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public KpiDataPoint read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        KpiDataPoint point = new KpiDataPoint();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "kpiId":
+                    point.setKpiId(readString(in));
+                    break;
+                case "entityId":
+                    point.setEntityId(readString(in));
+                    break;
+                case "entityType":
+                    point.setEntityType(readEnum(in, KpiDataPoint.EntityType.class));
+                    break;
+                case "category":
+                    point.setCategory(readEnum(in, KpiDataPoint.KpiCategory.class));
+                    break;
+                case "value":
+                    point.setValue(in.nextDouble());
+                    break;
+                case "timestamp":
+                    point.setTimestamp(readDate(in));
+                    break;
+                case "metadata":
+                    point.setMetadata(readMetadata(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return point;
+    }
+
+    private static Map<String, String> readMetadata(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Map<String, String> metadata = new HashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            metadata.put(key, readString(in));
+        }
+        in.endObject();
+        return metadata;
+    }
+}
@@ -0,0 +1,25 @@
+package com.learnmax.kpi.rollup;
+
+/**
+ * Bucket sizes maintained by {@link KpiRollupEngine}.
+ * Terms follow the engine's {@link TermCalendar}; the others are fixed lengths.
+ */
+public enum Granularity {
+    MINUTE(60_000_000_000L),
+    HOUR(3_600_000_000_000L),
+    DAY(86_400_000_000_000L),
+    TERM(0);
+
+    private final long nanos;
+
+    Granularity(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * Bucket length in nanoseconds, or 0 for terms, which vary in length
+     */
+    long nanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,146 @@
+package com.learnmax.kpi.rollup;
+
+import com.learnmax.kpi.model.KpiDataPoint.EntityType;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Membership mapping that decides which entities a point rolls up into: a student
+ * belongs to teachers and schools, a teacher to schools, a school to a platform, or
+ * any other mapping between entity types.
+ *
+ * A point counts once towards every entity reachable from its own through
+ * memberships, even when several paths lead there (student to teacher to school
+ * and student to school directly). Membership changes apply to points rolled up
+ * afterwards; existing rollups are not restated. Thread-safe: lookups of cached
+ * ancestors are lock-free, membership changes and cache misses take the lock.
+ */
+public final class KpiHierarchy {
+
+    /**
+     * An entity a rollup is kept for
+     */
+    public static final class Entity {
+        private final EntityType type;
+        private final String id;
+
+        public Entity(EntityType type, String id) {
+            this.type = Objects.requireNonNull(type);
+            this.id = Objects.requireNonNull(id);
+        }
+
+        public EntityType getType() {
+            return type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entity)) return false;
+            Entity other = (Entity) o;
+            return type == other.type && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode() * 31 + type.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return type + "=" + id;
+        }
+    }
+
+    private final ConcurrentHashMap<Entity, Set<Entity>> parents = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Entity, List<Entity>> ancestorCache = new ConcurrentHashMap<>();
+
+    /**
+     * Make {@code child} a member of {@code parent}
+     */
+    public synchronized void addMembership(EntityType childType, String childId,
+                                           EntityType parentType, String parentId) {
+        Entity child = new Entity(childType, childId);
+        Entity parent = new Entity(parentType, parentId);
+        if (child.equals(parent)) return;
+        if (parents.computeIfAbsent(child, c -> ConcurrentHashMap.newKeySet()).add(parent)) {
+            ancestorCache.clear();
+        }
+    }
+
+    /**
+     * @return false if {@code child} was not a member of {@code parent}
+     */
+    public synchronized boolean removeMembership(EntityType childType, String childId,
+                                                 EntityType parentType, String parentId) {
+        Set<Entity> of = parents.get(new Entity(childType, childId));
+        if (of == null || !of.remove(new Entity(parentType, parentId))) return false;
+        ancestorCache.clear();
+        return true;
+    }
+
+    /**
+     * Convenience for the usual student mapping; either parent may be null
+     */
+    public void assignStudent(String studentId, String teacherId, String schoolId) {
+        if (teacherId != null) addMembership(EntityType.STUDENT, studentId, EntityType.TEACHER, teacherId);
+        if (schoolId != null) addMembership(EntityType.STUDENT, studentId, EntityType.SCHOOL, schoolId);
+    }
+
+    public void assignTeacher(String teacherId, String schoolId) {
+        addMembership(EntityType.TEACHER, teacherId, EntityType.SCHOOL, schoolId);
+    }
+
+    public void assignSchool(String schoolId, String platformId) {
+        addMembership(EntityType.SCHOOL, schoolId, EntityType.PLATFORM, platformId);
+    }
+
+    /**
+     * Direct parents of an entity
+     */
+    public Set<Entity> getParents(EntityType type, String id) {
+        Set<Entity> of = parents.get(new Entity(type, id));
+        return of != null ? new HashSet<>(of) : Collections.emptySet();
+    }
+
+    /**
+     * Every entity reachable through memberships, nearest first, each once
+     */
+    public List<Entity> getAncestors(EntityType type, String id) {
+        return ancestors(new Entity(type, id));
+    }
+
+    List<Entity> ancestors(Entity entity) {
+        List<Entity> cached = ancestorCache.get(entity);
+        return cached != null ? cached : findAncestors(entity);
+    }
+
+    private synchronized List<Entity> findAncestors(Entity entity) {
+        List<Entity> cached = ancestorCache.get(entity);
+        if (cached != null) return cached;
+
+        List<Entity> found = new ArrayList<>();
+        Set<Entity> seen = new HashSet<>();
+        seen.add(entity);
+        Deque<Entity> pending = new ArrayDeque<>();
+        pending.add(entity);
+        while (!pending.isEmpty()) {
+            Set<Entity> of = parents.get(pending.poll());
+            if (of == null) continue;
+            for (Entity parent : of) {
+                if (seen.add(parent)) {
+                    found.add(parent);
+                    pending.add(parent);
+                }
+            }
+        }
+        List<Entity> ancestors = Collections.unmodifiableList(found);
+        ancestorCache.put(entity, ancestors);
+        return ancestors;
+    }
+}
@@ -0,0 +1,89 @@
+package com.learnmax.kpi.rollup;
+
+import java.time.LocalDateTime;
+
+/**
+ * Count, sum, minimum and maximum of the values in one rollup bucket,
+ * or of several buckets merged together, plus quantiles for KPIs whose
+ * distribution is tracked (see {@link KpiRollupEngine#trackQuantiles})
+ */
+public final class KpiRollup {
+
+    private final LocalDateTime start;
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+    private final QuantileSketch distribution; // Owned by this rollup; null if not tracked
+
+    KpiRollup(LocalDateTime start, long count, double sum, double min, double max,
+              QuantileSketch distribution) {
+        this.start = start;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.distribution = distribution;
+    }
+
+    /**
+     * Start of the bucket, or of the first merged bucket
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getAverage() {
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    public boolean hasQuantiles() {
+        return distribution != null;
+    }
+
+    /**
+     * Estimated quantile, within {@link QuantileSketch#getNormalizedRankError()} in rank
+     * @param q quantile in [0, 1], e.g. 0.9 for the 90th percentile
+     * @return NaN if quantiles are not tracked for this KPI
+     */
+    public double getQuantile(double q) {
+        return distribution != null ? distribution.getQuantile(q) : Double.NaN;
+    }
+
+    /**
+     * @return NaN if quantiles are not tracked for this KPI
+     */
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+
+    /**
+     * A copy of the sketch behind {@link #getQuantile}, for merging with other rollups
+     * @return null if quantiles are not tracked for this KPI
+     */
+    public QuantileSketch getDistribution() {
+        return distribution != null ? distribution.copy() : null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("KpiRollup[%s] count=%d avg=%.2f min=%.2f max=%.2f",
+                start, count, getAverage(), min, max);
+    }
+}
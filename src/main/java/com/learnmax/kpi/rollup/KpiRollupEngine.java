@@ -0,0 +1,276 @@
+package com.learnmax.kpi.rollup;
+
+import com.learnmax.kpi.model.KpiDataPoint;
+import com.learnmax.kpi.model.KpiDataPoint.EntityType;
+import com.learnmax.kpi.rollup.KpiHierarchy.Entity;
+import com.learnmax.kpi.store.KpiStore;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-aggregated KPI values, kept up to date as points arrive.
+ *
+ * For every (kpiId, entity) the engine keeps count, sum, minimum and maximum per
+ * minute, hour, day and term. A point updates its own entity and, through the
+ * {@link KpiHierarchy}, every teacher, school and platform it belongs to, so a school
+ * dashboard reads a few buckets instead of every student's raw points. The cost of a
+ * point is one bucket update per granularity per entity it reaches.
+ *
+ * For KPIs registered with {@link #trackQuantiles} each bucket also keeps a
+ * {@link QuantileSketch}, so medians and percentiles for any entity and range come
+ * from merging the sketches of the buckets {@link #summarize} reads rather than
+ * sorting raw values. A sketch holds at most about 600 values (k = 200).
+ *
+ * Attach the engine to a {@link KpiStore} to roll up each point the store accepts, or
+ * feed it directly. Thread-safe; each (kpiId, entity) is updated under its own lock.
+ */
+public final class KpiRollupEngine {
+
+    private static final Granularity[] GRANULARITIES = Granularity.values();
+
+    private static final class RollupKey {
+        final String kpiId;
+        final Entity entity;
+
+        RollupKey(String kpiId, Entity entity) {
+            this.kpiId = kpiId;
+            this.entity = entity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RollupKey)) return false;
+            RollupKey other = (RollupKey) o;
+            return kpiId.equals(other.kpiId) && entity.equals(other.entity);
+        }
+
+        @Override
+        public int hashCode() {
+            return kpiId.hashCode() * 31 + entity.hashCode();
+        }
+    }
+
+    /**
+     * One RollupColumns per granularity; guarded by its own monitor
+     */
+    private static final class Rollups {
+        final RollupColumns[] columns = new RollupColumns[GRANULARITIES.length];
+
+        Rollups(boolean quantiles) {
+            for (int g = 0; g < columns.length; g++) {
+                columns[g] = new RollupColumns(quantiles);
+            }
+        }
+    }
+
+    private final KpiHierarchy hierarchy;
+    private final TermCalendar terms;
+    private final ConcurrentHashMap<RollupKey, Rollups> rollups = new ConcurrentHashMap<>();
+    private final LongAdder points = new LongAdder();
+    private final Set<String> quantileKpis = ConcurrentHashMap.newKeySet();
+
+    public KpiRollupEngine(KpiHierarchy hierarchy) {
+        this(hierarchy, TermCalendar.quarterly());
+    }
+
+    public KpiRollupEngine(KpiHierarchy hierarchy, TermCalendar terms) {
+        this.hierarchy = hierarchy;
+        this.terms = terms;
+    }
+
+    public KpiHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Keep a quantile sketch in every bucket of {@code kpiId} from now on. Rollups
+     * that already exist for the KPI stay without one until {@link #rebuild}.
+     * @return false if the KPI was already tracked
+     */
+    public boolean trackQuantiles(String kpiId) {
+        return quantileKpis.add(kpiId);
+    }
+
+    public boolean isTrackingQuantiles(String kpiId) {
+        return quantileKpis.contains(kpiId);
+    }
+
+    // ==================== ROLLING UP ====================
+
+    /**
+     * Roll up every point {@code store} accepts from now on
+     */
+    public void attach(KpiStore store) {
+        store.subscribe((series, time, value) ->
+                add(series.getKpiId(), series.getEntityType(), series.getEntityId(), time, value));
+    }
+
+    /**
+     * Discard all rollups and recompute them from the points in {@code store}.
+     * Points added to the store while this runs may be missed or counted twice.
+     */
+    public void rebuild(KpiStore store) {
+        clear();
+        store.scan(null, null, null, null, null, null, (series, time, value) ->
+                add(series.getKpiId(), series.getEntityType(), series.getEntityId(), time, value));
+    }
+
+    /**
+     * @return false if the point is missing a kpiId, entity or timestamp, or its
+     *         timestamp is out of range
+     */
+    public boolean add(KpiDataPoint point) {
+        if (point == null || point.getKpiId() == null || point.getEntityType() == null
+                || point.getEntityId() == null || point.getTimestamp() == null) {
+            return false;
+        }
+        try {
+            add(point.getKpiId(), point.getEntityType(), point.getEntityId(),
+                    KpiStore.toTime(point.getTimestamp()), point.getValue());
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Roll up one value recorded at {@code time} (see {@link KpiStore#toTime})
+     */
+    public void add(String kpiId, EntityType entityType, String entityId, long time, double value) {
+        long[] starts = new long[GRANULARITIES.length];
+        for (int g = 0; g < starts.length; g++) {
+            starts[g] = bucketStart(GRANULARITIES[g], time);
+        }
+
+        Entity entity = new Entity(entityType, entityId);
+        addTo(kpiId, entity, starts, value);
+        for (Entity ancestor : hierarchy.ancestors(entity)) {
+            addTo(kpiId, ancestor, starts, value);
+        }
+        points.increment();
+    }
+
+    private void addTo(String kpiId, Entity entity, long[] starts, double value) {
+        Rollups target = rollups.computeIfAbsent(new RollupKey(kpiId, entity),
+                k -> new Rollups(quantileKpis.contains(kpiId)));
+        synchronized (target) {
+            for (int g = 0; g < starts.length; g++) {
+                target.columns[g].add(starts[g], value);
+            }
+        }
+    }
+
+    /**
+     * Start of the bucket holding {@code time}, in the same encoding
+     */
+    long bucketStart(Granularity granularity, long time) {
+        if (granularity == Granularity.TERM) {
+            return KpiStore.toTime(terms.termStart(KpiStore.fromTime(time).toLocalDate()).atStartOfDay());
+        }
+        return Math.floorDiv(time, granularity.nanos()) * granularity.nanos();
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * The bucket containing {@code time}
+     * @return null if nothing was rolled up into it
+     */
+    public KpiRollup getRollup(String kpiId, EntityType entityType, String entityId,
+                               Granularity granularity, LocalDateTime time) {
+        Rollups found = rollups.get(new RollupKey(kpiId, new Entity(entityType, entityId)));
+        if (found == null || time == null) return null;
+        long start;
+        try {
+            start = bucketStart(granularity, KpiStore.toTime(time));
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        synchronized (found) {
+            return found.columns[granularity.ordinal()].bucket(start);
+        }
+    }
+
+    /**
+     * Non-empty buckets overlapping [from, to), oldest first
+     * @param from inclusive lower bound, or null for no lower bound
+     * @param to exclusive upper bound, or null for no upper bound
+     */
+    public List<KpiRollup> getRollups(String kpiId, EntityType entityType, String entityId,
+                                      Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        Rollups found = rollups.get(new RollupKey(kpiId, new Entity(entityType, entityId)));
+        if (found == null) return Collections.emptyList();
+        long fromTime = from != null ? clamp(from) : Long.MIN_VALUE;
+        long fromStart = fromTime == Long.MIN_VALUE ? fromTime : bucketStart(granularity, fromTime);
+        long toTime = to != null ? clamp(to) : Long.MAX_VALUE;
+        synchronized (found) {
+            return found.columns[granularity.ordinal()].range(fromStart, toTime);
+        }
+    }
+
+    /**
+     * All values in [from, to) merged into one rollup, read from the coarsest buckets
+     * that line up with both bounds (days, hours or minutes). Bounds inside a minute
+     * are widened to whole minutes. Quantiles, when tracked, come from merging the
+     * same buckets' sketches.
+     * @return null if nothing was rolled up in the range
+     */
+    public KpiRollup summarize(String kpiId, EntityType entityType, String entityId,
+                               LocalDateTime from, LocalDateTime to) {
+        Rollups found = rollups.get(new RollupKey(kpiId, new Entity(entityType, entityId)));
+        if (found == null) return null;
+        long fromTime = from != null ? clamp(from) : Long.MIN_VALUE;
+        long toTime = to != null ? clamp(to) : Long.MAX_VALUE;
+
+        Granularity granularity = Granularity.MINUTE;
+        for (Granularity candidate : new Granularity[] {Granularity.DAY, Granularity.HOUR}) {
+            if (aligned(candidate, fromTime) && aligned(candidate, toTime)) {
+                granularity = candidate;
+                break;
+            }
+        }
+        long fromStart = fromTime == Long.MIN_VALUE ? fromTime : bucketStart(granularity, fromTime);
+        long toEnd = toTime == Long.MAX_VALUE || aligned(granularity, toTime)
+                ? toTime : bucketStart(granularity, toTime) + granularity.nanos();
+        synchronized (found) {
+            return found.columns[granularity.ordinal()].merge(fromStart, toEnd);
+        }
+    }
+
+    private static boolean aligned(Granularity granularity, long time) {
+        return time == Long.MIN_VALUE || time == Long.MAX_VALUE || Math.floorMod(time, granularity.nanos()) == 0;
+    }
+
+    private static long clamp(LocalDateTime time) {
+        try {
+            return KpiStore.toTime(time);
+        } catch (ArithmeticException e) {
+            return time.getYear() < 1970 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Number of points rolled up
+     */
+    public long getPointCount() {
+        return points.sum();
+    }
+
+    /**
+     * Number of (kpiId, entity) pairs with rollups
+     */
+    public int getRollupCount() {
+        return rollups.size();
+    }
+
+    public void clear() {
+        rollups.clear();
+        points.reset();
+    }
+}
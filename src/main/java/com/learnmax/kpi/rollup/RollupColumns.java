@@ -0,0 +1,144 @@
+package com.learnmax.kpi.rollup;
+
+import com.learnmax.kpi.store.KpiStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The buckets of one granularity for one (KPI, entity), as parallel primitive arrays
+ * sorted by bucket start (nanoseconds since 1970-01-01T00:00), 36 bytes a bucket.
+ *
+ * Points arriving in time order update the last bucket or append one; an older
+ * point binary searches for its bucket and may shift later buckets up.
+ * Buckets of KPIs with quantile tracking also keep a {@link QuantileSketch} each.
+ * Not thread-safe; KpiRollupEngine guards it.
+ */
+final class RollupColumns {
+
+    private final boolean quantiles;
+
+    private int size;
+    private long[] starts = new long[0];
+    private int[] counts = new int[0];
+    private double[] sums = new double[0];
+    private double[] mins = new double[0];
+    private double[] maxs = new double[0];
+    private QuantileSketch[] sketches = new QuantileSketch[0];
+
+    RollupColumns(boolean quantiles) {
+        this.quantiles = quantiles;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(long start, double value) {
+        int i = size > 0 && starts[size - 1] == start ? size - 1 : lowerBound(start);
+        if (i == size || starts[i] != start) {
+            open(i, start);
+        }
+        counts[i]++;
+        sums[i] += value;
+        if (value < mins[i]) mins[i] = value;
+        if (value > maxs[i]) maxs[i] = value;
+        if (quantiles) sketches[i].update(value);
+    }
+
+    /**
+     * Insert an empty bucket at slot {@code i}
+     */
+    private void open(int i, long start) {
+        if (size == starts.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            starts = Arrays.copyOf(starts, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxs = Arrays.copyOf(maxs, capacity);
+            if (quantiles) sketches = Arrays.copyOf(sketches, capacity);
+        }
+        int count = size - i;
+        System.arraycopy(starts, i, starts, i + 1, count);
+        System.arraycopy(counts, i, counts, i + 1, count);
+        System.arraycopy(sums, i, sums, i + 1, count);
+        System.arraycopy(mins, i, mins, i + 1, count);
+        System.arraycopy(maxs, i, maxs, i + 1, count);
+        if (quantiles) {
+            System.arraycopy(sketches, i, sketches, i + 1, count);
+            sketches[i] = new QuantileSketch();
+        }
+        starts[i] = start;
+        counts[i] = 0;
+        sums[i] = 0;
+        mins[i] = Double.POSITIVE_INFINITY;
+        maxs[i] = Double.NEGATIVE_INFINITY;
+        size++;
+    }
+
+    /**
+     * First bucket starting at or after {@code start}
+     */
+    int lowerBound(long start) {
+        if (size == 0 || starts[size - 1] < start) return size;
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < start) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return null if there is no bucket starting at {@code start}
+     */
+    KpiRollup bucket(long start) {
+        int i = lowerBound(start);
+        return i < size && starts[i] == start ? get(i) : null;
+    }
+
+    KpiRollup get(int i) {
+        return new KpiRollup(KpiStore.fromTime(starts[i]), counts[i], sums[i], mins[i], maxs[i],
+                quantiles ? sketches[i].copy() : null);
+    }
+
+    /**
+     * Buckets starting in [from, to)
+     */
+    List<KpiRollup> range(long from, long to) {
+        int end = lowerBound(to);
+        List<KpiRollup> found = new ArrayList<>();
+        for (int i = lowerBound(from); i < end; i++) {
+            found.add(get(i));
+        }
+        return found;
+    }
+
+    /**
+     * Buckets starting in [from, to) merged into one
+     * @return null if there are none
+     */
+    KpiRollup merge(long from, long to) {
+        int begin = lowerBound(from);
+        int end = lowerBound(to);
+        if (begin >= end) return null;
+
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        QuantileSketch distribution = quantiles ? new QuantileSketch() : null;
+        for (int i = begin; i < end; i++) {
+            count += counts[i];
+            sum += sums[i];
+            min = Math.min(min, mins[i]);
+            max = Math.max(max, maxs[i]);
+            if (quantiles) distribution.merge(sketches[i]);
+        }
+        return new KpiRollup(KpiStore.fromTime(starts[begin]), count, sum, min, max, distribution);
+    }
+}
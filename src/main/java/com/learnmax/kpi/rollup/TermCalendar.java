@@ -0,0 +1,60 @@
+package com.learnmax.kpi.rollup;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Start dates of school terms, used for {@link Granularity#TERM} rollups.
+ *
+ * A date belongs to the term with the latest start on or before it. Dates before the
+ * first configured start fall back to calendar quarters, which is also what
+ * {@link #quarterly()} uses throughout (close to the four South African school terms).
+ */
+public final class TermCalendar {
+
+    private final long[] startDays; // Epoch days, ascending
+
+    private TermCalendar(long[] startDays) {
+        this.startDays = startDays;
+    }
+
+    public static TermCalendar quarterly() {
+        return new TermCalendar(new long[0]);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no start dates are given
+     */
+    public static TermCalendar of(Collection<LocalDate> termStarts) {
+        TreeSet<LocalDate> sorted = new TreeSet<>(termStarts);
+        if (sorted.isEmpty()) {
+            throw new IllegalArgumentException("At least one term start is required");
+        }
+        long[] days = new long[sorted.size()];
+        int i = 0;
+        for (LocalDate start : sorted) {
+            days[i++] = start.toEpochDay();
+        }
+        return new TermCalendar(days);
+    }
+
+    /**
+     * First day of the term containing {@code date}
+     */
+    public LocalDate termStart(LocalDate date) {
+        long day = date.toEpochDay();
+        int low = 0;
+        int high = startDays.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startDays[mid] <= day) low = mid + 1;
+            else high = mid;
+        }
+        if (low > 0) {
+            return LocalDate.ofEpochDay(startDays[low - 1]);
+        }
+        int quarterMonth = (date.getMonthValue() - 1) / 3 * 3 + 1;
+        return LocalDate.of(date.getYear(), quarterMonth, 1);
+    }
+}
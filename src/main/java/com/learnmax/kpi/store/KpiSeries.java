@@ -0,0 +1,353 @@
+package com.learnmax.kpi.store;
+
+import com.learnmax.kpi.model.KpiDataPoint;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The values of one KPI for one entity, stored as time-ordered chunks of primitive columns.
+ *
+ * Each chunk holds up to {@link #CHUNK_SIZE} timestamps (nanoseconds since
+ * 1970-01-01T00:00, see {@link KpiStore#toTime}) in a long[] and the matching values in
+ * a double[], so a point costs 16 bytes instead of a KpiDataPoint with its
+ * LocalDateTime and metadata map. Chunks never overlap in time, which lets a range scan
+ * binary search for its first chunk and then read the columns sequentially.
+ *
+ * Metadata tags are stored as a tag-set id from the store's {@link TagDictionary} in a
+ * third int[] column, which a chunk only allocates once one of its points has tags:
+ * tagged points cost 4 more bytes, untagged ones nothing.
+ *
+ * Appending in time order fills the last chunk; the first chunk starts small so that
+ * sparse series stay cheap. An out-of-order point is inserted into the chunk covering
+ * its time, splitting that chunk if it is full. Equal timestamps keep insertion order.
+ * Thread-safe: every method synchronizes on the series.
+ */
+public final class KpiSeries {
+
+    static final int CHUNK_SIZE = 1024;
+    private static final int FIRST_CHUNK_CAPACITY = 8;
+
+    private static final class Chunk {
+        long[] times;
+        double[] values;
+        int[] tagSets; // Null while every point in the chunk is untagged
+        int size;
+
+        Chunk(int capacity) {
+            times = new long[capacity];
+            values = new double[capacity];
+        }
+
+        long first() {
+            return times[0];
+        }
+
+        long last() {
+            return times[size - 1];
+        }
+
+        void grow() {
+            int capacity = Math.min(CHUNK_SIZE, times.length * 2);
+            times = Arrays.copyOf(times, capacity);
+            values = Arrays.copyOf(values, capacity);
+            if (tagSets != null) tagSets = Arrays.copyOf(tagSets, capacity);
+        }
+
+        int tagSet(int i) {
+            return tagSets != null ? tagSets[i] : TagDictionary.EMPTY;
+        }
+
+        void setTagSet(int i, int tagSet) {
+            if (tagSets == null) {
+                if (tagSet == TagDictionary.EMPTY) return;
+                tagSets = new int[times.length];
+            }
+            tagSets[i] = tagSet;
+        }
+
+        /**
+         * First slot at or after {@code time}
+         */
+        int lowerBound(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] < time) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * First slot strictly after {@code time}
+         */
+        int upperBound(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] <= time) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+
+    private final String kpiId;
+    private final KpiDataPoint.EntityType entityType;
+    private final String entityId;
+    private final KpiDataPoint.KpiCategory category;
+
+    private Chunk[] chunks = new Chunk[1];
+    private int chunkCount;
+    private int size;
+    private int[] seenTagSets = new int[0]; // Distinct tag sets of this series' points
+
+    KpiSeries(String kpiId, KpiDataPoint.EntityType entityType, String entityId, KpiDataPoint.KpiCategory category) {
+        this.kpiId = kpiId;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.category = category;
+    }
+
+    public String getKpiId() {
+        return kpiId;
+    }
+
+    public KpiDataPoint.EntityType getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public KpiDataPoint.KpiCategory getCategory() {
+        return category;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return null if the series is empty
+     */
+    public synchronized LocalDateTime getFirstTimestamp() {
+        return size > 0 ? KpiStore.fromTime(chunks[0].first()) : null;
+    }
+
+    /**
+     * @return null if the series is empty
+     */
+    public synchronized LocalDateTime getLastTimestamp() {
+        return size > 0 ? KpiStore.fromTime(chunks[chunkCount - 1].last()) : null;
+    }
+
+    /**
+     * @return true if no earlier point of this series had the tag set {@code tagSet}
+     */
+    synchronized boolean add(long time, double value, int tagSet) {
+        Chunk last = chunkCount > 0 ? chunks[chunkCount - 1] : null;
+        if (last != null && last.last() > time) {
+            insert(time, value, tagSet);
+            return see(tagSet);
+        }
+
+        if (last == null || last.size == CHUNK_SIZE) {
+            last = new Chunk(chunkCount == 0 ? FIRST_CHUNK_CAPACITY : CHUNK_SIZE);
+            insertChunk(chunkCount, last);
+        } else if (last.size == last.times.length) {
+            last.grow();
+        }
+        last.times[last.size] = time;
+        last.values[last.size] = value;
+        last.setTagSet(last.size, tagSet);
+        last.size++;
+        size++;
+        return see(tagSet);
+    }
+
+    private boolean see(int tagSet) {
+        if (tagSet == TagDictionary.EMPTY) return false;
+        for (int seen : seenTagSets) {
+            if (seen == tagSet) return false;
+        }
+        seenTagSets = Arrays.copyOf(seenTagSets, seenTagSets.length + 1);
+        seenTagSets[seenTagSets.length - 1] = tagSet;
+        return true;
+    }
+
+    /**
+     * @return true if some point of this series has one of {@code tagSets}
+     */
+    synchronized boolean hasAnyTagSet(BitSet tagSets) {
+        for (int seen : seenTagSets) {
+            if (tagSets.get(seen)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Insert a point older than the newest one, after any points with the same time
+     */
+    private void insert(long time, double value, int tagSet) {
+        int c = chunkStartingAtOrBefore(time);
+        Chunk chunk = chunks[c];
+        if (chunk.size == chunk.times.length) {
+            if (chunk.size < CHUNK_SIZE) {
+                chunk.grow();
+            } else {
+                split(c);
+                if (time >= chunks[c + 1].first()) {
+                    chunk = chunks[c + 1];
+                }
+            }
+        }
+
+        int i = chunk.upperBound(time);
+        System.arraycopy(chunk.times, i, chunk.times, i + 1, chunk.size - i);
+        System.arraycopy(chunk.values, i, chunk.values, i + 1, chunk.size - i);
+        if (chunk.tagSets != null) {
+            System.arraycopy(chunk.tagSets, i, chunk.tagSets, i + 1, chunk.size - i);
+            chunk.tagSets[i] = TagDictionary.EMPTY;
+        }
+        chunk.times[i] = time;
+        chunk.values[i] = value;
+        chunk.setTagSet(i, tagSet);
+        chunk.size++;
+        size++;
+    }
+
+    /**
+     * Move the upper half of a full chunk into a new chunk right after it
+     */
+    private void split(int c) {
+        Chunk full = chunks[c];
+        int half = full.size / 2;
+        Chunk upper = new Chunk(CHUNK_SIZE);
+        upper.size = full.size - half;
+        System.arraycopy(full.times, half, upper.times, 0, upper.size);
+        System.arraycopy(full.values, half, upper.values, 0, upper.size);
+        if (full.tagSets != null) {
+            upper.tagSets = new int[CHUNK_SIZE];
+            System.arraycopy(full.tagSets, half, upper.tagSets, 0, upper.size);
+        }
+        full.size = half;
+        insertChunk(c + 1, upper);
+    }
+
+    private void insertChunk(int c, Chunk chunk) {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        System.arraycopy(chunks, c, chunks, c + 1, chunkCount - c);
+        chunks[c] = chunk;
+        chunkCount++;
+    }
+
+    /**
+     * Last chunk whose first time is at or before {@code time}, or 0 if there is none
+     */
+    private int chunkStartingAtOrBefore(long time) {
+        int low = 0;
+        int high = chunkCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks[mid].first() <= time) low = mid + 1;
+            else high = mid;
+        }
+        return Math.max(0, low - 1);
+    }
+
+    /**
+     * First chunk holding a time at or after {@code time}; chunkCount if there is none
+     */
+    private int chunkEndingAtOrAfter(long time) {
+        int low = 0;
+        int high = chunkCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks[mid].last() < time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Visit the points in [from, to), oldest first. The series stays locked while the
+     * visitor runs, so the visitor must not add to this series.
+     * @return number of points visited
+     */
+    public synchronized int scan(long from, long to, KpiStore.PointVisitor visitor) {
+        int visited = 0;
+        int start = chunkEndingAtOrAfter(from);
+        for (int c = start; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            for (int i = c == start ? chunk.lowerBound(from) : 0; i < chunk.size; i++) {
+                long time = chunk.times[i];
+                if (time >= to) return visited;
+                visitor.visit(this, time, chunk.values[i]);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Visit the points in [from, to) whose tag set is in {@code tagSets}, or every point
+     * if it is null, with their tag-set ids. Locking as in {@link #scan(long, long, KpiStore.PointVisitor)}.
+     * @return number of points visited
+     */
+    synchronized int scan(long from, long to, BitSet tagSets, KpiStore.TaggedPointVisitor visitor) {
+        int visited = 0;
+        int start = chunkEndingAtOrAfter(from);
+        for (int c = start; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            if (tagSets != null && chunk.tagSets == null && !tagSets.get(TagDictionary.EMPTY)) {
+                if (chunk.size > 0 && chunk.last() >= to) return visited;
+                continue; // No tagged points to match here
+            }
+            for (int i = c == start ? chunk.lowerBound(from) : 0; i < chunk.size; i++) {
+                long time = chunk.times[i];
+                if (time >= to) return visited;
+                int tagSet = chunk.tagSet(i);
+                if (tagSets == null || tagSets.get(tagSet)) {
+                    visitor.visit(this, time, chunk.values[i], tagSet);
+                    visited++;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Number of points in [from, to), found without reading the points in between
+     */
+    public synchronized int count(long from, long to) {
+        return position(to) - position(from);
+    }
+
+    /**
+     * Number of points strictly before {@code time}
+     */
+    private int position(long time) {
+        int c = chunkEndingAtOrAfter(time);
+        int before = 0;
+        if (c < chunkCount / 2) {
+            for (int i = 0; i < c; i++) before += chunks[i].size;
+        } else {
+            before = size;
+            for (int i = c; i < chunkCount; i++) before -= chunks[i].size;
+        }
+        return c < chunkCount ? before + chunks[c].lowerBound(time) : before;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("KpiSeries[%s] %s=%s %s (%d points)", kpiId, entityType, entityId, category, size());
+    }
+}
@@ -0,0 +1,458 @@
+package com.learnmax.kpi.store;
+
+import com.learnmax.kpi.model.KpiDataPoint;
+import com.learnmax.kpi.model.KpiDataPoint.EntityType;
+import com.learnmax.kpi.model.KpiDataPoint.KpiCategory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory time-series store for KPI data points.
+ *
+ * Points are grouped into one {@link KpiSeries} per (kpiId, entity type, entity id,
+ * category) and kept there as primitive timestamp and value columns, about 16 bytes a
+ * point. Point metadata is stored as tags: keys, values and each distinct combination
+ * of them are interned in the store's {@link TagDictionary}, and a tagged point keeps
+ * only its 4-byte tag-set id. Series are indexed by kpiId, by entity, by entity type,
+ * by category and by tag; a query starts from the narrowest index its filters allow,
+ * then binary searches each matching series for the start of its time range. A tag
+ * filter such as subject=Mathematics also skips the points of a matching series whose
+ * tags differ.
+ *
+ * Timestamps are held as nanoseconds since 1970-01-01T00:00 (see {@link #toTime}),
+ * which covers the years 1678 to 2261; points outside that span are rejected.
+ * Listeners registered with {@link #subscribe} see every stored point as it arrives.
+ * Adding and querying are thread-safe. {@link #clear} is not atomic with respect to
+ * concurrent adds.
+ */
+public final class KpiStore {
+
+    /**
+     * Receives the points of a scan, oldest first within each series
+     */
+    @FunctionalInterface
+    public interface PointVisitor {
+        void visit(KpiSeries series, long time, double value);
+    }
+
+    /**
+     * A PointVisitor that also receives the point's tag-set id
+     */
+    @FunctionalInterface
+    interface TaggedPointVisitor {
+        void visit(KpiSeries series, long time, double value, int tagSet);
+    }
+
+    private static final class SeriesKey {
+        final String kpiId;
+        final EntityType entityType;
+        final String entityId;
+        final KpiCategory category;
+
+        SeriesKey(String kpiId, EntityType entityType, String entityId, KpiCategory category) {
+            this.kpiId = kpiId;
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.category = category;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SeriesKey)) return false;
+            SeriesKey other = (SeriesKey) o;
+            return entityType == other.entityType && category == other.category
+                    && kpiId.equals(other.kpiId) && entityId.equals(other.entityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((kpiId.hashCode() * 31 + entityId.hashCode()) * 31 + entityType.hashCode()) * 31
+                    + category.hashCode();
+        }
+    }
+
+    private static final BitSet NO_MATCH = new BitSet(0); // Tag filter naming a tag never stored
+
+    private final ConcurrentHashMap<SeriesKey, KpiSeries> series = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<KpiSeries>> byKpi = new ConcurrentHashMap<>();
+    private final Map<EntityType, ConcurrentHashMap<String, Set<KpiSeries>>> byEntity = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, Set<KpiSeries>> byEntityType = new EnumMap<>(EntityType.class);
+    private final Map<KpiCategory, Set<KpiSeries>> byCategory = new EnumMap<>(KpiCategory.class);
+    private final ConcurrentHashMap<Integer, Set<KpiSeries>> byTag = new ConcurrentHashMap<>();
+    private final TagDictionary tags = new TagDictionary();
+    private final LongAdder points = new LongAdder();
+    private final List<PointVisitor> listeners = new CopyOnWriteArrayList<>();
+
+    public KpiStore() {
+        for (EntityType type : EntityType.values()) {
+            byEntity.put(type, new ConcurrentHashMap<>());
+            byEntityType.put(type, ConcurrentHashMap.newKeySet());
+        }
+        for (KpiCategory category : KpiCategory.values()) {
+            byCategory.put(category, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    // ==================== ADDING POINTS ====================
+
+    /**
+     * Store a data point's value and metadata under its KPI, entity and category
+     * @return false if the point is missing a kpiId, entity, category or timestamp,
+     *         or its timestamp is out of range
+     */
+    public boolean add(KpiDataPoint point) {
+        return point != null && add(point.getKpiId(), point.getEntityType(), point.getEntityId(),
+                point.getCategory(), point.getTimestamp(), point.getValue(), point.getMetadata());
+    }
+
+    /**
+     * Store one untagged value without building a KpiDataPoint
+     * @return false if an argument is null or the timestamp is out of range
+     */
+    public boolean add(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                       LocalDateTime timestamp, double value) {
+        return add(kpiId, entityType, entityId, category, timestamp, value, null);
+    }
+
+    /**
+     * Store one value with metadata tags without building a KpiDataPoint
+     * @param metadata tags such as subject=Mathematics, or null for none
+     * @return false if an argument other than metadata is null or the timestamp is out of range
+     */
+    public boolean add(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                       LocalDateTime timestamp, double value, Map<String, String> metadata) {
+        if (kpiId == null || entityType == null || entityId == null || category == null || timestamp == null) {
+            return false;
+        }
+        long time;
+        try {
+            time = toTime(timestamp);
+        } catch (ArithmeticException e) {
+            return false;
+        }
+
+        KpiSeries target = series.computeIfAbsent(new SeriesKey(kpiId, entityType, entityId, category),
+                this::createSeries);
+        int tagSet = tags.encode(metadata);
+        if (target.add(time, value, tagSet)) {
+            for (int tagId : tags.tagIdsOf(tagSet)) {
+                byTag.computeIfAbsent(tagId, t -> ConcurrentHashMap.newKeySet()).add(target);
+            }
+        }
+        points.increment();
+        for (PointVisitor listener : listeners) {
+            listener.visit(target, time, value);
+        }
+        return true;
+    }
+
+    /**
+     * @return number of points stored
+     */
+    public int addAll(Collection<KpiDataPoint> dataPoints) {
+        int added = 0;
+        for (KpiDataPoint point : dataPoints) {
+            if (add(point)) added++;
+        }
+        return added;
+    }
+
+    private KpiSeries createSeries(SeriesKey key) {
+        KpiSeries created = new KpiSeries(key.kpiId, key.entityType, key.entityId, key.category);
+        byKpi.computeIfAbsent(key.kpiId, k -> ConcurrentHashMap.newKeySet()).add(created);
+        byEntity.get(key.entityType).computeIfAbsent(key.entityId, e -> ConcurrentHashMap.newKeySet()).add(created);
+        byEntityType.get(key.entityType).add(created);
+        byCategory.get(key.category).add(created);
+        return created;
+    }
+
+    /**
+     * Call {@code listener} for every point stored from now on, on the adding thread
+     * and outside the series lock. Points already stored are not replayed.
+     */
+    public void subscribe(PointVisitor listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(PointVisitor listener) {
+        listeners.remove(listener);
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Series matching every non-null filter; all filters null returns every series
+     */
+    public List<KpiSeries> findSeries(String kpiId, EntityType entityType, String entityId, KpiCategory category) {
+        return findSeries(kpiId, entityType, entityId, category, null);
+    }
+
+    /**
+     * Series matching every non-null filter with at least one point carrying all of
+     * {@code tagFilter}'s tags
+     * @param tagFilter tags a point must have, e.g. subject=Mathematics; null or empty for any
+     */
+    public List<KpiSeries> findSeries(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                                      Map<String, String> tagFilter) {
+        BitSet tagSets = matchingTagSets(tagFilter);
+        return tagSets == NO_MATCH ? Collections.emptyList()
+                : findSeries(kpiId, entityType, entityId, category, tagFilter, tagSets);
+    }
+
+    private List<KpiSeries> findSeries(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                                       Map<String, String> tagFilter, BitSet tagSets) {
+        if (kpiId != null && entityType != null && entityId != null && category != null) {
+            KpiSeries found = series.get(new SeriesKey(kpiId, entityType, entityId, category));
+            return found != null && (tagSets == null || found.hasAnyTagSet(tagSets))
+                    ? Collections.singletonList(found) : Collections.emptyList();
+        }
+
+        Collection<KpiSeries> candidates = candidates(kpiId, entityType, entityId, category);
+        if (tagSets != null) {
+            for (int tagId : tags.tagIds(tagFilter)) {
+                Set<KpiSeries> tagged = byTag.getOrDefault(tagId, Collections.emptySet());
+                if (tagged.size() < candidates.size()) candidates = tagged;
+            }
+        }
+        List<KpiSeries> matching = new ArrayList<>(Math.min(candidates.size(), 1024));
+        for (KpiSeries s : candidates) {
+            if ((kpiId == null || kpiId.equals(s.getKpiId()))
+                    && (entityType == null || entityType == s.getEntityType())
+                    && (entityId == null || entityId.equals(s.getEntityId()))
+                    && (category == null || category == s.getCategory())
+                    && (tagSets == null || s.hasAnyTagSet(tagSets))) {
+                matching.add(s);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Tag sets holding every tag of {@code tagFilter}
+     * @return null for no filter, NO_MATCH if a tag has never been stored
+     */
+    private BitSet matchingTagSets(Map<String, String> tagFilter) {
+        if (tagFilter == null || tagFilter.isEmpty()) return null;
+        int[] tagIds = tags.tagIds(tagFilter);
+        return tagIds != null ? tags.tagSetsContaining(tagIds) : NO_MATCH;
+    }
+
+    /**
+     * The smallest index entry that contains every match
+     */
+    private Collection<KpiSeries> candidates(String kpiId, EntityType entityType, String entityId,
+                                             KpiCategory category) {
+        if (entityId != null) {
+            if (entityType != null) {
+                return byEntity.get(entityType).getOrDefault(entityId, Collections.emptySet());
+            }
+            List<KpiSeries> all = new ArrayList<>();
+            for (ConcurrentHashMap<String, Set<KpiSeries>> entities : byEntity.values()) {
+                all.addAll(entities.getOrDefault(entityId, Collections.emptySet()));
+            }
+            return all;
+        }
+        if (kpiId != null) return byKpi.getOrDefault(kpiId, Collections.emptySet());
+        if (entityType != null && category != null) {
+            Set<KpiSeries> ofType = byEntityType.get(entityType);
+            Set<KpiSeries> ofCategory = byCategory.get(category);
+            return ofType.size() <= ofCategory.size() ? ofType : ofCategory;
+        }
+        if (entityType != null) return byEntityType.get(entityType);
+        if (category != null) return byCategory.get(category);
+        return series.values();
+    }
+
+    /**
+     * Visit every point in [from, to) of the matching series, series by series
+     * @param from inclusive lower bound, or null for no lower bound
+     * @param to exclusive upper bound, or null for no upper bound
+     * @return number of points visited
+     */
+    public long scan(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                     LocalDateTime from, LocalDateTime to, PointVisitor visitor) {
+        long fromTime = lowerBound(from);
+        long toTime = upperBound(to);
+        long visited = 0;
+        for (KpiSeries s : findSeries(kpiId, entityType, entityId, category)) {
+            visited += s.scan(fromTime, toTime, visitor);
+        }
+        return visited;
+    }
+
+    /**
+     * Visit every point in [from, to) of the matching series that carries all of
+     * {@code tagFilter}'s tags, series by series
+     * @param tagFilter tags a point must have, e.g. subject=Mathematics; null or empty for any
+     * @return number of points visited
+     */
+    public long scan(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                     Map<String, String> tagFilter, LocalDateTime from, LocalDateTime to, PointVisitor visitor) {
+        return scanTagged(kpiId, entityType, entityId, category, tagFilter, from, to,
+                (s, time, value, tagSet) -> visitor.visit(s, time, value));
+    }
+
+    private long scanTagged(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                            Map<String, String> tagFilter, LocalDateTime from, LocalDateTime to,
+                            TaggedPointVisitor visitor) {
+        BitSet tagSets = matchingTagSets(tagFilter);
+        if (tagSets == NO_MATCH) return 0;
+        long fromTime = lowerBound(from);
+        long toTime = upperBound(to);
+        long visited = 0;
+        for (KpiSeries s : findSeries(kpiId, entityType, entityId, category, tagFilter, tagSets)) {
+            visited += s.scan(fromTime, toTime, tagSets, visitor);
+        }
+        return visited;
+    }
+
+    /**
+     * Number of points in [from, to) of the matching series, counted without reading them
+     */
+    public long count(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                      LocalDateTime from, LocalDateTime to) {
+        long fromTime = lowerBound(from);
+        long toTime = upperBound(to);
+        long counted = 0;
+        for (KpiSeries s : findSeries(kpiId, entityType, entityId, category)) {
+            counted += s.count(fromTime, toTime);
+        }
+        return counted;
+    }
+
+    /**
+     * Number of points in [from, to) of the matching series carrying all of {@code tagFilter}'s
+     * tags; reads the points' tag column when there is a filter
+     */
+    public long count(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                      Map<String, String> tagFilter, LocalDateTime from, LocalDateTime to) {
+        if (tagFilter == null || tagFilter.isEmpty()) {
+            return count(kpiId, entityType, entityId, category, from, to);
+        }
+        return scanTagged(kpiId, entityType, entityId, category, tagFilter, from, to, (s, time, value, tagSet) -> { });
+    }
+
+    /**
+     * The matching points in [from, to) as KpiDataPoint objects with their metadata, oldest first.
+     * Builds an object per point; prefer {@link #scan} for large ranges.
+     */
+    public List<KpiDataPoint> getPoints(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                                        LocalDateTime from, LocalDateTime to) {
+        return getPoints(kpiId, entityType, entityId, category, null, from, to);
+    }
+
+    /**
+     * The matching points in [from, to) carrying all of {@code tagFilter}'s tags, oldest first
+     */
+    public List<KpiDataPoint> getPoints(String kpiId, EntityType entityType, String entityId, KpiCategory category,
+                                        Map<String, String> tagFilter, LocalDateTime from, LocalDateTime to) {
+        List<KpiDataPoint> found = new ArrayList<>();
+        Map<Integer, Map<String, String>> decoded = new HashMap<>();
+        scanTagged(kpiId, entityType, entityId, category, tagFilter, from, to, (s, time, value, tagSet) -> {
+            KpiDataPoint point = new KpiDataPoint(s.getKpiId(), s.getEntityId(), s.getEntityType(),
+                    s.getCategory(), value);
+            point.setTimestamp(fromTime(time));
+            if (tagSet != TagDictionary.EMPTY) {
+                point.getMetadata().putAll(decoded.computeIfAbsent(tagSet, tags::decode));
+            }
+            found.add(point);
+        });
+        found.sort(Comparator.comparing(KpiDataPoint::getTimestamp)
+                .thenComparing(KpiDataPoint::getKpiId)
+                .thenComparing(KpiDataPoint::getEntityId));
+        return found;
+    }
+
+    /**
+     * Points of one KPI across all entities in [from, to), oldest first
+     */
+    public List<KpiDataPoint> getPointsForKpi(String kpiId, LocalDateTime from, LocalDateTime to) {
+        return getPoints(kpiId, null, null, null, from, to);
+    }
+
+    /**
+     * Points of every KPI recorded for one entity in [from, to), oldest first
+     */
+    public List<KpiDataPoint> getPointsForEntity(EntityType entityType, String entityId,
+                                                 LocalDateTime from, LocalDateTime to) {
+        return getPoints(null, entityType, entityId, null, from, to);
+    }
+
+    public Set<String> getKpiIds() {
+        return new TreeSet<>(byKpi.keySet());
+    }
+
+    /**
+     * Every value stored for the tag {@code key}, e.g. the subjects seen, sorted
+     */
+    public Set<String> getTagValues(String key) {
+        return tags.getValues(key);
+    }
+
+    public TagDictionary getTagDictionary() {
+        return tags;
+    }
+
+    /**
+     * Total number of points stored
+     */
+    public long size() {
+        return points.sum();
+    }
+
+    public int getSeriesCount() {
+        return series.size();
+    }
+
+    public void clear() {
+        series.clear();
+        byKpi.clear();
+        byEntity.values().forEach(Map::clear);
+        byEntityType.values().forEach(Set::clear);
+        byCategory.values().forEach(Set::clear);
+        byTag.clear(); // The dictionary keeps its entries; ids stay valid
+        points.reset();
+    }
+
+    // ==================== TIME ENCODING ====================
+
+    /**
+     * Nanoseconds since 1970-01-01T00:00 of a timestamp
+     * @throws ArithmeticException outside the years 1678 to 2261
+     */
+    public static long toTime(LocalDateTime dateTime) {
+        return Math.addExact(Math.multiplyExact(dateTime.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L),
+                dateTime.getNano());
+    }
+
+    public static LocalDateTime fromTime(long time) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1_000_000_000L),
+                (int) Math.floorMod(time, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * A query's lower bound, clamped to the representable range
+     */
+    private static long lowerBound(LocalDateTime from) {
+        if (from == null) return Long.MIN_VALUE;
+        try {
+            return toTime(from);
+        } catch (ArithmeticException e) {
+            return from.getYear() < 1970 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * A query's upper bound, clamped to the representable range
+     */
+    private static long upperBound(LocalDateTime to) {
+        if (to == null) return Long.MAX_VALUE;
+        return lowerBound(to);
+    }
+}
@@ -0,0 +1,218 @@
+package com.learnmax.kpi.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary for KPI metadata tags.
+ *
+ * Each distinct string becomes an int, each distinct key=value pair a tag id, and each
+ * distinct set of tags a tag-set id, so a stored point carries one int however many
+ * tags it has; the strings are kept once per store. Tag-set id 0 is the empty set.
+ * Lookups of known strings, tags and tag sets do not lock; new entries are assigned
+ * ids under the dictionary's monitor. Ids are never reused or removed.
+ */
+public final class TagDictionary {
+
+    public static final int EMPTY = 0;
+
+    /**
+     * Sorted tag ids, compared by content
+     */
+    private static final class TagSetKey {
+        final int[] tagIds;
+        final int hash;
+
+        TagSetKey(int[] tagIds) {
+            this.tagIds = tagIds;
+            this.hash = Arrays.hashCode(tagIds);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TagSetKey && Arrays.equals(tagIds, ((TagSetKey) o).tagIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Integer> stringIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Integer> tagIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<TagSetKey, Integer> tagSetIds = new ConcurrentHashMap<>();
+
+    // Guarded by this; index = id
+    private final List<String> strings = new ArrayList<>();
+    private final List<int[]> tags = new ArrayList<>(); // {keyId, valueId}
+    private final List<int[]> tagSets = new ArrayList<>();
+
+    public TagDictionary() {
+        tagSets.add(new int[0]);
+        tagSetIds.put(new TagSetKey(new int[0]), EMPTY);
+    }
+
+    // ==================== ENCODING ====================
+
+    /**
+     * Id of the set of tags in {@code metadata}, adding it if new. Entries with a null
+     * key or value are skipped.
+     * @return {@link #EMPTY} for a null or empty map
+     */
+    public int encode(Map<String, String> metadata) {
+        if (metadata == null || metadata.isEmpty()) return EMPTY;
+        int[] ids = new int[metadata.size()];
+        int n = 0;
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                ids[n++] = internTag(entry.getKey(), entry.getValue());
+            }
+        }
+        if (n == 0) return EMPTY;
+        ids = n == ids.length ? ids : Arrays.copyOf(ids, n);
+        Arrays.sort(ids);
+
+        TagSetKey key = new TagSetKey(ids);
+        Integer id = tagSetIds.get(key);
+        return id != null ? id : tagSetIds.computeIfAbsent(key, k -> {
+            synchronized (this) {
+                tagSets.add(k.tagIds);
+                return tagSets.size() - 1;
+            }
+        });
+    }
+
+    private int internString(String value) {
+        Integer id = stringIds.get(value);
+        return id != null ? id : stringIds.computeIfAbsent(value, v -> {
+            synchronized (this) {
+                strings.add(v);
+                return strings.size() - 1;
+            }
+        });
+    }
+
+    private int internTag(String key, String value) {
+        long pair = pair(internString(key), internString(value));
+        Integer id = tagIds.get(pair);
+        return id != null ? id : tagIds.computeIfAbsent(pair, p -> {
+            synchronized (this) {
+                tags.add(new int[] {(int) (p >>> 32), (int) p.longValue()});
+                return tags.size() - 1;
+            }
+        });
+    }
+
+    private static long pair(int keyId, int valueId) {
+        return ((long) keyId << 32) | (valueId & 0xFFFFFFFFL);
+    }
+
+    // ==================== LOOKUP ====================
+
+    /**
+     * Id of the tag key=value without adding it
+     * @return -1 if no point has been stored with it
+     */
+    public int tagId(String key, String value) {
+        Integer keyId = key != null ? stringIds.get(key) : null;
+        Integer valueId = value != null ? stringIds.get(value) : null;
+        if (keyId == null || valueId == null) return -1;
+        Integer id = tagIds.get(pair(keyId, valueId));
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Tag ids of {@code filter}, sorted
+     * @return null if a tag is unknown, so nothing can match
+     */
+    int[] tagIds(Map<String, String> filter) {
+        int[] ids = new int[filter.size()];
+        int n = 0;
+        for (Map.Entry<String, String> entry : filter.entrySet()) {
+            int id = tagId(entry.getKey(), entry.getValue());
+            if (id < 0) return null;
+            ids[n++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Tag ids in a tag set, sorted
+     */
+    synchronized int[] tagIdsOf(int tagSetId) {
+        return tagSets.get(tagSetId);
+    }
+
+    /**
+     * Tag sets that contain every one of {@code required}, which must be sorted
+     */
+    synchronized BitSet tagSetsContaining(int[] required) {
+        BitSet matching = new BitSet(tagSets.size());
+        for (int id = 0; id < tagSets.size(); id++) {
+            if (containsAll(tagSets.get(id), required)) {
+                matching.set(id);
+            }
+        }
+        return matching;
+    }
+
+    private static boolean containsAll(int[] tagSet, int[] required) {
+        int i = 0;
+        for (int tag : required) {
+            while (i < tagSet.length && tagSet[i] < tag) i++;
+            if (i == tagSet.length || tagSet[i] != tag) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The tags of a tag set as a new, modifiable map
+     */
+    public synchronized Map<String, String> decode(int tagSetId) {
+        int[] ids = tagSets.get(tagSetId);
+        Map<String, String> metadata = new HashMap<>(Math.max(4, ids.length * 2));
+        for (int id : ids) {
+            int[] tag = tags.get(id);
+            metadata.put(strings.get(tag[0]), strings.get(tag[1]));
+        }
+        return metadata;
+    }
+
+    /**
+     * Every value stored under {@code key}, sorted
+     */
+    public synchronized Set<String> getValues(String key) {
+        Integer keyId = stringIds.get(key);
+        if (keyId == null) return Collections.emptySet();
+        Set<String> values = new TreeSet<>();
+        for (int[] tag : tags) {
+            if (tag[0] == keyId) values.add(strings.get(tag[1]));
+        }
+        return values;
+    }
+
+    public synchronized int getStringCount() {
+        return strings.size();
+    }
+
+    public synchronized int getTagCount() {
+        return tags.size();
+    }
+
+    /**
+     * Number of distinct tag sets, including the empty set
+     */
+    public synchronized int getTagSetCount() {
+        return tagSets.size();
+    }
+}
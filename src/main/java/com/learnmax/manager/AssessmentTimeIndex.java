@@ -0,0 +1,103 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Student;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Which students have assessments on which day, per grade level.
+ *
+ * Each grade keeps a skip list from day (days since 1970-01-01) to the students
+ * with an assessment recorded that day, so a date-range query only visits the days
+ * inside the range and the students listed there. Entries are only ever added while
+ * a student is on the roster; removing a student clears every day it appears on.
+ * Emptied days are kept (there is one per calendar day at most), so a concurrent
+ * add never lands in a set that has already been unlinked. Assessments without a
+ * date are not indexed.
+ *
+ * Students whose history has not been loaded yet are indexed by the span between
+ * their first and last assessment instead, so indexing them does not load them.
+ * Their stored assessments never change, and assessments added later are indexed
+ * by day as usual.
+ */
+class AssessmentTimeIndex {
+
+    private static final class GradeIndex {
+        final ConcurrentSkipListMap<Long, Set<Student>> days = new ConcurrentSkipListMap<>();
+        final ConcurrentHashMap<Student, long[]> unloaded = new ConcurrentHashMap<>(); // First and last day
+    }
+
+    private final ConcurrentHashMap<String, GradeIndex> byGrade = new ConcurrentHashMap<>();
+
+    /**
+     * Index every day the student has an assessment on
+     */
+    void add(String grade, Student student) {
+        GradeIndex index = byGrade.computeIfAbsent(grade, g -> new GradeIndex());
+        if (!student.isHistoryLoaded()) {
+            LocalDateTime first = student.getFirstAssessmentDate();
+            LocalDateTime last = student.getLastAssessmentDate();
+            if (first != null && last != null) {
+                index.unloaded.put(student, new long[] {
+                        first.toLocalDate().toEpochDay(), last.toLocalDate().toEpochDay()});
+            }
+            return;
+        }
+        student.forEachRecordedDay(day -> addDay(index.days, day, student));
+    }
+
+    /**
+     * Index one newly recorded assessment
+     */
+    void add(String grade, Student student, LocalDateTime recordedAt) {
+        if (recordedAt == null) return;
+        addDay(byGrade.computeIfAbsent(grade, g -> new GradeIndex()).days,
+                recordedAt.toLocalDate().toEpochDay(), student);
+    }
+
+    private static void addDay(ConcurrentSkipListMap<Long, Set<Student>> days, long day, Student student) {
+        days.computeIfAbsent(day, d -> ConcurrentHashMap.newKeySet()).add(student);
+    }
+
+    void remove(String grade, Student student) {
+        GradeIndex index = byGrade.get(grade);
+        if (index == null) return;
+        index.unloaded.remove(student);
+        if (!student.isHistoryLoaded()) return; // Nothing was indexed by day
+
+        student.forEachRecordedDay(day -> {
+            Set<Student> students = index.days.get(day);
+            if (students != null) students.remove(student);
+        });
+    }
+
+    void clear() {
+        byGrade.clear();
+    }
+
+    /**
+     * Students with at least one assessment on a day in [fromDay, toDay]
+     * (unloaded students: whose stored span overlaps it)
+     * @param grade folded grade level, or null for every grade
+     */
+    Set<Student> studentsBetween(String grade, long fromDay, long toDay) {
+        Set<Student> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (fromDay > toDay) return found;
+
+        Collection<GradeIndex> grades = grade == null
+                ? byGrade.values()
+                : Collections.singletonList(byGrade.getOrDefault(grade, new GradeIndex()));
+        for (GradeIndex index : grades) {
+            for (Set<Student> students : index.days.subMap(fromDay, true, toDay, true).values()) {
+                found.addAll(students);
+            }
+            index.unloaded.forEach((student, span) -> {
+                if (span[0] <= toDay && span[1] >= fromDay) found.add(student);
+            });
+        }
+        return found;
+    }
+}
@@ -0,0 +1,76 @@
+package com.learnmax.manager;
+
+import java.util.*;
+
+/**
+ * Outcome of a batch mutation: how many items were applied, and why each
+ * rejected item was turned away. Items are identified by their position in
+ * the submitted collection.
+ */
+public class BatchResult {
+
+    /**
+     * One item of a batch that was not applied
+     */
+    public static class Rejection {
+        private final int index;
+        private final String id;
+        private final String reason;
+
+        Rejection(int index, String id, String reason) {
+            this.index = index;
+            this.id = id;
+            this.reason = reason;
+        }
+
+        /**
+         * Position of the item in the submitted collection
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Student ID the item referred to, or null if it had none
+         */
+        public String getId() {
+            return id;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + index + (id != null ? " (" + id + ")" : "") + ": " + reason;
+        }
+    }
+
+    private final int submittedCount;
+    private final List<Rejection> rejections;
+
+    BatchResult(int submittedCount, List<Rejection> rejections) {
+        this.submittedCount = submittedCount;
+        this.rejections = Collections.unmodifiableList(rejections);
+    }
+
+    public int getSubmittedCount() {
+        return submittedCount;
+    }
+
+    public int getAcceptedCount() {
+        return submittedCount - rejections.size();
+    }
+
+    /**
+     * Rejected items in submission order
+     */
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+
+    public boolean isAllAccepted() {
+        return rejections.isEmpty();
+    }
+}
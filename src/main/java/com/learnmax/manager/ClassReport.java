@@ -0,0 +1,229 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Student;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Class performance report computed from a single pass over a student snapshot.
+ *
+ * Each student's overall average is read exactly once; distribution, class average,
+ * top performers and students needing support are all derived from that one array.
+ * The per-student pass can run in parallel for large rosters.
+ */
+public class ClassReport {
+
+    public static final int TOP_PERFORMER_COUNT = 5;
+    public static final double SUPPORT_THRESHOLD = 50;
+
+    /**
+     * A student paired with the overall average captured for this report
+     */
+    public static class StudentAverage {
+        private final Student student;
+        private final double average;
+
+        StudentAverage(Student student, double average) {
+            this.student = student;
+            this.average = average;
+        }
+
+        public Student getStudent() {
+            return student;
+        }
+
+        public double getAverage() {
+            return average;
+        }
+    }
+
+    private final int totalStudents;
+    private final double classAverage;
+    private final int excellent;
+    private final int good;
+    private final int needsImprovement;
+    private final int poor;
+    private final int noData;
+    private final List<StudentAverage> topPerformers;
+    private final List<StudentAverage> needingSupport;
+
+    private ClassReport(int totalStudents, double classAverage, int[] distribution,
+                        List<StudentAverage> topPerformers, List<StudentAverage> needingSupport) {
+        this.totalStudents = totalStudents;
+        this.classAverage = classAverage;
+        this.excellent = distribution[0];
+        this.good = distribution[1];
+        this.needsImprovement = distribution[2];
+        this.poor = distribution[3];
+        this.noData = distribution[4];
+        this.topPerformers = Collections.unmodifiableList(topPerformers);
+        this.needingSupport = Collections.unmodifiableList(needingSupport);
+    }
+
+    /**
+     * Build a report from students in roster order
+     * @param parallel compute per-student averages on the common fork-join pool
+     */
+    public static ClassReport build(List<Student> students, boolean parallel) {
+        int n = students.size();
+        Student[] roster = students.toArray(new Student[0]);
+        double[] averages = new double[n];
+
+        IntStream indices = IntStream.range(0, n);
+        if (parallel) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> averages[i] = roster[i].calculateOverallAverage());
+
+        // Everything below reads the snapshot only
+        double total = 0;
+        int withData = 0;
+        int[] distribution = new int[5];
+        int[] top = new int[Math.min(TOP_PERFORMER_COUNT, n)];
+        int topSize = 0;
+        List<Integer> support = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            double avg = averages[i];
+            if (avg < 0) {
+                distribution[4]++;
+                continue;
+            }
+
+            total += avg;
+            withData++;
+
+            if (avg >= 90) {
+                distribution[0]++;
+            } else if (avg >= 75) {
+                distribution[1]++;
+            } else if (avg >= 50) {
+                distribution[2]++;
+            } else {
+                distribution[3]++;
+            }
+
+            if (avg < SUPPORT_THRESHOLD) {
+                support.add(i);
+            }
+
+            // Bounded insertion into the top list; earlier students win ties
+            if (topSize < top.length || (topSize > 0 && avg > averages[top[topSize - 1]])) {
+                int pos = Math.min(topSize, top.length - 1);
+                while (pos > 0 && avg > averages[top[pos - 1]]) {
+                    top[pos] = top[pos - 1];
+                    pos--;
+                }
+                top[pos] = i;
+                if (topSize < top.length) topSize++;
+            }
+        }
+
+        double classAverage = n == 0 || withData == 0 ? -1 : total / withData;
+
+        List<StudentAverage> topPerformers = new ArrayList<>(topSize);
+        for (int k = 0; k < topSize; k++) {
+            topPerformers.add(new StudentAverage(roster[top[k]], averages[top[k]]));
+        }
+
+        support.sort(Comparator.comparingDouble(i -> averages[i])); // Stable, lowest first
+        List<StudentAverage> needingSupport = new ArrayList<>(support.size());
+        for (int i : support) {
+            needingSupport.add(new StudentAverage(roster[i], averages[i]));
+        }
+
+        return new ClassReport(n, classAverage, distribution, topPerformers, needingSupport);
+    }
+
+    /**
+     * Render the report as text
+     */
+    public String render() {
+        StringBuilder report = new StringBuilder();
+
+        report.append("═══════════════════════════════════════════════════════════════\n");
+        report.append("                    CLASS PERFORMANCE REPORT\n");
+        report.append("═══════════════════════════════════════════════════════════════\n\n");
+
+        report.append("Total Students: ").append(totalStudents).append("\n");
+
+        if (classAverage >= 0) {
+            report.append("Class Average: ").append(String.format("%.2f%%", classAverage)).append("\n\n");
+        } else {
+            report.append("Class Average: No data available\n\n");
+        }
+
+        report.append("Performance Distribution:\n");
+        report.append("  Excellent (90-100):        ").append(excellent).append(" students\n");
+        report.append("  Good (75-89):              ").append(good).append(" students\n");
+        report.append("  Needs Improvement (50-74): ").append(needsImprovement).append(" students\n");
+        report.append("  Requires Attention (<50):  ").append(poor).append(" students\n");
+        report.append("  No Assessment Data:        ").append(noData).append(" students\n\n");
+
+        if (!topPerformers.isEmpty()) {
+            report.append("Top Performers:\n");
+            for (int i = 0; i < topPerformers.size(); i++) {
+                StudentAverage entry = topPerformers.get(i);
+                Student s = entry.getStudent();
+                report.append(String.format("  %d. %s (ID: %s) - %.2f%%\n",
+                    i + 1, s.getName(), s.getId(), entry.getAverage()));
+            }
+            report.append("\n");
+        }
+
+        if (!needingSupport.isEmpty()) {
+            report.append("Students Requiring Additional Support:\n");
+            for (StudentAverage entry : needingSupport) {
+                Student s = entry.getStudent();
+                report.append(String.format("  • %s (ID: %s) - %.2f%%\n",
+                    s.getName(), s.getId(), entry.getAverage()));
+            }
+        }
+
+        report.append("═══════════════════════════════════════════════════════════════\n");
+
+        return report.toString();
+    }
+
+    // Getters
+
+    public int getTotalStudents() {
+        return totalStudents;
+    }
+
+    /**
+     * Mean of per-student averages, -1 if no student has data
+     */
+    public double getClassAverage() {
+        return classAverage;
+    }
+
+    public int getExcellentCount() {
+        return excellent;
+    }
+
+    public int getGoodCount() {
+        return good;
+    }
+
+    public int getNeedsImprovementCount() {
+        return needsImprovement;
+    }
+
+    public int getRequiresAttentionCount() {
+        return poor;
+    }
+
+    public int getNoDataCount() {
+        return noData;
+    }
+
+    public List<StudentAverage> getTopPerformers() {
+        return topPerformers;
+    }
+
+    public List<StudentAverage> getStudentsNeedingSupport() {
+        return needingSupport;
+    }
+}
@@ -0,0 +1,154 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Student;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Students ordered by overall average, kept current as students and assessments change.
+ *
+ * Keys sort by average (highest first), then by the roster sequence number, which
+ * reproduces the ties of a stable sort over the student list. Students with no
+ * assessment data (average -1) are tracked but never ranked. Updates to one student
+ * lock only that student's entry; readers iterate the concurrent skip list without
+ * locking and see each student at either its old or its new position.
+ */
+class PerformanceRanking {
+
+    private static final class RankKey implements Comparable<RankKey> {
+        final double average;
+        final long sequence;
+
+        RankKey(double average, long sequence) {
+            this.average = average;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(RankKey other) {
+            int byAverage = Double.compare(other.average, average);
+            return byAverage != 0 ? byAverage : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class Entry {
+        final long sequence;
+        RankKey key; // Guarded by this; null when unranked
+        boolean removed;
+
+        Entry(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    private final ConcurrentSkipListMap<RankKey, Student> ranked = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Student, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Start tracking a student
+     * @param sequence roster position used to order ties
+     */
+    void add(Student student, long sequence) {
+        entries.putIfAbsent(student, new Entry(sequence));
+        update(student);
+    }
+
+    void remove(Student student) {
+        Entry entry = entries.remove(student);
+        if (entry == null) return;
+
+        synchronized (entry) {
+            entry.removed = true;
+            if (entry.key != null) {
+                ranked.remove(entry.key);
+                entry.key = null;
+            }
+        }
+    }
+
+    /**
+     * Re-rank a student after its assessments changed
+     */
+    void update(Student student) {
+        Entry entry = entries.get(student);
+        if (entry == null) return;
+
+        synchronized (entry) {
+            if (entry.removed) return;
+
+            double average = student.calculateOverallAverage();
+            if (entry.key != null && Double.compare(average, entry.key.average) == 0) return;
+
+            // Insert the new position before dropping the old one so readers never miss the student
+            RankKey key = average >= 0 ? new RankKey(average, entry.sequence) : null;
+            if (key != null) {
+                ranked.put(key, student);
+            }
+            if (entry.key != null) {
+                ranked.remove(entry.key);
+            }
+            entry.key = key;
+        }
+    }
+
+    void clear() {
+        ranked.clear();
+        entries.clear();
+    }
+
+    /**
+     * Highest averages first, at most {@code count} students
+     */
+    List<Student> top(int count) {
+        List<Student> results = new ArrayList<>(Math.max(0, Math.min(count, 64)));
+        if (count <= 0) return results;
+
+        Set<Student> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Student student : ranked.values()) {
+            if (!seen.add(student)) continue; // Caught mid-move
+            results.add(student);
+            if (results.size() == count) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Students with 0 <= average < threshold, lowest first (ties in roster order)
+     */
+    List<Student> below(double threshold) {
+        List<RankKey> keys = new ArrayList<>();
+        List<Student> students = new ArrayList<>();
+        if (!(threshold > 0)) return students;
+
+        // Averages descend through the map, so everything below the threshold is one tail
+        for (Map.Entry<RankKey, Student> e : ranked.tailMap(new RankKey(threshold, Long.MAX_VALUE), false).entrySet()) {
+            keys.add(e.getKey());
+            students.add(e.getValue());
+        }
+
+        // Reverse to ascending averages, then restore roster order within each tie
+        Collections.reverse(keys);
+        Collections.reverse(students);
+        int runStart = 0;
+        for (int i = 1; i <= keys.size(); i++) {
+            if (i == keys.size() || Double.compare(keys.get(i).average, keys.get(runStart).average) != 0) {
+                Collections.reverse(students.subList(runStart, i));
+                Collections.reverse(keys.subList(runStart, i));
+                runStart = i;
+            }
+        }
+
+        List<Student> results = new ArrayList<>(students.size());
+        Set<Student> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Student student : students) {
+            if (seen.add(student)) { // Skip a student caught mid-move
+                results.add(student);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,70 @@
+package com.learnmax.manager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring assigning keys (student IDs or grade levels) to shards.
+ *
+ * Each shard owns a fixed set of points on a 64-bit ring that depends only on the
+ * shard's number, and a key belongs to the shard owning the first point at or after
+ * the key's hash. Growing from N to N+1 shards therefore moves about 1/(N+1) of the
+ * keys, all of them to the new shard, and shrinking moves only the removed shards' keys.
+ */
+final class ShardRing {
+
+    private static final int POINTS_PER_SHARD = 128;
+
+    private final long[] points; // Sorted
+    private final int[] owners;  // Shard owning points[i]
+
+    ShardRing(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int shard = 0; shard < shards; shard++) {
+            for (int point = 0; point < POINTS_PER_SHARD; point++) {
+                ring.put(mix(((long) shard << 32) | point), shard);
+            }
+        }
+
+        points = new long[ring.size()];
+        owners = new int[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> e : ring.entrySet()) {
+            points[i] = e.getKey();
+            owners[i] = e.getValue();
+            i++;
+        }
+    }
+
+    int shardOf(String key) {
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) i = -i - 1;
+        return owners[i == points.length ? 0 : i];
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units, finished with a 64-bit mixer so that
+     * sequential IDs ("S001", "S002", ...) spread over the whole ring
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,531 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+import com.learnmax.persistence.PersistenceService;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Student storage split over several StudentManagers ("shards"), each with its own
+ * snapshot and journal: {@code <dataName>-shard<i>.json} (or {@code .lmx}) and
+ * {@code <dataName>-shard<i>.journal}.
+ *
+ * Students are partitioned by a consistent hash of their ID, or of their grade level
+ * so that a whole grade lives in one shard; grades are hashed, not assigned, so a
+ * shard may hold several grades or none. Shards load, save and checkpoint
+ * independently and in parallel, so a large dataset loads in about the time of its
+ * largest shard, and writes to different shards never contend. Queries fan out to
+ * every shard that can hold a match and merge the answers; ranked queries are K-way
+ * merges of each shard's already-ranked results.
+ *
+ * Shard files are found by number, so the shard count may change between runs:
+ * after loading, students that now belong to another shard are moved there (with
+ * consistent hashing, about 1/N of them when a shard is added).
+ */
+public class ShardedStudentManager {
+
+    /**
+     * What decides a student's shard
+     */
+    public enum Partitioning {
+        STUDENT_ID, // Even spread; a lookup by ID touches one shard
+        GRADE       // Grade level hashed onto the ring; a grade query touches one shard,
+                    // which may also hold other grades
+    }
+
+    private final String dataName;
+    private final StudentManager.SnapshotFormat snapshotFormat;
+    private final StudentManager.LoadMode loadMode;
+    private final Partitioning partitioning;
+    private final ShardRing ring;
+    private final StudentManager[] shards;
+    // GRADE only: the shard holding each ID, which keeps IDs unique across shards
+    private final ConcurrentHashMap<String, StudentManager> owners;
+
+    /**
+     * One shard per core, partitioned by student ID, loading the default data files
+     */
+    public ShardedStudentManager() {
+        this(StudentManager.DEFAULT_DATA_NAME, Runtime.getRuntime().availableProcessors(),
+                Partitioning.STUDENT_ID, true, StudentManager.SnapshotFormat.JSON, StudentManager.LoadMode.EAGER);
+    }
+
+    /**
+     * @param dataName prefix of the shard files
+     * @param shardCount number of shards; about one per core lets loads use every core
+     * @param autoLoad if true, loads every shard's data in parallel
+     */
+    public ShardedStudentManager(String dataName, int shardCount, Partitioning partitioning, boolean autoLoad,
+                                 StudentManager.SnapshotFormat snapshotFormat, StudentManager.LoadMode loadMode) {
+        this.dataName = dataName;
+        this.snapshotFormat = snapshotFormat;
+        this.loadMode = loadMode;
+        this.partitioning = partitioning;
+        this.ring = new ShardRing(shardCount);
+        this.shards = new StudentManager[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new StudentManager(shardName(i), false, snapshotFormat, loadMode);
+        }
+        this.owners = partitioning == Partitioning.GRADE ? new ConcurrentHashMap<>() : null;
+
+        if (autoLoad) {
+            loadData();
+        }
+    }
+
+    private String shardName(int shard) {
+        return dataName + "-shard" + shard;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public Partitioning getPartitioning() {
+        return partitioning;
+    }
+
+    /**
+     * Number of students in each shard
+     */
+    public int[] getShardSizes() {
+        int[] sizes = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            sizes[i] = shards[i].getStudentCount();
+        }
+        return sizes;
+    }
+
+    // ==================== ROUTING ====================
+
+    private int shardIndexOf(Student student) {
+        return partitioning == Partitioning.GRADE
+                ? ring.shardOf(StudentRoster.foldGrade(student.getGradeLevel()))
+                : ring.shardOf(student.getId());
+    }
+
+    /**
+     * The shard holding (or that would hold) a student ID; null in GRADE mode if no shard has it
+     */
+    private StudentManager ownerOf(String id) {
+        return owners != null ? owners.get(id) : shards[ring.shardOf(id)];
+    }
+
+    // ==================== MUTATIONS ====================
+
+    /**
+     * Add a student to its shard unless the ID exists in any shard
+     */
+    public boolean addStudent(Student student) {
+        if (student == null || student.getId() == null) return false;
+
+        StudentManager shard = shards[shardIndexOf(student)];
+        if (owners == null) {
+            return shard.addStudent(student);
+        }
+        if (owners.putIfAbsent(student.getId(), shard) != null) {
+            return false;
+        }
+        if (shard.addStudent(student)) {
+            return true;
+        }
+        owners.remove(student.getId(), shard);
+        return false;
+    }
+
+    public boolean removeStudent(String id) {
+        if (id == null) return false;
+
+        StudentManager shard = ownerOf(id);
+        if (shard == null || !shard.removeStudent(id)) {
+            return false;
+        }
+        if (owners != null) {
+            owners.remove(id, shard);
+        }
+        return true;
+    }
+
+    /**
+     * @see StudentManager#addAssessment
+     */
+    public boolean addAssessment(String studentId, String subject, int score, String assessmentType) {
+        StudentManager shard = studentId != null ? ownerOf(studentId) : null;
+        return shard != null && shard.addAssessment(studentId, subject, score, assessmentType);
+    }
+
+    /**
+     * Add many students: the batch is split by shard and each part is added as one
+     * unit by its shard, in parallel
+     * @see StudentManager#addStudents
+     */
+    public BatchResult addStudents(Collection<Student> newStudents) {
+        List<BatchResult.Rejection> rejections = new ArrayList<>();
+        List<List<Student>> parts = new ArrayList<>(shards.length);
+        List<List<Integer>> positions = new ArrayList<>(shards.length); // Batch index of each part entry
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>());
+            positions.add(new ArrayList<>());
+        }
+
+        Set<String> batchIds = new HashSet<>();
+        int index = 0;
+        for (Student student : newStudents) {
+            if (student == null || student.getId() == null) {
+                rejections.add(new BatchResult.Rejection(index, null, "Missing student or ID"));
+            } else if (!batchIds.add(student.getId())) {
+                rejections.add(new BatchResult.Rejection(index, student.getId(), "Duplicate ID within batch"));
+            } else {
+                int shard = shardIndexOf(student);
+                if (owners != null && owners.putIfAbsent(student.getId(), shards[shard]) != null) {
+                    rejections.add(new BatchResult.Rejection(index, student.getId(), "Student ID already exists"));
+                } else {
+                    parts.get(shard).add(student);
+                    positions.get(shard).add(index);
+                }
+            }
+            index++;
+        }
+
+        BatchResult[] results = new BatchResult[shards.length];
+        onEachShard(i -> {
+            if (!parts.get(i).isEmpty()) {
+                results[i] = shards[i].addStudents(parts.get(i));
+            }
+        });
+
+        for (int i = 0; i < shards.length; i++) {
+            if (results[i] == null) continue;
+            for (BatchResult.Rejection rejection : results[i].getRejections()) {
+                rejections.add(new BatchResult.Rejection(positions.get(i).get(rejection.getIndex()),
+                        rejection.getId(), rejection.getReason()));
+                if (owners != null) {
+                    owners.remove(rejection.getId(), shards[i]);
+                }
+            }
+        }
+        rejections.sort(Comparator.comparingInt(BatchResult.Rejection::getIndex));
+        return new BatchResult(newStudents.size(), rejections);
+    }
+
+    /**
+     * @see StudentManager#addAssessments
+     */
+    public BatchResult addAssessments(String studentId, Collection<Assessment> assessments) {
+        StudentManager shard = studentId != null ? ownerOf(studentId) : null;
+        // No shard has the student: any shard rejects every assessment as "Student not found"
+        return (shard != null ? shard : shards[0]).addAssessments(studentId, assessments);
+    }
+
+    /**
+     * @see StudentManager#refreshStudent
+     */
+    public void refreshStudent(Student student) {
+        StudentManager shard = ownerOf(student.getId());
+        if (shard != null) {
+            shard.refreshStudent(student);
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    public Student findStudentById(String id) {
+        if (id == null) return null;
+
+        StudentManager shard = ownerOf(id);
+        return shard != null ? shard.findStudentById(id) : null;
+    }
+
+    /**
+     * Search students by name (partial match, case-insensitive), shard by shard
+     */
+    public List<Student> searchByName(String nameQuery) {
+        return concat(shard -> shard.searchByName(nameQuery));
+    }
+
+    public List<Student> getStudentsByGrade(String gradeLevel) {
+        if (gradeLevel == null) {
+            return new ArrayList<>();
+        }
+        if (partitioning == Partitioning.GRADE) {
+            return shards[ring.shardOf(StudentRoster.foldGrade(gradeLevel))].getStudentsByGrade(gradeLevel);
+        }
+        return concat(shard -> shard.getStudentsByGrade(gradeLevel));
+    }
+
+    /**
+     * Top performers, highest first: a K-way merge of each shard's top {@code count}
+     */
+    public List<Student> getTopPerformers(int count) {
+        List<List<Student>> ranked = new ArrayList<>(shards.length);
+        for (StudentManager shard : shards) {
+            ranked.add(shard.getTopPerformers(count));
+        }
+        return mergeRanked(ranked, true, count);
+    }
+
+    /**
+     * Students with an average below {@code threshold}, lowest first: a K-way merge
+     * of each shard's ranking
+     */
+    public List<Student> getUnderperformingStudents(double threshold) {
+        List<List<Student>> ranked = new ArrayList<>(shards.length);
+        for (StudentManager shard : shards) {
+            ranked.add(shard.getUnderperformingStudents(threshold));
+        }
+        return mergeRanked(ranked, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @see StudentManager#getAssessmentsBetween
+     */
+    public Map<Student, List<Assessment>> getAssessmentsBetween(String gradeLevel, LocalDateTime from, LocalDateTime to) {
+        if (partitioning == Partitioning.GRADE && gradeLevel != null) {
+            return shards[ring.shardOf(StudentRoster.foldGrade(gradeLevel))].getAssessmentsBetween(gradeLevel, from, to);
+        }
+        Map<Student, List<Assessment>> found = new LinkedHashMap<>();
+        for (StudentManager shard : shards) {
+            found.putAll(shard.getAssessmentsBetween(gradeLevel, from, to));
+        }
+        return found;
+    }
+
+    /**
+     * Every student, shard by shard
+     */
+    public ArrayList<Student> getAllStudents() {
+        return concat(StudentManager::getAllStudents);
+    }
+
+    public int getStudentCount() {
+        int count = 0;
+        for (StudentManager shard : shards) {
+            count += shard.getStudentCount();
+        }
+        return count;
+    }
+
+    public double getClassAverage() {
+        double total = 0;
+        int count = 0;
+        for (StudentManager shard : shards) {
+            for (Student s : shard.getAllStudents()) {
+                double avg = s.calculateOverallAverage();
+                if (avg >= 0) {
+                    total += avg;
+                    count++;
+                }
+            }
+        }
+        return count > 0 ? total / count : -1;
+    }
+
+    public ClassReport buildClassReport() {
+        List<Student> all = getAllStudents();
+        return ClassReport.build(all, all.size() >= StudentManager.PARALLEL_REPORT_THRESHOLD);
+    }
+
+    public String generateClassReport() {
+        return buildClassReport().render();
+    }
+
+    private ArrayList<Student> concat(Function<StudentManager, List<Student>> query) {
+        ArrayList<Student> results = new ArrayList<>();
+        for (StudentManager shard : shards) {
+            results.addAll(query.apply(shard));
+        }
+        return results;
+    }
+
+    /**
+     * Position in one shard's ranked list during a K-way merge
+     */
+    private static final class Cursor {
+        final int shard;
+        final Iterator<Student> rest;
+        Student head;
+        double average;
+
+        Cursor(int shard, Iterator<Student> rest) {
+            this.shard = shard;
+            this.rest = rest;
+        }
+
+        boolean advance() {
+            if (!rest.hasNext()) return false;
+            head = rest.next();
+            average = head.calculateOverallAverage();
+            return true;
+        }
+    }
+
+    /**
+     * Merge lists that are each ordered by overall average; equal averages keep shard order
+     */
+    private static List<Student> mergeRanked(List<List<Student>> ranked, boolean highestFirst, int limit) {
+        Comparator<Cursor> order = (a, b) -> {
+            int byAverage = highestFirst ? Double.compare(b.average, a.average) : Double.compare(a.average, b.average);
+            return byAverage != 0 ? byAverage : Integer.compare(a.shard, b.shard);
+        };
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, ranked.size()), order);
+        for (int i = 0; i < ranked.size(); i++) {
+            Cursor cursor = new Cursor(i, ranked.get(i).iterator());
+            if (cursor.advance()) heads.add(cursor);
+        }
+
+        List<Student> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.head);
+            if (cursor.advance()) heads.add(cursor);
+        }
+        return merged;
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    /**
+     * Load every shard in parallel, then move students whose shard changed
+     * (shard count or partitioning differs from the run that saved them)
+     */
+    public void loadData() {
+        onEachShard(i -> shards[i].loadData());
+
+        int moved = 0;
+        for (int i = 0; i < shards.length; i++) {
+            moved += moveMisplaced(shards[i], i);
+        }
+        // Shards left over from a run with more shards
+        for (int i = shards.length; hasData(shardName(i)); i++) {
+            StudentManager retired = new StudentManager(shardName(i), true, snapshotFormat, loadMode);
+            int fromRetired = moveMisplaced(retired, -1);
+            if (fromRetired > 0) {
+                retired.saveData(); // Leaves an empty snapshot instead of a long journal
+            }
+            retired.close();
+            moved += fromRetired;
+        }
+        if (moved > 0) {
+            System.out.println("✓ Moved " + moved + " students to their new shards");
+        }
+
+        if (owners != null) {
+            owners.clear();
+            for (StudentManager shard : shards) {
+                for (Student student : shard.getAllStudents()) {
+                    owners.putIfAbsent(student.getId(), shard);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the students of {@code source} that belong to another shard. A move adds to
+     * the target before removing from the source, so if the target already holds the
+     * ID an earlier move stopped in between: the target's copy is the one in use, and
+     * the stale copy is dropped.
+     * @param index the source's shard number, or -1 for a retired shard
+     */
+    private int moveMisplaced(StudentManager source, int index) {
+        int moved = 0;
+        for (Student student : source.getAllStudents()) {
+            int target = shardIndexOf(student);
+            if (target == index) continue;
+            if (shards[target].addStudent(student) || shards[target].findStudentById(student.getId()) != null) {
+                source.removeStudent(student.getId());
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private boolean hasData(String name) {
+        return new File(name + ".json").exists() || new File(name + ".lmx").exists()
+                || new File(name + ".journal").exists();
+    }
+
+    /**
+     * Checkpoint every shard in parallel
+     */
+    public void saveData() {
+        onEachShard(i -> shards[i].saveData());
+    }
+
+    /**
+     * @see StudentManager#setPersistenceService
+     */
+    public void setPersistenceService(PersistenceService service) {
+        for (StudentManager shard : shards) {
+            shard.setPersistenceService(service);
+        }
+    }
+
+    /**
+     * @see StudentManager#setAssessmentListener
+     */
+    public void setAssessmentListener(StudentManager.AssessmentListener listener) {
+        for (StudentManager shard : shards) {
+            shard.setAssessmentListener(listener);
+        }
+    }
+
+    /**
+     * @return completes once every shard's changes are durable
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<?>[] flushed = new CompletableFuture<?>[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            flushed[i] = shards[i].flush();
+        }
+        return CompletableFuture.allOf(flushed);
+    }
+
+    public void close() {
+        for (StudentManager shard : shards) {
+            shard.close();
+        }
+    }
+
+    /**
+     * Run {@code task} for every shard number, on up to one thread per core
+     */
+    private void onEachShard(IntConsumer task) {
+        int threads = Math.min(shards.length, Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            for (int i = 0; i < shards.length; i++) {
+                task.accept(i);
+            }
+            return;
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "student-shard-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            CompletableFuture<?>[] done = new CompletableFuture<?>[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                int shard = i;
+                done[i] = CompletableFuture.runAsync(() -> task.accept(shard), workers);
+            }
+            CompletableFuture.allOf(done).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        } finally {
+            workers.shutdown();
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Assessment;
+import com.learnmax.model.StoredHistory;
+import com.learnmax.model.Student;
+import com.learnmax.persistence.Durability;
+import com.learnmax.persistence.PersistenceService;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary snapshot of student data.
+ *
+ * Layout (version 2; all multi-byte fixed-width values big-endian):
+ * <pre>
+ *   header      magic "LMXS", u16 version, u16 flags, u32 student count,
+ *               u64 offset of the index
+ *   histories   per student: varint count and per assessment:
+ *                 varint subject id, u8 score, varint type id (0 = null),
+ *                 zigzag varint weight, timestamp date recorded
+ *   index       dictionary: varint n, then n strings (varint byte length + UTF-8)
+ *               per student:
+ *                 string id, string name, varint grade (dictionary id, 0 = null),
+ *                 timestamp enrollment date,
+ *                 varlong history offset, varint history byte length,
+ *                 varint assessment count, varint subject count, f64 overall average,
+ *                 timestamp first recorded, timestamp last recorded
+ *   timestamp   varint nanos + 1 (0 = null), then zigzag varlong epoch seconds (UTC)
+ * </pre>
+ * Subject, assessment-type and grade-level strings are stored once in the
+ * dictionary. The index at the end holds everything the roster needs (names,
+ * grades, averages, counts) in one contiguous block, so {@link #readIndex} can
+ * start a roster without decoding any history and read each history on demand.
+ * Files are read with positional {@link FileChannel} reads into heap buffers, never
+ * mapped, so no mapping outlives the read and blocks the next snapshot's move.
+ */
+public class StudentBinarySnapshot {
+
+    private static final byte[] MAGIC = {'L', 'M', 'X', 'S'};
+    public static final int VERSION = 2;
+
+    private static final int COUNT_POSITION = 8; // Student count, then index offset
+
+    private StudentBinarySnapshot() {
+    }
+
+    // ==================== WRITING ====================
+
+    /**
+     * Write students to a snapshot file (via a temporary file and an atomic move).
+     * Histories not yet loaded are read one at a time and not kept.
+     */
+    public static void write(Path file, Collection<Student> students) throws IOException {
+        write(file, students, Durability.WRITE);
+    }
+
+    /**
+     * Write students to a snapshot file, forcing it to disk before and after the move
+     * when {@code durability} is FSYNC (see {@link PersistenceService#writeChannelAtomically})
+     */
+    public static void write(Path file, Collection<Student> students, Durability durability) throws IOException {
+        PersistenceService.writeChannelAtomically(file, durability, channel -> writeTo(channel, students));
+    }
+
+    /**
+     * Write a snapshot of {@code students} into a new, empty file
+     */
+    static void writeTo(FileChannel channel, Collection<Student> students) throws IOException {
+        LinkedHashMap<String, Integer> dictionary = new LinkedHashMap<>();
+        List<Student> written = new ArrayList<>(students.size());
+        List<long[]> extents = new ArrayList<>(students.size()); // History offset, length
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        out.write(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+        out.writeInt(0);  // Student count and index offset, filled in below
+        out.writeLong(0);
+
+        // Histories first; dictionary ids are assigned as strings are met
+        long position = out.size();
+        for (Student student : students) {
+            List<Assessment> assessments;
+            try {
+                assessments = student.readAllAssessments();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            int before = out.size();
+            writeVarInt(out, assessments.size());
+            for (Assessment assessment : assessments) {
+                writeVarInt(out, intern(dictionary, assessment.getSubject()));
+                out.writeByte(assessment.getScore());
+                writeVarInt(out, intern(dictionary, assessment.getAssessmentType()));
+                writeVarInt(out, zigZag(assessment.getWeight()));
+                writeTimestamp(out, assessment.getDateRecorded());
+            }
+            int length = out.size() - before;
+            written.add(student);
+            extents.add(new long[] {position, length});
+            position += length;
+        }
+        long indexOffset = position;
+        for (Student student : written) {
+            intern(dictionary, student.getGradeLevel());
+        }
+        writeVarInt(out, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            writeString(out, value);
+        }
+        for (int i = 0; i < written.size(); i++) {
+            Student student = written.get(i);
+            writeString(out, student.getId());
+            writeString(out, student.getName());
+            writeVarInt(out, intern(dictionary, student.getGradeLevel()));
+            writeTimestamp(out, student.getEnrollmentDate());
+            writeVarLong(out, extents.get(i)[0]);
+            writeVarInt(out, (int) extents.get(i)[1]);
+            writeVarInt(out, student.getAssessmentCount());
+            writeVarInt(out, student.getSubjectCount());
+            out.writeDouble(student.calculateOverallAverage());
+            writeTimestamp(out, student.getFirstAssessmentDate());
+            writeTimestamp(out, student.getLastAssessmentDate());
+        }
+        out.flush(); // Not closed: the channel belongs to the caller
+
+        ByteBuffer counts = ByteBuffer.allocate(Integer.BYTES + Long.BYTES)
+                .putInt(written.size())
+                .putLong(indexOffset);
+        counts.flip();
+        while (counts.hasRemaining()) {
+            channel.write(counts, COUNT_POSITION + counts.position());
+        }
+    }
+
+    /**
+     * Dictionary id of a string, assigning the next id if it is new (0 for null)
+     */
+    private static int intern(Map<String, Integer> dictionary, String value) {
+        if (value == null) return 0;
+        Integer id = dictionary.get(value);
+        if (id == null) {
+            id = dictionary.size() + 1;
+            dictionary.put(value, id);
+        }
+        return id;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime time) throws IOException {
+        if (time == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, time.getNano() + 1);
+        writeVarLong(out, zigZag(time.toEpochSecond(ZoneOffset.UTC)));
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // ==================== READING ====================
+
+    /**
+     * Check whether a file starts with the binary snapshot magic number
+     */
+    public static boolean isSnapshot(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            return Arrays.equals(magic, MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Decode every student in the snapshot, in file order
+     * @return number of students delivered to the sink
+     */
+    public static int read(Path file, Consumer<Student> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to read: " + channel.size() + " bytes");
+            }
+            // Read into the heap rather than mapped: a live mapping keeps the file from
+            // being replaced on Windows until it is garbage collected
+            ByteBuffer buffer = readFully(channel, 0, (int) channel.size());
+
+            try {
+                readHeader(buffer);
+                int studentCount = buffer.getInt();
+                buffer.position(checkedOffset(buffer.getLong(), buffer.limit()));
+                return decodeIndex(buffer, studentCount, buffer.duplicate(), null, sink);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new EOFException("Truncated student snapshot");
+            }
+        }
+    }
+
+    /**
+     * Read only the roster index: each student is delivered with its overall average
+     * and counts, and its assessments are read from the file the first time they are
+     * needed (see {@link Student#withStoredHistory}). The file stays open until every
+     * student has loaded its history or the returned handle is closed; replacing it
+     * with a new snapshot is safe, since those students keep reading the old one.
+     * @return handle on the open file, which the caller closes when it drops the students
+     */
+    public static Index readIndex(Path file, Consumer<Student> sink) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        boolean keepOpen = false;
+        try {
+            ByteBuffer header = readFully(channel, 0, MAGIC.length + 2 * Short.BYTES);
+            readHeader(header);
+            ByteBuffer counts = readFully(channel, COUNT_POSITION, Integer.BYTES + Long.BYTES);
+            int studentCount = counts.getInt();
+            long indexOffset = counts.getLong();
+            if (indexOffset < COUNT_POSITION || indexOffset > channel.size()
+                    || channel.size() - indexOffset > Integer.MAX_VALUE) {
+                throw new EOFException("Truncated student snapshot");
+            }
+            ByteBuffer index = readFully(channel, indexOffset, (int) (channel.size() - indexOffset));
+
+            Index handle = new Index(channel, studentCount);
+            decodeIndex(index, studentCount, null, handle, sink);
+            keepOpen = studentCount > 0;
+            return handle;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new EOFException("Truncated student snapshot");
+        } finally {
+            if (!keepOpen) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Check the magic number and version, leaving the buffer after the flags
+     */
+    private static void readHeader(ByteBuffer buffer) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a student snapshot file");
+        }
+        int version = buffer.getShort() & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        buffer.getShort(); // Flags, reserved
+    }
+
+    private static int checkedOffset(long offset, int limit) throws EOFException {
+        if (offset < 0 || offset > limit) {
+            throw new EOFException("Truncated student snapshot");
+        }
+        return (int) offset;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated student snapshot");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decode the index, reading each history either now from {@code file} or later
+     * through {@code histories} (exactly one of the two is given)
+     */
+    private static int decodeIndex(ByteBuffer index, int studentCount, ByteBuffer file, Index histories,
+                                   Consumer<Student> sink) throws IOException {
+        String[] dictionary = readDictionary(index);
+        if (histories != null) {
+            histories.dictionary = dictionary;
+        }
+
+        for (int i = 0; i < studentCount; i++) {
+            String id = readString(index);
+            String name = readString(index);
+            String grade = dictionary[readVarInt(index)];
+            LocalDateTime enrolled = readTimestamp(index);
+            long offset = readVarLong(index);
+            int length = readVarInt(index);
+            int assessmentCount = readVarInt(index);
+            int subjectCount = readVarInt(index);
+            double overallAverage = index.getDouble();
+            LocalDateTime firstRecorded = readTimestamp(index);
+            LocalDateTime lastRecorded = readTimestamp(index);
+
+            Student student;
+            if (histories != null) {
+                student = Student.withStoredHistory(id, name, grade, enrolled,
+                        new StoredHistory(assessmentCount, subjectCount, overallAverage,
+                                firstRecorded, lastRecorded, histories.loader(offset, length)));
+            } else {
+                student = new Student(id, name, grade, enrolled);
+                file.position(checkedOffset(offset, file.limit()));
+                decodeHistory(file, dictionary, student::addAssessment);
+            }
+            sink.accept(student);
+        }
+        return studentCount;
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] dictionary = new String[readVarInt(buffer) + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            dictionary[i] = readString(buffer);
+        }
+        return dictionary;
+    }
+
+    private static void decodeHistory(ByteBuffer buffer, String[] dictionary, Consumer<Assessment> sink) {
+        int assessmentCount = readVarInt(buffer);
+        for (int a = 0; a < assessmentCount; a++) {
+            String subject = dictionary[readVarInt(buffer)];
+            int score = buffer.get() & 0xFF;
+            String type = dictionary[readVarInt(buffer)];
+            int weight = unZigZag(readVarInt(buffer));
+            LocalDateTime recorded = readTimestamp(buffer);
+            sink.accept(new Assessment(subject, score, type, weight, recorded));
+        }
+    }
+
+    /**
+     * Open snapshot that unloaded students read their histories from. The file is closed
+     * once every student has loaded its history, or earlier by {@link #close}; students
+     * still unloaded then fail to load.
+     */
+    public static final class Index implements Closeable {
+        private final FileChannel channel;
+        private final int studentCount;
+        private final AtomicInteger unloaded;
+        private String[] dictionary;
+
+        private Index(FileChannel channel, int studentCount) {
+            this.channel = channel;
+            this.studentCount = studentCount;
+            this.unloaded = new AtomicInteger(studentCount);
+        }
+
+        /**
+         * Number of students delivered to the sink
+         */
+        public int getStudentCount() {
+            return studentCount;
+        }
+
+        /**
+         * False once every history was loaded or the handle was closed
+         */
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        StoredHistory.Loader loader(long offset, int length) {
+            return new StoredHistory.Loader() {
+                @Override
+                public List<Assessment> load() throws IOException {
+                    return read(offset, length);
+                }
+
+                @Override
+                public void release() {
+                    if (unloaded.decrementAndGet() == 0) {
+                        try {
+                            close();
+                        } catch (IOException e) {
+                            System.err.println("✗ Error closing snapshot: " + e.getMessage());
+                        }
+                    }
+                }
+            };
+        }
+
+        private List<Assessment> read(long offset, int length) throws IOException {
+            ByteBuffer buffer = readFully(channel, offset, length);
+            List<Assessment> assessments = new ArrayList<>();
+            try {
+                decodeHistory(buffer, dictionary, assessments::add);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new EOFException("Truncated student history");
+            }
+            return assessments;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static LocalDateTime readTimestamp(ByteBuffer buffer) {
+        int nanosPlusOne = readVarInt(buffer);
+        if (nanosPlusOne == 0) return null;
+        long seconds = unZigZag(readVarLong(buffer));
+        return LocalDateTime.ofEpochSecond(seconds, nanosPlusOne - 1, ZoneOffset.UTC);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
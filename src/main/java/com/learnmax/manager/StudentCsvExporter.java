@@ -0,0 +1,290 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Student;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * CSV export of per-subject student statistics.
+ *
+ * Rows are formatted into a reusable StringBuilder and encoded into a reusable
+ * ByteBuffer that is written through a FileChannel. Each student's subject
+ * statistics are read once from its summary. Large rosters are formatted in
+ * chunks on worker threads and either merged into one file in roster order or
+ * written as separate part files, each with its own header.
+ */
+public class StudentCsvExporter {
+
+    public static final String HEADER = "Student ID,Name,Grade Level,Subject,Latest Score,Average,Assessment Count";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHUNK_STUDENTS = 1024;
+
+    private StudentCsvExporter() {
+    }
+
+    /**
+     * Write all rows to one file on the calling thread
+     * @return number of data rows written
+     */
+    public static int write(Path file, Collection<Student> students) throws IOException {
+        try (FileChannel channel = openForWrite(file)) {
+            ChunkWriter writer = new ChunkWriter();
+            writer.header();
+            int rows = 0;
+            for (Student student : students) {
+                rows += writer.student(student);
+                if (writer.text.length() >= BUFFER_SIZE) {
+                    writer.drainTo(channel);
+                }
+            }
+            writer.drainTo(channel);
+            return rows;
+        }
+    }
+
+    /**
+     * Format chunks of students on several threads and write them to one file in roster order
+     * @return number of data rows written
+     */
+    public static int writeParallel(Path file, List<Student> students, int threads) throws IOException {
+        ExecutorService workers = newWorkers(threads);
+        Deque<Future<EncodedChunk>> pending = new ArrayDeque<>();
+        int maxPending = Math.max(2, threads * 2); // Bounds memory held by formatted chunks
+        int rows = 0;
+
+        try (FileChannel channel = openForWrite(file)) {
+            ChunkWriter headerWriter = new ChunkWriter();
+            headerWriter.header();
+            headerWriter.drainTo(channel);
+
+            for (int start = 0; start < students.size(); start += CHUNK_STUDENTS) {
+                List<Student> chunk = students.subList(start, Math.min(students.size(), start + CHUNK_STUDENTS));
+                pending.addLast(workers.submit(() -> encode(chunk)));
+
+                while (pending.size() >= maxPending) {
+                    rows += await(pending.removeFirst()).writeTo(channel);
+                }
+            }
+            while (!pending.isEmpty()) {
+                rows += await(pending.removeFirst()).writeTo(channel);
+            }
+            return rows;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Write the roster as numbered part files ({@code prefix-00001.csv}, ...) in
+     * {@code directory}, at most {@code studentsPerFile} students each
+     * @return the files written, in roster order
+     */
+    public static List<Path> writeChunks(Path directory, String prefix, List<Student> students,
+                                         int studentsPerFile, int threads) throws IOException {
+        if (studentsPerFile <= 0) {
+            throw new IllegalArgumentException("Students per file must be positive");
+        }
+        Files.createDirectories(directory);
+
+        ExecutorService workers = newWorkers(threads);
+        List<Future<Path>> parts = new ArrayList<>();
+        try {
+            for (int start = 0, part = 1; start < students.size(); start += studentsPerFile, part++) {
+                List<Student> chunk = students.subList(start, Math.min(students.size(), start + studentsPerFile));
+                Path target = directory.resolve(String.format("%s-%05d.csv", prefix, part));
+                parts.add(workers.submit(() -> {
+                    write(target, chunk);
+                    return target;
+                }));
+            }
+
+            List<Path> written = new ArrayList<>(parts.size());
+            for (Future<Path> part : parts) {
+                written.add(await(part));
+            }
+            return written;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static EncodedChunk encode(List<Student> chunk) throws IOException {
+        ChunkWriter writer = new ChunkWriter();
+        int rows = 0;
+        for (Student student : chunk) {
+            rows += writer.student(student);
+        }
+        return new EncodedChunk(writer.encodeAll(), rows);
+    }
+
+    private static ExecutorService newWorkers(int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "student-csv-exporter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while exporting student data");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error exporting student data: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static FileChannel openForWrite(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Append a field, quoting it if it contains a comma, quote or line break (RFC 4180)
+     */
+    static void appendField(StringBuilder out, String value) {
+        if (value == null) return;
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.append('"');
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Append a value with two decimals, rounding half up like {@code %.2f}
+     */
+    static void appendFixed2(StringBuilder out, double value) {
+        double scaled = value * 100;
+        double fraction = scaled - Math.floor(scaled);
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(scaled) >= 1e15
+                || Math.abs(fraction - 0.5) < 1e-6) {
+            // Near a rounding boundary the binary product is unreliable; round the decimal value
+            out.append(BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).toPlainString());
+            return;
+        }
+
+        long hundredths = Math.round(scaled);
+        if (hundredths < 0) {
+            out.append('-');
+            hundredths = -hundredths;
+        }
+        out.append(hundredths / 100).append('.');
+        long cents = hundredths % 100;
+        if (cents < 10) out.append('0');
+        out.append(cents);
+    }
+
+    /**
+     * Formats rows into a reusable text buffer and encodes them as UTF-8
+     */
+    private static final class ChunkWriter {
+        final StringBuilder text = new StringBuilder(BUFFER_SIZE + 1024);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        private int rows;
+
+        void header() {
+            text.append(HEADER).append('\n');
+        }
+
+        /**
+         * @return number of rows appended (one per subject)
+         */
+        int student(Student student) {
+            rows = 0;
+            student.forEachSubject((subject, latestScore, average, count) -> {
+                appendField(text, student.getId());
+                text.append(',');
+                appendField(text, student.getName());
+                text.append(',');
+                appendField(text, student.getGradeLevel());
+                text.append(',');
+                appendField(text, subject);
+                text.append(',').append(latestScore).append(',');
+                appendFixed2(text, average);
+                text.append(',').append(count).append('\n');
+                rows++;
+            });
+            return rows;
+        }
+
+        /**
+         * Encode and write the buffered text, then clear it for reuse
+         */
+        void drainTo(FileChannel channel) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            encoder.reset();
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, true);
+                if (result.isError()) result.throwException();
+                flush(channel);
+                if (result.isUnderflow()) break;
+            }
+            text.setLength(0);
+        }
+
+        private void flush(FileChannel channel) throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+
+        byte[] encodeAll() {
+            byte[] encoded = text.toString().getBytes(StandardCharsets.UTF_8);
+            text.setLength(0);
+            return encoded;
+        }
+    }
+
+    private static final class EncodedChunk {
+        final byte[] bytes;
+        final int rows;
+
+        EncodedChunk(byte[] bytes, int rows) {
+            this.bytes = bytes;
+            this.rows = rows;
+        }
+
+        int writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streaming CSV import of students and assessments into a StudentManager.
+ *
+ * Two layouts are recognised from the header row:
+ * <ul>
+ *   <li>Raw, one row per assessment: {@code Student ID, Subject, Score} plus optional
+ *       {@code Name, Grade Level, Assessment Type, Weight, Date Recorded} columns</li>
+ *   <li>The per-subject summary written by {@link StudentManager#exportToCSV}. Each row
+ *       becomes one "Imported" assessment scored at the rounded subject average and
+ *       weighted by its assessment count (individual scores are not in the export)</li>
+ * </ul>
+ * A summary row cannot be told apart from assessments already recorded, so importing
+ * the same summary twice would add a second synthetic assessment and drift the
+ * average. By default ({@link SummaryMode#SKIP_EXISTING}) a summary row is therefore
+ * rejected when its student already has assessments in that subject, which makes
+ * re-importing a summary a no-op; {@link SummaryMode#APPEND} adds it regardless.
+ * A producer thread parses and validates rows while the calling thread applies them
+ * in blocks inside one {@link StudentManager#batch} call, so the whole import is
+ * persisted once. Invalid rows are written to a reject file with the reason instead
+ * of aborting the import.
+ */
+public class StudentCsvImporter {
+
+    public static final String IMPORTED_TYPE = "Imported";
+
+    /**
+     * What a summary-layout row does for a subject the student already has assessments in
+     */
+    public enum SummaryMode {
+        /** Reject the row, so importing a summary again changes nothing */
+        SKIP_EXISTING,
+        /** Add the synthetic assessment anyway, merging it into the existing average */
+        APPEND
+    }
+
+    /** Largest summary assessment count whose weight (100 per assessment) fits in an int */
+    static final int MAX_SUMMARY_COUNT = Integer.MAX_VALUE / 100;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BLOCK_ROWS = 8192;
+    private static final int MAX_PENDING_BLOCKS = 4;
+
+    /**
+     * Counts for one import run
+     */
+    public static class Result {
+        private final long rowsRead;
+        private final long rowsImported;
+        private final long rowsRejected;
+        private final int studentsCreated;
+
+        Result(long rowsRead, long rowsImported, long rowsRejected, int studentsCreated) {
+            this.rowsRead = rowsRead;
+            this.rowsImported = rowsImported;
+            this.rowsRejected = rowsRejected;
+            this.studentsCreated = studentsCreated;
+        }
+
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        public long getRowsImported() {
+            return rowsImported;
+        }
+
+        public long getRowsRejected() {
+            return rowsRejected;
+        }
+
+        public int getStudentsCreated() {
+            return studentsCreated;
+        }
+    }
+
+    private final StudentManager manager;
+    private final SummaryMode summaryMode;
+
+    public StudentCsvImporter(StudentManager manager) {
+        this(manager, SummaryMode.SKIP_EXISTING);
+    }
+
+    public StudentCsvImporter(StudentManager manager, SummaryMode summaryMode) {
+        this.manager = manager;
+        this.summaryMode = summaryMode;
+    }
+
+    /**
+     * Import a CSV file
+     * @param rejectFile where rejected rows are written (created only if a row is rejected)
+     * @throws IOException if the file cannot be read or has an unrecognised header
+     */
+    public Result importFile(Path csvFile, Path rejectFile) throws IOException {
+        try (Reader in = new InputStreamReader(Files.newInputStream(csvFile), StandardCharsets.UTF_8);
+             RejectWriter rejects = new RejectWriter(rejectFile)) {
+            CsvReader reader = new CsvReader(in);
+            List<String> header = new ArrayList<>();
+            if (!reader.next(header)) {
+                return new Result(0, 0, 0, 0);
+            }
+            Layout layout = Layout.of(header);
+            rejects.header = header;
+
+            Producer producer = new Producer(reader, layout, rejects);
+            Thread thread = new Thread(producer, "student-csv-import");
+            thread.setDaemon(true);
+            thread.start();
+
+            long[] imported = {0};
+            int[] created = {0};
+            try {
+                manager.batch(m -> {
+                    List<Row> block;
+                    while (!(block = producer.take()).isEmpty()) {
+                        apply(block, layout.summary, rejects, imported, created);
+                    }
+                });
+            } finally {
+                thread.interrupt(); // Unblocks the producer if the import stopped early
+            }
+            producer.rethrow();
+            return new Result(producer.rowsRead, imported[0], rejects.count, created[0]);
+        }
+    }
+
+    /**
+     * Apply one block of validated rows: new students are filled and added in one
+     * call, existing students receive their assessments grouped per student
+     */
+    private void apply(List<Row> block, boolean summary, RejectWriter rejects, long[] imported, int[] created) {
+        Map<String, Student> newStudents = new LinkedHashMap<>();
+        Map<String, List<Row>> existing = new LinkedHashMap<>();
+        Set<String> summarized = new HashSet<>(); // Existing students' subjects summarized in this block
+
+        for (Row row : block) {
+            Student student = newStudents.get(row.id);
+            if (student == null && manager.findStudentById(row.id) == null) {
+                if (row.name == null) {
+                    rejects.reject(row.line, row.fields, "Unknown student and no name given");
+                    continue;
+                }
+                student = new Student(row.id, row.name, row.gradeLevel);
+                newStudents.put(row.id, student);
+            }
+            if (summary && summaryMode == SummaryMode.SKIP_EXISTING) {
+                Student target = student != null ? student : manager.findStudentById(row.id);
+                String subject = row.assessment.getSubject();
+                if (target.getAssessmentCount(subject) > 0
+                        || (student == null && !summarized.add(row.id + '\n' + Student.normalizeSubjectName(subject)))) {
+                    rejects.reject(row.line, row.fields, "Student already has " + subject
+                            + " assessments; summary not applied again");
+                    continue;
+                }
+            }
+
+            if (student != null) {
+                student.addAssessment(row.assessment); // Not yet visible to other threads
+                imported[0]++;
+            } else {
+                existing.computeIfAbsent(row.id, k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        created[0] += manager.addStudents(newStudents.values()).getAcceptedCount();
+        for (Map.Entry<String, List<Row>> entry : existing.entrySet()) {
+            List<Row> rows = entry.getValue();
+            List<Assessment> assessments = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                assessments.add(row.assessment);
+            }
+            BatchResult result = manager.addAssessments(entry.getKey(), assessments);
+            imported[0] += result.getAcceptedCount();
+            for (BatchResult.Rejection rejection : result.getRejections()) {
+                Row row = rows.get(rejection.getIndex());
+                rejects.reject(row.line, row.fields, rejection.getReason());
+            }
+        }
+    }
+
+    /**
+     * One validated row
+     */
+    private static final class Row {
+        final long line;
+        final String[] fields;
+        final String id;
+        final String name;
+        final String gradeLevel;
+        final Assessment assessment;
+
+        Row(long line, String[] fields, String id, String name, String gradeLevel, Assessment assessment) {
+            this.line = line;
+            this.fields = fields;
+            this.id = id;
+            this.name = name;
+            this.gradeLevel = gradeLevel;
+            this.assessment = assessment;
+        }
+    }
+
+    /**
+     * Column positions resolved from the header row (-1 when absent)
+     */
+    private static final class Layout {
+        final boolean summary;
+        final int id, name, grade, subject, score, type, weight, date, average, count;
+
+        private Layout(Map<String, Integer> columns) {
+            id = columns.getOrDefault("student id", -1);
+            name = columns.getOrDefault("name", -1);
+            grade = columns.getOrDefault("grade level", -1);
+            subject = columns.getOrDefault("subject", -1);
+            score = columns.getOrDefault("score", -1);
+            type = columns.getOrDefault("assessment type", -1);
+            weight = columns.getOrDefault("weight", -1);
+            date = columns.getOrDefault("date recorded", -1);
+            average = columns.getOrDefault("average", -1);
+            count = columns.getOrDefault("assessment count", -1);
+            summary = score < 0 && average >= 0;
+        }
+
+        static Layout of(List<String> header) throws IOException {
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            Layout layout = new Layout(columns);
+            if (layout.id < 0 || layout.subject < 0 || (layout.score < 0 && layout.average < 0)) {
+                throw new IOException("Unrecognised CSV header: expected Student ID, Subject and Score "
+                        + "(or the exportToCSV layout)");
+            }
+            return layout;
+        }
+
+        /**
+         * Validate a record and build its row
+         * @throws IllegalArgumentException with the reject reason
+         */
+        Row parse(long line, String[] fields) {
+            String studentId = field(fields, id);
+            if (studentId == null) {
+                throw new IllegalArgumentException("Student ID cannot be empty");
+            }
+            String subjectName = field(fields, subject);
+            if (subjectName == null) {
+                throw new IllegalArgumentException("Subject cannot be empty");
+            }
+
+            Assessment assessment;
+            if (summary) {
+                double avg = parseDouble(field(fields, average), "Average");
+                if (avg < 0 || avg > 100) {
+                    throw new IllegalArgumentException("Score must be between 0 and 100");
+                }
+                int assessmentCount = count >= 0 ? parseInt(field(fields, count), "Assessment Count") : 1;
+                if (assessmentCount < 1 || assessmentCount > MAX_SUMMARY_COUNT) {
+                    throw new IllegalArgumentException("Assessment count must be between 1 and " + MAX_SUMMARY_COUNT);
+                }
+                assessment = new Assessment(subjectName, (int) Math.round(avg), IMPORTED_TYPE,
+                        100 * assessmentCount, LocalDateTime.now());
+            } else {
+                int scoreValue = parseInt(field(fields, score), "Score");
+                if (scoreValue < 0 || scoreValue > 100) {
+                    throw new IllegalArgumentException("Score must be between 0 and 100");
+                }
+                String typeValue = field(fields, type);
+                String weightText = field(fields, weight);
+                int weightValue = weightText != null ? parseInt(weightText, "Weight") : 100;
+                if (weightValue < 0) {
+                    throw new IllegalArgumentException("Weight cannot be negative");
+                }
+                String dateValue = field(fields, date);
+                LocalDateTime recorded;
+                try {
+                    recorded = dateValue != null ? LocalDateTime.parse(dateValue) : LocalDateTime.now();
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid Date Recorded: " + dateValue);
+                }
+                if (!Assessment.isSupportedDate(recorded)) {
+                    throw new IllegalArgumentException("Date Recorded must be between " + Assessment.MIN_DATE
+                            + " and " + Assessment.MAX_DATE);
+                }
+                assessment = new Assessment(subjectName, scoreValue, typeValue != null ? typeValue : IMPORTED_TYPE,
+                        weightValue, recorded);
+            }
+
+            String gradeValue = field(fields, grade);
+            return new Row(line, fields, studentId, field(fields, name),
+                    gradeValue != null ? gradeValue : "Not Specified", assessment);
+        }
+
+        private static String field(String[] fields, int column) {
+            if (column < 0 || column >= fields.length) return null;
+            String value = fields[column].trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private static int parseInt(String value, String column) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException | NullPointerException e) {
+                throw new IllegalArgumentException(column + " must be a whole number");
+            }
+        }
+
+        private static double parseDouble(String value, String column) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException | NullPointerException e) {
+                throw new IllegalArgumentException(column + " must be a number");
+            }
+        }
+    }
+
+    /**
+     * Parses and validates records, handing blocks of rows to the importing thread
+     */
+    private static final class Producer implements Runnable {
+        private static final List<Row> END = Collections.emptyList();
+
+        private final CsvReader reader;
+        private final Layout layout;
+        private final RejectWriter rejects;
+        private final BlockingQueue<List<Row>> blocks = new ArrayBlockingQueue<>(MAX_PENDING_BLOCKS);
+        private volatile Throwable failure;
+        volatile long rowsRead;
+
+        Producer(CsvReader reader, Layout layout, RejectWriter rejects) {
+            this.reader = reader;
+            this.layout = layout;
+            this.rejects = rejects;
+        }
+
+        /**
+         * Ends with END whatever stops it, unless the import was abandoned, so the
+         * importing thread never waits on a producer that is gone
+         */
+        @Override
+        public void run() {
+            long read = 0;
+            try {
+                List<String> record = new ArrayList<>();
+                List<Row> block = new ArrayList<>(BLOCK_ROWS);
+                while (reader.next(record)) {
+                    if (record.size() == 1 && record.get(0).trim().isEmpty()) continue; // Blank line
+
+                    read++;
+                    String[] fields = record.toArray(new String[0]);
+                    if (reader.malformed) {
+                        rejects.reject(reader.recordLine, fields, "Unterminated quoted field");
+                        continue;
+                    }
+                    try {
+                        block.add(layout.parse(reader.recordLine, fields));
+                    } catch (IllegalArgumentException e) {
+                        rejects.reject(reader.recordLine, fields, e.getMessage());
+                    }
+                    if (block.size() == BLOCK_ROWS) {
+                        blocks.put(block);
+                        block = new ArrayList<>(BLOCK_ROWS);
+                    }
+                }
+                if (!block.isEmpty()) {
+                    blocks.put(block);
+                }
+            } catch (InterruptedException e) {
+                return; // Import abandoned
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                rowsRead = read;
+            }
+            try {
+                blocks.put(END);
+            } catch (InterruptedException e) {
+                // Import abandoned
+            }
+        }
+
+        List<Row> take() {
+            try {
+                return blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while importing", e);
+            }
+        }
+
+        /**
+         * Rethrow whatever stopped the producer on the importing thread
+         */
+        void rethrow() throws IOException {
+            Throwable e = failure;
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            } else if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else if (e instanceof Error) {
+                throw (Error) e;
+            } else if (e != null) {
+                throw new IOException("Import failed", e);
+            }
+        }
+    }
+
+    /**
+     * Writes rejected records with their line number and reason; opened on first use
+     */
+    private static final class RejectWriter implements Closeable {
+        private final Path file;
+        private Writer writer;
+        List<String> header;
+        volatile long count;
+
+        RejectWriter(Path file) {
+            this.file = file;
+        }
+
+        synchronized void reject(long line, String[] fields, String reason) {
+            count++;
+            try {
+                if (writer == null) {
+                    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                    writeRecord("Line", "Error", header.toArray(new String[0]));
+                }
+                writeRecord(Long.toString(line), reason, fields);
+            } catch (IOException e) {
+                System.err.println("✗ Error writing reject file: " + e.getMessage());
+            }
+        }
+
+        private void writeRecord(String line, String reason, String[] fields) throws IOException {
+            StringBuilder out = new StringBuilder();
+            StudentCsvExporter.appendField(out, line);
+            out.append(',');
+            StudentCsvExporter.appendField(out, reason);
+            for (String field : fields) {
+                out.append(',');
+                StudentCsvExporter.appendField(out, field);
+            }
+            out.append('\n');
+            writer.write(out.toString());
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 record reader: quoted fields may contain commas, doubled
+     * quotes and line breaks
+     */
+    private static final class CsvReader {
+        private final Reader in;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final StringBuilder field = new StringBuilder();
+        private int position;
+        private int limit;
+        private long line = 1;
+        long recordLine;
+        boolean malformed;
+
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * Read the next record into {@code fields}
+         * @return false at end of input
+         */
+        boolean next(List<String> fields) throws IOException {
+            fields.clear();
+            field.setLength(0);
+            malformed = false;
+            int c = read();
+            if (c < 0) return false;
+            recordLine = line;
+
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        malformed = true;
+                        fields.add(field.toString());
+                        return true;
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    if (c == '\r' && peek() == '\n') read();
+                    if (c >= 0) line++;
+                    fields.add(field.toString());
+                    return true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) return -1;
+            return buffer[position++];
+        }
+
+        private int peek() throws IOException {
+            if (position == limit && !fill()) return -1;
+            return buffer[position];
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) return false;
+            position = 0;
+            limit = n;
+            return true;
+        }
+    }
+}
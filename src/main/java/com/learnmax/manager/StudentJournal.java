@@ -0,0 +1,349 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+import com.google.gson.*;
+import com.learnmax.persistence.Durability;
+import com.learnmax.persistence.PersistenceService;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * Append-only write-ahead journal for StudentManager mutations.
+ *
+ * Each mutation is written as one compact JSON record per line, so the cost of
+ * a change does not depend on how many students are stored. The journal is
+ * folded into the snapshot file by StudentManager at checkpoint time: once the new
+ * snapshot is complete the journal is renamed to {@code <name>.old} ({@link #retire}),
+ * the snapshot is moved into place and the old journal is deleted. A retired journal
+ * is never replayed, since its records may already be in the snapshot.
+ *
+ * In group-commit mode records are only collected in memory by the mutating
+ * thread; {@link #sync} hands everything collected so far to the file in one write
+ * (and optionally forces it), normally from a background persistence thread.
+ */
+class StudentJournal {
+
+    static final String OP_ADD_STUDENT = "ADD_STUDENT";
+    static final String OP_REMOVE_STUDENT = "REMOVE_STUDENT";
+    static final String OP_ADD_ASSESSMENT = "ADD_ASSESSMENT";
+
+    /**
+     * Receives journal records during replay
+     */
+    interface Replayer {
+        void addStudent(Student student);
+        void removeStudent(String id);
+        void addAssessment(String studentId, Assessment assessment);
+    }
+
+    private final Path path;
+    private final Path retiredPath;
+    private final Gson gson;
+    private final Object fileLock = new Object(); // Guards the file; always taken before this
+    private FileChannel channel;
+    private Writer writer;
+    private int recordCount;
+    private int batchDepth; // While > 0, records are buffered and flushed by endBatch()
+    private boolean groupCommit;
+    private StringBuilder collected = new StringBuilder(); // Group commit: records not yet synced
+
+    StudentJournal(String fileName, Gson compactGson) {
+        this.path = Paths.get(fileName);
+        this.retiredPath = Paths.get(fileName + ".old");
+        this.gson = compactGson;
+    }
+
+    void appendAddStudent(Student student) throws IOException {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", OP_ADD_STUDENT);
+        record.add("student", gson.toJsonTree(student));
+        append(record);
+    }
+
+    void appendRemoveStudent(String id) throws IOException {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", OP_REMOVE_STUDENT);
+        record.addProperty("id", id);
+        append(record);
+    }
+
+    void appendAddAssessment(String studentId, Assessment assessment) throws IOException {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", OP_ADD_ASSESSMENT);
+        record.addProperty("id", studentId);
+        record.add("assessment", gson.toJsonTree(assessment));
+        append(record);
+    }
+
+    private void append(JsonObject record) throws IOException {
+        String line = gson.toJson(record);
+        synchronized (this) {
+            if (groupCommit) {
+                collected.append(line).append('\n');
+                recordCount++;
+                return;
+            }
+        }
+        synchronized (fileLock) {
+            synchronized (this) {
+                openWriter();
+                writer.write(line);
+                writer.write('\n');
+                if (batchDepth == 0) {
+                    writer.flush();
+                }
+                recordCount++;
+            }
+        }
+    }
+    
+    private void openWriter() throws IOException {
+        if (writer == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        }
+    }
+    
+    /**
+     * Collect records in memory until {@link #sync} instead of writing each one
+     */
+    void setGroupCommit(boolean enabled) throws IOException {
+        synchronized (fileLock) {
+            sync(false);
+            synchronized (this) {
+                groupCommit = enabled;
+            }
+        }
+    }
+    
+    /**
+     * Write every record appended so far to the file, forcing it to the device if asked.
+     * Appends are not held up while the file is written.
+     */
+    void sync(boolean force) throws IOException {
+        synchronized (fileLock) {
+            String records;
+            synchronized (this) {
+                records = collected.toString();
+                collected = new StringBuilder();
+            }
+            if (!records.isEmpty()) {
+                openWriter();
+                writer.write(records);
+            }
+            if (writer != null) {
+                writer.flush();
+                if (force) {
+                    channel.force(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffer subsequent records instead of flushing each one
+     */
+    synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Flush records buffered since the outermost {@link #beginBatch()}
+     */
+    void endBatch() throws IOException {
+        synchronized (this) {
+            if (batchDepth == 0 || --batchDepth > 0 || groupCommit) {
+                return;
+            }
+        }
+        synchronized (fileLock) {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Number of records appended since the last checkpoint (or replayed on load)
+     */
+    synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Replay all complete records in the journal.
+     * A torn record (cut short by a crash mid-write, unparseable, or without a
+     * string "op") ends the replay, and the file is truncated to the end of the
+     * last good record so that later appends are not written onto its remains.
+     *
+     * @return number of records applied
+     */
+    synchronized int replay(Replayer replayer) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        int applied = 0;
+        long goodEnd = 0; // Byte offset just past the last good record
+        try (InputStream in = Files.newInputStream(path)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            byte[] block = new byte[1 << 16];
+            long blockStart = 0;
+            int read;
+            scan:
+            while ((read = in.read(block)) != -1) {
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (block[i] != '\n') continue;
+                    line.write(block, lineStart, i - lineStart);
+                    lineStart = i + 1;
+                    String text = line.toString(StandardCharsets.UTF_8.name());
+                    line.reset();
+                    if (!text.isEmpty()) {
+                        if (!apply(text, replayer)) break scan;
+                        applied++;
+                    }
+                    goodEnd = blockStart + i + 1;
+                }
+                line.write(block, lineStart, read - lineStart);
+                blockStart += read;
+            }
+        }
+
+        long fileSize = Files.size(path);
+        if (goodEnd < fileSize) {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                file.truncate(goodEnd);
+                file.force(true);
+            }
+            System.err.println("✗ Discarded " + (fileSize - goodEnd) + " bytes of torn journal records");
+        }
+
+        recordCount = applied;
+        return applied;
+    }
+
+    /**
+     * Decode and apply one record
+     * @return false if the record is torn
+     */
+    private boolean apply(String line, Replayer replayer) {
+        JsonObject record;
+        try {
+            record = JsonParser.parseString(line).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            System.err.println("✗ Ignoring incomplete journal record: " + e.getMessage());
+            return false;
+        }
+
+        if (!isString(record, "op")) {
+            System.err.println("✗ Ignoring journal record without an operation");
+            return false;
+        }
+        JsonElement opElement = record.get("op");
+
+        String op = opElement.getAsString();
+        try {
+            switch (op) {
+                case OP_ADD_STUDENT:
+                    if (!isObject(record, "student")) return torn(op);
+                    replayer.addStudent(gson.fromJson(record.get("student"), Student.class));
+                    break;
+                case OP_REMOVE_STUDENT:
+                    if (!isString(record, "id")) return torn(op);
+                    replayer.removeStudent(record.get("id").getAsString());
+                    break;
+                case OP_ADD_ASSESSMENT:
+                    if (!isString(record, "id") || !isObject(record, "assessment")) return torn(op);
+                    replayer.addAssessment(record.get("id").getAsString(),
+                            gson.fromJson(record.get("assessment"), Assessment.class));
+                    break;
+                default:
+                    System.err.println("✗ Unknown journal operation: " + op);
+            }
+        } catch (JsonParseException e) {
+            System.err.println("✗ Ignoring malformed journal record " + op + ": " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean torn(String op) {
+        System.err.println("✗ Ignoring incomplete journal record " + op);
+        return false;
+    }
+
+    private static boolean isString(JsonObject record, String name) {
+        JsonElement element = record.get(name);
+        return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString();
+    }
+
+    private static boolean isObject(JsonObject record, String name) {
+        JsonElement element = record.get(name);
+        return element != null && element.isJsonObject();
+    }
+
+    /**
+     * Set all records aside as the retired journal; called once a snapshot holding them
+     * is complete, before it replaces the old one. With FSYNC durability the rename is
+     * forced, so it is never undone after the move.
+     */
+    void retire(Durability durability) throws IOException {
+        synchronized (fileLock) {
+            synchronized (this) {
+                collected = new StringBuilder();
+                closeWriter();
+                recordCount = 0;
+                if (Files.exists(path)) {
+                    Files.move(path, retiredPath, StandardCopyOption.REPLACE_EXISTING);
+                    if (durability == Durability.FSYNC) {
+                        PersistenceService.forceDirectory(path);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a checkpoint stopped between {@link #retire} and {@link #discardRetired}
+     */
+    boolean hasRetired() {
+        return Files.exists(retiredPath);
+    }
+
+    /**
+     * Delete the retired journal once the snapshot holding its records is in place
+     */
+    void discardRetired() throws IOException {
+        Files.deleteIfExists(retiredPath);
+    }
+
+    /**
+     * Write any collected records and close the file
+     */
+    void close() throws IOException {
+        synchronized (fileLock) {
+            sync(false);
+            closeWriter();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            channel = null;
+        }
+    }
+}
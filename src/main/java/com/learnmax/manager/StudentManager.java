@@ -1,25 +1,90 @@
 package com.learnmax.manager;
 
+import com.learnmax.model.Assessment;
 import com.learnmax.model.Student;
+import com.learnmax.persistence.Durability;
+import com.learnmax.persistence.PersistenceService;
+import com.learnmax.persistence.TimestampCodec;
 import java.util.*;
 import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Improved StudentManager with:
- * - Data persistence (JSON-based)
- * - Enhanced search capabilities
- * - Duplicate prevention
+ * - Data persistence (JSON or binary snapshot + append-only mutation journal)
+ * - Enhanced search capabilities (indexed by grade level and name substring)
+ * - Duplicate prevention (O(1) ID index)
  * - Bulk operations
+ * - Thread safety: reads never block, and writes to different students proceed in parallel
  */
 public class StudentManager {
-    private ArrayList<Student> students;
-    private static final String DATA_FILE = "student_data.json";
-    private Gson gson;
+    private final StudentRoster roster = new StudentRoster();
+    // Mutations share this lock; checkpoints and loads take it exclusively so a
+    // snapshot never misses a change whose journal record it truncates
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private volatile boolean journalFailed;
+    private volatile LoadProgressListener loadProgressListener;
+    private volatile AssessmentListener assessmentListener;
+    private volatile PersistenceService persistence; // Null: persist on the caller's thread
+    private StudentBinarySnapshot.Index lazySnapshot; // Open for unloaded histories; guarded by checkpointLock
+    private final Object checkpointKey = new Object() { // Coalesces background checkpoints
+        @Override
+        public String toString() {
+            return "student snapshot";
+        }
+    };
+    static final String DEFAULT_DATA_NAME = "student_data"; // Files are <name>.json, <name>.lmx and <name>.journal
+    private static final int CHECKPOINT_INTERVAL = 500; // Journal records between snapshots
+    static final int PARALLEL_REPORT_THRESHOLD = 5000; // Roster size for parallel reports
+    private static final int PARALLEL_EXPORT_THRESHOLD = 5000; // Roster size for parallel CSV export
+    private static final long PARALLEL_LOAD_BYTES = 16L * 1024 * 1024; // Snapshot size for parallel decoding
+    private final String dataFile;
+    private final String binaryDataFile;
+    private volatile Gson gson; // Snapshot and export files; the journal is always compact
+    private StudentJournal journal;
+    private SnapshotFormat snapshotFormat;
+    private LoadMode loadMode;
     private boolean autoLoad;
     
+    /**
+     * On-disk format of the snapshot written by {@link #saveData()}
+     */
+    public enum SnapshotFormat {
+        JSON,   // student_data.json, human-readable
+        BINARY  // student_data.lmx, see StudentBinarySnapshot
+    }
+    
+    /**
+     * How much of a binary snapshot {@link #loadData()} reads up front
+     */
+    public enum LoadMode {
+        EAGER, // Every student with every assessment
+        LAZY   // Roster index only; each student's assessments are read on first access
+    }
+    
+    /**
+     * Receives progress updates while the snapshot file is being loaded
+     */
+    public interface LoadProgressListener {
+        void onProgress(long bytesRead, long totalBytes, int studentsLoaded);
+    }
+    
+    /**
+     * Told about every assessment recorded through this manager, on the recording
+     * thread after the change is applied and no locks are held
+     */
+    public interface AssessmentListener {
+        void onAssessmentAdded(String studentId, Assessment assessment);
+    }
+    
     public StudentManager() {
         this(true); // Default: load data from file
     }
@@ -29,28 +94,78 @@ public class StudentManager {
      * @param autoLoad if true, loads data from file; if false, starts with empty list
      */
     public StudentManager(boolean autoLoad) {
-        students = new ArrayList<>();
-        gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .registerTypeAdapter(java.time.LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
+        this(autoLoad, SnapshotFormat.JSON);
+    }
+    
+    /**
+     * Constructor selecting the snapshot format.
+     * With BINARY, an existing JSON snapshot is still loaded if no binary one exists yet,
+     * and is migrated at the next checkpoint.
+     */
+    public StudentManager(boolean autoLoad, SnapshotFormat snapshotFormat) {
+        this(autoLoad, snapshotFormat, LoadMode.EAGER);
+    }
+    
+    /**
+     * Constructor selecting the snapshot format and load mode.
+     * LAZY applies to binary snapshots: startup reads only ids, names, grades, averages
+     * and counts, so it takes about the same time however long the histories are, and
+     * memory grows with the students actually opened. JSON snapshots are always loaded in full.
+     */
+    public StudentManager(boolean autoLoad, SnapshotFormat snapshotFormat, LoadMode loadMode) {
+        this(DEFAULT_DATA_NAME, autoLoad, snapshotFormat, loadMode);
+    }
+    
+    /**
+     * Constructor keeping the data in {@code <dataName>.json} (or {@code .lmx}) and
+     * {@code <dataName>.journal} instead of the default student_data files
+     */
+    public StudentManager(String dataName, boolean autoLoad, SnapshotFormat snapshotFormat, LoadMode loadMode) {
+        this.dataFile = dataName + ".json";
+        this.binaryDataFile = dataName + ".lmx";
+        this.snapshotFormat = snapshotFormat;
+        this.loadMode = loadMode;
+        gson = newGson(false);
+        journal = new StudentJournal(dataName + ".journal", gson);
         this.autoLoad = autoLoad;
         if (autoLoad) {
             loadData();
         }
     }
     
+    private static Gson newGson(boolean pretty) {
+        GsonBuilder builder = new GsonBuilder()
+                .registerTypeAdapter(java.time.LocalDateTime.class, new LocalDateTimeAdapter());
+        if (pretty) {
+            builder.setPrettyPrinting();
+        }
+        return builder.create();
+    }
+    
+    /**
+     * Indent the JSON snapshot and exports so people can read them. Off by default:
+     * compact files are about a third smaller and faster to write and parse.
+     */
+    public void setPrettyPrinting(boolean pretty) {
+        gson = newGson(pretty);
+    }
+    
     /**
      * Add a student with duplicate checking
      */
     public boolean addStudent(Student student) {
-        // Check for duplicate ID
-        if (findStudentById(student.getId()) != null) {
-            return false; // Student with this ID already exists
+        boolean added;
+        checkpointLock.readLock().lock();
+        try {
+            added = roster.add(student, () -> journalWrite(() -> journal.appendAddStudent(student)));
+        } finally {
+            checkpointLock.readLock().unlock();
         }
         
-        students.add(student);
-        saveData();
+        if (!added) {
+            return false; // Student with this ID already exists
+        }
+        checkpointIfDue();
         return true;
     }
     
@@ -58,129 +173,273 @@ public class StudentManager {
      * Remove a student by ID
      */
     public boolean removeStudent(String id) {
-        Student student = findStudentById(id);
-        if (student != null) {
-            students.remove(student);
-            saveData();
-            return true;
+        if (id == null) return false;
+        
+        Student student;
+        checkpointLock.readLock().lock();
+        try {
+            student = roster.remove(id, s -> journalWrite(() -> journal.appendRemoveStudent(id)));
+        } finally {
+            checkpointLock.readLock().unlock();
         }
-        return false;
+        
+        if (student == null) {
+            return false;
+        }
+        checkpointIfDue();
+        return true;
     }
     
     /**
-     * Find student by exact ID
+     * Record a new assessment for an existing student
+     * @return false if no student has the given ID
+     * @throws IllegalArgumentException if the score or subject is invalid
      */
-    public Student findStudentById(String id) {
-        if (id == null) return null;
+    public boolean addAssessment(String studentId, String subject, int score, String assessmentType) {
+        Assessment[] added = {null};
+        Student student;
+        checkpointLock.readLock().lock();
+        try {
+            // Apply and journal inside the ID's roster lock, so a concurrent remove cannot
+            // slip between them and the assessment never lands on a student that was removed
+            // or replaced; holding the student keeps its journal records in assessment order
+            do {
+                student = findStudentById(studentId);
+                if (student == null) {
+                    return false;
+                }
+                Student target = student;
+                roster.whileCurrent(target, () -> {
+                    synchronized (target) {
+                        Assessment assessment = target.addAssessment(subject, score, assessmentType);
+                        journalWrite(() -> journal.appendAddAssessment(target.getId(), assessment));
+                        added[0] = assessment;
+                    }
+                });
+            } while (added[0] == null); // Replaced since the lookup: retry on the new student
+            roster.update(student, added[0].getDateRecorded());
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        Assessment assessment = added[0];
         
-        for (Student s : students) {
-            if (s.getId().equals(id)) {
-                return s;
-            }
+        checkpointIfDue();
+        AssessmentListener listener = assessmentListener;
+        if (listener != null) {
+            listener.onAssessmentAdded(studentId, assessment);
         }
-        return null;
+        return true;
     }
     
     /**
-     * Search students by name (partial match, case-insensitive)
+     * Add many students as one unit: the whole collection is validated first, then
+     * the accepted students are added together and persisted with a single flush.
+     * Every student is journaled, so the batch survives a failed checkpoint; a batch
+     * that fills the journal is checkpointed once it finishes.
+     * @return which students were rejected (null entries, IDs repeated within the
+     *         batch, or IDs that already exist) and why
      */
-    public List<Student> searchByName(String nameQuery) {
-        List<Student> results = new ArrayList<>();
+    public BatchResult addStudents(Collection<Student> newStudents) {
+        List<BatchResult.Rejection> rejections = new ArrayList<>();
         
-        if (nameQuery == null || nameQuery.trim().isEmpty()) {
-            return results;
-        }
+        batch(m -> {
+            List<Student> accepted = new ArrayList<>(newStudents.size());
+            Set<String> batchIds = new HashSet<>();
+            int index = 0;
+            for (Student student : newStudents) {
+                if (student == null || student.getId() == null) {
+                    rejections.add(new BatchResult.Rejection(index, null, "Missing student or ID"));
+                } else if (!batchIds.add(student.getId())) {
+                    rejections.add(new BatchResult.Rejection(index, student.getId(), "Duplicate ID within batch"));
+                } else if (roster.get(student.getId()) != null) {
+                    rejections.add(new BatchResult.Rejection(index, student.getId(), "Student ID already exists"));
+                } else {
+                    accepted.add(student);
+                }
+                index++;
+            }
+            
+            // No other writer can run while the batch holds the checkpoint lock, so every add succeeds
+            for (Student student : accepted) {
+                roster.add(student, () -> journalWrite(() -> journal.appendAddStudent(student)));
+            }
+        });
         
-        String query = nameQuery.toLowerCase().trim();
+        return new BatchResult(newStudents.size(), rejections);
+    }
+    
+    /**
+     * Record many assessments for one student as one unit. Every assessment is
+     * validated before any is recorded; valid ones keep their own timestamps and
+     * are persisted with a single flush.
+     * @return which assessments were rejected (invalid score, subject or date, or an unknown student) and why
+     */
+    public BatchResult addAssessments(String studentId, Collection<Assessment> assessments) {
+        List<BatchResult.Rejection> rejections = new ArrayList<>();
+        List<Assessment> accepted = new ArrayList<>(assessments.size());
         
-        for (Student s : students) {
-            if (s.getName().toLowerCase().contains(query)) {
-                results.add(s);
+        batch(m -> {
+            Student student = findStudentById(studentId);
+            int index = 0;
+            for (Assessment assessment : assessments) {
+                if (student == null) {
+                    rejections.add(new BatchResult.Rejection(index, studentId, "Student not found"));
+                } else if (assessment == null || assessment.getScore() < 0 || assessment.getScore() > 100) {
+                    rejections.add(new BatchResult.Rejection(index, studentId, "Score must be between 0 and 100"));
+                } else if (assessment.getSubject() == null || assessment.getSubject().trim().isEmpty()) {
+                    rejections.add(new BatchResult.Rejection(index, studentId, "Subject cannot be empty"));
+                } else if (!Assessment.isSupportedDate(assessment.getDateRecorded())) {
+                    rejections.add(new BatchResult.Rejection(index, studentId, "Date recorded out of range"));
+                } else {
+                    accepted.add(assessment);
+                }
+                index++;
             }
-        }
+            if (accepted.isEmpty()) return;
+            
+            synchronized (student) {
+                for (Assessment assessment : accepted) {
+                    student.addAssessment(assessment);
+                    journalWrite(() -> journal.appendAddAssessment(student.getId(), assessment));
+                }
+            }
+            roster.update(student);
+        });
         
-        return results;
+        AssessmentListener listener = assessmentListener;
+        if (listener != null) {
+            for (Assessment assessment : accepted) {
+                listener.onAssessmentAdded(studentId, assessment);
+            }
+        }
+        return new BatchResult(assessments.size(), rejections);
     }
     
     /**
-     * Get students by grade level
+     * Run a group of changes as one unit. Other writers and checkpoints wait until
+     * the group finishes; journal records are buffered and flushed once at the end,
+     * and any checkpoint that falls due is taken once, after the group.
+     * Changes already made are kept (and persisted) if {@code changes} throws.
      */
-    public List<Student> getStudentsByGrade(String gradeLevel) {
-        List<Student> results = new ArrayList<>();
-        
-        for (Student s : students) {
-            if (s.getGradeLevel().equalsIgnoreCase(gradeLevel)) {
-                results.add(s);
+    public void batch(Consumer<StudentManager> changes) {
+        checkpointLock.writeLock().lock();
+        journal.beginBatch();
+        try {
+            changes.accept(this);
+        } finally {
+            try {
+                journal.endBatch();
+            } catch (IOException e) {
+                System.err.println("✗ Error writing journal: " + e.getMessage());
+                journalFailed = true;
             }
+            checkpointLock.writeLock().unlock();
         }
         
-        return results;
+        checkpointIfDue();
     }
     
     /**
-     * Get underperforming students (overall average < threshold)
+     * Find student by exact ID
      */
-    public List<Student> getUnderperformingStudents(double threshold) {
-        List<Student> results = new ArrayList<>();
+    public Student findStudentById(String id) {
+        if (id == null) return null;
         
-        for (Student s : students) {
-            double avg = s.calculateOverallAverage();
-            if (avg >= 0 && avg < threshold) {
-                results.add(s);
-            }
+        return roster.get(id);
+    }
+    
+    /**
+     * Search students by name (partial match, case-insensitive)
+     */
+    public List<Student> searchByName(String nameQuery) {
+        if (nameQuery == null || nameQuery.trim().isEmpty()) {
+            return new ArrayList<>();
         }
         
-        // Sort by average (lowest first)
-        results.sort(Comparator.comparingDouble(Student::calculateOverallAverage));
+        return roster.searchName(StudentNameIndex.fold(nameQuery.trim()));
+    }
+    
+    /**
+     * Get students by grade level (case-insensitive)
+     */
+    public List<Student> getStudentsByGrade(String gradeLevel) {
+        if (gradeLevel == null) {
+            return new ArrayList<>();
+        }
         
-        return results;
+        return roster.byGrade(gradeLevel);
+    }
+    
+    /**
+     * Get underperforming students (overall average < threshold), lowest first.
+     * Served from the maintained ranking as a range scan.
+     */
+    public List<Student> getUnderperformingStudents(double threshold) {
+        return roster.below(threshold);
     }
     
     /**
-     * Get top performing students
+     * Get top performing students, highest first.
+     * Served from the maintained ranking; only the first {@code count} entries are visited.
      */
     public List<Student> getTopPerformers(int count) {
-        List<Student> studentsWithScores = new ArrayList<>();
+        return roster.top(count);
+    }
+    
+    /**
+     * Get the assessments recorded in [from, to), grouped by student in roster order.
+     * Served from the per-grade day index and each student's time-ordered assessments,
+     * so only students and assessments inside the range are visited.
+     * @param gradeLevel grade to search (case-insensitive), or null for all grades
+     * @param from inclusive lower bound, or null for no lower bound
+     * @param to exclusive upper bound, or null for no upper bound
+     */
+    public Map<Student, List<Assessment>> getAssessmentsBetween(String gradeLevel, LocalDateTime from, LocalDateTime to) {
+        Map<Student, List<Assessment>> found = new LinkedHashMap<>();
+        long fromDay = from != null ? from.toLocalDate().toEpochDay() : Long.MIN_VALUE;
+        long toDay = to != null ? to.toLocalDate().toEpochDay() : Long.MAX_VALUE;
         
-        // Filter students with assessment data
-        for (Student s : students) {
-            if (s.calculateOverallAverage() >= 0) {
-                studentsWithScores.add(s);
+        for (Student student : roster.withAssessmentsBetween(gradeLevel, fromDay, toDay)) {
+            List<Assessment> range = student.getAssessmentsBetween(from, to);
+            if (!range.isEmpty()) {
+                found.put(student, range);
             }
         }
-        
-        // Sort by average (highest first)
-        studentsWithScores.sort((s1, s2) -> 
-            Double.compare(s2.calculateOverallAverage(), s1.calculateOverallAverage()));
-        
-        // Return top N
-        return studentsWithScores.subList(0, Math.min(count, studentsWithScores.size()));
+        return found;
+    }
+    
+    /**
+     * Re-rank a student whose assessments were changed directly on the Student object.
+     * Not needed for changes made through {@link #addAssessment}.
+     */
+    public void refreshStudent(Student student) {
+        roster.update(student);
     }
     
     /**
      * Get all students
      */
     public ArrayList<Student> getAllStudents() {
-        return new ArrayList<>(students); // Return copy to prevent external modification
+        return new ArrayList<>(roster.values()); // Return copy to prevent external modification
     }
     
     /**
      * Get total number of students
      */
     public int getStudentCount() {
-        return students.size();
+        return roster.size();
     }
     
     /**
      * Get class average across all students
      */
     public double getClassAverage() {
-        if (students.isEmpty()) return -1;
+        if (roster.isEmpty()) return -1;
         
         double total = 0;
         int count = 0;
         
-        for (Student s : students) {
+        for (Student s : roster.values()) {
             double avg = s.calculateOverallAverage();
             if (avg >= 0) {
                 total += avg;
@@ -195,132 +454,405 @@ public class StudentManager {
      * Generate class performance report
      */
     public String generateClassReport() {
-        StringBuilder report = new StringBuilder();
-        
-        report.append("═══════════════════════════════════════════════════════════════\n");
-        report.append("                    CLASS PERFORMANCE REPORT\n");
-        report.append("═══════════════════════════════════════════════════════════════\n\n");
-        
-        report.append("Total Students: ").append(getStudentCount()).append("\n");
-        
-        double classAvg = getClassAverage();
-        if (classAvg >= 0) {
-            report.append("Class Average: ").append(String.format("%.2f%%", classAvg)).append("\n\n");
-        } else {
-            report.append("Class Average: No data available\n\n");
+        return buildClassReport().render();
+    }
+    
+    /**
+     * Compute class statistics in a single pass over the current roster.
+     * Large rosters compute per-student averages in parallel.
+     */
+    public ClassReport buildClassReport() {
+        List<Student> roster = getAllStudents();
+        return ClassReport.build(roster, roster.size() >= PARALLEL_REPORT_THRESHOLD);
+    }
+    
+    /**
+     * Append a mutation to the journal; a failure is remembered and handled by
+     * {@link #checkpointIfDue()} once the caller has released its locks
+     */
+    private void journalWrite(JournalWrite write) {
+        try {
+            write.run();
+        } catch (IOException e) {
+            System.err.println("✗ Error writing journal: " + e.getMessage());
+            journalFailed = true;
+            return;
         }
-        
-        // Performance distribution
-        int excellent = 0, good = 0, needsImprovement = 0, poor = 0, noData = 0;
-        
-        for (Student s : students) {
-            double avg = s.calculateOverallAverage();
-            if (avg < 0) {
-                noData++;
-            } else if (avg >= 90) {
-                excellent++;
-            } else if (avg >= 75) {
-                good++;
-            } else if (avg >= 50) {
-                needsImprovement++;
-            } else {
-                poor++;
+        PersistenceService service = persistence;
+        if (service != null) {
+            service.markDirty(journal, this::syncJournal);
+        }
+    }
+    
+    /**
+     * Background flush of the journal records collected since the last one
+     */
+    private void syncJournal(Durability durability) throws IOException {
+        try {
+            journal.sync(durability == Durability.FSYNC);
+        } catch (IOException e) {
+            journalFailed = true;
+            checkpointIfDue(); // Schedules a checkpoint so the unwritten records are not lost
+            throw e;
+        }
+    }
+    
+    /**
+     * Checkpoint once enough journal records accumulate, or immediately if the
+     * journal is unavailable so the change is not lost. Must not be called while
+     * holding the checkpoint read lock; deferred while a batch is in progress.
+     */
+    private void checkpointIfDue() {
+        if (checkpointLock.isWriteLockedByCurrentThread()) {
+            return; // Inside batch(); the batch checkpoints when it finishes
+        }
+        PersistenceService service = persistence;
+        if (service != null) {
+            if (isCheckpointDue()) {
+                service.markDirty(checkpointKey, durability -> {
+                    if (isCheckpointDue()) checkpoint(durability);
+                });
             }
+            return;
         }
+        if (isCheckpointDue()) {
+            checkpointLock.writeLock().lock();
+            try {
+                // Another thread may have checkpointed while we waited
+                if (isCheckpointDue()) {
+                    saveData();
+                }
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+        }
+    }
+    
+    private boolean isCheckpointDue() {
+        return journalFailed || journal.getRecordCount() >= CHECKPOINT_INTERVAL;
+    }
+    
+    @FunctionalInterface
+    private interface JournalWrite {
+        void run() throws IOException;
+    }
+    
+    /**
+     * Save data to the snapshot file (checkpoint)
+     * Writes a full snapshot, then discards the journal it supersedes
+     */
+    public void saveData() {
+        PersistenceService service = persistence;
         
-        report.append("Performance Distribution:\n");
-        report.append("  Excellent (90-100):        ").append(excellent).append(" students\n");
-        report.append("  Good (75-89):              ").append(good).append(" students\n");
-        report.append("  Needs Improvement (50-74): ").append(needsImprovement).append(" students\n");
-        report.append("  Requires Attention (<50):  ").append(poor).append(" students\n");
-        report.append("  No Assessment Data:        ").append(noData).append(" students\n\n");
-        
-        // Top performers
-        List<Student> topPerformers = getTopPerformers(5);
-        if (!topPerformers.isEmpty()) {
-            report.append("Top Performers:\n");
-            for (int i = 0; i < topPerformers.size(); i++) {
-                Student s = topPerformers.get(i);
-                report.append(String.format("  %d. %s (ID: %s) - %.2f%%\n", 
-                    i + 1, s.getName(), s.getId(), s.calculateOverallAverage()));
+        try {
+            checkpoint(service != null ? service.getDurability() : Durability.WRITE);
+            System.out.println("✓ Data saved successfully to " + snapshotFile());
+        } catch (IOException e) {
+            System.err.println("✗ Error saving data: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Save data on the persistence service's thread (on the caller's thread without one)
+     * @return completes once the snapshot is written, or exceptionally if that fails
+     */
+    public CompletableFuture<Void> saveDataAsync() {
+        PersistenceService service = persistence;
+        if (service == null) {
+            try {
+                checkpoint(Durability.WRITE);
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
             }
-            report.append("\n");
         }
+        service.markDirty(checkpointKey, this::checkpoint);
+        return service.flush();
+    }
+    
+    private void checkpoint(Durability durability) throws IOException {
+        checkpointLock.writeLock().lock();
+        try {
+            // The journal is set aside only once the new snapshot is complete (and durable,
+            // with FSYNC), and deleted once it is in place; recoverCheckpoint() finishes
+            // a checkpoint that stopped in between, so journaled records are never applied twice
+            Path target = Paths.get(snapshotFile());
+            PersistenceService.ChannelWriter content = snapshotFormat == SnapshotFormat.BINARY
+                    ? channel -> StudentBinarySnapshot.writeTo(channel, roster.values())
+                    : PersistenceService.utf8(writer -> gson.toJson(roster.values(), writer));
+            PersistenceService.writeChannelAtomically(target, durability, content, () -> journal.retire(durability));
+            journal.discardRetired();
+            journalFailed = false;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+    
+    private String snapshotFile() {
+        return snapshotFormat == SnapshotFormat.BINARY ? binaryDataFile : dataFile;
+    }
+    
+    /**
+     * Persist changes through a background service instead of on the caller's thread:
+     * journal records are collected in memory and written in groups, and checkpoints
+     * run on the service's thread. Pass null to go back to synchronous writes.
+     */
+    public void setPersistenceService(PersistenceService service) {
+        try {
+            journal.setGroupCommit(service != null);
+        } catch (IOException e) {
+            System.err.println("✗ Error writing journal: " + e.getMessage());
+            journalFailed = true;
+        }
+        persistence = service;
+    }
+    
+    /**
+     * Make every change so far durable
+     * @return completes once the journal has been written (and forced, with FSYNC durability)
+     */
+    public CompletableFuture<Void> flush() {
+        PersistenceService service = persistence;
+        if (service != null) {
+            return service.flush();
+        }
+        try {
+            journal.sync(false);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+    
+    /**
+     * Write all students as a JSON array via a temporary file and an atomic move
+     */
+    private void writeJson(Path target, Durability durability) throws IOException {
+        PersistenceService.writeAtomically(target, durability, writer -> gson.toJson(roster.values(), writer));
+    }
+    
+    /**
+     * Load data from the snapshot file, then replay any journaled mutations on top of it
+     */
+    public void loadData() {
+        checkpointLock.writeLock().lock();
+        try {
+            loadLocked();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+    
+    private void loadLocked() {
+        recoverCheckpoint();
+        File binaryFile = new File(binaryDataFile);
+        File jsonFile = new File(dataFile);
+        boolean useBinary = snapshotFormat == SnapshotFormat.BINARY && binaryFile.exists();
         
-        // Students needing support
-        List<Student> underperforming = getUnderperformingStudents(50);
-        if (!underperforming.isEmpty()) {
-            report.append("Students Requiring Additional Support:\n");
-            for (Student s : underperforming) {
-                report.append(String.format("  • %s (ID: %s) - %.2f%%\n", 
-                    s.getName(), s.getId(), s.calculateOverallAverage()));
+        if (useBinary || jsonFile.exists()) {
+            roster.clear();
+            closeLazySnapshot(); // Its students were just dropped
+            
+            // Students are decoded one at a time straight into the indexes
+            Consumer<Student> sink = s -> roster.add(s, null);
+            
+            try {
+                if (useBinary && loadMode == LoadMode.LAZY) {
+                    lazySnapshot = StudentBinarySnapshot.readIndex(binaryFile.toPath(), sink);
+                } else if (useBinary) {
+                    StudentBinarySnapshot.read(binaryFile.toPath(), sink);
+                } else {
+                    readJson(jsonFile.toPath(), sink);
+                }
+                System.out.println("✓ Data loaded successfully: " + roster.size() + " students");
+            } catch (IOException e) {
+                System.err.println("✗ Error loading data: " + e.getMessage());
             }
+        } else {
+            System.out.println("No existing data file found. Starting with empty student list.");
         }
         
-        report.append("═══════════════════════════════════════════════════════════════\n");
+        try {
+            int replayed = journal.replay(new StudentJournal.Replayer() {
+                @Override
+                public void addStudent(Student student) {
+                    roster.add(student, null);
+                }
+                
+                @Override
+                public void removeStudent(String id) {
+                    roster.remove(id, null);
+                }
+                
+                @Override
+                public void addAssessment(String studentId, Assessment assessment) {
+                    Student student = findStudentById(studentId);
+                    if (student != null) {
+                        student.addAssessment(assessment);
+                        roster.update(student, assessment.getDateRecorded());
+                    }
+                }
+            });
+            if (replayed > 0) {
+                System.out.println("✓ Replayed " + replayed + " journal records");
+            }
+        } catch (IOException e) {
+            System.err.println("✗ Error replaying journal: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Finish a checkpoint that stopped after retiring the journal: if the new snapshot
+     * was not moved into place yet, move it now; then drop the retired journal, whose
+     * records the snapshot already holds
+     */
+    private void recoverCheckpoint() {
+        if (!journal.hasRetired()) return;
+        Path target = Paths.get(snapshotFile());
+        Path temp = PersistenceService.temporaryFile(target);
+        try {
+            if (Files.exists(temp)) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            journal.discardRetired();
+            System.out.println("✓ Completed an interrupted checkpoint of " + target);
+        } catch (IOException e) {
+            System.err.println("✗ Error completing interrupted checkpoint: " + e.getMessage());
+        }
+    }
+    
+    private void readJson(Path file, Consumer<Student> sink) throws IOException {
+        StudentSnapshotReader reader = new StudentSnapshotReader(gson);
+        int threads = Runtime.getRuntime().availableProcessors();
         
-        return report.toString();
+        if (Files.size(file) >= PARALLEL_LOAD_BYTES && threads > 1) {
+            reader.readParallel(file, sink, loadProgressListener, threads);
+        } else {
+            reader.read(file, sink, loadProgressListener);
+        }
     }
     
     /**
-     * Save data to JSON file
+     * Export all students to a JSON file (same layout as student_data.json)
      */
-    public void saveData() {
-        try (FileWriter writer = new FileWriter(DATA_FILE)) {
-            gson.toJson(students, writer);
-            System.out.println("✓ Data saved successfully to " + DATA_FILE);
+    public boolean exportToJSON(String filename) {
+        try {
+            writeJson(Paths.get(filename), Durability.WRITE);
+            System.out.println("✓ Data exported to " + filename);
+            return true;
         } catch (IOException e) {
-            System.err.println("✗ Error saving data: " + e.getMessage());
+            System.err.println("✗ Error exporting data: " + e.getMessage());
+            return false;
         }
     }
     
     /**
-     * Load data from JSON file
+     * Import students from a JSON file; students whose ID already exists are skipped
+     * @return number of students added, or -1 on error
      */
-    public void loadData() {
-        File file = new File(DATA_FILE);
+    public int importFromJSON(String filename) {
+        List<Student> imported = new ArrayList<>();
         
-        if (!file.exists()) {
-            System.out.println("No existing data file found. Starting with empty student list.");
-            return;
+        try {
+            readJson(Paths.get(filename), imported::add);
+            int added = addStudents(imported).getAcceptedCount(); // Nothing is added if the file is unreadable
+            System.out.println("✓ Imported " + added + " students from " + filename);
+            return added;
+        } catch (IOException e) {
+            System.err.println("✗ Error importing data: " + e.getMessage());
+            return -1;
         }
+    }
+    
+    /**
+     * Import students and assessments from a CSV file, either one row per assessment
+     * or the layout written by {@link #exportToCSV}. Invalid rows are written to
+     * {@code <filename>.rejects.csv} instead of stopping the import. Summary rows for a
+     * subject the student already has are rejected, so importing an export twice is harmless.
+     * @return number of assessment rows imported, or -1 on error
+     */
+    public long importFromCSV(String filename) {
+        Path rejectFile = Paths.get(filename + ".rejects.csv");
         
-        try (FileReader reader = new FileReader(DATA_FILE)) {
-            Type studentListType = new TypeToken<ArrayList<Student>>(){}.getType();
-            ArrayList<Student> loadedStudents = gson.fromJson(reader, studentListType);
-            
-            if (loadedStudents != null) {
-                students = loadedStudents;
-                System.out.println("✓ Data loaded successfully: " + students.size() + " students");
+        try {
+            StudentCsvImporter.Result result = new StudentCsvImporter(this).importFile(Paths.get(filename), rejectFile);
+            System.out.println("✓ Imported " + result.getRowsImported() + " rows (" + result.getStudentsCreated()
+                    + " new students) from " + filename);
+            if (result.getRowsRejected() > 0) {
+                System.err.println("✗ Rejected " + result.getRowsRejected() + " rows, see " + rejectFile);
             }
+            return result.getRowsImported();
         } catch (IOException e) {
-            System.err.println("✗ Error loading data: " + e.getMessage());
+            System.err.println("✗ Error importing data: " + e.getMessage());
+            return -1;
         }
     }
     
     /**
-     * Export data to CSV format
+     * Set a listener for progress of subsequent {@link #loadData()} calls
+     */
+    public void setLoadProgressListener(LoadProgressListener listener) {
+        this.loadProgressListener = listener;
+    }
+    
+    /**
+     * Set a listener for assessments recorded from now on (null to remove it).
+     * Assessments added directly on a Student object are not reported.
+     */
+    public void setAssessmentListener(AssessmentListener listener) {
+        this.assessmentListener = listener;
+    }
+    
+    /**
+     * Write any pending changes and release the journal and snapshot file handles.
+     * Students whose histories were still on disk can no longer load them.
+     */
+    public void close() {
+        PersistenceService service = persistence;
+        if (service != null) {
+            service.flush().exceptionally(e -> null).join();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("✗ Error closing journal: " + e.getMessage());
+        }
+        checkpointLock.writeLock().lock();
+        try {
+            closeLazySnapshot();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+    
+    private void closeLazySnapshot() {
+        if (lazySnapshot == null) return;
+        try {
+            lazySnapshot.close();
+        } catch (IOException e) {
+            System.err.println("✗ Error closing snapshot: " + e.getMessage());
+        }
+        lazySnapshot = null;
+    }
+    
+    /**
+     * Export data to CSV format (one row per student and subject).
+     * Large rosters are formatted on several threads and merged in roster order.
      */
     public boolean exportToCSV(String filename) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            // Header
-            writer.println("Student ID,Name,Grade Level,Subject,Latest Score,Average,Assessment Count");
-            
-            // Data
-            for (Student s : students) {
-                for (String subject : s.getSubjects()) {
-                    writer.printf("%s,%s,%s,%s,%d,%.2f,%d\n",
-                        s.getId(),
-                        s.getName(),
-                        s.getGradeLevel(),
-                        subject,
-                        s.getLatestScore(subject),
-                        s.calculateSubjectAverage(subject),
-                        s.getAssessmentsBySubject(subject).size()
-                    );
-                }
+        List<Student> snapshot = getAllStudents();
+        int threads = Runtime.getRuntime().availableProcessors();
+        
+        try {
+            if (snapshot.size() >= PARALLEL_EXPORT_THRESHOLD && threads > 1) {
+                StudentCsvExporter.writeParallel(Paths.get(filename), snapshot, threads);
+            } else {
+                StudentCsvExporter.write(Paths.get(filename), snapshot);
             }
-            
             System.out.println("✓ Data exported to " + filename);
             return true;
         } catch (IOException e) {
@@ -328,23 +860,50 @@ public class StudentManager {
             return false;
         }
     }
+    
+    /**
+     * Export data to CSV part files in a directory, each with its own header
+     * @return number of files written, or -1 on error
+     */
+    public int exportToCSVChunks(String directory, String prefix, int studentsPerFile) {
+        try {
+            List<Path> files = StudentCsvExporter.writeChunks(Paths.get(directory), prefix, getAllStudents(),
+                    studentsPerFile, Runtime.getRuntime().availableProcessors());
+            System.out.println("✓ Data exported to " + files.size() + " files in " + directory);
+            return files.size();
+        } catch (IOException e) {
+            System.err.println("✗ Error exporting data: " + e.getMessage());
+            return -1;
+        }
+    }
 }
 
 /**
  * Custom adapter for LocalDateTime serialization/deserialization
+ * (LocalDateTime.toString() text, encoded and decoded by TimestampCodec)
  */
-class LocalDateTimeAdapter implements JsonSerializer<java.time.LocalDateTime>, 
-                                      JsonDeserializer<java.time.LocalDateTime> {
+class LocalDateTimeAdapter extends TypeAdapter<java.time.LocalDateTime> {
     
     @Override
-    public JsonElement serialize(java.time.LocalDateTime dateTime, Type type, 
-                                JsonSerializationContext context) {
-        return new JsonPrimitive(dateTime.toString());
+    public void write(JsonWriter out, java.time.LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            out.nullValue();
+        } else {
+            out.value(TimestampCodec.format(dateTime));
+        }
     }
     
     @Override
-    public java.time.LocalDateTime deserialize(JsonElement json, Type type, 
-                                               JsonDeserializationContext context) {
-        return java.time.LocalDateTime.parse(json.getAsString());
+    public java.time.LocalDateTime read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String text = in.nextString();
+        try {
+            return TimestampCodec.parse(text);
+        } catch (java.time.format.DateTimeParseException e) {
+            throw new JsonParseException("Invalid date: " + text, e);
+        }
     }
 }
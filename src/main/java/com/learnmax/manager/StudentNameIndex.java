@@ -0,0 +1,184 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Student;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Substring index over student names.
+ *
+ * Every case-folded name is broken into all 1-, 2- and 3-character grams, and
+ * each gram maps to an ascending list of slot numbers (one slot per indexed
+ * student, assigned in insertion order). A query is answered by scanning the
+ * shortest posting list among its grams and verifying candidates with a plain
+ * contains() on the folded name, so only students sharing the query's rarest
+ * gram are ever examined.
+ *
+ * Writers hold a StampedLock write lock and searches its read lock, so any number of
+ * searches run together. The posting map is a plain HashMap that writers resize, so
+ * it is never read without the lock.
+ */
+class StudentNameIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final Map<Student, Integer> slotOf = new IdentityHashMap<>();
+    private Student[] slots = new Student[16];
+    private String[] foldedNames = new String[16];
+    private int slotCount;
+    private int removedCount;
+
+    void add(Student student) {
+        long stamp = lock.writeLock();
+        try {
+            addLocked(student);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void addLocked(Student student) {
+        if (slotOf.containsKey(student)) return;
+
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slotCount * 2);
+            foldedNames = Arrays.copyOf(foldedNames, slotCount * 2);
+        }
+        int slot = slotCount++;
+        String folded = fold(student.getName());
+        slots[slot] = student;
+        foldedNames[slot] = folded;
+        slotOf.put(student, slot);
+
+        for (int i = 0; i < folded.length(); i++) {
+            for (int len = 1; len <= MAX_GRAM && i + len <= folded.length(); len++) {
+                IntList posting = postings.computeIfAbsent(gramKey(folded, i, len), k -> new IntList());
+                posting.addIfLast(slot);
+            }
+        }
+    }
+
+    void remove(Student student) {
+        long stamp = lock.writeLock();
+        try {
+            Integer slot = slotOf.remove(student);
+            if (slot == null) return;
+
+            // Tombstone the slot; postings are purged when the index is compacted
+            slots[slot] = null;
+            foldedNames[slot] = null;
+            removedCount++;
+            if (removedCount > 64 && removedCount > slotCount / 2) {
+                compact();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            clearLocked();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void clearLocked() {
+        postings.clear();
+        slotOf.clear();
+        slots = new Student[16];
+        foldedNames = new String[16];
+        slotCount = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Find students whose name contains the query (case-insensitive), in insertion order
+     * @param foldedQuery query already trimmed and case-folded with {@link #fold(String)}
+     */
+    List<Student> search(String foldedQuery) {
+        if (foldedQuery.isEmpty()) return new ArrayList<>();
+
+        long stamp = lock.readLock();
+        try {
+            return searchUnlocked(foldedQuery);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private List<Student> searchUnlocked(String foldedQuery) {
+        List<Student> results = new ArrayList<>();
+        Student[] slots = this.slots;
+        String[] foldedNames = this.foldedNames;
+
+        // Pick the rarest gram of the query as the candidate set
+        IntList candidates = null;
+        int gramLength = Math.min(MAX_GRAM, foldedQuery.length());
+        for (int i = 0; i + gramLength <= foldedQuery.length(); i++) {
+            IntList posting = postings.get(gramKey(foldedQuery, i, gramLength));
+            if (posting == null) {
+                return results; // Some gram never occurs, so nothing can match
+            }
+            if (candidates == null || posting.size < candidates.size) {
+                candidates = posting;
+            }
+        }
+
+        boolean exactGram = foldedQuery.length() <= MAX_GRAM;
+        for (int i = 0; i < candidates.size; i++) {
+            int slot = candidates.values[i];
+            Student student = slots[slot];
+            if (student != null && (exactGram || foldedNames[slot].contains(foldedQuery))) {
+                results.add(student);
+            }
+        }
+        return results;
+    }
+
+    static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private void compact() {
+        Student[] live = new Student[slotCount - removedCount];
+        int n = 0;
+        for (int i = 0; i < slotCount; i++) {
+            if (slots[i] != null) live[n++] = slots[i];
+        }
+        clearLocked();
+        for (Student student : live) {
+            addLocked(student);
+        }
+    }
+
+    private static long gramKey(String text, int start, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(start + i);
+        }
+        return key;
+    }
+
+    /**
+     * Growable ascending int list
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) return; // Gram repeats within one name
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
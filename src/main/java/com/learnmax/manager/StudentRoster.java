@@ -0,0 +1,226 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Student;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe set of students with their primary and secondary indexes.
+ *
+ * Every student gets a sequence number when added; the roster, grade buckets and
+ * ranking ties are ordered by it, which reproduces insertion order. Structural
+ * changes for one ID, and the journal writes that go with them, run under the lock
+ * stripe that ID hashes to, outside any map's compute function; the student is then
+ * published by ID, or unpublished, with a single map operation. Adds and removes on
+ * other stripes proceed in parallel. Lookups and ordered views are served from
+ * concurrent maps without locking; name searches share the name index's read lock.
+ */
+class StudentRoster {
+
+    private static final int LOCK_STRIPES = 256; // Power of two
+
+    private static final class Entry {
+        final long sequence;
+        final Student student;
+
+        Entry(long sequence, Student student) {
+            this.sequence = sequence;
+            this.student = student;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Student> inOrder = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Long, Student>> byGrade = new ConcurrentHashMap<>();
+    private final StudentNameIndex nameIndex = new StudentNameIndex();
+    private final PerformanceRanking ranking = new PerformanceRanking();
+    private final AssessmentTimeIndex timeIndex = new AssessmentTimeIndex();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    StudentRoster() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(String id) {
+        int h = id.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Add a student unless its ID is taken
+     * @param whileLocked runs after indexing, before the student becomes visible by ID,
+     *                    while other changes to the same ID are held off
+     * @return false for a duplicate ID
+     */
+    boolean add(Student student, Runnable whileLocked) {
+        String id = student.getId();
+        synchronized (lockFor(id)) {
+            if (byId.containsKey(id)) {
+                return false;
+            }
+            long sequence = nextSequence.getAndIncrement();
+            index(student, sequence);
+            if (whileLocked != null) {
+                whileLocked.run();
+            }
+            byId.putIfAbsent(id, new Entry(sequence, student));
+            return true;
+        }
+    }
+
+    /**
+     * Remove a student by ID
+     * @param whileLocked runs after unindexing, while other changes to the same ID are held off
+     * @return the removed student, or null if none
+     */
+    Student remove(String id, Consumer<Student> whileLocked) {
+        synchronized (lockFor(id)) {
+            Entry entry = byId.get(id);
+            if (entry == null) {
+                return null;
+            }
+            unindex(entry);
+            if (whileLocked != null) {
+                whileLocked.accept(entry.student);
+            }
+            byId.remove(id, entry);
+            return entry.student;
+        }
+    }
+
+    /**
+     * Re-rank and re-index a student after its assessments changed
+     */
+    void update(Student student) {
+        ranking.update(student);
+        whileCurrent(student, () -> timeIndex.add(foldGrade(student.getGradeLevel()), student));
+    }
+
+    /**
+     * Re-rank a student after one assessment was added, indexing only that assessment's day
+     */
+    void update(Student student, LocalDateTime recordedAt) {
+        ranking.update(student);
+        if (recordedAt != null) {
+            whileCurrent(student, () -> timeIndex.add(foldGrade(student.getGradeLevel()), student, recordedAt));
+        }
+    }
+
+    /**
+     * Run {@code action} while holding off removal, only if the student is still on the roster.
+     * {@code action} must not change the roster.
+     * @return false if the student was removed or replaced, so {@code action} did not run
+     */
+    boolean whileCurrent(Student student, Runnable action) {
+        synchronized (lockFor(student.getId())) {
+            Entry entry = byId.get(student.getId());
+            if (entry == null || entry.student != student) {
+                return false;
+            }
+            action.run();
+            return true;
+        }
+    }
+
+    void clear() {
+        byId.clear();
+        inOrder.clear();
+        byGrade.clear();
+        nameIndex.clear();
+        ranking.clear();
+        timeIndex.clear();
+    }
+
+    private void index(Student student, long sequence) {
+        inOrder.put(sequence, student);
+        byGrade.compute(foldGrade(student.getGradeLevel()), (grade, bucket) -> {
+            if (bucket == null) {
+                bucket = new ConcurrentSkipListMap<>();
+            }
+            bucket.put(sequence, student);
+            return bucket;
+        });
+        nameIndex.add(student);
+        ranking.add(student, sequence);
+        timeIndex.add(foldGrade(student.getGradeLevel()), student);
+    }
+
+    private void unindex(Entry entry) {
+        Student student = entry.student;
+        timeIndex.remove(foldGrade(student.getGradeLevel()), student);
+        ranking.remove(student);
+        nameIndex.remove(student);
+        byGrade.computeIfPresent(foldGrade(student.getGradeLevel()), (grade, bucket) -> {
+            bucket.remove(entry.sequence);
+            return bucket.isEmpty() ? null : bucket;
+        });
+        inOrder.remove(entry.sequence);
+    }
+
+    static String foldGrade(String gradeLevel) {
+        return gradeLevel == null ? "" : gradeLevel.toLowerCase(Locale.ROOT);
+    }
+
+    // ==================== READS ====================
+
+    Student get(String id) {
+        Entry entry = byId.get(id);
+        return entry != null ? entry.student : null;
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    /**
+     * Live, weakly consistent view in insertion order
+     */
+    Collection<Student> values() {
+        return inOrder.values();
+    }
+
+    List<Student> byGrade(String gradeLevel) {
+        ConcurrentSkipListMap<Long, Student> bucket = byGrade.get(foldGrade(gradeLevel));
+        return bucket != null ? new ArrayList<>(bucket.values()) : new ArrayList<>();
+    }
+
+    List<Student> searchName(String foldedQuery) {
+        return nameIndex.search(foldedQuery);
+    }
+
+    List<Student> top(int count) {
+        return ranking.top(count);
+    }
+
+    List<Student> below(double threshold) {
+        return ranking.below(threshold);
+    }
+
+    /**
+     * Students with an assessment on a day in [fromDay, toDay], in insertion order
+     * @param gradeLevel grade to search, or null for all grades
+     */
+    List<Student> withAssessmentsBetween(String gradeLevel, long fromDay, long toDay) {
+        TreeMap<Long, Student> ordered = new TreeMap<>();
+        String grade = gradeLevel != null ? foldGrade(gradeLevel) : null;
+        for (Student student : timeIndex.studentsBetween(grade, fromDay, toDay)) {
+            Entry entry = byId.get(student.getId());
+            if (entry != null && entry.student == student) {
+                ordered.put(entry.sequence, student);
+            }
+        }
+        return new ArrayList<>(ordered.values());
+    }
+}
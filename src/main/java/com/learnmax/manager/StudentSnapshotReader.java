@@ -0,0 +1,371 @@
+package com.learnmax.manager;
+
+import com.learnmax.model.Student;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for the student_data.json snapshot (a JSON array of students).
+ *
+ * Students are decoded one at a time and handed to a sink, so the whole document
+ * is never materialized. In parallel mode the calling thread reads the file in large
+ * blocks and scans them for top-level array elements, handing worker threads slices
+ * of those blocks (no per-byte stream calls, no copies) to decode; chunks are
+ * delivered to the sink in file order on the calling thread.
+ */
+public class StudentSnapshotReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 1000; // Students between progress callbacks
+    private static final int CHUNK_STUDENTS = 512;
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final byte[] OPEN_ARRAY = {'['};
+    private static final byte[] CLOSE_ARRAY = {']'};
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] NULL_LITERAL = {'n', 'u', 'l', 'l'};
+
+    private final Gson gson;
+
+    public StudentSnapshotReader(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Decode students sequentially
+     * @return number of students delivered to the sink
+     */
+    public int read(Path file, Consumer<Student> sink,
+                    StudentManager.LoadProgressListener progress) throws IOException {
+        long totalBytes = Files.size(file);
+        if (totalBytes == 0) return 0;
+
+        try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+             JsonReader reader = new JsonReader(new BufferedReader(
+                     new InputStreamReader(counter, StandardCharsets.UTF_8), BUFFER_SIZE))) {
+
+            if (reader.peek() == JsonToken.NULL) {
+                return 0;
+            }
+
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Student student = gson.fromJson(reader, Student.class);
+                if (student == null) continue;
+
+                sink.accept(student);
+                count++;
+                if (progress != null && count % PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(counter.count, totalBytes, count);
+                }
+            }
+            reader.endArray();
+
+            if (progress != null) {
+                progress.onProgress(totalBytes, totalBytes, count);
+            }
+            return count;
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Malformed student data: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decode students on several threads, delivering them to the sink in file order
+     * @return number of students delivered to the sink
+     */
+    public int readParallel(Path file, Consumer<Student> sink,
+                            StudentManager.LoadProgressListener progress, int threads) throws IOException {
+        long totalBytes = Files.size(file);
+        if (totalBytes == 0) return 0;
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "student-snapshot-decoder");
+            t.setDaemon(true);
+            return t;
+        });
+        Deque<Future<Student[]>> pending = new ArrayDeque<>();
+        int maxPending = Math.max(2, threads * 2); // Bounds memory held by undecoded chunks
+        int[] count = {0};
+
+        try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(file))) {
+
+            ChunkScanner scanner = new ChunkScanner(counter);
+            Slice chunk;
+            while ((chunk = scanner.nextChunk()) != null) {
+                Slice json = chunk;
+                pending.addLast(workers.submit(() -> decode(json)));
+
+                while (pending.size() >= maxPending) {
+                    deliver(pending.removeFirst(), sink, count);
+                    if (progress != null) progress.onProgress(counter.count, totalBytes, count[0]);
+                }
+            }
+            while (!pending.isEmpty()) {
+                deliver(pending.removeFirst(), sink, count);
+            }
+
+            if (progress != null) {
+                progress.onProgress(totalBytes, totalBytes, count[0]);
+            }
+            return count[0];
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Decode the comma-separated elements of a slice as one array
+     */
+    private Student[] decode(Slice elements) throws IOException {
+        InputStream array = new SequenceInputStream(new ByteArrayInputStream(OPEN_ARRAY),
+                new SequenceInputStream(new ByteArrayInputStream(elements.bytes, elements.from,
+                        elements.to - elements.from), new ByteArrayInputStream(CLOSE_ARRAY)));
+        try (Reader reader = new InputStreamReader(array, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Student[].class);
+        }
+    }
+
+    private static void deliver(Future<Student[]> future, Consumer<Student> sink, int[] count)
+            throws IOException {
+        Student[] decoded;
+        try {
+            decoded = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading student data");
+        } catch (ExecutionException e) {
+            throw new IOException("Malformed student data: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        for (Student student : decoded) {
+            if (student != null) {
+                sink.accept(student);
+                count[0]++;
+            }
+        }
+    }
+
+    /**
+     * Whole top-level array elements, separated by commas, in {@code bytes[from, to)}
+     */
+    private static final class Slice {
+        final byte[] bytes;
+        final int from;
+        final int to;
+
+        Slice(byte[] bytes, int from, int to) {
+            this.bytes = bytes;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Splits a top-level JSON array into runs of whole elements.
+     * Reads the stream in blocks of CHUNK_BYTES and scans each block in place; only an
+     * element cut by the end of a block is copied into the next one. A block is never
+     * reused once slices of it have been handed out. Only structural ASCII bytes are
+     * inspected, which is safe for UTF-8 input. What precedes the array is held to the
+     * same rules JsonReader applies on the sequential path: an optional byte order mark,
+     * whitespace, or a document that is just {@code null}.
+     */
+    private static final class ChunkScanner {
+        private final InputStream in;
+        private byte[] block = new byte[0];
+        private int limit;
+        private int pos;
+        private boolean started;
+        private int prefixBytes;       // Bytes seen before the opening '['
+        private int bomBytes;          // Of those, bytes of a leading byte order mark
+        private int nullBytes;         // Bytes of a top-level null literal, 0 if none
+        private boolean finished;
+        private boolean inString;
+        private boolean escaped;
+        private int depth;
+        private int chunkStart = -1;   // First element of the chunk being built
+        private int elementStart = -1; // Element in progress, -1 between elements
+        private int lastEnd;           // Just past the last whole element of the chunk
+        private int chunkElements;
+
+        ChunkScanner(InputStream in) {
+            this.in = in;
+        }
+
+        Slice nextChunk() throws IOException {
+            if (finished) return null;
+
+            while (true) {
+                if (pos == limit) {
+                    if (chunkElements > 0) {
+                        return takeChunk(); // Hand out what this block holds before replacing it
+                    }
+                    if (!fill()) break;
+                }
+                byte b = block[pos];
+
+                if (!started) {
+                    pos++;
+                    scanPrefix(b);
+                    if (finished) return null; // Literal null document
+                    continue;
+                }
+
+                if (inString) {
+                    if (escaped) escaped = false;
+                    else if (b == '\\') escaped = true;
+                    else if (b == '"') inString = false;
+                    pos++;
+                    continue;
+                }
+
+                switch (b) {
+                    case ' ': case '\t': case '\n': case '\r':
+                        break; // Insignificant whitespace
+                    case ',':
+                        if (depth == 0 && endElement()) {
+                            pos++;
+                            return takeChunk();
+                        }
+                        break;
+                    case ']':
+                    case '}':
+                        if (depth == 0) {
+                            // End of the top-level array
+                            endElement();
+                            finished = true;
+                            pos++;
+                            return chunkElements > 0 ? takeChunk() : null;
+                        }
+                        depth--;
+                        break;
+                    case '[':
+                    case '{':
+                        beginElement();
+                        depth++;
+                        break;
+                    case '"':
+                        beginElement();
+                        inString = true;
+                        break;
+                    default:
+                        beginElement();
+                }
+                pos++;
+            }
+
+            finished = true;
+            if (started || nullBytes > 0 || bomBytes % UTF8_BOM.length != 0) {
+                throw new EOFException("Truncated student data file");
+            }
+            return null; // Blank file
+        }
+
+        /**
+         * Consume one byte before the top-level array, rejecting anything JsonReader would
+         */
+        private void scanPrefix(byte b) throws IOException {
+            int at = prefixBytes++;
+            if (nullBytes > 0) {
+                if (b != NULL_LITERAL[nullBytes]) throw unexpected(b);
+                if (++nullBytes == NULL_LITERAL.length) finished = true;
+            } else if (at == bomBytes && at < UTF8_BOM.length && b == UTF8_BOM[at]) {
+                bomBytes++;
+            } else if (bomBytes % UTF8_BOM.length != 0) {
+                throw unexpected(b); // Partial byte order mark
+            } else if (b == '[') {
+                started = true;
+            } else if (b == 'n') {
+                nullBytes = 1;
+            } else if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                throw unexpected(b);
+            }
+        }
+
+        private IOException unexpected(byte b) {
+            return new IOException("Malformed student data: unexpected byte 0x"
+                    + Integer.toHexString(b & 0xFF) + " at offset " + (prefixBytes - 1)
+                    + " before the student array");
+        }
+
+        private void beginElement() {
+            if (elementStart >= 0 || depth > 0) return;
+            elementStart = pos;
+            if (chunkStart < 0) chunkStart = pos;
+        }
+
+        /**
+         * @return true when the current chunk is full
+         */
+        private boolean endElement() {
+            if (elementStart < 0) return false;
+            elementStart = -1;
+            lastEnd = pos;
+            chunkElements++;
+            return chunkElements >= CHUNK_STUDENTS || lastEnd - chunkStart >= CHUNK_BYTES;
+        }
+
+        private Slice takeChunk() {
+            Slice chunk = new Slice(block, chunkStart, lastEnd);
+            chunkStart = elementStart; // An element in progress starts the next chunk
+            chunkElements = 0;
+            return chunk;
+        }
+
+        /**
+         * Read the next block into a new buffer, carrying over an element cut by the end
+         * of the current one
+         * @return false at end of stream
+         */
+        private boolean fill() throws IOException {
+            int keep = elementStart >= 0 ? elementStart : limit;
+            int carry = limit - keep;
+            byte[] next = new byte[Math.max(CHUNK_BYTES, carry * 2)];
+            System.arraycopy(block, keep, next, 0, carry);
+
+            int read = in.read(next, carry, next.length - carry);
+            if (read <= 0) return false;
+            block = next;
+            limit = carry + read;
+            pos = carry;
+            if (elementStart >= 0) {
+                elementStart = 0;
+                chunkStart = 0;
+            }
+            return true;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -1,25 +1,32 @@
 package com.learnmax.model;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a single assessment/test score for a subject
  * Includes timestamp tracking for temporal analysis
+ *
+ * The subject (normalized) and assessment type are held as SubjectRegistry ids;
+ * JSON still carries the readable names.
  */
+@JsonAdapter(AssessmentJsonAdapter.class)
 public class Assessment {
-    private String subject;
+    /** Earliest recording time that can be stored (nanoseconds since 1970 must fit in a long) */
+    public static final LocalDateTime MIN_DATE = AssessmentColumns.fromTime(AssessmentColumns.NO_TIME + 1);
+    /** Latest recording time that can be stored */
+    public static final LocalDateTime MAX_DATE = AssessmentColumns.fromTime(Long.MAX_VALUE);
+    
+    private int subjectId;
     private int score;
     private LocalDateTime dateRecorded;
-    private String assessmentType; // "Test", "Quiz", "Assignment", "Exam"
+    private int typeId; // "Test", "Quiz", "Assignment", "Exam"
     private int weight; // For weighted average calculations (default 100)
     
     public Assessment(String subject, int score, String assessmentType) {
-        this.subject = subject;
-        this.score = score;
-        this.dateRecorded = LocalDateTime.now();
-        this.assessmentType = assessmentType;
-        this.weight = 100;
+        this(subject, score, assessmentType, 100, LocalDateTime.now());
     }
     
     public Assessment(String subject, int score, String assessmentType, int weight) {
@@ -27,9 +34,37 @@ public class Assessment {
         this.weight = weight;
     }
     
+    /**
+     * Restore a previously recorded assessment with its original timestamp
+     */
+    public Assessment(String subject, int score, String assessmentType, int weight,
+                      LocalDateTime dateRecorded) {
+        this(SubjectRegistry.subjectId(subject), score, SubjectRegistry.typeId(assessmentType),
+                weight, dateRecorded);
+    }
+    
+    /**
+     * Build from registry ids (used when materializing stored assessments)
+     */
+    Assessment(int subjectId, int score, int typeId, int weight, LocalDateTime dateRecorded) {
+        this.subjectId = subjectId;
+        this.score = score;
+        this.dateRecorded = dateRecorded;
+        this.typeId = typeId;
+        this.weight = weight;
+    }
+    
     // Getters
     public String getSubject() {
-        return subject;
+        return SubjectRegistry.subjectName(subjectId);
+    }
+    
+    public int getSubjectId() {
+        return subjectId;
+    }
+    
+    public int getTypeId() {
+        return typeId;
     }
     
     public int getScore() {
@@ -41,13 +76,20 @@ public class Assessment {
     }
     
     public String getAssessmentType() {
-        return assessmentType;
+        return SubjectRegistry.typeName(typeId);
     }
     
     public int getWeight() {
         return weight;
     }
     
+    /**
+     * Whether a recording time is within [MIN_DATE, MAX_DATE]; null (undated) is supported
+     */
+    public static boolean isSupportedDate(LocalDateTime dateRecorded) {
+        return dateRecorded == null || (!dateRecorded.isBefore(MIN_DATE) && !dateRecorded.isAfter(MAX_DATE));
+    }
+    
     public String getFormattedDate() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         return dateRecorded.format(formatter);
@@ -56,6 +98,6 @@ public class Assessment {
     @Override
     public String toString() {
         return String.format("%s - %s: %d/100 (Weight: %d%%) [%s]", 
-                           subject, assessmentType, score, weight, getFormattedDate());
+                           getSubject(), getAssessmentType(), score, weight, getFormattedDate());
     }
 }
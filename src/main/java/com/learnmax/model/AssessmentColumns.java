@@ -0,0 +1,214 @@
+package com.learnmax.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A student's assessments stored as parallel primitive arrays, one slot per assessment.
+ *
+ * Subjects and assessment types are stored as SubjectRegistry ids, the
+ * score as a byte, the weight as a short and the recording time as nanoseconds
+ * since 1970-01-01T00:00 (Assessment.MIN_DATE to MAX_DATE, about 1677-09-21 to
+ * 2262-04-11; Student rejects other dates). This costs 16 bytes
+ * per assessment instead of an Assessment plus its LocalDateTime/LocalDate/LocalTime.
+ * Weights or type ids that do not fit are kept by widening that one column to int.
+ * Assessment objects are only built on request. Not thread-safe; Student guards it.
+ *
+ * Slots are kept in recording-time order (assessments without a date first, equal
+ * times in insertion order), so time ranges are found by binary search. Appending
+ * in time order is O(1); an out-of-order assessment shifts the later slots.
+ */
+final class AssessmentColumns {
+
+    static final long NO_TIME = Long.MIN_VALUE; // Assessment recorded without a date
+    static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    private static final int NARROW_TYPE_LIMIT = 255;
+
+    private int size;
+    private int[] subjectIds = new int[0];
+    private byte[] scores = new byte[0];
+    private short[] weights = new short[0];
+    private int[] wideWeights; // Replaces weights once a weight outside the short range is added
+    private long[] recordedAt = new long[0];
+    private byte[] typeIds = new byte[0];
+    private int[] wideTypeIds; // Replaces typeIds once more than 255 types exist
+
+    int size() {
+        return size;
+    }
+
+    void add(Assessment assessment) {
+        if (size == scores.length) {
+            grow();
+        }
+        long time = toTime(assessment.getDateRecorded());
+        int i = upperBound(time);
+        if (i < size) {
+            shiftUp(i);
+        }
+        subjectIds[i] = assessment.getSubjectId();
+        scores[i] = (byte) assessment.getScore();
+        recordedAt[i] = time;
+
+        int weight = assessment.getWeight();
+        if (wideWeights == null && weight != (short) weight) {
+            wideWeights = new int[weights.length];
+            for (int j = 0; j <= size; j++) wideWeights[j] = weights[j];
+            weights = null;
+        }
+        if (wideWeights != null) wideWeights[i] = weight;
+        else weights[i] = (short) weight;
+
+        int typeId = assessment.getTypeId();
+        if (wideTypeIds == null && typeId > NARROW_TYPE_LIMIT) {
+            wideTypeIds = new int[typeIds.length];
+            for (int j = 0; j <= size; j++) wideTypeIds[j] = typeIds[j] & 0xFF;
+            typeIds = null;
+        }
+        if (wideTypeIds != null) wideTypeIds[i] = typeId;
+        else typeIds[i] = (byte) typeId;
+
+        size++;
+    }
+
+    /**
+     * Open slot {@code i} by moving slots i..size-1 up by one
+     */
+    private void shiftUp(int i) {
+        int count = size - i;
+        System.arraycopy(subjectIds, i, subjectIds, i + 1, count);
+        System.arraycopy(scores, i, scores, i + 1, count);
+        System.arraycopy(recordedAt, i, recordedAt, i + 1, count);
+        if (wideWeights != null) System.arraycopy(wideWeights, i, wideWeights, i + 1, count);
+        else System.arraycopy(weights, i, weights, i + 1, count);
+        if (wideTypeIds != null) System.arraycopy(wideTypeIds, i, wideTypeIds, i + 1, count);
+        else System.arraycopy(typeIds, i, typeIds, i + 1, count);
+    }
+
+    /**
+     * First slot recorded at or after {@code time}
+     */
+    int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (recordedAt[mid] < time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * First slot recorded strictly after {@code time}
+     */
+    int upperBound(long time) {
+        if (size == 0 || recordedAt[size - 1] <= time) return size; // Appending in order
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (recordedAt[mid] <= time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private void grow() {
+        int capacity = Math.max(4, size + (size >> 1));
+        subjectIds = Arrays.copyOf(subjectIds, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        recordedAt = Arrays.copyOf(recordedAt, capacity);
+        if (wideWeights != null) wideWeights = Arrays.copyOf(wideWeights, capacity);
+        else weights = Arrays.copyOf(weights, capacity);
+        if (wideTypeIds != null) wideTypeIds = Arrays.copyOf(wideTypeIds, capacity);
+        else typeIds = Arrays.copyOf(typeIds, capacity);
+    }
+
+    // ==================== COLUMN ACCESS ====================
+
+    String subject(int i) {
+        return SubjectRegistry.subjectName(subjectIds[i]);
+    }
+
+    int subjectId(int i) {
+        return subjectIds[i];
+    }
+
+    int score(int i) {
+        return scores[i];
+    }
+
+    int weight(int i) {
+        return wideWeights != null ? wideWeights[i] : weights[i];
+    }
+
+    long recordedAt(int i) {
+        return recordedAt[i];
+    }
+
+    int typeId(int i) {
+        return wideTypeIds != null ? wideTypeIds[i] : typeIds[i] & 0xFF;
+    }
+
+    /**
+     * Build the assessment stored at slot {@code i}
+     */
+    Assessment get(int i) {
+        return new Assessment(subjectIds[i], score(i), typeId(i), weight(i), fromTime(recordedAt[i]));
+    }
+
+    List<Assessment> toList() {
+        List<Assessment> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    /**
+     * Stored form of a recording time
+     * @throws IllegalArgumentException outside Assessment.MIN_DATE to MAX_DATE
+     */
+    static long toTime(LocalDateTime dateTime) {
+        if (dateTime == null) return NO_TIME;
+        if (!Assessment.isSupportedDate(dateTime)) {
+            throw new IllegalArgumentException("Date recorded must be between " + Assessment.MIN_DATE
+                    + " and " + Assessment.MAX_DATE + ": " + dateTime);
+        }
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        long nanos = dateTime.getNano();
+        if (seconds < 0 && nanos > 0) {
+            // Borrow a second so the product stays in range at MIN_DATE
+            seconds++;
+            nanos -= 1_000_000_000L;
+        }
+        return seconds * 1_000_000_000L + nanos;
+    }
+
+    /**
+     * Stored form of a query bound, clamped to the storable range so any date can be asked for
+     */
+    static long boundTime(LocalDateTime dateTime) {
+        if (dateTime.isBefore(Assessment.MIN_DATE)) return NO_TIME + 1;
+        if (dateTime.isAfter(Assessment.MAX_DATE)) return Long.MAX_VALUE;
+        return toTime(dateTime);
+    }
+
+    /**
+     * Days since 1970-01-01 of a stored time
+     */
+    static long epochDay(long time) {
+        return Math.floorDiv(time, NANOS_PER_DAY);
+    }
+
+    static LocalDateTime fromTime(long time) {
+        if (time == NO_TIME) return null;
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1_000_000_000L),
+                (int) Math.floorMod(time, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
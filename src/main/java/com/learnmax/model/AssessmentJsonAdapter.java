@@ -0,0 +1,80 @@
+package com.learnmax.model;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static com.learnmax.persistence.JsonStreams.*;
+
+/**
+ * Gson mapping for Assessment, attached with {@code @JsonAdapter}.
+ *
+ * Writes subject and type by name, in the field order and null handling of the
+ * original reflective mapping, so registry ids never reach the JSON files.
+ */
+final class AssessmentJsonAdapter extends TypeAdapter<Assessment> {
+
+    @Override
+    public void write(JsonWriter out, Assessment assessment) throws IOException {
+        if (assessment == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeString(out, "subject", assessment.getSubject());
+        out.name("score").value(assessment.getScore());
+        writeDate(out, "dateRecorded", assessment.getDateRecorded());
+        writeString(out, "assessmentType", assessment.getAssessmentType());
+        out.name("weight").value(assessment.getWeight());
+        out.endObject();
+    }
+
+    @Override
+    public Assessment read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String subject = null;
+        int score = 0;
+        LocalDateTime dateRecorded = null;
+        String assessmentType = null;
+        int weight = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "subject":
+                    subject = readString(in);
+                    break;
+                case "score":
+                    score = in.nextInt();
+                    break;
+                case "dateRecorded":
+                    dateRecorded = readDate(in);
+                    break;
+                case "assessmentType":
+                    assessmentType = readString(in);
+                    break;
+                case "weight":
+                    weight = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (!Assessment.isSupportedDate(dateRecorded)) {
+            throw new JsonParseException("Date recorded out of range: " + dateRecorded);
+        }
+        return new Assessment(subject, score, assessmentType, weight, dateRecorded);
+    }
+}
@@ -0,0 +1,76 @@
+package com.learnmax.model;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A student's assessment history that is still on disk, plus the figures the roster
+ * needs without reading it (see {@link Student#withStoredHistory}).
+ */
+public final class StoredHistory {
+
+    /**
+     * Reads the stored assessments, oldest first
+     */
+    @FunctionalInterface
+    public interface Loader {
+        List<Assessment> load() throws IOException;
+
+        /**
+         * Called once the student holds its assessments and will not load them again
+         */
+        default void release() {
+        }
+    }
+
+    private final int assessmentCount;
+    private final int subjectCount;
+    private final double overallAverage;
+    private final LocalDateTime firstRecorded;
+    private final LocalDateTime lastRecorded;
+    private final Loader loader;
+
+    /**
+     * @param overallAverage as {@link Student#calculateOverallAverage()}, -1 if there are no assessments
+     * @param firstRecorded earliest assessment date, or null if no assessment has one
+     * @param lastRecorded latest assessment date, or null if no assessment has one
+     */
+    public StoredHistory(int assessmentCount, int subjectCount, double overallAverage,
+                         LocalDateTime firstRecorded, LocalDateTime lastRecorded, Loader loader) {
+        this.assessmentCount = assessmentCount;
+        this.subjectCount = subjectCount;
+        this.overallAverage = overallAverage;
+        this.firstRecorded = firstRecorded;
+        this.lastRecorded = lastRecorded;
+        this.loader = loader;
+    }
+
+    int getAssessmentCount() {
+        return assessmentCount;
+    }
+
+    int getSubjectCount() {
+        return subjectCount;
+    }
+
+    double getOverallAverage() {
+        return overallAverage;
+    }
+
+    LocalDateTime getFirstRecorded() {
+        return firstRecorded;
+    }
+
+    LocalDateTime getLastRecorded() {
+        return lastRecorded;
+    }
+
+    List<Assessment> load() throws IOException {
+        return loader.load();
+    }
+
+    void release() {
+        loader.release();
+    }
+}
@@ -1,6 +1,11 @@
 package com.learnmax.model;
 
+import com.google.gson.annotations.JsonAdapter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.LongConsumer;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
@@ -10,19 +15,46 @@ import java.time.temporal.ChronoUnit;
  * - Historical tracking
  * - Trend analysis
  * - Enhanced validation
+ *
+ * Thread safety: mutations synchronize on the student, so writers to different
+ * students never contend. Derived aggregates (averages, latest scores, subjects)
+ * are updated in place in O(1) per assessment and read lock-free from an immutable
+ * summary, copied from them on the first read after a change.
+ *
+ * Assessments are stored column-wise in primitive arrays (see AssessmentColumns);
+ * Assessment objects are built only when a caller asks for them. A student created
+ * with {@link #withStoredHistory} reads its assessments from disk on first access;
+ * until then the overall average and counts come from the stored figures.
  */
+@JsonAdapter(StudentJsonAdapter.class)
 public class Student {
     private String id;
     private String name;
     private String gradeLevel;
     private LocalDateTime enrollmentDate;
-    private ArrayList<Assessment> assessments; // All assessments across all subjects
+    private final AssessmentColumns assessments; // All assessments across all subjects; guarded by this
+    
+    // Derived aggregates; not persisted, rebuilt lazily after deserialization. Guarded by this
+    private StudentAggregates aggregates;
+    
+    // Published copy of the aggregates; null after a change until the next read
+    private volatile StudentSummary summary;
+    
+    // Assessments not yet read from disk; null once they are in the columns
+    private volatile StoredHistory storedHistory;
     
     public Student(String id, String name) {
         this(id, name, "Not Specified");
     }
     
     public Student(String id, String name, String gradeLevel) {
+        this(id, name, gradeLevel, LocalDateTime.now());
+    }
+    
+    /**
+     * Restore a student with its original enrollment date (assessments are added separately)
+     */
+    public Student(String id, String name, String gradeLevel, LocalDateTime enrollmentDate) {
         // Validation
         if (id == null || id.trim().isEmpty()) {
             throw new IllegalArgumentException("Student ID cannot be empty");
@@ -34,14 +66,68 @@ public class Student {
         this.id = id.trim();
         this.name = name.trim();
         this.gradeLevel = gradeLevel;
-        this.enrollmentDate = LocalDateTime.now();
-        this.assessments = new ArrayList<>();
+        this.enrollmentDate = enrollmentDate;
+        this.assessments = new AssessmentColumns();
+    }
+    
+    /**
+     * Restore a persisted student as stored, without validation (used by StudentJsonAdapter)
+     */
+    Student(String id, String name, String gradeLevel, LocalDateTime enrollmentDate,
+            AssessmentColumns assessments) {
+        this.id = id;
+        this.name = name;
+        this.gradeLevel = gradeLevel;
+        this.enrollmentDate = enrollmentDate;
+        this.assessments = assessments;
+    }
+    
+    /**
+     * Restore a persisted student whose assessments stay on disk until first needed
+     */
+    public static Student withStoredHistory(String id, String name, String gradeLevel,
+                                            LocalDateTime enrollmentDate, StoredHistory history) {
+        Student student = new Student(id, name, gradeLevel, enrollmentDate, new AssessmentColumns());
+        student.storedHistory = history;
+        return student;
+    }
+    
+    /**
+     * Read the stored history into the columns if that has not happened yet
+     * @throws UncheckedIOException if it cannot be read; the student stays unloaded
+     */
+    private void loadHistory() {
+        if (storedHistory == null) return;
+        synchronized (this) {
+            StoredHistory history = storedHistory;
+            if (history == null) return;
+            
+            List<Assessment> stored;
+            try {
+                stored = history.load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load assessments of student " + id, e);
+            }
+            for (Assessment assessment : stored) {
+                assessments.add(assessment);
+            }
+            storedHistory = null;
+            history.release();
+        }
+    }
+    
+    /**
+     * True once the assessments are in memory (always, unless created with {@link #withStoredHistory})
+     */
+    public boolean isHistoryLoaded() {
+        return storedHistory == null;
     }
     
     /**
      * Add a new assessment for a subject
+     * @return the recorded assessment
      */
-    public void addAssessment(String subject, int score, String assessmentType) {
+    public Assessment addAssessment(String subject, int score, String assessmentType) {
         // Validate score
         if (score < 0 || score > 100) {
             throw new IllegalArgumentException("Score must be between 0 and 100");
@@ -52,17 +138,86 @@ public class Student {
             throw new IllegalArgumentException("Subject cannot be empty");
         }
         
-        // Normalize subject name (capitalize first letter, lowercase rest)
-        String normalizedSubject = normalizeSubjectName(subject);
+        // Normalized (capitalize first letter, lowercase rest) and interned by SubjectRegistry
+        Assessment assessment = new Assessment(subject, score, assessmentType);
+        appendAssessment(assessment);
+        return assessment;
+    }
+    
+    /**
+     * Add a previously recorded assessment, keeping its original timestamp
+     * (used when replaying persisted data)
+     */
+    public void addAssessment(Assessment assessment) {
+        if (assessment.getScore() < 0 || assessment.getScore() > 100) {
+            throw new IllegalArgumentException("Score must be between 0 and 100");
+        }
+        if (assessment.getSubject() == null || assessment.getSubject().trim().isEmpty()) {
+            throw new IllegalArgumentException("Subject cannot be empty");
+        }
+        if (!Assessment.isSupportedDate(assessment.getDateRecorded())) {
+            throw new IllegalArgumentException("Date recorded must be between " + Assessment.MIN_DATE
+                    + " and " + Assessment.MAX_DATE);
+        }
         
-        Assessment assessment = new Assessment(normalizedSubject, score, assessmentType);
+        appendAssessment(assessment);
+    }
+    
+    private synchronized void appendAssessment(Assessment assessment) {
+        StudentAggregates current = aggregates(); // Materialize before the columns change
         assessments.add(assessment);
+        current.add(assessment.getSubject(), assessment.getScore(), assessment.getWeight(),
+                AssessmentColumns.toTime(assessment.getDateRecorded()));
+        summary = null;
+    }
+    
+    /**
+     * Live aggregates, rebuilt from the assessment list when missing; caller holds the lock
+     */
+    private StudentAggregates aggregates() {
+        if (aggregates == null) {
+            loadHistory();
+            aggregates = StudentAggregates.of(assessments);
+        }
+        return aggregates;
+    }
+    
+    /**
+     * Current aggregates as an immutable snapshot, copied if they changed since the last read
+     */
+    private StudentSummary summary() {
+        StudentSummary current = summary;
+        if (current == null) {
+            synchronized (this) {
+                current = summary;
+                if (current == null) {
+                    current = aggregates().snapshot();
+                    summary = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Look up a subject's aggregates by any spelling: from the published snapshot if it is
+     * current, otherwise as a copy of that one subject's live stats
+     */
+    private SubjectStats findStats(String subject) {
+        String canonical = SubjectRegistry.canonicalSubject(subject);
+        if (canonical == null) return null;
+        StudentSummary current = summary;
+        if (current != null) return current.get(canonical);
+        synchronized (this) {
+            SubjectStats stats = aggregates().get(canonical);
+            return stats != null ? stats.copy() : null;
+        }
     }
     
     /**
      * Normalize subject names to prevent duplicates (Math vs math vs MATH)
      */
-    private String normalizeSubjectName(String subject) {
+    public static String normalizeSubjectName(String subject) {
         subject = subject.trim();
         if (subject.isEmpty()) return subject;
         return subject.substring(0, 1).toUpperCase() + subject.substring(1).toLowerCase();
@@ -71,13 +226,17 @@ public class Student {
     /**
      * Get all assessments for a specific subject
      */
-    public List<Assessment> getAssessmentsBySubject(String subject) {
-        String normalizedSubject = normalizeSubjectName(subject);
+    public synchronized List<Assessment> getAssessmentsBySubject(String subject) {
+        loadHistory();
+        int subjectId = SubjectRegistry.findSubject(subject);
         List<Assessment> subjectAssessments = new ArrayList<>();
+        if (subjectId <= SubjectRegistry.NONE) {
+            return subjectAssessments; // No student has this subject
+        }
         
-        for (Assessment assessment : assessments) {
-            if (assessment.getSubject().equals(normalizedSubject)) {
-                subjectAssessments.add(assessment);
+        for (int i = 0; i < assessments.size(); i++) {
+            if (assessments.subjectId(i) == subjectId) {
+                subjectAssessments.add(assessments.get(i));
             }
         }
         
@@ -88,74 +247,74 @@ public class Student {
      * Get unique list of subjects
      */
     public Set<String> getSubjects() {
-        Set<String> subjects = new HashSet<>();
-        for (Assessment assessment : assessments) {
-            subjects.add(assessment.getSubject());
+        return new HashSet<>(summary().getSubjects().keySet());
+    }
+    
+    /**
+     * Number of distinct subjects (answered without loading a stored history)
+     */
+    public int getSubjectCount() {
+        StoredHistory history = storedHistory;
+        return history != null ? history.getSubjectCount() : summary().getSubjects().size();
+    }
+    
+    /**
+     * Number of assessments recorded for a subject
+     */
+    public int getAssessmentCount(String subject) {
+        SubjectStats stats = findStats(subject);
+        return stats != null ? stats.getCount() : 0;
+    }
+    
+    /**
+     * Receives one subject's aggregates from {@link #forEachSubject}
+     */
+    @FunctionalInterface
+    public interface SubjectStatsVisitor {
+        void visit(String subject, int latestScore, double average, int assessmentCount);
+    }
+    
+    /**
+     * Visit the aggregates of every subject, all taken from one consistent summary
+     * (in the same order as {@link #getSubjects()})
+     */
+    public void forEachSubject(SubjectStatsVisitor visitor) {
+        for (Map.Entry<String, SubjectStats> entry : summary().getSubjects().entrySet()) {
+            SubjectStats stats = entry.getValue();
+            visitor.visit(entry.getKey(), stats.getLatestScore(), stats.getAverage(), stats.getCount());
         }
-        return subjects;
     }
     
     /**
      * Calculate average for a specific subject (all assessments)
      */
     public double calculateSubjectAverage(String subject) {
-        List<Assessment> subjectAssessments = getAssessmentsBySubject(subject);
+        SubjectStats stats = findStats(subject);
         
-        if (subjectAssessments.isEmpty()) {
+        if (stats == null) {
             return -1; // Return -1 to indicate no data (different from 0 score)
         }
         
-        double totalWeightedScore = 0;
-        int totalWeight = 0;
-        
-        for (Assessment assessment : subjectAssessments) {
-            totalWeightedScore += assessment.getScore() * assessment.getWeight();
-            totalWeight += assessment.getWeight();
-        }
-        
-        return totalWeight > 0 ? totalWeightedScore / totalWeight : 0;
+        return stats.getAverage();
     }
     
     /**
      * Calculate overall average across all subjects
      */
     public double calculateOverallAverage() {
-        if (assessments.isEmpty()) {
-            return -1; // Return -1 to indicate no data
-        }
-        
-        Set<String> subjects = getSubjects();
-        double totalAverage = 0;
-        
-        for (String subject : subjects) {
-            double subjectAvg = calculateSubjectAverage(subject);
-            if (subjectAvg >= 0) {
-                totalAverage += subjectAvg;
-            }
+        StoredHistory history = storedHistory;
+        if (history != null) {
+            return history.getOverallAverage();
         }
-        
-        return subjects.size() > 0 ? totalAverage / subjects.size() : -1;
+        return summary().getOverallAverage(); // -1 indicates no data
     }
     
     /**
      * Get the most recent score for a subject (for display purposes)
      */
     public int getLatestScore(String subject) {
-        List<Assessment> subjectAssessments = getAssessmentsBySubject(subject);
-        
-        if (subjectAssessments.isEmpty()) {
-            return -1;
-        }
-        
-        // Find most recent assessment
-        Assessment latest = subjectAssessments.get(0);
-        for (Assessment assessment : subjectAssessments) {
-            if (assessment.getDateRecorded().isAfter(latest.getDateRecorded())) {
-                latest = assessment;
-            }
-        }
-        
-        return latest.getScore();
+        SubjectStats stats = findStats(subject);
+        return stats != null ? stats.getLatestScore() : -1;
     }
     
     /**
@@ -250,52 +409,113 @@ public class Student {
      * Returns: "improving", "declining", "stable", or "insufficient_data"
      */
     public String analyzeSubjectTrend(String subject) {
-        List<Assessment> subjectAssessments = getAssessmentsBySubject(subject);
-        
-        if (subjectAssessments.size() < 2) {
-            return "insufficient_data";
+        return getSubjectTrend(subject).getLabel();
+    }
+    
+    /**
+     * Trend model (slope, confidence, smoothed score) for a subject, kept up to date as
+     * assessments are added; reading it is O(1) and lock-free
+     */
+    public SubjectTrend getSubjectTrend(String subject) {
+        SubjectStats stats = findStats(subject);
+        return stats != null ? stats.getTrend() : SubjectTrend.EMPTY;
+    }
+    
+    /**
+     * Get all assessments (for persistence and display), oldest first
+     */
+    public synchronized List<Assessment> getAllAssessments() {
+        loadHistory();
+        return assessments.toList();
+    }
+    
+    /**
+     * Same as {@link #getAllAssessments()}, except that a history still on disk is read
+     * without being kept in memory (for writing snapshots without loading every student)
+     * @throws UncheckedIOException if a stored history cannot be read
+     */
+    public synchronized List<Assessment> readAllAssessments() {
+        StoredHistory history = storedHistory;
+        if (history == null) {
+            return assessments.toList();
         }
-        
-        // Sort by date
-        subjectAssessments.sort(Comparator.comparing(Assessment::getDateRecorded));
-        
-        // Compare first half average with second half average
-        int midPoint = subjectAssessments.size() / 2;
-        double firstHalfAvg = subjectAssessments.subList(0, midPoint).stream()
-                .mapToInt(Assessment::getScore).average().orElse(0);
-        double secondHalfAvg = subjectAssessments.subList(midPoint, subjectAssessments.size()).stream()
-                .mapToInt(Assessment::getScore).average().orElse(0);
-        
-        double difference = secondHalfAvg - firstHalfAvg;
-        
-        if (difference > 5) return "improving";
-        if (difference < -5) return "declining";
-        return "stable";
+        try {
+            return history.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load assessments of student " + id, e);
+        }
+    }
+    
+    /**
+     * Date of the earliest dated assessment, or null if there is none
+     */
+    public synchronized LocalDateTime getFirstAssessmentDate() {
+        StoredHistory history = storedHistory;
+        if (history != null) return history.getFirstRecorded();
+        int first = assessments.upperBound(AssessmentColumns.NO_TIME);
+        return first < assessments.size() ? AssessmentColumns.fromTime(assessments.recordedAt(first)) : null;
     }
     
     /**
-     * Get all assessments (for persistence and display)
+     * Date of the latest dated assessment, or null if there is none
      */
-    public List<Assessment> getAllAssessments() {
-        return new ArrayList<>(assessments);
+    public synchronized LocalDateTime getLastAssessmentDate() {
+        StoredHistory history = storedHistory;
+        if (history != null) return history.getLastRecorded();
+        int size = assessments.size();
+        return size > 0 ? AssessmentColumns.fromTime(assessments.recordedAt(size - 1)) : null;
     }
     
     /**
      * Get assessments from last N days
      */
-    public List<Assessment> getRecentAssessments(int days) {
-        LocalDateTime cutoffDate = LocalDateTime.now().minus(days, ChronoUnit.DAYS);
+    public synchronized List<Assessment> getRecentAssessments(int days) {
+        loadHistory();
+        long cutoff = AssessmentColumns.boundTime(LocalDateTime.now().minus(days, ChronoUnit.DAYS));
         List<Assessment> recent = new ArrayList<>();
         
-        for (Assessment assessment : assessments) {
-            if (assessment.getDateRecorded().isAfter(cutoffDate)) {
-                recent.add(assessment);
-            }
+        for (int i = assessments.upperBound(cutoff); i < assessments.size(); i++) {
+            recent.add(assessments.get(i));
         }
         
         return recent;
     }
     
+    /**
+     * Get assessments recorded in [from, to), oldest first; only the matching range is read
+     * @param from inclusive lower bound, or null for no lower bound
+     * @param to exclusive upper bound, or null for no upper bound
+     */
+    public synchronized List<Assessment> getAssessmentsBetween(LocalDateTime from, LocalDateTime to) {
+        loadHistory();
+        // Undated assessments sort first and are never inside a range
+        int start = assessments.upperBound(AssessmentColumns.NO_TIME);
+        if (from != null) start = Math.max(start, assessments.lowerBound(AssessmentColumns.boundTime(from)));
+        int end = to != null ? assessments.lowerBound(AssessmentColumns.boundTime(to)) : assessments.size();
+        
+        List<Assessment> range = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            range.add(assessments.get(i));
+        }
+        return range;
+    }
+    
+    /**
+     * Call {@code action} once per distinct day (days since 1970-01-01) on which an
+     * assessment was recorded, in ascending order
+     */
+    public synchronized void forEachRecordedDay(LongConsumer action) {
+        loadHistory();
+        long previous = Long.MIN_VALUE;
+        for (int i = assessments.upperBound(AssessmentColumns.NO_TIME); i < assessments.size(); i++) {
+            long day = AssessmentColumns.epochDay(assessments.recordedAt(i));
+            if (day != previous) {
+                action.accept(day);
+                previous = day;
+            }
+        }
+    }
+    
     // Getters
     public String getId() {
         return id;
@@ -314,7 +534,8 @@ public class Student {
     }
     
     public int getAssessmentCount() {
-        return assessments.size();
+        StoredHistory history = storedHistory;
+        return history != null ? history.getAssessmentCount() : summary().getAssessmentCount();
     }
     
     /**
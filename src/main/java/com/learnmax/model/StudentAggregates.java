@@ -0,0 +1,56 @@
+package com.learnmax.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A student's per-subject aggregates, updated in place in O(1) per added assessment.
+ *
+ * Not thread-safe: Student guards it with its own monitor and hands readers an
+ * immutable {@link StudentSummary} copy, taken only when a reader asks after a change.
+ * Subjects are kept in a HashMap filled in first-seen order, which iterates like the
+ * HashSet the overall average was originally summed over.
+ */
+final class StudentAggregates {
+
+    private final HashMap<String, SubjectStats> subjects = new HashMap<>();
+    private int assessmentCount;
+
+    static StudentAggregates of(AssessmentColumns assessments) {
+        StudentAggregates aggregates = new StudentAggregates();
+        for (int i = 0; i < assessments.size(); i++) {
+            aggregates.add(assessments.subject(i), assessments.score(i), assessments.weight(i),
+                    assessments.recordedAt(i));
+        }
+        return aggregates;
+    }
+
+    void add(String subject, int score, int weight, long recordedAt) {
+        SubjectStats stats = subjects.get(subject);
+        if (stats == null) {
+            stats = new SubjectStats();
+            subjects.put(subject, stats);
+        }
+        stats.add(score, weight, recordedAt);
+        assessmentCount++;
+    }
+
+    /**
+     * @return the live stats; copy before releasing the student's lock
+     */
+    SubjectStats get(String subject) {
+        return subjects.get(subject);
+    }
+
+    /**
+     * Immutable copy for lock-free readers, O(subjects)
+     */
+    StudentSummary snapshot() {
+        // Copy entry by entry into a default-sized map so iteration order is unchanged
+        HashMap<String, SubjectStats> copy = new HashMap<>();
+        for (Map.Entry<String, SubjectStats> entry : subjects.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return new StudentSummary(copy, assessmentCount);
+    }
+}
@@ -0,0 +1,105 @@
+package com.learnmax.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static com.learnmax.persistence.JsonStreams.*;
+
+/**
+ * Gson mapping for Student, attached with {@code @JsonAdapter} so every Gson instance uses it.
+ *
+ * Produces the same document the reflective mapping of the old object layout did
+ * (fields in declaration order, nulls omitted, timestamps as ISO-8601 strings), while
+ * reading assessments straight into the student's columns.
+ */
+final class StudentJsonAdapter extends TypeAdapter<Student> {
+
+    private final AssessmentJsonAdapter assessmentAdapter = new AssessmentJsonAdapter();
+
+    @Override
+    public void write(JsonWriter out, Student student) throws IOException {
+        if (student == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeString(out, "id", student.getId());
+        writeString(out, "name", student.getName());
+        writeString(out, "gradeLevel", student.getGradeLevel());
+        writeDate(out, "enrollmentDate", student.getEnrollmentDate());
+        out.name("assessments").beginArray();
+        for (Assessment assessment : student.readAllAssessments()) {
+            assessmentAdapter.write(out, assessment);
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    @Override
+    public Student read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String id = null;
+        String name = null;
+        String gradeLevel = null;
+        LocalDateTime enrollmentDate = null;
+        AssessmentColumns assessments = new AssessmentColumns();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = readString(in);
+                    break;
+                case "name":
+                    name = readString(in);
+                    break;
+                case "gradeLevel":
+                    gradeLevel = readString(in);
+                    break;
+                case "enrollmentDate":
+                    enrollmentDate = readDate(in);
+                    break;
+                case "assessments":
+                    readAssessments(in, assessments);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new Student(id, name, gradeLevel, enrollmentDate, assessments);
+    }
+
+    private void readAssessments(JsonReader in, AssessmentColumns assessments) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+
+        in.beginArray();
+        while (in.hasNext()) {
+            Assessment assessment = assessmentAdapter.read(in);
+            if (assessment == null) continue;
+
+            // A score the columns cannot hold is reported and dropped rather than failing the whole file
+            if (assessment.getScore() < 0 || assessment.getScore() > 100) {
+                System.err.println("✗ Skipped " + assessment.getSubject() + " assessment: score "
+                        + assessment.getScore() + " is not between 0 and 100");
+                continue;
+            }
+            assessments.add(assessment);
+        }
+        in.endArray();
+    }
+}
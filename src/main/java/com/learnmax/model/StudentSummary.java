@@ -0,0 +1,57 @@
+package com.learnmax.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a student's derived aggregates.
+ *
+ * Copied from the student's {@link StudentAggregates} the first time it is read after
+ * a change and published through a volatile field, so averages, subjects and latest
+ * scores are read lock-free while adding an assessment stays O(1).
+ */
+final class StudentSummary {
+    private final HashMap<String, SubjectStats> subjects;
+    private final int assessmentCount;
+    private final double overallAverage;
+
+    StudentSummary(HashMap<String, SubjectStats> subjects, int assessmentCount) {
+        this.subjects = subjects;
+        this.assessmentCount = assessmentCount;
+        this.overallAverage = computeOverallAverage(subjects, assessmentCount);
+    }
+
+    private static double computeOverallAverage(HashMap<String, SubjectStats> subjects, int assessmentCount) {
+        if (assessmentCount == 0) {
+            return -1; // No data
+        }
+
+        double totalAverage = 0;
+        for (SubjectStats stats : subjects.values()) {
+            double subjectAvg = stats.getAverage();
+            if (subjectAvg >= 0) {
+                totalAverage += subjectAvg;
+            }
+        }
+        return subjects.size() > 0 ? totalAverage / subjects.size() : -1;
+    }
+
+    /**
+     * Read-only view; callers must not modify
+     */
+    Map<String, SubjectStats> getSubjects() {
+        return subjects;
+    }
+
+    SubjectStats get(String subject) {
+        return subjects.get(subject);
+    }
+
+    int getAssessmentCount() {
+        return assessmentCount;
+    }
+
+    double getOverallAverage() {
+        return overallAverage;
+    }
+}
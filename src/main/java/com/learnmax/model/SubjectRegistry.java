@@ -0,0 +1,205 @@
+package com.learnmax.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Process-wide dictionary of subject names and assessment types.
+ *
+ * Each distinct canonical name gets a small int id that is never reused; id 0
+ * stands for "no name" (null or blank). Subjects are canonicalized the way
+ * {@link Student#normalizeSubjectName} does it (trimmed, first letter upper case,
+ * rest lower case); assessment types are kept exactly as given.
+ *
+ * Lookups of already registered names do not allocate: the canonical form of an
+ * ASCII name is hashed and compared character by character without being built.
+ * Names with other characters, or a default locale with special case rules, take
+ * a slower path through {@link Student#normalizeSubjectName}. Reads are lock-free;
+ * registering a new name takes a lock.
+ */
+public final class SubjectRegistry {
+
+    public static final int NONE = 0;
+
+    private static final NameTable SUBJECTS = new NameTable(true);
+    private static final NameTable TYPES = new NameTable(false);
+
+    private SubjectRegistry() {
+    }
+
+    /**
+     * Id of a subject, registering its canonical name if it is new
+     * @return {@link #NONE} for a null or blank name
+     */
+    public static int subjectId(String subject) {
+        return SUBJECTS.idOf(subject, true);
+    }
+
+    /**
+     * Id of a subject without registering it
+     * @return {@link #NONE} for a null or blank name, -1 if no such subject has been seen
+     */
+    public static int findSubject(String subject) {
+        return SUBJECTS.idOf(subject, false);
+    }
+
+    /**
+     * The registered canonical name for a subject (the same String instance every time)
+     * @return null for blank or unknown subjects
+     */
+    public static String canonicalSubject(String subject) {
+        int id = findSubject(subject);
+        return id > NONE ? SUBJECTS.name(id) : null;
+    }
+
+    public static String subjectName(int id) {
+        return SUBJECTS.name(id);
+    }
+
+    /**
+     * Id of an assessment type (case-sensitive), registering it if it is new
+     */
+    public static int typeId(String assessmentType) {
+        return TYPES.idOf(assessmentType, true);
+    }
+
+    public static String typeName(int id) {
+        return TYPES.name(id);
+    }
+
+    /**
+     * Open-addressing hash table from canonical names to ids, plus the id -> name array
+     */
+    private static final class NameTable {
+        private final boolean canonicalize;
+        private volatile String[] names = new String[16];
+        private volatile AtomicIntegerArray slots = new AtomicIntegerArray(32); // id, 0 = empty
+        private int count = 1; // Guarded by this; id 0 is reserved
+
+        NameTable(boolean canonicalize) {
+            this.canonicalize = canonicalize;
+        }
+
+        String name(int id) {
+            return names[id];
+        }
+
+        int idOf(String text, boolean register) {
+            if (text == null) return NONE;
+
+            int start = 0;
+            int end = text.length();
+            if (canonicalize) {
+                while (start < end && text.charAt(start) <= ' ') start++;
+                while (end > start && text.charAt(end - 1) <= ' ') end--;
+                if (start == end) return NONE;
+
+                if (!isAsciiSafe(text, start, end)) {
+                    return idOfCanonical(Student.normalizeSubjectName(text), register);
+                }
+            } else if (end == 0) {
+                return NONE;
+            }
+
+            // Hash of the canonical form, equal to its String.hashCode()
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + canonicalChar(text, i, start);
+            }
+
+            AtomicIntegerArray table = slots;
+            String[] known = names;
+            int mask = table.length() - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int id = table.get(slot);
+                if (id == 0) break;
+                if (id < known.length && matches(known[id], text, start, end)) {
+                    return id;
+                }
+            }
+            if (!register) return -1;
+            return register(canonicalize ? Student.normalizeSubjectName(text) : text);
+        }
+
+        private int idOfCanonical(String canonical, boolean register) {
+            if (canonical.isEmpty()) return NONE;
+
+            AtomicIntegerArray table = slots;
+            String[] known = names;
+            int mask = table.length() - 1;
+            for (int slot = canonical.hashCode() & mask; ; slot = (slot + 1) & mask) {
+                int id = table.get(slot);
+                if (id == 0) break;
+                if (id < known.length && canonical.equals(known[id])) {
+                    return id;
+                }
+            }
+            return register ? register(canonical) : -1;
+        }
+
+        private synchronized int register(String canonical) {
+            int existing = idOfCanonical(canonical, false);
+            if (existing >= 0) return existing;
+
+            int id = count++;
+            String[] current = names;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, id * 2);
+            }
+            current[id] = canonical;
+            names = current; // Publish the name before any slot refers to it
+
+            AtomicIntegerArray table = slots;
+            if (count * 2 > table.length()) {
+                table = new AtomicIntegerArray(table.length() * 2);
+                for (int i = 1; i < id; i++) {
+                    insert(table, current[i].hashCode(), i);
+                }
+                insert(table, canonical.hashCode(), id);
+                slots = table;
+            } else {
+                insert(table, canonical.hashCode(), id);
+            }
+            return id;
+        }
+
+        private static void insert(AtomicIntegerArray table, int hash, int id) {
+            int mask = table.length() - 1;
+            int slot = hash & mask;
+            while (table.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.set(slot, id);
+        }
+
+        private boolean matches(String name, String text, int start, int end) {
+            if (name == null || name.length() != end - start) return false;
+            for (int i = start; i < end; i++) {
+                if (name.charAt(i - start) != canonicalChar(text, i, start)) return false;
+            }
+            return true;
+        }
+
+        private char canonicalChar(String text, int i, int start) {
+            char c = text.charAt(i);
+            if (!canonicalize) return c;
+            if (i == start) {
+                return c >= 'a' && c <= 'z' ? (char) (c - 32) : c;
+            }
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+
+        /**
+         * True if per-character ASCII case mapping gives the same result as String's
+         * locale-sensitive toUpperCase/toLowerCase
+         */
+        private static boolean isAsciiSafe(String text, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i) >= 0x80) return false;
+            }
+            String language = Locale.getDefault().getLanguage();
+            return !(language.equals("tr") || language.equals("az") || language.equals("lt"));
+        }
+    }
+}
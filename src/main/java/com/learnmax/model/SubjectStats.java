@@ -0,0 +1,59 @@
+package com.learnmax.model;
+
+/**
+ * Running aggregates for one subject of a student.
+ * Updated in place by {@link StudentAggregates} under the student's lock; readers only
+ * ever see copies taken into a published {@link StudentSummary} or under that lock.
+ */
+final class SubjectStats {
+
+    private long weightedScoreSum;
+    private long totalWeight;
+    private int count;
+    private int latestScore = -1;
+    private long latestTime = AssessmentColumns.NO_TIME; // See AssessmentColumns.toTime
+    private SubjectTrend trend = SubjectTrend.EMPTY;
+
+    void add(int score, int weight, long recordedAt) {
+        // Earliest-recorded assessment wins ties, matching a first-to-last scan with isAfter
+        if (count == 0 || recordedAt > latestTime) {
+            latestTime = recordedAt;
+            latestScore = score;
+        }
+        weightedScoreSum += (long) score * weight;
+        totalWeight += weight;
+        count++;
+        trend = trend.plus(score, recordedAt);
+    }
+
+    SubjectStats copy() {
+        SubjectStats copy = new SubjectStats();
+        copy.weightedScoreSum = weightedScoreSum;
+        copy.totalWeight = totalWeight;
+        copy.count = count;
+        copy.latestScore = latestScore;
+        copy.latestTime = latestTime;
+        copy.trend = trend; // Immutable
+        return copy;
+    }
+
+    /**
+     * Weighted average, -1 if there are no assessments
+     */
+    double getAverage() {
+        if (count == 0) return -1;
+        return totalWeight > 0 ? (double) weightedScoreSum / totalWeight : 0;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getLatestScore() {
+        return latestScore;
+    }
+
+    SubjectTrend getTrend() {
+        return trend;
+    }
+}
@@ -0,0 +1,130 @@
+package com.learnmax.model;
+
+/**
+ * Online trend model for one subject of a student: a least-squares line of score
+ * against recording time plus an exponentially weighted moving average.
+ *
+ * Every assessment updates the model in O(1) (Welford-style running means and
+ * co-moments, so the fit does not depend on the order assessments arrive in).
+ * Instances are immutable; a new one is published with the student's summary.
+ * Assessments without a date are not part of the fit.
+ */
+public final class SubjectTrend {
+
+    public static final String IMPROVING = "improving";
+    public static final String DECLINING = "declining";
+    public static final String STABLE = "stable";
+    public static final String INSUFFICIENT_DATA = "insufficient_data";
+
+    static final SubjectTrend EMPTY = new SubjectTrend(0, 0, 0, 0, 0, 0, 0, 0, 0, Double.NaN);
+
+    private static final double CHANGE_THRESHOLD = 5.0; // Points, as in the original half-split comparison
+    private static final double SMOOTHING = 0.3;         // EWMA weight of the newest score
+
+    private final int count;
+    private final long origin;      // Time (AssessmentColumns.toTime) that x is measured from
+    private final double meanX;     // Days since origin
+    private final double meanY;
+    private final double sxx;       // Sum of squared deviations of x
+    private final double syy;
+    private final double sxy;
+    private final double minX;
+    private final double maxX;
+    private final double smoothed;  // EWMA in arrival order; NaN before the first score
+
+    private SubjectTrend(int count, long origin, double meanX, double meanY, double sxx, double syy,
+                         double sxy, double minX, double maxX, double smoothed) {
+        this.count = count;
+        this.origin = origin;
+        this.meanX = meanX;
+        this.meanY = meanY;
+        this.sxx = sxx;
+        this.syy = syy;
+        this.sxy = sxy;
+        this.minX = minX;
+        this.maxX = maxX;
+        this.smoothed = smoothed;
+    }
+
+    SubjectTrend plus(int score, long recordedAt) {
+        double ewma = Double.isNaN(smoothed) ? score : SMOOTHING * score + (1 - SMOOTHING) * smoothed;
+        if (recordedAt == AssessmentColumns.NO_TIME) {
+            return new SubjectTrend(count, origin, meanX, meanY, sxx, syy, sxy, minX, maxX, ewma);
+        }
+
+        long start = count == 0 ? recordedAt : origin;
+        // Whole days and the remainder apart, so the full storable range cannot overflow
+        double x = (AssessmentColumns.epochDay(recordedAt) - AssessmentColumns.epochDay(start))
+                + (double) (Math.floorMod(recordedAt, AssessmentColumns.NANOS_PER_DAY)
+                        - Math.floorMod(start, AssessmentColumns.NANOS_PER_DAY)) / AssessmentColumns.NANOS_PER_DAY;
+        int n = count + 1;
+        double dx = x - meanX;
+        double dy = score - meanY;
+        double newMeanX = meanX + dx / n;
+        double newMeanY = meanY + dy / n;
+        return new SubjectTrend(n, start, newMeanX, newMeanY,
+                sxx + dx * (x - newMeanX),
+                syy + dy * (score - newMeanY),
+                sxy + dx * (score - newMeanY),
+                count == 0 ? x : Math.min(minX, x),
+                count == 0 ? x : Math.max(maxX, x),
+                ewma);
+    }
+
+    /**
+     * Number of dated assessments in the fit
+     */
+    public int getSampleCount() {
+        return count;
+    }
+
+    /**
+     * Fitted change in score per day, 0 with fewer than two distinct times
+     */
+    public double getSlope() {
+        return count < 2 || sxx <= 0 ? 0 : sxy / sxx;
+    }
+
+    /**
+     * How well the line explains the scores (R squared, 0 to 1); 0 with fewer than three
+     * assessments, since a line through two points says nothing about the fit
+     */
+    public double getConfidence() {
+        if (count < 3 || sxx <= 0) return 0;
+        if (syy <= 0) return 1; // Every score equal: a flat line fits exactly
+        return Math.min(1, sxy * sxy / (sxx * syy));
+    }
+
+    /**
+     * Exponentially weighted moving average of the scores, -1 if there are none
+     */
+    public double getSmoothedScore() {
+        return Double.isNaN(smoothed) ? -1 : smoothed;
+    }
+
+    /**
+     * Change the fitted line predicts between the average of the earlier and the later
+     * half of the assessments (equal to the half-split difference for evenly spaced scores)
+     */
+    public double getExpectedChange() {
+        if (count < 2) return 0;
+        return getSlope() * (maxX - minX) * count / (2.0 * (count - 1));
+    }
+
+    /**
+     * "improving", "declining", "stable", or "insufficient_data" with fewer than two assessments.
+     *
+     * The label follows the fitted line ({@link #getExpectedChange()} beyond 5 points),
+     * not the plain difference between the earlier and later half that it replaced. The
+     * two agree for steady trends but not always: scores 50, 100, 50, 100 on evenly spaced
+     * days used to be "stable" and now fit a rising line, so they read "improving".
+     * Assessments all recorded at the same instant have no trend over time and are "stable".
+     */
+    public String getLabel() {
+        if (count < 2) return INSUFFICIENT_DATA;
+        double change = getExpectedChange();
+        if (change > CHANGE_THRESHOLD) return IMPROVING;
+        if (change < -CHANGE_THRESHOLD) return DECLINING;
+        return STABLE;
+    }
+}
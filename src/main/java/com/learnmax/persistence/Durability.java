@@ -0,0 +1,10 @@
+package com.learnmax.persistence;
+
+/**
+ * How far a change must get before {@link PersistenceService} reports it as saved
+ */
+public enum Durability {
+    NONE,  // Acknowledged at once; written by the next background flush
+    WRITE, // Acknowledged once handed to the operating system
+    FSYNC  // Acknowledged once forced to the storage device (FileChannel.force)
+}
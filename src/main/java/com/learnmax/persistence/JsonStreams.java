@@ -0,0 +1,79 @@
+package com.learnmax.persistence;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Field helpers shared by the hand-written Gson adapters of the model classes.
+ *
+ * Writers follow the reflective mapping the files were first written with: a null
+ * field is omitted unless the writer serializes nulls, enums are written by name,
+ * and an unknown enum name reads as null.
+ */
+public final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    public static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        } else if (out.getSerializeNulls()) {
+            out.name(name).nullValue();
+        }
+    }
+
+    /**
+     * Write a timestamp as {@code LocalDateTime.toString()} does
+     */
+    public static void writeDate(JsonWriter out, String name, LocalDateTime value) throws IOException {
+        writeString(out, name, value != null ? TimestampCodec.format(value) : null);
+    }
+
+    /**
+     * Write a timestamp as {@code ISO_LOCAL_DATE_TIME} does (seconds always present)
+     */
+    public static void writeIsoDate(JsonWriter out, String name, LocalDateTime value) throws IOException {
+        writeString(out, name, value != null ? TimestampCodec.formatIso(value) : null);
+    }
+
+    public static void writeEnum(JsonWriter out, String name, Enum<?> value) throws IOException {
+        writeString(out, name, value != null ? value.name() : null);
+    }
+
+    public static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Read a timestamp in either layout written above
+     */
+    public static LocalDateTime readDate(JsonReader in) throws IOException {
+        String text = readString(in);
+        try {
+            return text != null ? TimestampCodec.parse(text) : null;
+        } catch (DateTimeParseException e) {
+            throw new JsonParseException("Invalid date: " + text, e);
+        }
+    }
+
+    public static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        String name = readString(in);
+        if (name == null) return null;
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
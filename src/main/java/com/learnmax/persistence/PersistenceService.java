@@ -0,0 +1,343 @@
+package com.learnmax.persistence;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer that coalesces dirty state and saves it off the caller's thread.
+ *
+ * Owners mark a piece of state dirty under a key together with the task that writes
+ * it. Marks of the same key that arrive before the next flush collapse into one
+ * write. A flush runs once the oldest pending mark is {@code flushIntervalMillis}
+ * old, as soon as {@code flushThreshold} marks have accumulated, or when
+ * {@link #flush()} is called. All tasks run on a single daemon thread, in the order
+ * their keys were first marked. Failures are reported on System.err and through
+ * the returned futures.
+ *
+ * After {@link #close()} (or the shutdown hook) has drained the queue, tasks run
+ * directly on the caller's thread.
+ */
+public final class PersistenceService implements AutoCloseable {
+
+    /**
+     * Writes one piece of state; forces it to disk when asked for {@link Durability#FSYNC}
+     */
+    @FunctionalInterface
+    public interface FlushTask {
+        void flush(Durability durability) throws IOException;
+    }
+
+    /**
+     * Produces the content of a file written by {@link #writeAtomically}
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(Writer writer) throws IOException;
+    }
+
+    /**
+     * Produces the content of a file written by {@link #writeChannelAtomically}; may
+     * write at any position of the new, empty file
+     */
+    @FunctionalInterface
+    public interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * A file operation run between the steps of {@link #writeChannelAtomically}
+     */
+    @FunctionalInterface
+    public interface FileAction {
+        void run() throws IOException;
+    }
+
+    private static final class Pending {
+        FlushTask task;
+        final CompletableFuture<Void> saved = new CompletableFuture<>();
+
+        Pending(FlushTask task) {
+            this.task = task;
+        }
+    }
+
+    private final Durability durability;
+    private final long flushIntervalNanos;
+    private final int flushThreshold;
+    private final Thread worker;
+    private volatile Thread shutdownHook;
+
+    // Guarded by this
+    private LinkedHashMap<Object, Pending> dirty = new LinkedHashMap<>();
+    private List<CompletableFuture<Void>> barriers = new ArrayList<>();
+    private long firstDirtyAt;
+    private int marksSinceFlush;
+    private boolean closed;
+    private boolean drained; // Closed and the worker has exited
+
+    /**
+     * @param durability when futures returned by {@link #markDirty} complete, and whether writes are forced
+     * @param flushIntervalMillis longest time a change waits before it is written
+     * @param flushThreshold number of marks that triggers a flush before the interval is up
+     */
+    public PersistenceService(Durability durability, long flushIntervalMillis, int flushThreshold) {
+        if (flushIntervalMillis < 0 || flushThreshold < 1) {
+            throw new IllegalArgumentException("Flush interval must be >= 0 and threshold >= 1");
+        }
+        this.durability = durability;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.flushThreshold = flushThreshold;
+        this.worker = new Thread(this::run, "learnmax-persistence");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Schedule {@code task} to write the state identified by {@code key}
+     * @return completes when the change is as durable as {@link #getDurability()} requires
+     *         (at once for NONE), or exceptionally if the write fails
+     */
+    public CompletableFuture<Void> markDirty(Object key, FlushTask task) {
+        Pending pending;
+        synchronized (this) {
+            if (!drained) {
+                pending = dirty.get(key);
+                if (pending == null) {
+                    pending = new Pending(task);
+                    dirty.put(key, pending);
+                } else {
+                    pending.task = task; // Latest task writes the latest state
+                }
+                boolean wasClean = firstDirtyAt == 0;
+                if (wasClean) {
+                    firstDirtyAt = System.nanoTime() | 1; // 0 means clean
+                }
+                // A clean worker waits without a timeout; the first mark starts its interval
+                if (++marksSinceFlush >= flushThreshold || wasClean) {
+                    notifyAll();
+                }
+                return durability == Durability.NONE ? CompletableFuture.completedFuture(null) : pending.saved;
+            }
+        }
+
+        // Shut down: nothing will flush later, so write now
+        pending = new Pending(task);
+        runTask(key, pending);
+        return pending.saved;
+    }
+
+    /**
+     * Write everything marked so far without waiting for the interval
+     * @return completes once those changes are written (forced with FSYNC), whatever the
+     *         durability level; exceptionally if any of the writes failed
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        synchronized (this) {
+            if (!drained) {
+                barriers.add(barrier);
+                notifyAll();
+                return barrier;
+            }
+        }
+        barrier.complete(null); // Closed and drained
+        return barrier;
+    }
+
+    /**
+     * Flush and stop the background thread when the JVM exits
+     */
+    public synchronized void installShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::close, "learnmax-persistence-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * Write everything still pending and stop the background thread
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Thread hook = shutdownHook;
+        if (hook != null && Thread.currentThread() != hook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // Already shutting down
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            LinkedHashMap<Object, Pending> batch;
+            List<CompletableFuture<Void>> waiting;
+            synchronized (this) {
+                while (!closed && barriers.isEmpty() && !isFlushDue()) {
+                    long waitNanos = firstDirtyAt == 0
+                            ? Long.MAX_VALUE
+                            : flushIntervalNanos - (System.nanoTime() - firstDirtyAt);
+                    try {
+                        if (waitNanos == Long.MAX_VALUE) {
+                            wait();
+                        } else {
+                            TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, waitNanos));
+                        }
+                    } catch (InterruptedException e) {
+                        closed = true; // Treat as a request to drain and stop
+                    }
+                }
+                if (closed && dirty.isEmpty() && barriers.isEmpty()) {
+                    drained = true;
+                    return;
+                }
+                batch = dirty;
+                waiting = barriers;
+                dirty = new LinkedHashMap<>();
+                barriers = new ArrayList<>();
+                firstDirtyAt = 0;
+                marksSinceFlush = 0;
+            }
+
+            Exception failure = null;
+            for (Map.Entry<Object, Pending> entry : batch.entrySet()) {
+                Exception e = runTask(entry.getKey(), entry.getValue());
+                if (e != null) failure = e;
+            }
+            for (CompletableFuture<Void> barrier : waiting) {
+                if (failure == null) barrier.complete(null);
+                else barrier.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private boolean isFlushDue() {
+        if (firstDirtyAt == 0) return false;
+        return marksSinceFlush >= flushThreshold || System.nanoTime() - firstDirtyAt >= flushIntervalNanos;
+    }
+
+    /**
+     * @return the failure, or null if the task succeeded
+     */
+    private Exception runTask(Object key, Pending pending) {
+        try {
+            pending.task.flush(durability);
+            pending.saved.complete(null);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("✗ Error saving " + key + ": " + e.getMessage());
+            pending.saved.completeExceptionally(e);
+            return e;
+        }
+    }
+
+    // ==================== FILE HELPERS ====================
+
+    /**
+     * Write a UTF-8 file via a temporary file and an atomic move (see {@link #writeChannelAtomically})
+     */
+    public static void writeAtomically(Path target, Durability durability, ContentWriter content)
+            throws IOException {
+        writeChannelAtomically(target, durability, utf8(content));
+    }
+
+    /**
+     * A channel writer producing the UTF-8 text written by {@code content}
+     */
+    public static ChannelWriter utf8(ContentWriter content) {
+        return channel -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            content.write(writer);
+            writer.flush();
+        };
+    }
+
+    /**
+     * Write a file via a temporary file and an atomic move. With FSYNC durability the
+     * content is forced before the move and the directory after it, so once this
+     * returns the new file survives a crash and a half-written one never replaces the old.
+     */
+    public static void writeChannelAtomically(Path target, Durability durability, ChannelWriter content)
+            throws IOException {
+        writeChannelAtomically(target, durability, content, null);
+    }
+
+    /**
+     * Like {@link #writeChannelAtomically(Path, Durability, ChannelWriter)}, running
+     * {@code beforeMove} (if not null) once the temporary file is complete, and forced
+     * with FSYNC durability, but before it replaces the target. If it throws, the
+     * target is left as it was.
+     */
+    public static void writeChannelAtomically(Path target, Durability durability, ChannelWriter content,
+                                              FileAction beforeMove) throws IOException {
+        Path temp = temporaryFile(target);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            content.write(channel);
+            if (durability == Durability.FSYNC) {
+                channel.force(true);
+            }
+        }
+        if (beforeMove != null) {
+            beforeMove.run();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (durability == Durability.FSYNC) {
+            forceDirectory(target);
+        }
+    }
+
+    /**
+     * The temporary file {@link #writeChannelAtomically} writes before moving it over {@code target}
+     */
+    public static Path temporaryFile(Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    /**
+     * Force the directory holding {@code file}, making a rename into it durable
+     */
+    public static void forceDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory == null) return;
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return; // Directories cannot be opened on Windows, where the move is already durable
+        }
+        try (FileChannel open = channel) {
+            open.force(true);
+        }
+    }
+}
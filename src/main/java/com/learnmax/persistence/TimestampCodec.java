@@ -0,0 +1,138 @@
+package com.learnmax.persistence;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Fast text encoding of LocalDateTime for the JSON adapters.
+ *
+ * {@link #format} produces exactly what {@code LocalDateTime.toString()} does and
+ * {@link #formatIso} exactly what {@code DateTimeFormatter.ISO_LOCAL_DATE_TIME} does;
+ * {@link #parse} reads either. All three work on fixed character positions instead of
+ * going through the java.time formatter, which builds a parse context and field map
+ * per call. Years outside 0000-9999 and text outside the fixed layout fall back to java.time.
+ */
+public final class TimestampCodec {
+
+    private static final int[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+
+    private TimestampCodec() {
+    }
+
+    /**
+     * Same text as {@code LocalDateTime.toString()}: seconds only when non-zero,
+     * fractions in groups of 3 digits
+     */
+    public static String format(LocalDateTime dateTime) {
+        return encode(dateTime, false);
+    }
+
+    /**
+     * Same text as {@code ISO_LOCAL_DATE_TIME}: seconds always, fractions without trailing zeros
+     */
+    public static String formatIso(LocalDateTime dateTime) {
+        return encode(dateTime, true);
+    }
+
+    private static String encode(LocalDateTime t, boolean iso) {
+        int year = t.getYear();
+        if (year < 0 || year > 9999) {
+            return iso ? t.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : t.toString();
+        }
+
+        char[] buf = new char[29];
+        put(buf, 0, year, 4);
+        buf[4] = '-';
+        put(buf, 5, t.getMonthValue(), 2);
+        buf[7] = '-';
+        put(buf, 8, t.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        put(buf, 11, t.getHour(), 2);
+        buf[13] = ':';
+        put(buf, 14, t.getMinute(), 2);
+        int length = 16;
+
+        int second = t.getSecond();
+        int nano = t.getNano();
+        if (iso || second != 0 || nano != 0) {
+            buf[16] = ':';
+            put(buf, 17, second, 2);
+            length = 19;
+            if (nano != 0) {
+                int digits;
+                if (iso) {
+                    digits = 9;
+                    while (digits > 1 && nano % POW10[10 - digits] == 0) digits--;
+                } else {
+                    digits = nano % 1_000_000 == 0 ? 3 : nano % 1_000 == 0 ? 6 : 9;
+                }
+                buf[19] = '.';
+                put(buf, 20, nano / POW10[9 - digits], digits);
+                length = 20 + digits;
+            }
+        }
+        return new String(buf, 0, length);
+    }
+
+    private static void put(char[] buf, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Read a timestamp written by {@link #format}, {@link #formatIso} or any other
+     * {@code ISO_LOCAL_DATE_TIME} text
+     * @throws java.time.format.DateTimeParseException if the text is not a valid timestamp
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        int length = text.length();
+        if (length >= 16 && length <= 29 && text.charAt(4) == '-' && text.charAt(7) == '-'
+                && text.charAt(10) == 'T' && text.charAt(13) == ':') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            int second = 0;
+            int nano = 0;
+            boolean valid = (year | month | day | hour | minute) >= 0;
+
+            if (valid && length > 16) {
+                valid = length >= 19 && text.charAt(16) == ':';
+                second = valid ? digits(text, 17, 2) : -1;
+                if (valid && length > 19) {
+                    int fraction = length - 20;
+                    valid = text.charAt(19) == '.' && fraction > 0;
+                    nano = valid ? digits(text, 20, fraction) : -1;
+                    if (nano > 0) nano *= POW10[9 - fraction];
+                }
+                valid = valid && second >= 0 && nano >= 0;
+            }
+
+            if (valid) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+                } catch (DateTimeException e) {
+                    // Out-of-range field: let java.time report it
+                }
+            }
+        }
+        return LocalDateTime.parse(text);
+    }
+
+    /**
+     * @return the decimal value of {@code count} digits at {@code offset}, or -1 if any is not a digit
+     */
+    private static int digits(CharSequence text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -3,6 +3,8 @@ package com.learnmax.util;
 import com.learnmax.manager.StudentManager;
 import com.learnmax.model.Student;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -44,6 +46,7 @@ public class SampleDataGenerator {
     public static void generateSampleData(StudentManager manager, int studentCount) {
         System.out.println("Generating " + studentCount + " sample students...");
         
+        List<Student> generated = new ArrayList<>(studentCount);
         for (int i = 1; i <= studentCount; i++) {
             String id = String.format("S%03d", i);
             String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " +
@@ -81,13 +84,16 @@ public class SampleDataGenerator {
                 }
             }
             
-            manager.addStudent(student);
+            generated.add(student);
             
             if (i % 10 == 0) {
                 System.out.println("  Generated " + i + " students...");
             }
         }
         
+        // Add and persist the whole set at once
+        manager.addStudents(generated);
+        
         System.out.println("✓ Sample data generation complete!");
         System.out.println("  Total students: " + manager.getStudentCount());
         System.out.println("  Class average: " + String.format("%.2f%%", manager.getClassAverage()));
@@ -125,6 +131,8 @@ public class SampleDataGenerator {
         // Print summary
         System.out.println("\n" + manager.generateClassReport());
         
+        manager.saveData();
+        manager.close();
         System.out.println("\nSample data has been saved to student_data.json");
         System.out.println("You can now run the GUI application to view the data.");
     }
@@ -1,5 +1,7 @@
 package com.learnmax.virtuallab.gui;
 
+import com.learnmax.persistence.Durability;
+import com.learnmax.persistence.PersistenceService;
 import com.learnmax.virtuallab.manager.VirtualLabManager;
 import com.learnmax.virtuallab.model.LabActivity;
 import com.learnmax.virtuallab.model.LabExercise;
@@ -46,7 +48,11 @@ public class VirtualLabsGUI extends JFrame {
      */
     public VirtualLabsGUI(String studentId) {
         this.currentStudentId = studentId;
-        this.labManager = new VirtualLabManager();
+        // Saves happen in the background so the event thread never waits on disk. The service
+        // stays open after this window closes, for simulators still running, until the exit hook
+        PersistenceService persistence = new PersistenceService(Durability.WRITE, 200, 256);
+        persistence.installShutdownHook();
+        this.labManager = new VirtualLabManager(persistence);
         
         initializeSampleExercises();
         initializeUI();
@@ -1,24 +1,42 @@
 package com.learnmax.virtuallab.manager;
 
-import com.google.gson.*;
-import java.lang.reflect.Type;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.learnmax.persistence.TimestampCodec;
+
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 /**
  * Gson adapter for LocalDateTime serialization/deserialization
+ * (ISO_LOCAL_DATE_TIME text, encoded and decoded by TimestampCodec)
  */
-public class LocalDateTimeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
-    
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
     
     @Override
-    public JsonElement serialize(LocalDateTime dateTime, Type type, JsonSerializationContext context) {
-        return new JsonPrimitive(dateTime.format(formatter));
+    public void write(JsonWriter out, LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            out.nullValue();
+        } else {
+            out.value(TimestampCodec.formatIso(dateTime));
+        }
     }
     
     @Override
-    public LocalDateTime deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
-        return LocalDateTime.parse(json.getAsString(), formatter);
+    public LocalDateTime read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String text = in.nextString();
+        try {
+            return TimestampCodec.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new JsonParseException("Invalid date: " + text, e);
+        }
     }
 }
@@ -2,19 +2,31 @@ package com.learnmax.virtuallab.manager;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.reflect.TypeToken;
+import com.learnmax.persistence.Durability;
+import com.learnmax.persistence.PersistenceService;
 import com.learnmax.virtuallab.model.LabActivity;
 import com.learnmax.virtuallab.model.LabExercise;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Manages virtual lab exercises and student activities
  * Supports offline operation and synchronization
+ *
+ * With a PersistenceService, saves are coalesced and written on the service's
+ * thread; otherwise every change is saved on the caller's thread.
  */
 public class VirtualLabManager {
     
@@ -22,23 +34,53 @@ public class VirtualLabManager {
     private static final String ACTIVITIES_FILE = "lab_activities.json";
     private static final String PENDING_SYNC_FILE = "pending_sync.json";
     
+    // Concurrent collections: a background save may serialize them while they change
+    private final String exercisesFile;
+    private final String activitiesFile;
+    private final String pendingSyncFile;
     private Map<String, LabExercise> exercises;
     private Map<String, LabActivity> activities;
     private List<LabActivity> pendingSync;
-    private Gson gson;
+    private volatile Gson gson;
     private boolean offlineMode;
+    private final PersistenceService persistence;
+    private volatile ActivityListener activityListener;
+    
+    /**
+     * Told about every completed activity, on the completing thread after the
+     * activity has been updated; {@code exercise} is null for unknown exercises
+     */
+    public interface ActivityListener {
+        void onActivityCompleted(LabActivity activity, LabExercise exercise);
+    }
     
     /**
      * Constructor
      */
     public VirtualLabManager() {
-        this.exercises = new HashMap<>();
-        this.activities = new HashMap<>();
-        this.pendingSync = new ArrayList<>();
-        this.gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
+        this(null);
+    }
+    
+    /**
+     * Constructor saving through a background persistence service (null to save synchronously)
+     */
+    public VirtualLabManager(PersistenceService persistence) {
+        this(Paths.get(""), persistence);
+    }
+    
+    /**
+     * Constructor keeping the lab data files in {@code dataDirectory} instead of the
+     * working directory
+     */
+    public VirtualLabManager(Path dataDirectory, PersistenceService persistence) {
+        this.exercisesFile = dataDirectory.resolve(EXERCISES_FILE).toString();
+        this.activitiesFile = dataDirectory.resolve(ACTIVITIES_FILE).toString();
+        this.pendingSyncFile = dataDirectory.resolve(PENDING_SYNC_FILE).toString();
+        this.persistence = persistence;
+        this.exercises = new ConcurrentHashMap<>();
+        this.activities = new ConcurrentHashMap<>();
+        this.pendingSync = new CopyOnWriteArrayList<>();
+        this.gson = newGson(false);
         this.offlineMode = false;
         
         loadExercises();
@@ -46,6 +88,22 @@ public class VirtualLabManager {
         loadPendingSync();
     }
     
+    private static Gson newGson(boolean pretty) {
+        GsonBuilder builder = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter());
+        if (pretty) {
+            builder.setPrettyPrinting();
+        }
+        return builder.create();
+    }
+    
+    /**
+     * Indent the saved JSON files so people can read them (off by default)
+     */
+    public void setPrettyPrinting(boolean pretty) {
+        this.gson = newGson(pretty);
+    }
+    
     // ==================== EXERCISE MANAGEMENT ====================
     
     /**
@@ -169,9 +227,21 @@ public class VirtualLabManager {
             
             saveActivities();
             savePendingSync();
+            
+            ActivityListener listener = activityListener;
+            if (listener != null) {
+                listener.onActivityCompleted(activity, exercises.get(activity.getExerciseId()));
+            }
         }
     }
     
+    /**
+     * Set a listener for activities completed from now on (null to remove it)
+     */
+    public void setActivityListener(ActivityListener listener) {
+        this.activityListener = listener;
+    }
+    
     /**
      * Get activity by ID
      */
@@ -373,22 +443,46 @@ public class VirtualLabManager {
     
     // ==================== DATA PERSISTENCE ====================
     
+    /**
+     * Save a collection to its file now, or schedule it on the persistence service
+     */
+    private void save(String file, String description, Supplier<Object> state) {
+        PersistenceService service = persistence;
+        if (service != null) {
+            service.markDirty(file, durability -> writeJson(file, state.get(), durability));
+            return;
+        }
+        try {
+            writeJson(file, state.get(), Durability.WRITE);
+        } catch (IOException | JsonIOException e) {
+            System.err.println("Error saving " + description + ": " + e.getMessage());
+        }
+    }
+    
+    private void writeJson(String file, Object state, Durability durability) throws IOException {
+        PersistenceService.writeAtomically(Paths.get(file), durability, writer -> gson.toJson(state, writer));
+    }
+    
+    /**
+     * Write all pending saves
+     * @return completes once they are on disk
+     */
+    public CompletableFuture<Void> flush() {
+        return persistence != null ? persistence.flush() : CompletableFuture.completedFuture(null);
+    }
+    
     /**
      * Save exercises to file
      */
     private void saveExercises() {
-        try (Writer writer = new FileWriter(EXERCISES_FILE)) {
-            gson.toJson(exercises, writer);
-        } catch (IOException e) {
-            System.err.println("Error saving exercises: " + e.getMessage());
-        }
+        save(exercisesFile, "exercises", () -> exercises);
     }
     
     /**
      * Load exercises from file
      */
     private void loadExercises() {
-        File file = new File(EXERCISES_FILE);
+        File file = new File(exercisesFile);
         if (!file.exists()) {
             System.out.println("No exercises file found. Starting with empty library.");
             return;
@@ -398,7 +492,7 @@ public class VirtualLabManager {
             Type type = new TypeToken<Map<String, LabExercise>>(){}.getType();
             Map<String, LabExercise> loaded = gson.fromJson(reader, type);
             if (loaded != null) {
-                exercises = loaded;
+                exercises = new ConcurrentHashMap<>(loaded);
                 System.out.println("✓ Loaded " + exercises.size() + " exercises");
             }
         } catch (IOException e) {
@@ -410,18 +504,14 @@ public class VirtualLabManager {
      * Save activities to file
      */
     private void saveActivities() {
-        try (Writer writer = new FileWriter(ACTIVITIES_FILE)) {
-            gson.toJson(activities, writer);
-        } catch (IOException e) {
-            System.err.println("Error saving activities: " + e.getMessage());
-        }
+        save(activitiesFile, "activities", () -> activities);
     }
     
     /**
      * Load activities from file
      */
     private void loadActivities() {
-        File file = new File(ACTIVITIES_FILE);
+        File file = new File(activitiesFile);
         if (!file.exists()) {
             return;
         }
@@ -430,7 +520,7 @@ public class VirtualLabManager {
             Type type = new TypeToken<Map<String, LabActivity>>(){}.getType();
             Map<String, LabActivity> loaded = gson.fromJson(reader, type);
             if (loaded != null) {
-                activities = loaded;
+                activities = new ConcurrentHashMap<>(loaded);
             }
         } catch (IOException e) {
             System.err.println("Error loading activities: " + e.getMessage());
@@ -441,18 +531,14 @@ public class VirtualLabManager {
      * Save pending sync queue
      */
     private void savePendingSync() {
-        try (Writer writer = new FileWriter(PENDING_SYNC_FILE)) {
-            gson.toJson(pendingSync, writer);
-        } catch (IOException e) {
-            System.err.println("Error saving pending sync: " + e.getMessage());
-        }
+        save(pendingSyncFile, "pending sync", () -> pendingSync);
     }
     
     /**
      * Load pending sync queue
      */
     private void loadPendingSync() {
-        File file = new File(PENDING_SYNC_FILE);
+        File file = new File(pendingSyncFile);
         if (!file.exists()) {
             return;
         }
@@ -461,7 +547,7 @@ public class VirtualLabManager {
             Type type = new TypeToken<List<LabActivity>>(){}.getType();
             List<LabActivity> loaded = gson.fromJson(reader, type);
             if (loaded != null) {
-                pendingSync = loaded;
+                pendingSync = new CopyOnWriteArrayList<>(loaded);
             }
         } catch (IOException e) {
             System.err.println("Error loading pending sync: " + e.getMessage());
@@ -1,11 +1,14 @@
 package com.learnmax.virtuallab.model;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a student's activity in a virtual lab exercise
  */
+@JsonAdapter(LabActivityJsonAdapter.class)
 public class LabActivity {
     
     public enum ActivityStatus {
@@ -64,6 +67,28 @@ public class LabActivity {
         this.needsSync = false;
     }
     
+    /**
+     * Restore a persisted activity as stored, without validation (used by LabActivityJsonAdapter)
+     */
+    LabActivity(String activityId, String studentId, String exerciseId, ActivityStatus status,
+                LocalDateTime startTime, LocalDateTime lastAccessTime, LocalDateTime completionTime,
+                int timeSpentMinutes, int attemptsCount, double score, String aiFeedback,
+                boolean isOffline, boolean needsSync) {
+        this.activityId = activityId;
+        this.studentId = studentId;
+        this.exerciseId = exerciseId;
+        this.status = status;
+        this.startTime = startTime;
+        this.lastAccessTime = lastAccessTime;
+        this.completionTime = completionTime;
+        this.timeSpentMinutes = timeSpentMinutes;
+        this.attemptsCount = attemptsCount;
+        this.score = score;
+        this.aiFeedback = aiFeedback;
+        this.isOffline = isOffline;
+        this.needsSync = needsSync;
+    }
+    
     /**
      * Generate unique activity ID
      */
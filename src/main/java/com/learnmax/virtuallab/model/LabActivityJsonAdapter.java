@@ -0,0 +1,118 @@
+package com.learnmax.virtuallab.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static com.learnmax.persistence.JsonStreams.*;
+
+/**
+ * Gson mapping for LabActivity, attached with {@code @JsonAdapter}.
+ *
+ * Produces the document the reflective mapping did (fields in declaration order,
+ * nulls omitted, timestamps in ISO_LOCAL_DATE_TIME layout), so existing
+ * lab_activities.json and pending_sync.json files read and write unchanged.
+ */
+final class LabActivityJsonAdapter extends TypeAdapter<LabActivity> {
+
+    @Override
+    public void write(JsonWriter out, LabActivity activity) throws IOException {
+        if (activity == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeString(out, "activityId", activity.getActivityId());
+        writeString(out, "studentId", activity.getStudentId());
+        writeString(out, "exerciseId", activity.getExerciseId());
+        writeEnum(out, "status", activity.getStatus());
+        writeIsoDate(out, "startTime", activity.getStartTime());
+        writeIsoDate(out, "lastAccessTime", activity.getLastAccessTime());
+        writeIsoDate(out, "completionTime", activity.getCompletionTime());
+        out.name("timeSpentMinutes").value(activity.getTimeSpentMinutes());
+        out.name("attemptsCount").value(activity.getAttemptsCount());
+        out.name("score").value(activity.getScore());
+        writeString(out, "aiFeedback", activity.getAiFeedback());
+        out.name("isOffline").value(activity.isOffline());
+        out.name("needsSync").value(activity.needsSync());
+        out.endObject();
+    }
+
+    @Override
+    public LabActivity read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String activityId = null;
+        String studentId = null;
+        String exerciseId = null;
+        LabActivity.ActivityStatus status = null;
+        LocalDateTime startTime = null;
+        LocalDateTime lastAccessTime = null;
+        LocalDateTime completionTime = null;
+        int timeSpentMinutes = 0;
+        int attemptsCount = 0;
+        double score = 0;
+        String aiFeedback = null;
+        boolean isOffline = false;
+        boolean needsSync = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "activityId":
+                    activityId = readString(in);
+                    break;
+                case "studentId":
+                    studentId = readString(in);
+                    break;
+                case "exerciseId":
+                    exerciseId = readString(in);
+                    break;
+                case "status":
+                    status = readEnum(in, LabActivity.ActivityStatus.class);
+                    break;
+                case "startTime":
+                    startTime = readDate(in);
+                    break;
+                case "lastAccessTime":
+                    lastAccessTime = readDate(in);
+                    break;
+                case "completionTime":
+                    completionTime = readDate(in);
+                    break;
+                case "timeSpentMinutes":
+                    timeSpentMinutes = in.nextInt();
+                    break;
+                case "attemptsCount":
+                    attemptsCount = in.nextInt();
+                    break;
+                case "score":
+                    score = in.nextDouble();
+                    break;
+                case "aiFeedback":
+                    aiFeedback = readString(in);
+                    break;
+                case "isOffline":
+                    isOffline = in.nextBoolean();
+                    break;
+                case "needsSync":
+                    needsSync = in.nextBoolean();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new LabActivity(activityId, studentId, exerciseId, status, startTime, lastAccessTime,
+                completionTime, timeSpentMinutes, attemptsCount, score, aiFeedback, isOffline, needsSync);
+    }
+}
@@ -1,11 +1,14 @@
 package com.learnmax.virtuallab.model;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Represents a virtual lab exercise
  */
+@JsonAdapter(LabExerciseJsonAdapter.class)
 public class LabExercise {
     
     public enum ExerciseType {
@@ -64,6 +67,28 @@ public class LabExercise {
         this.capsReference = "";
     }
     
+    /**
+     * Restore a persisted exercise as stored, without validation (used by LabExerciseJsonAdapter);
+     * missing lists become empty
+     */
+    LabExercise(String id, String title, String description, String subject, String gradeLevel,
+                ExerciseType type, DifficultyLevel difficulty, List<String> learningObjectives,
+                int estimatedMinutes, List<String> prerequisites, String capsReference,
+                boolean offlineAvailable) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.subject = subject;
+        this.gradeLevel = gradeLevel;
+        this.type = type;
+        this.difficulty = difficulty;
+        this.learningObjectives = learningObjectives != null ? learningObjectives : new ArrayList<>();
+        this.estimatedMinutes = estimatedMinutes;
+        this.prerequisites = prerequisites != null ? prerequisites : new ArrayList<>();
+        this.capsReference = capsReference;
+        this.offlineAvailable = offlineAvailable;
+    }
+    
     // Getters and Setters
     
     public String getId() {
@@ -0,0 +1,136 @@
+package com.learnmax.virtuallab.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.learnmax.persistence.JsonStreams.*;
+
+/**
+ * Gson mapping for LabExercise, attached with {@code @JsonAdapter}.
+ *
+ * Produces the document the reflective mapping did (fields in declaration order,
+ * nulls omitted), so existing lab_exercises.json files read and write unchanged.
+ */
+final class LabExerciseJsonAdapter extends TypeAdapter<LabExercise> {
+
+    @Override
+    public void write(JsonWriter out, LabExercise exercise) throws IOException {
+        if (exercise == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeString(out, "id", exercise.getId());
+        writeString(out, "title", exercise.getTitle());
+        writeString(out, "description", exercise.getDescription());
+        writeString(out, "subject", exercise.getSubject());
+        writeString(out, "gradeLevel", exercise.getGradeLevel());
+        writeEnum(out, "type", exercise.getType());
+        writeEnum(out, "difficulty", exercise.getDifficulty());
+        writeStrings(out, "learningObjectives", exercise.getLearningObjectives());
+        out.name("estimatedMinutes").value(exercise.getEstimatedMinutes());
+        writeStrings(out, "prerequisites", exercise.getPrerequisites());
+        writeString(out, "capsReference", exercise.getCapsReference());
+        out.name("offlineAvailable").value(exercise.isOfflineAvailable());
+        out.endObject();
+    }
+
+    private static void writeStrings(JsonWriter out, String name, List<String> values) throws IOException {
+        out.name(name).beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    @Override
+    public LabExercise read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String id = null;
+        String title = null;
+        String description = null;
+        String subject = null;
+        String gradeLevel = null;
+        LabExercise.ExerciseType type = null;
+        LabExercise.DifficultyLevel difficulty = null;
+        List<String> learningObjectives = null;
+        int estimatedMinutes = 0;
+        List<String> prerequisites = null;
+        String capsReference = null;
+        boolean offlineAvailable = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = readString(in);
+                    break;
+                case "title":
+                    title = readString(in);
+                    break;
+                case "description":
+                    description = readString(in);
+                    break;
+                case "subject":
+                    subject = readString(in);
+                    break;
+                case "gradeLevel":
+                    gradeLevel = readString(in);
+                    break;
+                case "type":
+                    type = readEnum(in, LabExercise.ExerciseType.class);
+                    break;
+                case "difficulty":
+                    difficulty = readEnum(in, LabExercise.DifficultyLevel.class);
+                    break;
+                case "learningObjectives":
+                    learningObjectives = readStrings(in);
+                    break;
+                case "estimatedMinutes":
+                    estimatedMinutes = in.nextInt();
+                    break;
+                case "prerequisites":
+                    prerequisites = readStrings(in);
+                    break;
+                case "capsReference":
+                    capsReference = readString(in);
+                    break;
+                case "offlineAvailable":
+                    offlineAvailable = in.nextBoolean();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new LabExercise(id, title, description, subject, gradeLevel, type, difficulty,
+                learningObjectives, estimatedMinutes, prerequisites, capsReference, offlineAvailable);
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readString(in));
+        }
+        in.endArray();
+        return values;
+    }
+}
@@ -0,0 +1,134 @@
+package com.learnmax;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.learnmax.kpi.model.KpiDataPoint;
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+import com.learnmax.persistence.TimestampCodec;
+import com.learnmax.virtuallab.manager.LocalDateTimeAdapter;
+import com.learnmax.virtuallab.model.LabActivity;
+import com.learnmax.virtuallab.model.LabExercise;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.learnmax.JsonCompatibilityTest.*;
+
+/**
+ * Throughput benchmark: hand-written streaming adapters and TimestampCodec versus
+ * Gson's reflective mapping with the tree-based LocalDateTime adapters they replaced.
+ *
+ * Tagged {@code benchmark}, so it is left out of {@code mvn test}; run it with
+ * {@code mvn test -P benchmark}. It only prints timings: wall-clock speedups vary too
+ * much between machines and runs to assert on. JsonCompatibilityTest checks that both
+ * mappings produce the same documents.
+ */
+@Tag("benchmark")
+class JsonAdapterBenchmarkTest {
+
+    private static final int ROUNDS = 5;
+
+    private static long sink; // Keeps results alive so the work is not optimized away
+
+    /**
+     * Best time of each task over {@link #ROUNDS} alternating runs, in milliseconds.
+     * Alternating keeps JIT and GC activity from favouring whichever task runs second.
+     */
+    private static double[] bestMillis(Runnable first, Runnable second) {
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE};
+        Runnable[] tasks = {first, second};
+        for (int i = 0; i < ROUNDS; i++) {
+            for (int t = 0; t < tasks.length; t++) {
+                long start = System.nanoTime();
+                tasks[t].run();
+                best[t] = Math.min(best[t], System.nanoTime() - start);
+            }
+        }
+        return new double[] {best[0] / 1e6, best[1] / 1e6};
+    }
+
+    private static <T> String writeAll(Gson gson, List<T> values) {
+        StringBuilder out = new StringBuilder();
+        for (T value : values) {
+            gson.toJson(value, out);
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    private static <T> void readAll(Gson gson, Class<T> type, String lines) {
+        for (String line : lines.split("\n")) {
+            sink += gson.fromJson(line, type).hashCode();
+        }
+    }
+
+    /**
+     * Time the reflective mapping of {@code legacyValues} against the streaming adapter
+     * of the same data as {@code values}
+     */
+    private static <L, T> void compare(String name, Gson legacy, Class<L> legacyType, List<L> legacyValues,
+                                       Class<T> type, List<T> values) {
+        Gson streaming = new GsonBuilder().registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter()).create();
+        String json = writeAll(streaming, values);
+
+        double[] write = bestMillis(() -> sink += writeAll(legacy, legacyValues).length(),
+                () -> sink += writeAll(streaming, values).length());
+        double[] read = bestMillis(() -> readAll(legacy, legacyType, json), () -> readAll(streaming, type, json));
+
+        System.out.printf("%-12s serialize %7.1f ms -> %7.1f ms (%.1fx), deserialize %7.1f ms -> %7.1f ms (%.1fx)%n",
+                name, write[0], write[1], write[0] / write[1], read[0], read[1], read[0] / read[1]);
+    }
+
+    private static <T> void compare(String name, Class<T> type, List<T> values, Object legacyDates) {
+        compare(name, reflective(type, legacyDates), type, values, type, values);
+    }
+
+    @Test
+    @DisplayName("Report serialize and deserialize times of every model adapter against reflection")
+    void testAdapterThroughput() {
+        compare("LabActivity", LabActivity.class, activities(20_000), new LegacyIsoAdapter());
+        compare("LabExercise", LabExercise.class, exercises(20_000), new LegacyIsoAdapter());
+        compare("KpiDataPoint", KpiDataPoint.class, kpiPoints(50_000), new LegacyToStringAdapter());
+
+        Gson legacy = new GsonBuilder().registerTypeAdapter(LocalDateTime.class, new LegacyToStringAdapter()).create();
+        List<Student> students = students(10_000);
+        List<LegacyStudent> legacyStudents = new ArrayList<>(students.size());
+        List<Assessment> assessments = new ArrayList<>();
+        List<LegacyAssessment> legacyAssessments = new ArrayList<>();
+        for (Student student : students) {
+            legacyStudents.add(LegacyStudent.of(student));
+            for (Assessment assessment : student.getAllAssessments()) {
+                assessments.add(assessment);
+                legacyAssessments.add(LegacyAssessment.of(assessment));
+            }
+        }
+        compare("Student", legacy, LegacyStudent.class, legacyStudents, Student.class, students);
+        compare("Assessment", legacy, LegacyAssessment.class, legacyAssessments, Assessment.class, assessments);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    @Test
+    @DisplayName("Report timestamp format and parse times against java.time")
+    void testTimestampThroughput() {
+        List<LocalDateTime> times = new ArrayList<>();
+        for (KpiDataPoint point : kpiPoints(200_000)) {
+            times.add(point.getTimestamp());
+        }
+        List<String> texts = new ArrayList<>();
+        for (LocalDateTime t : times) {
+            texts.add(t.toString());
+        }
+
+        double[] format = bestMillis(() -> times.forEach(t -> sink += t.toString().length()),
+                () -> times.forEach(t -> sink += TimestampCodec.format(t).length()));
+        double[] parse = bestMillis(() -> texts.forEach(s -> sink += LocalDateTime.parse(s).getNano()),
+                () -> texts.forEach(s -> sink += TimestampCodec.parse(s).getNano()));
+
+        System.out.printf("Timestamps   format %7.1f ms -> %7.1f ms (%.1fx), parse %7.1f ms -> %7.1f ms (%.1fx)%n",
+                format[0], format[1], format[0] / format[1], parse[0], parse[1], parse[0] / parse[1]);
+        System.out.println("(checksum " + sink + ")");
+    }
+}
@@ -0,0 +1,436 @@
+package com.learnmax;
+
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.learnmax.kpi.model.KpiDataPoint;
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+import com.learnmax.persistence.TimestampCodec;
+import com.learnmax.virtuallab.manager.LocalDateTimeAdapter;
+import com.learnmax.virtuallab.model.LabActivity;
+import com.learnmax.virtuallab.model.LabExercise;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compatibility tests for the hand-written JSON adapters: data files written before
+ * them (src/test/resources/compat) must read correctly and write back byte for byte,
+ * and the adapters must produce what Gson's reflective mapping produced
+ */
+class JsonCompatibilityTest {
+
+    private static final Type STUDENT_LIST = new TypeToken<List<Student>>() {}.getType();
+    private static final Type EXERCISE_MAP = new TypeToken<Map<String, LabExercise>>() {}.getType();
+    private static final Type ACTIVITY_MAP = new TypeToken<Map<String, LabActivity>>() {}.getType();
+
+    /**
+     * Used only to reach the reflective adapter behind a class's {@code @JsonAdapter}
+     */
+    static final TypeAdapterFactory UNREGISTERED = new TypeAdapterFactory() {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            return null;
+        }
+    };
+
+    /**
+     * The LocalDateTime mapping the lab files were written with before TimestampCodec
+     */
+    static final class LegacyIsoAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
+        @Override
+        public JsonElement serialize(LocalDateTime dateTime, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+            return LocalDateTime.parse(json.getAsString(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+    }
+
+    /**
+     * The LocalDateTime mapping StudentManager registered before TimestampCodec
+     */
+    static final class LegacyToStringAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
+        @Override
+        public JsonElement serialize(LocalDateTime dateTime, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(dateTime.toString());
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+            return LocalDateTime.parse(json.getAsString());
+        }
+    }
+
+    /**
+     * A Gson that maps {@code type} reflectively, as before the class had {@code @JsonAdapter}
+     */
+    static Gson reflective(Class<?> type, Object dateAdapter) {
+        Gson dates = new GsonBuilder().registerTypeAdapter(LocalDateTime.class, dateAdapter).create();
+        return new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, dateAdapter)
+                .registerTypeAdapter(type, dates.getDelegateAdapter(UNREGISTERED, TypeToken.get(type)))
+                .create();
+    }
+
+    /**
+     * The field layout of Assessment before it kept registry ids, mapped reflectively
+     */
+    static final class LegacyAssessment {
+        String subject;
+        int score;
+        LocalDateTime dateRecorded;
+        String assessmentType;
+        int weight;
+
+        static LegacyAssessment of(Assessment assessment) {
+            LegacyAssessment legacy = new LegacyAssessment();
+            legacy.subject = assessment.getSubject();
+            legacy.score = assessment.getScore();
+            legacy.dateRecorded = assessment.getDateRecorded();
+            legacy.assessmentType = assessment.getAssessmentType();
+            legacy.weight = assessment.getWeight();
+            return legacy;
+        }
+    }
+
+    /**
+     * The field layout of Student before its assessments moved into columns
+     */
+    static final class LegacyStudent {
+        String id;
+        String name;
+        String gradeLevel;
+        LocalDateTime enrollmentDate;
+        List<LegacyAssessment> assessments;
+
+        static LegacyStudent of(Student student) {
+            LegacyStudent legacy = new LegacyStudent();
+            legacy.id = student.getId();
+            legacy.name = student.getName();
+            legacy.gradeLevel = student.getGradeLevel();
+            legacy.enrollmentDate = student.getEnrollmentDate();
+            legacy.assessments = new ArrayList<>();
+            for (Assessment assessment : student.getAllAssessments()) {
+                legacy.assessments.add(LegacyAssessment.of(assessment));
+            }
+            return legacy;
+        }
+    }
+
+    // ==================== TEST DATA ====================
+
+    static List<LabActivity> activities(int count) {
+        Random random = new Random(7);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 8, 8, 0);
+        LabActivity.ActivityStatus[] statuses = LabActivity.ActivityStatus.values();
+        List<LabActivity> activities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LabActivity activity = new LabActivity("S" + (i % 997), "EX_" + (i % 31));
+            activity.setStatus(statuses[i % statuses.length]);
+            activity.setStartTime(start.plusSeconds(random.nextInt(30_000_000)).plusNanos(random.nextInt(1_000_000_000)));
+            activity.setLastAccessTime(activity.getStartTime().plusMinutes(random.nextInt(600)));
+            if (i % 3 != 0) {
+                activity.setCompletionTime(activity.getLastAccessTime().withNano(0));
+                activity.setScore(random.nextInt(1001) / 10.0);
+            }
+            activity.setTimeSpentMinutes(random.nextInt(300));
+            activity.setAttemptsCount(1 + random.nextInt(4));
+            activity.setAiFeedback(i % 2 == 0 ? "Great progress on step " + i : "");
+            activity.setOffline(i % 5 == 0);
+            activities.add(activity);
+        }
+        return activities;
+    }
+
+    static List<LabExercise> exercises(int count) {
+        LabExercise.ExerciseType[] types = LabExercise.ExerciseType.values();
+        LabExercise.DifficultyLevel[] levels = LabExercise.DifficultyLevel.values();
+        List<LabExercise> exercises = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LabExercise exercise = new LabExercise("EX_" + i, "Exercise " + i, i % 2 == 0 ? "Mathematics" : "Physics",
+                    "Grade " + (8 + i % 5), types[i % types.length]);
+            exercise.setDifficulty(levels[i % levels.length]);
+            exercise.setDescription("Work through \"part " + i + "\" of the unit");
+            for (int j = 0; j < i % 4; j++) {
+                exercise.addLearningObjective("Objective " + j);
+            }
+            if (i % 3 == 0) {
+                exercise.addPrerequisite("EX_" + (i / 2));
+            }
+            exercise.setEstimatedMinutes(5 + i % 40);
+            exercise.setCapsReference("CAPS " + i);
+            exercise.setOfflineAvailable(i % 4 != 0);
+            exercises.add(exercise);
+        }
+        return exercises;
+    }
+
+    static List<Student> students(int count) {
+        Random random = new Random(5);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 8, 8, 0);
+        String[] subjects = {"Mathematics", "Physical Sciences", "English", "life sciences", "History"};
+        String[] types = {"Test", "Quiz", "Assignment", "Exam", null};
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Student student = new Student("S" + i, "Learner \"" + i + "\" Ünïcode",
+                    i % 7 == 0 ? null : "Grade " + (8 + i % 5), i % 3 == 0 ? null : start.minusDays(i % 400));
+            for (int j = 0; j < i % 12; j++) {
+                LocalDateTime recorded = j % 5 == 0 ? null
+                        : start.plusSeconds(random.nextInt(30_000_000)).plusNanos(j % 2 == 0 ? 0 : random.nextInt(1_000_000_000));
+                student.addAssessment(new Assessment(subjects[(i + j) % subjects.length], random.nextInt(101),
+                        types[j % types.length], 25 * (1 + random.nextInt(4)), recorded));
+            }
+            students.add(student);
+        }
+        return students;
+    }
+
+    static List<KpiDataPoint> kpiPoints(int count) {
+        Random random = new Random(11);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        KpiDataPoint.EntityType[] entities = KpiDataPoint.EntityType.values();
+        KpiDataPoint.KpiCategory[] categories = KpiDataPoint.KpiCategory.values();
+        List<KpiDataPoint> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            KpiDataPoint point = new KpiDataPoint("kpi_" + (i % 12), "E" + (i % 500), entities[i % entities.length],
+                    categories[i % categories.length], random.nextDouble() * 100);
+            point.setTimestamp(start.plusSeconds(i * 17L).plusNanos(i % 7 == 0 ? 0 : random.nextInt(1_000_000_000)));
+            if (i % 4 == 0) {
+                point.addMetadata("source", "lab");
+                point.addMetadata("attempt", Integer.toString(i % 3));
+            }
+            points.add(point);
+        }
+        return points;
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = JsonCompatibilityTest.class.getResourceAsStream("/compat/" + name)) {
+            assertNotNull(in, "Missing test resource " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Gson labGson() {
+        return new GsonBuilder()
+                .setPrettyPrinting()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+    }
+
+    // ==================== EXISTING FILE TESTS ====================
+
+    @Test
+    @DisplayName("Should read and rewrite an existing student_data.json unchanged")
+    void testStudentFile() throws IOException {
+        String json = resource("student_data.json");
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        List<Student> students = gson.fromJson(json, STUDENT_LIST);
+
+        assertEquals(3, students.size());
+        Student john = students.get(0);
+        assertEquals("S001", john.getId());
+        assertEquals(5, john.getAssessmentCount());
+        List<Assessment> assessments = john.getAllAssessments();
+        assertEquals(LocalDateTime.of(2024, 3, 4, 9, 0), assessments.get(0).getDateRecorded());
+        assertEquals(LocalDateTime.of(2024, 4, 1, 13, 5, 7, 120_000_000), assessments.get(2).getDateRecorded());
+        assertEquals(LocalDateTime.of(2024, 4, 3, 23, 59, 59, 999_999_999), assessments.get(4).getDateRecorded());
+        assertEquals(50, assessments.get(1).getWeight());
+        assertNull(students.get(1).getAllAssessments().get(0).getDateRecorded());
+        assertEquals("Jane \"JJ\" Smith – Ünïcode", students.get(1).getName());
+        assertEquals(0, students.get(2).getAssessmentCount());
+
+        assertEquals(json, gson.toJson(students, STUDENT_LIST));
+    }
+
+    @Test
+    @DisplayName("Should read and rewrite an existing lab_exercises.json unchanged")
+    void testExerciseFile() throws IOException {
+        String json = resource("lab_exercises.json");
+        Map<String, LabExercise> exercises = labGson().fromJson(json, EXERCISE_MAP);
+
+        LabExercise algebra = exercises.get("MATH_ALG_001");
+        assertEquals("Linear Equations", algebra.getTitle());
+        assertEquals(LabExercise.ExerciseType.SIMULATION, algebra.getType());
+        assertEquals(LabExercise.DifficultyLevel.BEGINNER, algebra.getDifficulty());
+        assertEquals(Arrays.asList("Isolate the variable", "Check solutions"), algebra.getLearningObjectives());
+        assertEquals(20, algebra.getEstimatedMinutes());
+        assertFalse(exercises.get("CODE_PY_001").isOfflineAvailable());
+
+        assertEquals(json, labGson().toJson(exercises, EXERCISE_MAP));
+    }
+
+    @Test
+    @DisplayName("Should read and rewrite an existing lab_activities.json unchanged")
+    void testActivityFile() throws IOException {
+        String json = resource("lab_activities.json");
+        Map<String, LabActivity> activities = labGson().fromJson(json, ACTIVITY_MAP);
+
+        LabActivity done = activities.get("A1");
+        assertEquals(LabActivity.ActivityStatus.MASTERED, done.getStatus());
+        assertEquals(LocalDateTime.of(2024, 5, 6, 10, 0), done.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 5, 6, 10, 25, 13, 500_000_000), done.getLastAccessTime());
+        assertEquals(LocalDateTime.of(2024, 5, 6, 10, 25, 13, 123_456_789), done.getCompletionTime());
+        assertEquals(92.5, done.getScore());
+        assertTrue(done.needsSync());
+        LabActivity open = activities.get("A2");
+        assertNull(open.getCompletionTime());
+        assertEquals(-1.0, open.getScore());
+        assertTrue(open.isOffline());
+
+        assertEquals(json, labGson().toJson(activities, ACTIVITY_MAP));
+    }
+
+    @Test
+    @DisplayName("Should read documents with missing fields and unknown names like the reflective mapping")
+    void testLenientDocuments() {
+        Gson gson = new Gson();
+        LabActivity activity = gson.fromJson("{\"activityId\":\"A\",\"status\":\"PAUSED\",\"extra\":[1,2]}", LabActivity.class);
+        assertEquals("A", activity.getActivityId());
+        assertNull(activity.getStatus());
+        assertEquals(0.0, activity.getScore());
+
+        LabExercise exercise = gson.fromJson("{\"id\":\"X\",\"learningObjectives\":null}", LabExercise.class);
+        assertEquals("X", exercise.getId());
+        assertTrue(exercise.getLearningObjectives().isEmpty());
+
+        KpiDataPoint point = gson.fromJson("{\"kpiId\":\"avg\",\"value\":1.5}", KpiDataPoint.class);
+        assertEquals(1.5, point.getValue());
+        assertNotNull(point.getTimestamp()); // Constructor default, as before
+        assertNotNull(point.getMetadata());
+    }
+
+    @Test
+    @DisplayName("Should skip assessments with out-of-range scores and load the rest of the file")
+    void testUnsupportedAssessments() {
+        String json = "[{\"id\":\"S1\",\"name\":\"Ann\",\"assessments\":["
+                + "{\"subject\":\"Math\",\"score\":150,\"dateRecorded\":\"2024-01-01T09:00:00\"},"
+                + "{\"subject\":\"Math\",\"score\":-5,\"dateRecorded\":\"2024-01-02T09:00:00\"},"
+                + "{\"subject\":\"Math\",\"score\":75,\"dateRecorded\":\"2024-01-03T09:00:00\"}]},"
+                + "{\"id\":\"S2\",\"name\":\"Ben\"}]";
+
+        List<Student> students = new Gson().fromJson(json, STUDENT_LIST);
+        assertEquals(2, students.size());
+        List<Assessment> kept = students.get(0).getAllAssessments();
+        assertEquals(1, kept.size());
+        assertEquals(75, kept.get(0).getScore());
+        assertEquals("S2", students.get(1).getId());
+    }
+
+    // ==================== REFLECTIVE EQUIVALENCE TESTS ====================
+
+    @Test
+    @DisplayName("Should write LabActivity exactly as the reflective mapping did")
+    void testActivityMatchesReflective() {
+        Gson legacy = reflective(LabActivity.class, new LegacyIsoAdapter());
+        Gson gson = new GsonBuilder().registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter()).create();
+
+        for (LabActivity activity : activities(500)) {
+            String expected = legacy.toJson(activity);
+            assertEquals(expected, gson.toJson(activity));
+            assertEquals(expected, legacy.toJson(gson.fromJson(expected, LabActivity.class)));
+            assertEquals(expected, gson.toJson(legacy.fromJson(expected, LabActivity.class)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should write LabExercise exactly as the reflective mapping did")
+    void testExerciseMatchesReflective() {
+        Gson legacy = reflective(LabExercise.class, new LegacyIsoAdapter());
+        Gson gson = new Gson();
+
+        for (LabExercise exercise : exercises(500)) {
+            String expected = legacy.toJson(exercise);
+            assertEquals(expected, gson.toJson(exercise));
+            assertEquals(expected, legacy.toJson(gson.fromJson(expected, LabExercise.class)));
+            assertEquals(expected, gson.toJson(legacy.fromJson(expected, LabExercise.class)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should write KpiDataPoint as the reflective mapping did with an ISO timestamp")
+    void testKpiMatchesReflective() {
+        Gson legacy = reflective(KpiDataPoint.class, new LegacyToStringAdapter());
+        Gson gson = new Gson();
+
+        for (KpiDataPoint point : kpiPoints(500)) {
+            String expected = legacy.toJson(point);
+            assertEquals(expected, gson.toJson(point));
+            assertEquals(expected, legacy.toJson(gson.fromJson(expected, KpiDataPoint.class)));
+            assertEquals(expected, gson.toJson(legacy.fromJson(expected, KpiDataPoint.class)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should write Student and Assessment exactly as the reflective mapping of the old layout did")
+    void testStudentMatchesReflective() {
+        Gson legacy = new GsonBuilder().registerTypeAdapter(LocalDateTime.class, new LegacyToStringAdapter()).create();
+        Gson gson = new Gson();
+
+        for (Student student : students(500)) {
+            String expected = legacy.toJson(LegacyStudent.of(student));
+            assertEquals(expected, gson.toJson(student));
+            Student parsed = gson.fromJson(expected, Student.class);
+            assertEquals(expected, legacy.toJson(LegacyStudent.of(parsed)));
+            assertEquals(student.calculateOverallAverage(), parsed.calculateOverallAverage(), 1e-9);
+
+            for (Assessment assessment : student.getAllAssessments()) {
+                String single = legacy.toJson(LegacyAssessment.of(assessment));
+                assertEquals(single, gson.toJson(assessment));
+                assertEquals(single, legacy.toJson(LegacyAssessment.of(gson.fromJson(single, Assessment.class))));
+            }
+        }
+    }
+
+    // ==================== TIMESTAMP CODEC TESTS ====================
+
+    @Test
+    @DisplayName("Should format and parse timestamps exactly like java.time")
+    void testTimestampCodec() {
+        Random random = new Random(42);
+        int[] nanos = {0, 1, 500_000_000, 120_000_000, 123_000, 123_456_000, 999_999_999, 100};
+        for (int i = 0; i < 20_000; i++) {
+            LocalDateTime t = LocalDateTime.of(random.nextInt(10_000), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24), random.nextInt(60), i % 3 == 0 ? 0 : random.nextInt(60),
+                    i % 5 == 0 ? random.nextInt(1_000_000_000) : nanos[i % nanos.length]);
+            String text = t.toString();
+            String iso = t.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+            assertEquals(text, TimestampCodec.format(t));
+            assertEquals(iso, TimestampCodec.formatIso(t));
+            assertEquals(t, TimestampCodec.parse(text));
+            assertEquals(t, TimestampCodec.parse(iso));
+        }
+    }
+
+    @Test
+    @DisplayName("Should fall back to java.time outside the fixed layout")
+    void testTimestampFallback() {
+        LocalDateTime farFuture = LocalDateTime.of(12345, 6, 7, 8, 9, 10);
+        assertEquals(farFuture.toString(), TimestampCodec.format(farFuture));
+        assertEquals(farFuture, TimestampCodec.parse(TimestampCodec.format(farFuture)));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4), TimestampCodec.parse("2024-01-02t03:04"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2024-02-30T10:00", "2024-13-01T00:00", "2024-01-01 10:00", "2024-01-01T10:00:5",
+            "2024-01-01T24:00", "2024-01-01T10:00:00.1234567890", "garbage", ""})
+    @DisplayName("Should reject invalid timestamps like java.time")
+    void testInvalidTimestamp(String text) {
+        assertThrows(DateTimeParseException.class, () -> TimestampCodec.parse(text));
+    }
+}
@@ -0,0 +1,297 @@
+package com.learnmax;
+
+import com.learnmax.kpi.ingest.KpiIngestionPipeline;
+import com.learnmax.kpi.ingest.OverflowPolicy;
+import com.learnmax.kpi.model.KpiDataPoint;
+import com.learnmax.kpi.model.KpiDataPoint.EntityType;
+import com.learnmax.kpi.store.KpiStore;
+import com.learnmax.manager.StudentManager;
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+import com.learnmax.virtuallab.manager.VirtualLabManager;
+import com.learnmax.virtuallab.model.LabActivity;
+import com.learnmax.virtuallab.model.LabExercise;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KpiIngestionPipeline and the manager events feeding it
+ */
+class KpiIngestionPipelineTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 4, 9, 0);
+
+    private KpiStore store;
+    private KpiIngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        store = new KpiStore();
+        pipeline = new KpiIngestionPipeline(store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    // ==================== EVENT SOURCE TESTS ====================
+
+    @Test
+    @DisplayName("Should turn assessments recorded by StudentManager into KPI points")
+    void testAssessmentEvents(@TempDir Path dir) {
+        StudentManager manager = new StudentManager(dir.resolve("student_data").toString(), false,
+                StudentManager.SnapshotFormat.JSON, StudentManager.LoadMode.EAGER);
+        manager.setAssessmentListener(pipeline);
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+
+        assertTrue(manager.addAssessment("S001", "Mathematics", 80, "Test"));
+        manager.addAssessments("S001", Arrays.asList(
+                new Assessment("Science", 70, "Quiz", 1, START),
+                new Assessment("Science", 101, "Quiz", 1, START))); // Rejected, not published
+        pipeline.flush().join();
+
+        List<KpiDataPoint> scores = store.getPoints(KpiIngestionPipeline.ASSESSMENT_SCORE, EntityType.STUDENT,
+                "S001", null, null, null);
+        assertEquals(2, scores.size());
+        assertEquals(70.0, scores.get(0).getValue());
+        assertEquals(START, scores.get(0).getTimestamp());
+        assertEquals(KpiDataPoint.KpiCategory.ASSESSMENT, scores.get(0).getCategory());
+        assertEquals(2, store.count(KpiIngestionPipeline.ACTIVITY_COUNT, null, "S001", null, null, null));
+
+        manager.setAssessmentListener(null);
+        manager.addAssessment("S001", "Mathematics", 90, "Test");
+        pipeline.flush().join();
+        assertEquals(2, pipeline.getPublishedCount());
+        manager.close();
+    }
+
+    @Test
+    @DisplayName("Should turn completed lab activities into KPI points")
+    void testLabEvents(@TempDir Path dir) {
+        VirtualLabManager labs = new VirtualLabManager(dir, null);
+        labs.setActivityListener(pipeline);
+        labs.addExercise(new LabExercise("EX_1", "Pendulum", "Physics", "Grade 10",
+                LabExercise.ExerciseType.SIMULATION));
+        LabActivity activity = labs.startActivity("S001", "EX_1");
+        labs.updateActivity(activity.getActivityId(), 25);
+        labs.completeActivity(activity.getActivityId(), 85.0, "Well done");
+        pipeline.flush().join();
+
+        List<KpiDataPoint> points = store.getPointsForEntity(EntityType.STUDENT, "S001", null, null);
+        assertEquals(4, points.size());
+        assertEquals(85.0, store.getPointsForKpi(KpiIngestionPipeline.LAB_SCORE, null, null).get(0).getValue());
+        assertEquals(25.0, store.getPointsForKpi(KpiIngestionPipeline.LAB_MINUTES, null, null).get(0).getValue());
+        assertEquals(1.0, store.getPointsForKpi(KpiIngestionPipeline.LAB_ATTEMPTS, null, null).get(0).getValue());
+        assertEquals(activity.getCompletionTime(), points.get(0).getTimestamp());
+    }
+
+    @Test
+    @DisplayName("Should hand points to the sink in batches with their metadata")
+    void testBatches() {
+        List<List<KpiDataPoint>> batches = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        KpiIngestionPipeline batching = new KpiIngestionPipeline(batch -> {
+            awaitQuietly(release);
+            batches.add(batch);
+        }, 1_000, 100, OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 250; i++) {
+            assertTrue(batching.publishAssessment("S" + i, "Mathematics", "Test", i % 100, START.plusMinutes(i)));
+        }
+        release.countDown();
+        batching.flush().join();
+        batching.close();
+
+        int points = 0;
+        for (List<KpiDataPoint> batch : batches) {
+            assertTrue(batch.size() <= 200);
+            points += batch.size();
+        }
+        assertEquals(500, points);
+        assertEquals(500, batching.getPointsWritten());
+        assertTrue(batches.size() < 250);
+        KpiDataPoint first = batches.get(0).get(0);
+        assertEquals("Mathematics", first.getMetadata("subject"));
+        assertEquals("Test", first.getMetadata("assessmentType"));
+    }
+
+    // ==================== OVERFLOW POLICY TESTS ====================
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A pipeline whose consumer is stuck in the sink until {@code release} opens
+     */
+    private static KpiIngestionPipeline stalled(List<KpiDataPoint> written, CountDownLatch release,
+                                                OverflowPolicy policy) throws InterruptedException {
+        CountDownLatch inSink = new CountDownLatch(1);
+        KpiIngestionPipeline stalled = new KpiIngestionPipeline(batch -> {
+            inSink.countDown();
+            awaitQuietly(release);
+            written.addAll(batch);
+        }, 4, 1, policy);
+        stalled.publishAssessment("S0", "Mathematics", "Test", 0, START); // Taken by the consumer
+        assertTrue(inSink.await(10, TimeUnit.SECONDS));
+        return stalled;
+    }
+
+    @Test
+    @DisplayName("Should drop the newest events when full under DROP_NEWEST")
+    void testDropNewest() throws InterruptedException {
+        List<KpiDataPoint> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        KpiIngestionPipeline full = stalled(written, release, OverflowPolicy.DROP_NEWEST);
+
+        for (int i = 1; i <= 10; i++) {
+            boolean queued = full.publishAssessment("S" + i, "Mathematics", "Test", i, START);
+            assertEquals(i <= 4, queued);
+        }
+        assertEquals(6, full.getDroppedCount());
+        release.countDown();
+        full.flush().join();
+        full.close();
+
+        assertEquals(5 * 2, written.size());
+        assertEquals(4.0, written.get(written.size() - 2).getValue());
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest events when full under DROP_OLDEST")
+    void testDropOldest() throws InterruptedException {
+        List<KpiDataPoint> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        KpiIngestionPipeline full = stalled(written, release, OverflowPolicy.DROP_OLDEST);
+
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(full.publishAssessment("S" + i, "Mathematics", "Test", i, START));
+        }
+        assertEquals(6, full.getDroppedCount());
+        release.countDown();
+        full.flush().join();
+        full.close();
+
+        assertEquals(5 * 2, written.size());
+        assertEquals(7.0, written.get(2).getValue()); // S0 first, then the newest four
+    }
+
+    @Test
+    @DisplayName("Should make publishers wait when full under BLOCK")
+    void testBlock() throws InterruptedException {
+        List<KpiDataPoint> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        KpiIngestionPipeline full = stalled(written, release, OverflowPolicy.BLOCK);
+
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(full.publishAssessment("S" + i, "Mathematics", "Test", i, START));
+        }
+        Thread publisher = new Thread(() -> full.publishAssessment("S5", "Mathematics", "Test", 5, START));
+        publisher.start();
+        publisher.join(200);
+        assertTrue(publisher.isAlive(), "Publisher should wait for room");
+
+        release.countDown();
+        publisher.join(10_000);
+        assertFalse(publisher.isAlive());
+        full.flush().join();
+        full.close();
+        assertEquals(6 * 2, written.size());
+        assertEquals(0, full.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Should write queued events on close and refuse new ones")
+    void testClose() {
+        for (int i = 0; i < 1_000; i++) {
+            pipeline.publishAssessment("S" + (i % 10), "Mathematics", "Test", i % 100, START.plusSeconds(i));
+        }
+        pipeline.close();
+        assertEquals(2_000, store.size());
+        assertFalse(pipeline.publishAssessment("S1", "Mathematics", "Test", 50, START));
+        assertEquals(1, pipeline.getDroppedCount());
+        assertTrue(pipeline.flush().isDone());
+    }
+
+    @Test
+    @DisplayName("Should wake an idle consumer on close without interrupting a sink write")
+    void testCloseWakesConsumer() throws InterruptedException {
+        pipeline.close(); // Idle consumer blocked waiting for events
+        assertEquals(0, store.size());
+
+        List<KpiDataPoint> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        KpiIngestionPipeline busy = stalled(written, release, OverflowPolicy.DROP_NEWEST);
+        busy.publishAssessment("S1", "Mathematics", "Test", 1, START);
+
+        Thread closer = new Thread(busy::close);
+        closer.start();
+        closer.join(200);
+        assertTrue(closer.isAlive(), "An interrupted sink would stop waiting for release");
+        release.countDown();
+        closer.join(10_000);
+        assertFalse(closer.isAlive());
+        assertEquals(2 * 2, written.size());
+    }
+
+    @Test
+    @DisplayName("Should survive a failing sink")
+    void testFailingSink() {
+        KpiIngestionPipeline failing = new KpiIngestionPipeline(batch -> {
+            throw new IllegalStateException("disk full");
+        }, 100, 10, OverflowPolicy.DROP_NEWEST);
+        failing.publishAssessment("S1", "Mathematics", "Test", 50, START);
+        failing.flush().join();
+        assertEquals(1, failing.getFailedBatchCount());
+
+        failing.publishAssessment("S1", "Mathematics", "Test", 60, START);
+        failing.flush().join();
+        assertEquals(2, failing.getBatchCount());
+        failing.close();
+    }
+
+    // ==================== PUBLISHER OVERHEAD TESTS ====================
+
+    /**
+     * Tagged {@code benchmark}, so it only runs with {@code mvn test -P benchmark}
+     */
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Should publish an event in well under a microsecond")
+    void testPublishOverhead() {
+        int events = 1_000_000;
+        // Room for every event, so the timing covers enqueueing rather than dropping
+        KpiIngestionPipeline fast = new KpiIngestionPipeline(batch -> { }, events, 1_024, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 200_000; i++) { // Warm up
+            fast.publishAssessment("S1", "Mathematics", "Test", 50, START);
+        }
+        fast.flush().join();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            fast.publishAssessment("S1", "Mathematics", "Test", 50, START);
+        }
+        double nanosPerEvent = (double) (System.nanoTime() - started) / events;
+        fast.close();
+
+        System.out.printf("KPI publish: %.0f ns per event%n", nanosPerEvent);
+        assertEquals(0, fast.getDroppedCount());
+        assertTrue(nanosPerEvent < 1_000, "Publishing should stay sub-microsecond");
+    }
+}
@@ -0,0 +1,258 @@
+package com.learnmax;
+
+import com.learnmax.kpi.model.KpiDataPoint;
+import com.learnmax.kpi.model.KpiDataPoint.EntityType;
+import com.learnmax.kpi.model.KpiDataPoint.KpiCategory;
+import com.learnmax.kpi.rollup.*;
+import com.learnmax.kpi.store.KpiStore;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KpiRollupEngine, KpiHierarchy and TermCalendar
+ */
+class KpiRollupEngineTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 2, 5, 8, 0);
+
+    private KpiHierarchy hierarchy;
+    private KpiRollupEngine engine;
+    private KpiStore store;
+
+    @BeforeEach
+    void setUp() {
+        hierarchy = new KpiHierarchy();
+        hierarchy.assignStudent("S1", "T1", "SCH1");
+        hierarchy.assignStudent("S2", "T1", "SCH1");
+        hierarchy.assignStudent("S3", "T2", "SCH2");
+        hierarchy.assignTeacher("T1", "SCH1");
+        hierarchy.assignTeacher("T2", "SCH2");
+        hierarchy.assignSchool("SCH1", "LEARNMAX");
+        hierarchy.assignSchool("SCH2", "LEARNMAX");
+
+        engine = new KpiRollupEngine(hierarchy);
+        store = new KpiStore();
+        engine.attach(store);
+    }
+
+    private void record(String studentId, LocalDateTime timestamp, double value) {
+        assertTrue(store.add("score", EntityType.STUDENT, studentId, KpiCategory.ASSESSMENT, timestamp, value));
+    }
+
+    // ==================== HIERARCHY TESTS ====================
+
+    @Test
+    @DisplayName("Should reach each ancestor once, nearest first")
+    void testAncestors() {
+        List<KpiHierarchy.Entity> ancestors = hierarchy.getAncestors(EntityType.STUDENT, "S1");
+        assertEquals(3, ancestors.size());
+        assertEquals(new KpiHierarchy.Entity(EntityType.PLATFORM, "LEARNMAX"), ancestors.get(2));
+        assertTrue(hierarchy.getAncestors(EntityType.STUDENT, "S9").isEmpty());
+
+        // Cycles end the walk instead of looping
+        hierarchy.addMembership(EntityType.PLATFORM, "LEARNMAX", EntityType.STUDENT, "S1");
+        assertEquals(3, hierarchy.getAncestors(EntityType.STUDENT, "S1").size());
+
+        assertTrue(hierarchy.removeMembership(EntityType.SCHOOL, "SCH1", EntityType.PLATFORM, "LEARNMAX"));
+        assertFalse(hierarchy.removeMembership(EntityType.SCHOOL, "SCH1", EntityType.PLATFORM, "LEARNMAX"));
+        assertEquals(2, hierarchy.getAncestors(EntityType.STUDENT, "S1").size());
+    }
+
+    // ==================== ROLLUP TESTS ====================
+
+    @Test
+    @DisplayName("Should roll student points up to teacher, school and platform")
+    void testRollUpHierarchy() {
+        record("S1", START, 60);
+        record("S2", START.plusMinutes(5), 80);
+        record("S3", START.plusMinutes(10), 90);
+
+        KpiRollup student = engine.getRollup("score", EntityType.STUDENT, "S1", Granularity.DAY, START);
+        assertEquals(1, student.getCount());
+
+        KpiRollup teacher = engine.getRollup("score", EntityType.TEACHER, "T1", Granularity.HOUR, START);
+        assertEquals(2, teacher.getCount());
+        assertEquals(70.0, teacher.getAverage(), 1e-9);
+
+        // S1 reaches SCH1 directly and through T1, but counts once
+        KpiRollup school = engine.getRollup("score", EntityType.SCHOOL, "SCH1", Granularity.DAY, START);
+        assertEquals(2, school.getCount());
+        assertEquals(60.0, school.getMin());
+        assertEquals(80.0, school.getMax());
+
+        KpiRollup platform = engine.getRollup("score", EntityType.PLATFORM, "LEARNMAX", Granularity.TERM, START);
+        assertEquals(3, platform.getCount());
+        assertEquals(230.0, platform.getSum(), 1e-9);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), platform.getStart());
+
+        assertEquals(3, engine.getPointCount());
+        assertNull(engine.getRollup("score", EntityType.SCHOOL, "SCH1", Granularity.DAY, START.plusDays(1)));
+        assertNull(engine.getRollup("other", EntityType.SCHOOL, "SCH1", Granularity.DAY, START));
+    }
+
+    @Test
+    @DisplayName("Should bucket points by minute, hour, day and term")
+    void testGranularities() {
+        record("S1", START.plusSeconds(10), 1);
+        record("S1", START.plusSeconds(50), 2);
+        record("S1", START.plusMinutes(1), 3);
+        record("S1", START.plusHours(2), 4);
+        record("S1", START.plusDays(1), 5);
+
+        assertEquals(4, engine.getRollups("score", EntityType.STUDENT, "S1", Granularity.MINUTE, null, null).size());
+        assertEquals(3, engine.getRollups("score", EntityType.STUDENT, "S1", Granularity.HOUR, null, null).size());
+        assertEquals(2, engine.getRollups("score", EntityType.STUDENT, "S1", Granularity.DAY, null, null).size());
+        assertEquals(1, engine.getRollups("score", EntityType.STUDENT, "S1", Granularity.TERM, null, null).size());
+
+        KpiRollup minute = engine.getRollup("score", EntityType.STUDENT, "S1", Granularity.MINUTE, START);
+        assertEquals(2, minute.getCount());
+        assertEquals(START, minute.getStart());
+
+        // A range starting inside a bucket includes that bucket
+        List<KpiRollup> hours = engine.getRollups("score", EntityType.STUDENT, "S1", Granularity.HOUR,
+                START.plusMinutes(30), START.plusHours(3));
+        assertEquals(Arrays.asList(START, START.plusHours(2)),
+                Arrays.asList(hours.get(0).getStart(), hours.get(1).getStart()));
+    }
+
+    @Test
+    @DisplayName("Should place points in configured terms")
+    void testTermCalendar() {
+        TermCalendar terms = TermCalendar.of(Arrays.asList(LocalDate.of(2024, 1, 17), LocalDate.of(2024, 4, 9),
+                LocalDate.of(2024, 7, 30), LocalDate.of(2024, 10, 8)));
+        assertEquals(LocalDate.of(2024, 1, 17), terms.termStart(LocalDate.of(2024, 4, 8)));
+        assertEquals(LocalDate.of(2024, 4, 9), terms.termStart(LocalDate.of(2024, 4, 9)));
+        assertEquals(LocalDate.of(2024, 10, 8), terms.termStart(LocalDate.of(2025, 1, 5)));
+        assertEquals(LocalDate.of(2023, 10, 1), terms.termStart(LocalDate.of(2023, 12, 25))); // Before the first term
+        assertThrows(IllegalArgumentException.class, () -> TermCalendar.of(Arrays.asList()));
+
+        KpiRollupEngine termEngine = new KpiRollupEngine(hierarchy, terms);
+        KpiDataPoint point = new KpiDataPoint("score", "S1", EntityType.STUDENT, KpiCategory.ASSESSMENT, 50);
+        point.setTimestamp(LocalDateTime.of(2024, 5, 2, 9, 0));
+        assertTrue(termEngine.add(point));
+        assertEquals(LocalDateTime.of(2024, 4, 9, 0, 0), termEngine.getRollup("score", EntityType.SCHOOL, "SCH1",
+                Granularity.TERM, LocalDateTime.of(2024, 6, 1, 0, 0)).getStart());
+    }
+
+    @Test
+    @DisplayName("Should update buckets for late points and summarize ranges")
+    void testOutOfOrderAndSummarize() {
+        Random random = new Random(5);
+        double sum = 0;
+        int inRange = 0;
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime timestamp = START.plusMinutes(random.nextInt(14 * 24 * 60));
+            double value = random.nextInt(100);
+            record(i % 2 == 0 ? "S1" : "S2", timestamp, value);
+            if (!timestamp.isBefore(START.plusDays(2)) && timestamp.isBefore(START.plusDays(5))) {
+                sum += value;
+                inRange++;
+            }
+        }
+
+        KpiRollup days = engine.summarize("score", EntityType.SCHOOL, "SCH1", START.plusDays(2), START.plusDays(5));
+        assertEquals(inRange, days.getCount());
+        assertEquals(sum, days.getSum(), 1e-6);
+
+        KpiRollup all = engine.summarize("score", EntityType.TEACHER, "T1", null, null);
+        assertEquals(2_000, all.getCount());
+        assertEquals(store.count("score", null, null, null, null, null), all.getCount());
+
+        // Bounds off the hour are answered from minute buckets
+        KpiRollup minutes = engine.summarize("score", EntityType.SCHOOL, "SCH1",
+                START.plusDays(2).plusMinutes(7), START.plusDays(5).plusMinutes(7));
+        long expected = store.count("score", null, null, null,
+                START.plusDays(2).plusMinutes(7), START.plusDays(5).plusMinutes(7));
+        assertEquals(expected, minutes.getCount());
+        assertNull(engine.summarize("score", EntityType.SCHOOL, "SCH2", null, null));
+    }
+
+    @Test
+    @DisplayName("Should rebuild rollups from the store")
+    void testRebuild() {
+        for (int i = 0; i < 100; i++) {
+            record("S" + (1 + i % 3), START.plusMinutes(i), i);
+        }
+        KpiRollup before = engine.summarize("score", EntityType.PLATFORM, "LEARNMAX", null, null);
+
+        engine.rebuild(store);
+        KpiRollup after = engine.summarize("score", EntityType.PLATFORM, "LEARNMAX", null, null);
+        assertEquals(100, after.getCount());
+        assertEquals(before.getSum(), after.getSum(), 1e-9);
+        assertEquals(0.0, after.getMin());
+        assertEquals(99.0, after.getMax());
+    }
+
+    /**
+     * Record 60 days of scores for {@code students} more students of SCH1
+     */
+    private void recordSchool(int students) {
+        for (int s = 0; s < students; s++) {
+            hierarchy.assignStudent("P" + s, "PT" + (s % 40), "SCH1");
+        }
+        for (int day = 0; day < 60; day++) {
+            for (int s = 0; s < students; s++) {
+                record("P" + s, START.plusDays(day).plusMinutes(s % 600), (s + day) % 100);
+            }
+        }
+    }
+
+    private long scanSchool(LocalDateTime from, LocalDateTime to, double[] sum) {
+        return store.scan("score", EntityType.STUDENT, null, null, from, to, (series, time, value) -> {
+            if (series.getEntityId().startsWith("P")) sum[0] += value;
+        });
+    }
+
+    @Test
+    @DisplayName("Should answer school dashboards from buckets with the same totals as raw points")
+    void testSchoolDashboard() {
+        int students = 500;
+        recordSchool(students);
+
+        LocalDateTime from = START.plusDays(10).toLocalDate().atStartOfDay();
+        LocalDateTime to = from.plusDays(30);
+        KpiRollup rollup = engine.summarize("score", EntityType.SCHOOL, "SCH1", from, to);
+        double[] rawSum = new double[1];
+        scanSchool(from, to, rawSum);
+        assertEquals(30L * students, rollup.getCount());
+        assertEquals(rawSum[0], rollup.getSum(), 1e-6);
+    }
+
+    /**
+     * Tagged {@code benchmark}, so it only runs with {@code mvn test -P benchmark}
+     */
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Should answer school dashboards from a few buckets instead of raw points")
+    void testSchoolDashboardSpeed() {
+        int students = 2_000;
+        recordSchool(students);
+
+        LocalDateTime from = START.plusDays(10).toLocalDate().atStartOfDay();
+        LocalDateTime to = from.plusDays(30);
+        int queries = 1_000;
+        long started = System.nanoTime();
+        KpiRollup rollup = null;
+        for (int q = 0; q < queries; q++) {
+            rollup = engine.summarize("score", EntityType.SCHOOL, "SCH1", from, to);
+        }
+        double rollupMicros = (System.nanoTime() - started) / 1e3 / queries;
+
+        double[] rawSum = new double[1];
+        started = System.nanoTime();
+        long raw = scanSchool(from, to, rawSum);
+        double rawMicros = (System.nanoTime() - started) / 1e3;
+
+        System.out.printf("School summary over 30 days: %.1f µs from rollups, %.1f µs scanning %d raw points%n",
+                rollupMicros, rawMicros, raw);
+        assertEquals(30L * students, rollup.getCount());
+        assertTrue(rollupMicros * 10 < rawMicros, "Rollups should be far cheaper than raw scans");
+    }
+}
@@ -0,0 +1,415 @@
+package com.learnmax;
+
+import com.learnmax.kpi.model.KpiDataPoint;
+import com.learnmax.kpi.model.KpiDataPoint.EntityType;
+import com.learnmax.kpi.model.KpiDataPoint.KpiCategory;
+import com.learnmax.kpi.store.KpiSeries;
+import com.learnmax.kpi.store.KpiStore;
+import com.learnmax.kpi.store.TagDictionary;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KpiStore and KpiSeries
+ */
+class KpiStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private KpiStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new KpiStore();
+    }
+
+    private static KpiDataPoint point(String kpiId, EntityType type, String entityId, KpiCategory category,
+                                      LocalDateTime timestamp, double value) {
+        KpiDataPoint point = new KpiDataPoint(kpiId, entityId, type, category, value);
+        point.setTimestamp(timestamp);
+        return point;
+    }
+
+    private static List<Double> values(List<KpiDataPoint> points) {
+        List<Double> values = new ArrayList<>();
+        for (KpiDataPoint point : points) {
+            values.add(point.getValue());
+        }
+        return values;
+    }
+
+    // ==================== ADD AND LOOKUP TESTS ====================
+
+    @Test
+    @DisplayName("Should group points into series and find them by each dimension")
+    void testLookups() {
+        store.add(point("avg_score", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT, START, 70));
+        store.add(point("avg_score", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT, START.plusDays(1), 75));
+        store.add(point("avg_score", EntityType.STUDENT, "S2", KpiCategory.ASSESSMENT, START, 60));
+        store.add(point("labs_done", EntityType.STUDENT, "S1", KpiCategory.LAB_ACTIVITY, START, 3));
+        store.add(point("avg_score", EntityType.SCHOOL, "S1", KpiCategory.ASSESSMENT, START, 65));
+
+        assertEquals(5, store.size());
+        assertEquals(4, store.getSeriesCount());
+        assertEquals(new TreeSet<>(Arrays.asList("avg_score", "labs_done")), store.getKpiIds());
+
+        assertEquals(3, store.findSeries("avg_score", null, null, null).size());
+        assertEquals(2, store.findSeries(null, EntityType.STUDENT, "S1", null).size());
+        assertEquals(3, store.findSeries(null, null, "S1", null).size());
+        assertEquals(3, store.findSeries(null, EntityType.STUDENT, null, null).size());
+        assertEquals(1, store.findSeries(null, null, null, KpiCategory.LAB_ACTIVITY).size());
+        assertEquals(4, store.findSeries(null, null, null, null).size());
+        assertTrue(store.findSeries("missing", null, null, null).isEmpty());
+
+        List<KpiSeries> exact = store.findSeries("avg_score", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT);
+        assertEquals(1, exact.size());
+        assertEquals(2, exact.get(0).size());
+        assertEquals(START, exact.get(0).getFirstTimestamp());
+        assertEquals(START.plusDays(1), exact.get(0).getLastTimestamp());
+
+        assertEquals(Arrays.asList(70.0, 75.0),
+                values(store.getPoints("avg_score", EntityType.STUDENT, "S1", null, null, null)));
+        assertEquals(Arrays.asList(70.0, 3.0, 75.0),
+                values(store.getPointsForEntity(EntityType.STUDENT, "S1", null, null)));
+    }
+
+    @Test
+    @DisplayName("Should reject incomplete points")
+    void testRejectIncomplete() {
+        assertFalse(store.add(null));
+        assertFalse(store.add(point(null, EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT, START, 1)));
+        assertFalse(store.add(point("k", null, "S1", KpiCategory.ASSESSMENT, START, 1)));
+        assertFalse(store.add(point("k", EntityType.STUDENT, null, KpiCategory.ASSESSMENT, START, 1)));
+        assertFalse(store.add(point("k", EntityType.STUDENT, "S1", null, START, 1)));
+        assertFalse(store.add(point("k", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT, null, 1)));
+        assertFalse(store.add(point("k", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT,
+                LocalDateTime.of(2300, 1, 1, 0, 0), 1)));
+
+        assertEquals(0, store.size());
+        assertEquals(0, store.getSeriesCount());
+    }
+
+    @Test
+    @DisplayName("Should keep nanosecond timestamps")
+    void testTimestampPrecision() {
+        LocalDateTime precise = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123_456_789);
+        store.add(point("k", EntityType.PLATFORM, "P", KpiCategory.ENGAGEMENT, precise, 1.5));
+
+        KpiDataPoint stored = store.getPointsForKpi("k", null, null).get(0);
+        assertEquals(precise, stored.getTimestamp());
+        assertEquals(1.5, stored.getValue());
+        assertEquals(EntityType.PLATFORM, stored.getEntityType());
+        assertEquals(KpiCategory.ENGAGEMENT, stored.getCategory());
+    }
+
+    // ==================== TIME RANGE TESTS ====================
+
+    @Test
+    @DisplayName("Should return points in [from, to) oldest first")
+    void testRange() {
+        for (int day = 0; day < 10; day++) {
+            store.add("k", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT, START.plusDays(day), day);
+        }
+
+        assertEquals(Arrays.asList(3.0, 4.0, 5.0),
+                values(store.getPointsForKpi("k", START.plusDays(3), START.plusDays(6))));
+        assertEquals(Arrays.asList(0.0, 1.0), values(store.getPointsForKpi("k", null, START.plusDays(2))));
+        assertEquals(Arrays.asList(8.0, 9.0), values(store.getPointsForKpi("k", START.plusDays(8), null)));
+        assertTrue(store.getPointsForKpi("k", START.plusDays(20), null).isEmpty());
+        assertEquals(10, store.getPointsForKpi("k", LocalDateTime.MIN, LocalDateTime.MAX).size());
+
+        assertEquals(3, store.count("k", null, null, null, START.plusDays(3), START.plusDays(6)));
+        assertEquals(10, store.count(null, null, null, null, null, null));
+    }
+
+    @Test
+    @DisplayName("Should keep out-of-order points sorted across chunk splits")
+    void testOutOfOrder() {
+        int count = 5_000;
+        List<Integer> seconds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            seconds.add(i / 2); // Pairs of equal timestamps
+        }
+        Collections.shuffle(seconds, new Random(3));
+        for (int i = 0; i < count; i++) {
+            store.add("k", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT, START.plusSeconds(seconds.get(i)), i);
+        }
+
+        List<KpiDataPoint> points = store.getPointsForKpi("k", null, null);
+        assertEquals(count, points.size());
+        for (int i = 1; i < count; i++) {
+            assertFalse(points.get(i).getTimestamp().isBefore(points.get(i - 1).getTimestamp()));
+        }
+
+        // Equal timestamps keep insertion order
+        KpiSeries series = store.findSeries("k", null, null, null).get(0);
+        long from = KpiStore.toTime(START.plusSeconds(100));
+        List<Double> pair = new ArrayList<>();
+        series.scan(from, from + 1, (s, time, value) -> pair.add(value));
+        assertEquals(2, pair.size());
+        assertTrue(pair.get(0) < pair.get(1));
+
+        for (int second = 0; second < count / 2; second += 97) {
+            long time = KpiStore.toTime(START.plusSeconds(second));
+            assertEquals(2, series.count(time, time + 1));
+            assertEquals(2 * second, series.count(Long.MIN_VALUE, time));
+        }
+    }
+
+    // ==================== TAG TESTS ====================
+
+    private static Map<String, String> tags(String... keysAndValues) {
+        Map<String, String> tags = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            tags.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return tags;
+    }
+
+    @Test
+    @DisplayName("Should store metadata as tags and filter points by them")
+    void testTagFilters() {
+        for (int day = 0; day < 10; day++) {
+            String subject = day % 2 == 0 ? "Mathematics" : "Science";
+            String device = day < 5 ? "offline" : "web";
+            store.add("score", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT, START.plusDays(day), day,
+                    tags("subject", subject, "device", device));
+        }
+        KpiDataPoint tagged = point("score", EntityType.STUDENT, "S2", KpiCategory.ASSESSMENT, START, 50);
+        tagged.addMetadata("subject", "Mathematics");
+        store.add(tagged);
+        store.add("score", EntityType.STUDENT, "S3", KpiCategory.ASSESSMENT, START, 40);
+
+        assertEquals(Arrays.asList(0.0, 50.0, 2.0, 4.0, 6.0, 8.0),
+                values(store.getPoints("score", null, null, null, tags("subject", "Mathematics"), null, null)));
+        assertEquals(Arrays.asList(0.0, 2.0, 4.0), values(store.getPoints("score", null, null, null,
+                tags("subject", "Mathematics", "device", "offline"), null, null)));
+        assertEquals(2, store.count(null, EntityType.STUDENT, "S1", null, tags("device", "web"),
+                START.plusDays(8), null));
+        assertEquals(5, store.count("score", null, null, null, tags(), START.plusDays(5), null));
+        assertEquals(0, store.count("score", null, null, null, tags("subject", "History"), null, null));
+        assertEquals(0, store.count("score", null, null, null, tags("grade", "Mathematics"), null, null));
+
+        // Series through the inverted index
+        assertEquals(2, store.findSeries(null, null, null, null, tags("subject", "Mathematics")).size());
+        assertEquals(1, store.findSeries(null, null, null, null, tags("device", "offline")).size());
+        assertEquals(1, store.findSeries("score", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT,
+                tags("subject", "Science")).size());
+        assertTrue(store.findSeries("score", EntityType.STUDENT, "S2", KpiCategory.ASSESSMENT,
+                tags("subject", "Science")).isEmpty());
+
+        // Points come back with their metadata
+        KpiDataPoint first = store.getPoints("score", EntityType.STUDENT, "S1", null, null, null).get(1);
+        assertEquals(tags("subject", "Science", "device", "offline"), first.getMetadata());
+        assertTrue(store.getPoints("score", EntityType.STUDENT, "S3", null, null, null).get(0)
+                .getMetadata().isEmpty());
+        assertEquals(new TreeSet<>(Arrays.asList("Mathematics", "Science")), store.getTagValues("subject"));
+        assertTrue(store.getTagValues("missing").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should intern each tag and tag set once")
+    void testTagDictionary() {
+        for (int i = 0; i < 10_000; i++) {
+            store.add("score", EntityType.STUDENT, "S" + (i % 100), KpiCategory.ASSESSMENT, START.plusMinutes(i),
+                    i, tags("subject", i % 2 == 0 ? "Mathematics" : "Science", "device", "offline"));
+        }
+
+        TagDictionary dictionary = store.getTagDictionary();
+        assertEquals(5, dictionary.getStringCount());
+        assertEquals(3, dictionary.getTagCount());
+        assertEquals(3, dictionary.getTagSetCount()); // Including the empty set
+        assertEquals(TagDictionary.EMPTY, dictionary.encode(null));
+        assertEquals(dictionary.encode(tags("device", "offline", "subject", "Science")),
+                dictionary.encode(tags("subject", "Science", "device", "offline")));
+        assertEquals(-1, dictionary.tagId("subject", "History"));
+
+        Map<String, String> decoded = dictionary.decode(dictionary.encode(tags("subject", "Mathematics",
+                "device", "offline")));
+        assertEquals(tags("subject", "Mathematics", "device", "offline"), decoded);
+    }
+
+    @Test
+    @DisplayName("Should keep tags with their points through out-of-order inserts and splits")
+    void testTagsOutOfOrder() {
+        int count = 5_000;
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(9));
+        for (int i : order) {
+            // Untagged points interleaved with tagged ones
+            Map<String, String> metadata = i % 3 == 0 ? null : tags("parity", i % 2 == 0 ? "even" : "odd");
+            store.add("k", EntityType.STUDENT, "S1", KpiCategory.ASSESSMENT, START.plusSeconds(i), i, metadata);
+        }
+
+        List<KpiDataPoint> points = store.getPointsForKpi("k", null, null);
+        assertEquals(count, points.size());
+        for (KpiDataPoint point : points) {
+            int i = (int) point.getValue();
+            assertEquals(i % 3 == 0 ? null : (i % 2 == 0 ? "even" : "odd"), point.getMetadata("parity"));
+        }
+        long odd = 0;
+        for (int i = 0; i < count; i++) {
+            if (i % 3 != 0 && i % 2 == 1) odd++;
+        }
+        assertEquals(odd, store.count("k", null, null, null, tags("parity", "odd"), null, null));
+    }
+
+    // ==================== CONCURRENCY TESTS ====================
+
+    @Test
+    @DisplayName("Should accept points from several threads")
+    void testConcurrentAdds() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    store.add("k" + (i % 3), EntityType.STUDENT, "S" + (i % 50), KpiCategory.ASSESSMENT,
+                            START.plusSeconds(i * 4L + thread), i);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(40_000, store.size());
+        assertEquals(150, store.getSeriesCount());
+        assertEquals(40_000, store.count(null, EntityType.STUDENT, null, null, null, null));
+        for (KpiSeries series : store.findSeries("k1", null, null, null)) {
+            long[] previous = {Long.MIN_VALUE};
+            series.scan(Long.MIN_VALUE, Long.MAX_VALUE, (s, time, value) -> {
+                assertTrue(time >= previous[0]);
+                previous[0] = time;
+            });
+        }
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertTrue(store.findSeries("k1", null, null, null).isEmpty());
+    }
+
+    // ==================== MEMORY AND SPEED TESTS ====================
+    // Tagged benchmark: heap deltas and timings vary between machines and runs, so these
+    // only run with mvn test -P benchmark
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Should hold millions of points compactly and scan ranges in well under a millisecond")
+    void testMemoryAndScanSpeed() {
+        int kpis = 4;
+        int entities = 500;
+        int perSeries = 1_000; // 2M points, one every 10 minutes per series
+        String[] kpiIds = new String[kpis];
+        String[] entityIds = new String[entities];
+        for (int k = 0; k < kpis; k++) kpiIds[k] = "kpi_" + k;
+        for (int e = 0; e < entities; e++) entityIds[e] = "S" + e;
+
+        long base = usedMemory();
+        KpiStore big = new KpiStore();
+        for (int i = 0; i < perSeries; i++) {
+            LocalDateTime timestamp = START.plusMinutes(10L * i);
+            for (int k = 0; k < kpis; k++) {
+                for (int e = 0; e < entities; e++) {
+                    big.add(kpiIds[k], EntityType.STUDENT, entityIds[e], KpiCategory.values()[k], timestamp, i + e);
+                }
+            }
+        }
+        double bytesPerPoint = (double) (usedMemory() - base) / big.size();
+        assertEquals((long) kpis * entities * perSeries, big.size());
+
+        // One day of one series, and one hour of a KPI across all its entities
+        int queries = 2_000;
+        double[] sum = new double[1];
+        long started = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            LocalDateTime from = START.plusHours(q % 160);
+            big.scan("kpi_1", EntityType.STUDENT, entityIds[q % entities], KpiCategory.values()[1],
+                    from, from.plusDays(1), (s, time, value) -> sum[0] += value);
+        }
+        double seriesMicros = (System.nanoTime() - started) / 1e3 / queries;
+
+        started = System.nanoTime();
+        for (int q = 0; q < 200; q++) {
+            LocalDateTime from = START.plusHours(q % 160);
+            assertEquals(entities * 6, big.scan("kpi_2", null, null, null, from, from.plusHours(1),
+                    (s, time, value) -> sum[0] += value));
+        }
+        double kpiMicros = (System.nanoTime() - started) / 1e3 / 200;
+
+        System.out.printf("KpiStore: %.1f bytes per point, %.1f µs per series-day scan, %.1f µs per KPI-hour scan%n",
+                bytesPerPoint, seriesMicros, kpiMicros);
+        assertTrue(sum[0] > 0);
+        assertTrue(bytesPerPoint < 40, "10M points should fit well under 1 GB");
+        assertTrue(seriesMicros < 1_000, "Series range scans should take well under a millisecond");
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Should keep tag overhead to a few bytes per point")
+    void testTagMemory() {
+        String[] subjects = {"Mathematics", "Science", "English", "History"};
+        String[] devices = {"offline", "web", "tablet"};
+        int entities = 500;
+        int perSeries = 2_000; // 1M points
+
+        long base = usedMemory();
+        KpiStore plain = new KpiStore();
+        for (int i = 0; i < perSeries; i++) {
+            for (int e = 0; e < entities; e++) {
+                plain.add("score", EntityType.STUDENT, "S" + e, KpiCategory.ASSESSMENT, START.plusMinutes(i), i);
+            }
+        }
+        double plainBytes = (double) (usedMemory() - base) / plain.size();
+        plain = null;
+
+        List<Map<String, String>> metadata = new ArrayList<>();
+        for (String subject : subjects) {
+            for (String device : devices) {
+                metadata.add(tags("subject", subject, "device", device));
+            }
+        }
+        base = usedMemory();
+        KpiStore tagged = new KpiStore();
+        for (int i = 0; i < perSeries; i++) {
+            for (int e = 0; e < entities; e++) {
+                tagged.add("score", EntityType.STUDENT, "S" + e, KpiCategory.ASSESSMENT, START.plusMinutes(i), i,
+                        metadata.get((i + e) % metadata.size()));
+            }
+        }
+        double taggedBytes = (double) (usedMemory() - base) / tagged.size();
+
+        long started = System.nanoTime();
+        long maths = tagged.count("score", null, null, null, tags("subject", "Mathematics", "device", "offline"),
+                START.plusDays(1), START.plusDays(2));
+        double filterMillis = (System.nanoTime() - started) / 1e6;
+
+        System.out.printf("KpiStore tags: %.1f bytes per point untagged, %.1f tagged, %.1f ms per tag-filtered day%n",
+                plainBytes, taggedBytes, filterMillis);
+        long expected = 0;
+        for (int i = 24 * 60; i < perSeries; i++) {
+            for (int e = 0; e < entities; e++) {
+                if ((i + e) % metadata.size() == 0) expected++; // Mathematics on offline
+            }
+        }
+        assertEquals(expected, maths);
+        assertTrue(taggedBytes - plainBytes < 8, "Tags should add about 4 bytes per point");
+    }
+}
@@ -0,0 +1,147 @@
+package com.learnmax;
+
+import com.learnmax.persistence.Durability;
+import com.learnmax.persistence.PersistenceService;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the background group-commit writer
+ */
+class PersistenceServiceTest {
+    
+    private PersistenceService service;
+    
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should coalesce repeated marks of one key into one write")
+    void testCoalescing() throws Exception {
+        service = new PersistenceService(Durability.WRITE, 60_000, 1_000);
+        AtomicInteger writes = new AtomicInteger();
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        
+        CompletableFuture<Void> first = null;
+        for (int i = 0; i < 50; i++) {
+            int version = i;
+            CompletableFuture<Void> saved = service.markDirty("state", d -> {
+                writes.incrementAndGet();
+                written.add(version);
+            });
+            if (first == null) first = saved;
+            assertSame(first, saved);
+        }
+        service.flush().get(10, TimeUnit.SECONDS);
+        
+        assertTrue(first.isDone());
+        assertEquals(1, writes.get());
+        assertEquals(List.of(49), written);
+    }
+    
+    @Test
+    @DisplayName("Should flush on its own once the interval has passed")
+    void testIntervalFlush() throws Exception {
+        service = new PersistenceService(Durability.WRITE, 20, 1_000);
+        CompletableFuture<Void> saved = service.markDirty("state", d -> { });
+        saved.get(10, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    @DisplayName("Should flush on its own once the threshold is reached")
+    void testThresholdFlush() throws Exception {
+        service = new PersistenceService(Durability.WRITE, 60_000, 3);
+        service.markDirty("a", d -> { });
+        service.markDirty("b", d -> { });
+        CompletableFuture<Void> saved = service.markDirty("c", d -> { });
+        saved.get(10, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    @DisplayName("Should complete futures at once with durability NONE")
+    void testNoDurability() {
+        service = new PersistenceService(Durability.NONE, 60_000, 1_000);
+        assertTrue(service.markDirty("state", d -> { }).isDone());
+    }
+    
+    @Test
+    @DisplayName("Should pass the configured durability to tasks")
+    void testDurabilityPassed() throws Exception {
+        service = new PersistenceService(Durability.FSYNC, 60_000, 1_000);
+        List<Durability> seen = new CopyOnWriteArrayList<>();
+        service.markDirty("state", seen::add);
+        service.flush().get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(Durability.FSYNC), seen);
+    }
+    
+    @Test
+    @DisplayName("Should report failed writes through the futures")
+    void testFailure() {
+        service = new PersistenceService(Durability.WRITE, 60_000, 1_000);
+        CompletableFuture<Void> saved = service.markDirty("state", d -> {
+            throw new IOException("disk full");
+        });
+        CompletableFuture<Void> barrier = service.flush();
+        
+        ExecutionException e = assertThrows(ExecutionException.class, () -> saved.get(10, TimeUnit.SECONDS));
+        assertEquals("disk full", e.getCause().getMessage());
+        assertThrows(ExecutionException.class, () -> barrier.get(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    @DisplayName("Should write pending changes on close and directly afterwards")
+    void testCloseDrains() {
+        service = new PersistenceService(Durability.WRITE, 60_000, 1_000);
+        AtomicInteger writes = new AtomicInteger();
+        CompletableFuture<Void> saved = service.markDirty("state", d -> writes.incrementAndGet());
+        service.close();
+        
+        assertTrue(saved.isDone());
+        assertEquals(1, writes.get());
+        
+        assertTrue(service.markDirty("state", d -> writes.incrementAndGet()).isDone());
+        assertEquals(2, writes.get());
+        assertTrue(service.flush().isDone());
+    }
+    
+    // ==================== FILE HELPER TESTS ====================
+    
+    @Test
+    @DisplayName("Should replace files atomically")
+    void testWriteAtomically() throws IOException {
+        Path file = Files.createTempFile("learnmax", ".json");
+        try {
+            Files.writeString(file, "old");
+            PersistenceService.writeAtomically(file, Durability.FSYNC, writer -> writer.write("new ✓"));
+            assertEquals("new ✓", Files.readString(file, StandardCharsets.UTF_8));
+            assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+            
+            // Binary content may patch earlier bytes before the file is forced and moved
+            PersistenceService.writeChannelAtomically(file, Durability.FSYNC, channel -> {
+                channel.write(ByteBuffer.wrap(new byte[] {0, 0, 3}));
+                channel.write(ByteBuffer.wrap(new byte[] {1, 2}), 0);
+            });
+            assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(file));
+            assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.learnmax;
+
+import com.learnmax.kpi.model.KpiDataPoint.EntityType;
+import com.learnmax.kpi.model.KpiDataPoint.KpiCategory;
+import com.learnmax.kpi.rollup.KpiHierarchy;
+import com.learnmax.kpi.rollup.KpiRollup;
+import com.learnmax.kpi.rollup.KpiRollupEngine;
+import com.learnmax.kpi.rollup.QuantileSketch;
+import com.learnmax.kpi.store.KpiStore;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuantileSketch and the quantiles kept by KpiRollupEngine
+ */
+class QuantileSketchTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 2, 5, 8, 0);
+    private static final double[] QUANTILES = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    /**
+     * Assert that {@code estimate} sits within {@code epsilon} of rank {@code q} in the
+     * sorted exact values. Ties give a value a range of ranks; any rank in it counts.
+     */
+    private static void assertRankWithin(double[] sorted, double q, double estimate, double epsilon) {
+        int below = lowerBound(sorted, estimate);
+        int atOrBelow = lowerBound(sorted, Math.nextUp(estimate));
+        double lowRank = (double) below / sorted.length;
+        double highRank = (double) atOrBelow / sorted.length;
+        assertTrue(q >= lowRank - epsilon && q <= highRank + epsilon,
+                String.format("q=%.2f estimate=%.3f has rank [%.4f, %.4f], allowed error %.4f",
+                        q, estimate, lowRank, highRank, epsilon));
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // ==================== SKETCH TESTS ====================
+
+    @Test
+    @DisplayName("Should answer exactly while every value fits")
+    void testExactWhenSmall() {
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = new double[101];
+        for (int i = 0; i <= 100; i++) {
+            values[i] = 100 - i;
+            sketch.update(100 - i);
+        }
+        Arrays.sort(values);
+
+        assertEquals(101, sketch.getRetainedItems());
+        assertEquals(50.0, sketch.getQuantile(0.5));
+        assertEquals(90.0, sketch.getQuantile(0.9));
+        assertEquals(0.0, sketch.getQuantile(0));
+        assertEquals(100.0, sketch.getQuantile(1));
+        for (double q : QUANTILES) {
+            assertEquals(values[(int) Math.ceil(q * values.length) - 1], sketch.getQuantile(q));
+        }
+        assertEquals(51.0 / 101, sketch.getRank(50), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Should stay within the documented rank error against exact quantiles")
+    void testAgainstExactQuantiles() {
+        Random random = new Random(11);
+        int n = 200_000;
+        double[][] datasets = new double[3][n];
+        for (int i = 0; i < n; i++) {
+            datasets[0][i] = random.nextInt(101);                                // Scores with heavy ties
+            datasets[1][i] = Math.exp(random.nextGaussian());                    // Skewed time on task
+            datasets[2][i] = i % 2 == 0 ? i : n - i;                             // Adversarial order
+        }
+
+        for (double[] values : datasets) {
+            QuantileSketch sketch = new QuantileSketch();
+            for (double value : values) {
+                sketch.update(value);
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            assertEquals(n, sketch.getCount());
+            assertTrue(sketch.getRetainedItems() <= 3 * QuantileSketch.DEFAULT_K,
+                    "Retained " + sketch.getRetainedItems());
+            assertEquals(sorted[0], sketch.getMin());
+            assertEquals(sorted[n - 1], sketch.getMax());
+            double[] estimates = sketch.getQuantiles(QUANTILES);
+            for (int j = 0; j < QUANTILES.length; j++) {
+                assertRankWithin(sorted, QUANTILES[j], estimates[j], sketch.getNormalizedRankError());
+            }
+        }
+        assertEquals(0.0165, QuantileSketch.normalizedRankError(QuantileSketch.DEFAULT_K), 0.0005);
+    }
+
+    @Test
+    @DisplayName("Should merge sketches as if one had seen every value")
+    void testMerge() {
+        Random random = new Random(3);
+        List<QuantileSketch> parts = new ArrayList<>();
+        double[] all = new double[100_000];
+        for (int p = 0; p < 50; p++) {
+            QuantileSketch part = new QuantileSketch();
+            double shift = p * 2; // Each part covers a different range
+            for (int i = 0; i < 2_000; i++) {
+                double value = shift + random.nextGaussian() * 10;
+                all[p * 2_000 + i] = value;
+                part.update(value);
+            }
+            parts.add(part);
+        }
+
+        QuantileSketch merged = new QuantileSketch();
+        for (QuantileSketch part : parts) {
+            merged.merge(part);
+        }
+        assertEquals(2_000, parts.get(0).getCount()); // Parts are unchanged
+        assertEquals(all.length, merged.getCount());
+
+        Arrays.sort(all);
+        for (double q : QUANTILES) {
+            assertRankWithin(all, q, merged.getQuantile(q), merged.getNormalizedRankError());
+        }
+
+        QuantileSketch copy = merged.copy();
+        copy.merge(copy);
+        assertEquals(2L * all.length, copy.getCount());
+        assertEquals(all.length, merged.getCount());
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(new QuantileSketch(64)));
+    }
+
+    @Test
+    @DisplayName("Should handle empty sketches, NaN values and bad quantiles")
+    void testEdgeCases() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(sketch.isEmpty());
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        assertTrue(Double.isNaN(sketch.getMin()));
+        assertTrue(Double.isNaN(sketch.getRank(1)));
+
+        sketch.update(Double.NaN);
+        assertTrue(sketch.isEmpty());
+        sketch.merge(new QuantileSketch());
+        sketch.merge(null);
+        assertTrue(sketch.isEmpty());
+
+        sketch.update(7);
+        assertEquals(7.0, sketch.getQuantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> sketch.getQuantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(4));
+    }
+
+    // ==================== ROLLUP TESTS ====================
+
+    @Test
+    @DisplayName("Should give school percentiles for a range by merging bucket sketches")
+    void testRollupQuantiles() {
+        KpiHierarchy hierarchy = new KpiHierarchy();
+        int students = 300;
+        for (int s = 0; s < students; s++) {
+            hierarchy.assignStudent("S" + s, "T" + (s % 10), "SCH1");
+        }
+        KpiRollupEngine engine = new KpiRollupEngine(hierarchy);
+        assertTrue(engine.trackQuantiles("score"));
+        assertFalse(engine.trackQuantiles("score"));
+        KpiStore store = new KpiStore();
+        engine.attach(store);
+
+        Random random = new Random(17);
+        LocalDateTime from = START.plusDays(3).toLocalDate().atStartOfDay();
+        LocalDateTime to = from.plusDays(7);
+        List<Double> inRange = new ArrayList<>();
+        for (int day = 0; day < 14; day++) {
+            for (int s = 0; s < students; s++) {
+                LocalDateTime timestamp = START.plusDays(day).plusMinutes(random.nextInt(600));
+                double score = Math.min(100, Math.max(0, Math.round(65 + random.nextGaussian() * 15)));
+                double minutes = Math.exp(3 + random.nextGaussian() * 0.5);
+                store.add("score", EntityType.STUDENT, "S" + s, KpiCategory.ASSESSMENT, timestamp, score);
+                store.add("minutes", EntityType.STUDENT, "S" + s, KpiCategory.ENGAGEMENT, timestamp, minutes);
+                if (!timestamp.isBefore(from) && timestamp.isBefore(to)) {
+                    inRange.add(score);
+                }
+            }
+        }
+
+        KpiRollup week = engine.summarize("score", EntityType.SCHOOL, "SCH1", from, to);
+        assertTrue(week.hasQuantiles());
+        assertEquals(inRange.size(), week.getCount());
+        double[] exact = inRange.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        double epsilon = QuantileSketch.normalizedRankError(QuantileSketch.DEFAULT_K);
+        assertRankWithin(exact, 0.5, week.getMedian(), epsilon);
+        assertRankWithin(exact, 0.9, week.getQuantile(0.9), epsilon);
+        assertEquals(week.getCount(), week.getDistribution().getCount());
+
+        // Untracked KPIs keep plain rollups
+        KpiRollup minutes = engine.summarize("minutes", EntityType.SCHOOL, "SCH1", from, to);
+        assertFalse(minutes.hasQuantiles());
+        assertTrue(Double.isNaN(minutes.getMedian()));
+        assertNull(minutes.getDistribution());
+
+        // Rebuilding picks up KPIs tracked after their points arrived
+        engine.trackQuantiles("minutes");
+        engine.rebuild(store);
+        assertTrue(engine.summarize("minutes", EntityType.TEACHER, "T3", from, to).getQuantile(0.9) > 0);
+        assertEquals(week.getMedian(), engine.summarize("score", EntityType.SCHOOL, "SCH1", from, to).getMedian());
+    }
+}
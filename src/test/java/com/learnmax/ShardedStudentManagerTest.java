@@ -0,0 +1,209 @@
+package com.learnmax;
+
+import com.learnmax.manager.BatchResult;
+import com.learnmax.manager.ShardedStudentManager;
+import com.learnmax.manager.ShardedStudentManager.Partitioning;
+import com.learnmax.manager.StudentManager;
+import com.learnmax.model.Student;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ShardedStudentManager
+ */
+class ShardedStudentManagerTest {
+
+    @TempDir
+    Path dataDir;
+
+    private ShardedStudentManager open(int shards, Partitioning partitioning) {
+        return new ShardedStudentManager(dataDir.resolve("data").toString(), shards, partitioning, true,
+                StudentManager.SnapshotFormat.JSON, StudentManager.LoadMode.EAGER);
+    }
+
+    private static Student student(int n, String grade, int score) {
+        Student student = new Student("S" + n, "Student " + n, grade);
+        student.addAssessment("Mathematics", score, "Test");
+        return student;
+    }
+
+    // ==================== PARTITIONING TESTS ====================
+
+    @Test
+    @DisplayName("Should spread students over shards by ID and find them again")
+    void testPartitionById() {
+        ShardedStudentManager manager = open(4, Partitioning.STUDENT_ID);
+        for (int i = 0; i < 400; i++) {
+            assertTrue(manager.addStudent(student(i, "Grade " + (8 + i % 5), i % 101)));
+        }
+
+        assertEquals(400, manager.getStudentCount());
+        for (int size : manager.getShardSizes()) {
+            assertTrue(size > 50, "Unbalanced shards: " + Arrays.toString(manager.getShardSizes()));
+        }
+        assertEquals("Student 123", manager.findStudentById("S123").getName());
+        assertFalse(manager.addStudent(student(123, "Grade 9", 50)));
+        assertTrue(manager.removeStudent("S123"));
+        assertNull(manager.findStudentById("S123"));
+        assertEquals(80, manager.getStudentsByGrade("grade 8").size());
+        manager.close();
+    }
+
+    @Test
+    @DisplayName("Should keep each grade in one shard and IDs unique across shards")
+    void testPartitionByGrade() {
+        ShardedStudentManager manager = open(3, Partitioning.GRADE);
+        assertTrue(manager.addStudent(student(1, "Grade 10", 80)));
+        assertTrue(manager.addStudent(student(2, "grade 10", 70)));
+        assertFalse(manager.addStudent(student(1, "Grade 11", 90))); // ID taken in another shard
+        assertTrue(manager.addStudent(student(3, "Grade 11", 90)));
+
+        assertEquals(2, manager.getStudentsByGrade("GRADE 10").size());
+        assertTrue(manager.addAssessment("S3", "Science", 60, "Quiz"));
+        assertEquals(2, manager.findStudentById("S3").getAssessmentCount());
+        assertTrue(manager.removeStudent("S1"));
+        assertTrue(manager.addStudent(student(1, "Grade 12", 90))); // ID free again
+        manager.close();
+    }
+
+    @Test
+    @DisplayName("Should never split a grade between shards")
+    void testGradeStaysTogether() {
+        ShardedStudentManager manager = open(3, Partitioning.GRADE);
+        for (int i = 0; i < 60; i++) {
+            manager.addStudent(student(i, "Grade " + (7 + i % 6), 70));
+        }
+        for (int size : manager.getShardSizes()) {
+            assertEquals(0, size % 10, Arrays.toString(manager.getShardSizes()));
+        }
+        manager.close();
+    }
+
+    // ==================== QUERY TESTS ====================
+
+    @Test
+    @DisplayName("Should merge rankings across shards like a single roster")
+    void testRankedQueries() {
+        ShardedStudentManager sharded = open(5, Partitioning.STUDENT_ID);
+        List<Student> all = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Student s = student(i, "Grade 10", (i * 37) % 101);
+            all.add(s);
+            sharded.addStudent(s);
+        }
+
+        List<Double> expectedTop = all.stream()
+                .map(Student::calculateOverallAverage)
+                .sorted((a, b) -> Double.compare(b, a))
+                .limit(15)
+                .collect(Collectors.toList());
+        List<Double> top = sharded.getTopPerformers(15).stream()
+                .map(Student::calculateOverallAverage)
+                .collect(Collectors.toList());
+        assertEquals(expectedTop, top);
+
+        List<Student> below = sharded.getUnderperformingStudents(40);
+        assertEquals(all.stream().filter(s -> s.calculateOverallAverage() < 40).count(), below.size());
+        for (int i = 1; i < below.size(); i++) {
+            assertTrue(below.get(i - 1).calculateOverallAverage() <= below.get(i).calculateOverallAverage());
+        }
+        assertEquals(all.stream().mapToDouble(Student::calculateOverallAverage).average().getAsDouble(),
+                sharded.getClassAverage(), 0.0001);
+        assertEquals(1, sharded.searchByName("Student 199").size());
+        sharded.close();
+    }
+
+    @Test
+    @DisplayName("Should report batch rejections at their positions in the submitted batch")
+    void testBatchAcrossShards() {
+        ShardedStudentManager manager = open(4, Partitioning.STUDENT_ID);
+        manager.addStudent(student(5, "Grade 10", 50));
+
+        List<Student> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(student(i, "Grade 10", 70));
+        }
+        batch.add(null);
+        batch.add(student(2, "Grade 10", 70));
+
+        BatchResult result = manager.addStudents(batch);
+        assertEquals(9, result.getAcceptedCount());
+        assertEquals(Arrays.asList(5, 10, 11), result.getRejections().stream()
+                .map(BatchResult.Rejection::getIndex).collect(Collectors.toList()));
+        assertEquals(10, manager.getStudentCount());
+        manager.close();
+    }
+
+    // ==================== PERSISTENCE TESTS ====================
+
+    @Test
+    @DisplayName("Should save and load every shard")
+    void testSaveAndLoad() {
+        ShardedStudentManager manager = open(4, Partitioning.STUDENT_ID);
+        for (int i = 0; i < 100; i++) {
+            manager.addStudent(student(i, "Grade " + (9 + i % 3), 60 + i % 40));
+        }
+        manager.saveData();
+        manager.addAssessment("S7", "Science", 99, "Exam"); // Journaled only
+        manager.close();
+
+        ShardedStudentManager reloaded = open(4, Partitioning.STUDENT_ID);
+        assertEquals(100, reloaded.getStudentCount());
+        assertEquals(99, reloaded.findStudentById("S7").getLatestScore("Science"));
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("Should move students when the shard count changes")
+    void testReshard() {
+        ShardedStudentManager manager = open(4, Partitioning.STUDENT_ID);
+        for (int i = 0; i < 200; i++) {
+            manager.addStudent(student(i, "Grade 10", 75));
+        }
+        manager.saveData();
+        manager.close();
+
+        ShardedStudentManager grown = open(5, Partitioning.STUDENT_ID);
+        assertEquals(200, grown.getStudentCount());
+        int onNewShard = grown.getShardSizes()[4];
+        assertTrue(onNewShard > 0 && onNewShard < 100, "Moved " + onNewShard);
+        grown.close();
+
+        ShardedStudentManager shrunk = open(2, Partitioning.STUDENT_ID);
+        assertEquals(200, shrunk.getStudentCount());
+        for (int i = 0; i < 200; i++) {
+            assertNotNull(shrunk.findStudentById("S" + i), "S" + i);
+        }
+        shrunk.close();
+    }
+
+    @Test
+    @DisplayName("Should drop the stale copy left by a move that stopped halfway")
+    void testInterruptedMove() {
+        // A crash after the add and before the remove leaves the student in both shards
+        for (int i = 0; i < 2; i++) {
+            StudentManager shard = new StudentManager(dataDir.resolve("data-shard" + i).toString(), false,
+                    StudentManager.SnapshotFormat.JSON, StudentManager.LoadMode.EAGER);
+            shard.addStudent(student(1, "Grade 10", 70));
+            shard.addStudent(student(10 + i, "Grade 10", 80));
+            shard.close();
+        }
+
+        ShardedStudentManager manager = open(2, Partitioning.STUDENT_ID);
+        assertEquals(3, manager.getStudentCount());
+        assertEquals(1, manager.searchByName("Student 1").stream().filter(s -> s.getId().equals("S1")).count());
+        manager.close();
+
+        ShardedStudentManager reloaded = open(2, Partitioning.STUDENT_ID);
+        assertEquals(3, reloaded.getAllStudents().size());
+        reloaded.close();
+    }
+}
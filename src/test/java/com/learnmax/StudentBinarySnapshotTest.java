@@ -0,0 +1,181 @@
+package com.learnmax;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.learnmax.manager.StudentBinarySnapshot;
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+import com.learnmax.virtuallab.manager.LocalDateTimeAdapter;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the binary student snapshot format
+ */
+class StudentBinarySnapshotTest {
+    
+    private Path snapshotFile;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        snapshotFile = Files.createTempFile("snapshot_test", ".lmx");
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotFile);
+    }
+    
+    private static void assertSameStudent(Student expected, Student actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getGradeLevel(), actual.getGradeLevel());
+        assertEquals(expected.getEnrollmentDate(), actual.getEnrollmentDate());
+        
+        List<Assessment> expectedAssessments = expected.getAllAssessments();
+        List<Assessment> actualAssessments = actual.getAllAssessments();
+        assertEquals(expectedAssessments.size(), actualAssessments.size());
+        for (int i = 0; i < expectedAssessments.size(); i++) {
+            Assessment e = expectedAssessments.get(i);
+            Assessment a = actualAssessments.get(i);
+            assertEquals(e.getSubject(), a.getSubject());
+            assertEquals(e.getScore(), a.getScore());
+            assertEquals(e.getAssessmentType(), a.getAssessmentType());
+            assertEquals(e.getWeight(), a.getWeight());
+            assertEquals(e.getDateRecorded(), a.getDateRecorded());
+        }
+        assertEquals(expected.calculateOverallAverage(), actual.calculateOverallAverage());
+    }
+    
+    @Test
+    @DisplayName("Should round-trip students and assessments exactly")
+    void testRoundTrip() throws IOException {
+        List<Student> students = new ArrayList<>();
+        
+        Student s1 = new Student("S001", "Zoë Ndlovu-Müller", "Grade 10");
+        s1.addAssessment("Mathematics", 0, "Test");
+        s1.addAssessment("Life sciences", 100, "Exam");
+        s1.addAssessment(new Assessment("Mathematics", 73, null, 250,
+                LocalDateTime.of(1999, 12, 31, 23, 59, 59, 123456789)));
+        students.add(s1);
+        
+        students.add(new Student("S002", "No Assessments", null,
+                LocalDateTime.of(2024, 1, 15, 8, 30)));
+        
+        Student s3 = new Student("S003", "Negative, Weight", "Grade 10");
+        s3.addAssessment(new Assessment("History", 55, "Quiz", -5,
+                LocalDateTime.of(1960, 6, 1, 0, 0)));
+        students.add(s3);
+        
+        StudentBinarySnapshot.write(snapshotFile, students);
+        assertTrue(StudentBinarySnapshot.isSnapshot(snapshotFile));
+        
+        List<Student> loaded = new ArrayList<>();
+        assertEquals(3, StudentBinarySnapshot.read(snapshotFile, loaded::add));
+        assertEquals(3, loaded.size());
+        for (int i = 0; i < students.size(); i++) {
+            assertSameStudent(students.get(i), loaded.get(i));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should read the roster index without loading histories")
+    void testReadIndex() throws IOException {
+        Student s1 = new Student("S001", "John Doe", "Grade 10");
+        s1.addAssessment(new Assessment("Mathematics", 60, "Test", 100, LocalDateTime.of(2024, 1, 5, 9, 0)));
+        s1.addAssessment(new Assessment("Science", 90, "Quiz", 50, LocalDateTime.of(2024, 2, 5, 9, 0)));
+        s1.addAssessment(new Assessment("Mathematics", 80, "Exam", 100, null));
+        Student s2 = new Student("S002", "Jane Smith", null);
+        StudentBinarySnapshot.write(snapshotFile, List.of(s1, s2));
+        
+        List<Student> loaded = new ArrayList<>();
+        StudentBinarySnapshot.Index index = StudentBinarySnapshot.readIndex(snapshotFile, loaded::add);
+        assertEquals(2, index.getStudentCount());
+        Student lazy = loaded.get(0);
+        assertFalse(lazy.isHistoryLoaded());
+        assertEquals(s1.calculateOverallAverage(), lazy.calculateOverallAverage());
+        assertEquals(3, lazy.getAssessmentCount());
+        assertEquals(2, lazy.getSubjectCount());
+        assertEquals(LocalDateTime.of(2024, 1, 5, 9, 0), lazy.getFirstAssessmentDate());
+        assertEquals(LocalDateTime.of(2024, 2, 5, 9, 0), lazy.getLastAssessmentDate());
+        assertEquals(3, lazy.readAllAssessments().size());
+        assertFalse(lazy.isHistoryLoaded());
+        
+        assertSameStudent(s1, lazy);
+        assertTrue(lazy.isHistoryLoaded());
+        assertTrue(index.isOpen());
+        assertSameStudent(s2, loaded.get(1));
+        assertEquals(-1, loaded.get(1).calculateOverallAverage());
+        assertFalse(index.isOpen()); // Closed once every history was loaded
+    }
+    
+    @Test
+    @DisplayName("Should release the file when the index is closed")
+    void testCloseIndex() throws IOException {
+        Student s1 = new Student("S001", "John Doe", "Grade 10");
+        s1.addAssessment("Mathematics", 60, "Test");
+        StudentBinarySnapshot.write(snapshotFile, List.of(s1));
+        
+        List<Student> loaded = new ArrayList<>();
+        StudentBinarySnapshot.Index index = StudentBinarySnapshot.readIndex(snapshotFile, loaded::add);
+        index.close();
+        
+        assertFalse(index.isOpen());
+        assertThrows(UncheckedIOException.class, () -> loaded.get(0).getAllAssessments());
+        assertFalse(loaded.get(0).isHistoryLoaded());
+        Files.delete(snapshotFile); // Nothing holds the file any more
+    }
+    
+    @Test
+    @DisplayName("Should be smaller than the pretty-printed JSON equivalent")
+    void testCompactness() throws IOException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Student s = new Student("S" + i, "Student " + i, "Grade 10");
+            for (int j = 0; j < 10; j++) {
+                s.addAssessment(j % 2 == 0 ? "Mathematics" : "Science", (i + j) % 101, "Quiz");
+            }
+            students.add(s);
+        }
+        
+        StudentBinarySnapshot.write(snapshotFile, students);
+        
+        Gson gson = new GsonBuilder()
+                .setPrettyPrinting()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+        int jsonSize = gson.toJson(students).getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(Files.size(snapshotFile) * 5 < jsonSize);
+    }
+    
+    @Test
+    @DisplayName("Should reject files that are not snapshots")
+    void testRejectsForeignFile() throws IOException {
+        Files.writeString(snapshotFile, "[]");
+        assertFalse(StudentBinarySnapshot.isSnapshot(snapshotFile));
+        assertThrows(IOException.class, () -> StudentBinarySnapshot.read(snapshotFile, s -> { }));
+    }
+    
+    @Test
+    @DisplayName("Should reject a truncated snapshot")
+    void testRejectsTruncatedFile() throws IOException {
+        Student s = new Student("S001", "John Doe", "Grade 10");
+        s.addAssessment("Mathematics", 80, "Test");
+        StudentBinarySnapshot.write(snapshotFile, List.of(s));
+        
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+        
+        assertThrows(IOException.class, () -> StudentBinarySnapshot.read(snapshotFile, x -> { }));
+    }
+}
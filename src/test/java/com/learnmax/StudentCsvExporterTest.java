@@ -0,0 +1,129 @@
+package com.learnmax;
+
+import com.learnmax.manager.StudentCsvExporter;
+import com.learnmax.model.Student;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CSV export
+ */
+class StudentCsvExporterTest {
+
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("csv_export_test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private List<Student> createStudents(int count) {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Student s = new Student("S" + i, "Zoë Smith " + i, "Grade " + (8 + i % 5));
+            s.addAssessment("Mathematics", i % 101, "Test");
+            s.addAssessment("Mathematics", (i * 7) % 101, "Quiz");
+            students.add(s);
+        }
+        return students;
+    }
+
+    @Test
+    @DisplayName("Should write one row per subject with stats matching the student")
+    void testRowContents() throws IOException {
+        Student student = new Student("S001", "John Doe", "Grade 10");
+        student.addAssessment("Mathematics", 80, "Test");
+        student.addAssessment("Mathematics", 85, "Quiz");
+        student.addAssessment("Science", 70, "Test");
+
+        Path file = tempDir.resolve("export.csv");
+        assertEquals(2, StudentCsvExporter.write(file, List.of(student)));
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(StudentCsvExporter.HEADER, lines.get(0));
+        assertEquals(3, lines.size());
+        assertTrue(lines.contains("S001,John Doe,Grade 10,Mathematics,85,82.50,2"));
+        assertTrue(lines.contains("S001,John Doe,Grade 10,Science,70,70.00,1"));
+    }
+
+    @Test
+    @DisplayName("Should quote fields containing commas and quotes")
+    void testEscaping() throws IOException {
+        Student student = new Student("S001", "Doe, John \"JD\"", "Grade 10");
+        student.addAssessment("Mathematics", 80, "Test");
+
+        Path file = tempDir.resolve("escaped.csv");
+        StudentCsvExporter.write(file, List.of(student));
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("S001,\"Doe, John \"\"JD\"\"\",Grade 10,Mathematics,80,80.00,1", lines.get(1));
+    }
+
+    @Test
+    @DisplayName("Should round averages like %.2f")
+    void testAverageFormatting() throws IOException {
+        Student student = new Student("S001", "John Doe", "Grade 10");
+        student.addAssessment("Mathematics", 1, "Test");
+        student.addAssessment("Mathematics", 0, "Test");
+        student.addAssessment("Mathematics", 0, "Test");
+        student.addAssessment("Mathematics", 0, "Test");
+        student.addAssessment("Mathematics", 0, "Test");
+        student.addAssessment("Mathematics", 0, "Test");
+        student.addAssessment("Mathematics", 0, "Test");
+        student.addAssessment("Mathematics", 0, "Test"); // 1/8 = 0.125
+
+        Path file = tempDir.resolve("rounding.csv");
+        StudentCsvExporter.write(file, List.of(student));
+
+        String expected = String.format(java.util.Locale.ROOT, "%.2f", 0.125);
+        assertTrue(Files.readAllLines(file).get(1).contains("," + expected + ","));
+    }
+
+    @Test
+    @DisplayName("Should produce identical output sequentially and in parallel")
+    void testParallelMatchesSequential() throws IOException {
+        List<Student> students = createStudents(5000);
+        Path sequential = tempDir.resolve("sequential.csv");
+        Path parallel = tempDir.resolve("parallel.csv");
+
+        int rows = StudentCsvExporter.write(sequential, students);
+        assertEquals(rows, StudentCsvExporter.writeParallel(parallel, students, 4));
+        assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+    }
+
+    @Test
+    @DisplayName("Should split the roster into part files with headers")
+    void testChunkFiles() throws IOException {
+        List<Student> students = createStudents(250);
+
+        List<Path> parts = StudentCsvExporter.writeChunks(tempDir.resolve("parts"), "students", students, 100, 3);
+
+        assertEquals(3, parts.size());
+        assertTrue(parts.get(0).getFileName().toString().startsWith("students-00001"));
+        int dataRows = 0;
+        for (Path part : parts) {
+            List<String> lines = Files.readAllLines(part, StandardCharsets.UTF_8);
+            assertEquals(StudentCsvExporter.HEADER, lines.get(0));
+            dataRows += lines.size() - 1;
+        }
+        assertEquals(250, dataRows);
+        assertTrue(Files.readAllLines(parts.get(2)).get(1).startsWith("S200,"));
+    }
+}
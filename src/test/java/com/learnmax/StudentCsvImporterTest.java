@@ -0,0 +1,175 @@
+package com.learnmax;
+
+import com.learnmax.manager.StudentCsvImporter;
+import com.learnmax.manager.StudentManager;
+import com.learnmax.model.Student;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for streaming CSV import
+ */
+class StudentCsvImporterTest {
+
+    private Path tempDir;
+    private Path rejectFile;
+    private StudentManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("csv_import_test");
+        rejectFile = tempDir.resolve("rejects.csv");
+        manager = open("student_data", false);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        manager.close();
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * A manager over data files in this test's directory
+     */
+    private StudentManager open(String dataName, boolean autoLoad) {
+        return new StudentManager(tempDir.resolve(dataName).toString(), autoLoad,
+                StudentManager.SnapshotFormat.JSON, StudentManager.LoadMode.EAGER);
+    }
+
+    private Path writeCsv(String content) throws IOException {
+        Path file = tempDir.resolve("import.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    @DisplayName("Should import raw assessment rows and create students")
+    void testRawLayout() throws IOException {
+        Path file = writeCsv("Student ID,Name,Grade Level,Subject,Score,Assessment Type,Date Recorded\n"
+                + "S001,John Doe,Grade 10,mathematics,80,Test,2024-03-01T09:00\n"
+                + "S001,John Doe,Grade 10,Mathematics,90,Quiz,2024-03-08T09:00\n"
+                + "S002,\"Smith, Jane\",Grade 11,Science,70,Test,\n");
+
+        StudentCsvImporter.Result result = new StudentCsvImporter(manager).importFile(file, rejectFile);
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(3, result.getRowsImported());
+        assertEquals(2, result.getStudentsCreated());
+        Student john = manager.findStudentById("S001");
+        assertEquals(2, john.getAssessmentCount("Mathematics"));
+        assertEquals(90, john.getLatestScore("Mathematics"));
+        assertEquals("Smith, Jane", manager.findStudentById("S002").getName());
+        assertFalse(Files.exists(rejectFile));
+    }
+
+    @Test
+    @DisplayName("Should add rows for existing students and reject invalid rows")
+    void testRejects() throws IOException {
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        Path file = writeCsv("Student ID,Subject,Score\n"
+                + "S001,Mathematics,85\n"
+                + "S001,Mathematics,101\n"
+                + "S001,,50\n"
+                + "S001,Science,abc\n"
+                + "S999,Science,60\n");
+
+        StudentCsvImporter.Result result = new StudentCsvImporter(manager).importFile(file, rejectFile);
+
+        assertEquals(1, result.getRowsImported());
+        assertEquals(4, result.getRowsRejected());
+        assertEquals(85.0, manager.findStudentById("S001").calculateOverallAverage(), 0.01);
+
+        List<String> rejected = Files.readAllLines(rejectFile, StandardCharsets.UTF_8);
+        assertEquals("Line,Error,Student ID,Subject,Score", rejected.get(0));
+        assertEquals(5, rejected.size());
+        assertTrue(rejected.get(1).startsWith("3,Score must be between 0 and 100,"));
+        assertTrue(rejected.get(4).startsWith("6,Unknown student"));
+    }
+
+    @Test
+    @DisplayName("Should import the exportToCSV layout")
+    void testExportRoundTrip() throws IOException {
+        Student student = new Student("S001", "Doe, John", "Grade 10");
+        student.addAssessment("Mathematics", 80, "Test");
+        student.addAssessment("Mathematics", 90, "Test");
+        student.addAssessment("Science", 60, "Test");
+        manager.addStudent(student);
+        Path exported = tempDir.resolve("export.csv");
+        assertTrue(manager.exportToCSV(exported.toString()));
+
+        StudentManager other = open("other", false);
+        StudentCsvImporter.Result result = new StudentCsvImporter(other).importFile(exported, rejectFile);
+
+        assertEquals(2, result.getRowsImported());
+        Student imported = other.findStudentById("S001");
+        assertEquals("Doe, John", imported.getName());
+        assertEquals(85.0, imported.calculateSubjectAverage("Mathematics"), 0.01);
+        assertEquals(student.calculateOverallAverage(), imported.calculateOverallAverage(), 0.01);
+        other.close();
+    }
+
+    @Test
+    @DisplayName("Should leave averages alone when a summary is imported again")
+    void testSummaryReimport() throws IOException {
+        Path summary = writeCsv("Student ID,Name,Grade Level,Subject,Average,Assessment Count\n"
+                + "S001,John,Grade 10,Mathematics,85.0,2\n"
+                + "S001,John,Grade 10,Science,60.0,1\n"
+                + "S001,John,Grade 10,Science,70.0,1\n"
+                + "S002,Jane,Grade 10,Mathematics,90.0,2147483647\n");
+
+        StudentCsvImporter.Result first = new StudentCsvImporter(manager).importFile(summary, rejectFile);
+        StudentCsvImporter.Result second = new StudentCsvImporter(manager).importFile(summary, rejectFile);
+
+        assertEquals(2, first.getRowsImported());
+        assertEquals(2, first.getRowsRejected()); // Repeated subject and an overflowing count
+        assertEquals(0, second.getRowsImported());
+        Student student = manager.findStudentById("S001");
+        assertEquals(2, student.getAssessmentCount());
+        assertEquals(85.0, student.calculateSubjectAverage("Mathematics"), 0.01);
+        assertEquals(60.0, student.calculateSubjectAverage("Science"), 0.01);
+        assertNull(manager.findStudentById("S002"));
+
+        StudentCsvImporter.Result appended = new StudentCsvImporter(manager, StudentCsvImporter.SummaryMode.APPEND)
+                .importFile(summary, rejectFile);
+        assertEquals(3, appended.getRowsImported());
+        assertEquals(5, student.getAssessmentCount());
+        assertEquals((60.0 + 60.0 + 70.0) / 3, student.calculateSubjectAverage("Science"), 0.01);
+    }
+
+    @Test
+    @DisplayName("Should import a large file in blocks and persist it")
+    void testLargeImport() throws IOException {
+        manager.saveData(); // Start from an empty checkpoint
+        Path file = tempDir.resolve("large.csv");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Student ID,Name,Grade Level,Subject,Score,Assessment Type\n");
+            for (int i = 0; i < 100_000; i++) {
+                int id = i % 2000;
+                writer.write("S" + id + ",Student " + id + ",Grade " + (8 + id % 5)
+                        + ",Subject " + (i % 7) + "," + (i % 101) + ",Test\n");
+            }
+        }
+
+        long imported = manager.importFromCSV(file.toString());
+        manager.close();
+
+        assertEquals(100_000, imported);
+        assertEquals(2000, manager.getStudentCount());
+        StudentManager reloaded = open("student_data", true);
+        assertEquals(2000, reloaded.getStudentCount());
+        assertEquals(50, reloaded.findStudentById("S0").getAssessmentCount());
+        reloaded.close();
+    }
+}
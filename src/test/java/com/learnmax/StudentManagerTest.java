@@ -1,11 +1,30 @@
 package com.learnmax;
 
+import com.learnmax.manager.BatchResult;
+import com.learnmax.manager.ClassReport;
 import com.learnmax.manager.StudentManager;
+import com.learnmax.model.Assessment;
 import com.learnmax.model.Student;
+import com.learnmax.persistence.Durability;
+import com.learnmax.persistence.PersistenceService;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -15,26 +34,30 @@ import static org.junit.jupiter.api.Assertions.*;
 class StudentManagerTest {
     
     private StudentManager manager;
-    private static final String TEST_DATA_FILE = "test_student_data.json";
+    
+    @TempDir
+    Path dataDir;
     
     @BeforeEach
     void setUp() {
-        // Delete test data file if it exists
-        File testFile = new File(TEST_DATA_FILE);
-        if (testFile.exists()) {
-            testFile.delete();
-        }
-        
-        manager = new StudentManager(false); // Don't auto-load data for testing
+        manager = open(false); // Don't auto-load data for testing
     }
     
     @AfterEach
     void tearDown() {
-        // Clean up test data file
-        File testFile = new File(TEST_DATA_FILE);
-        if (testFile.exists()) {
-            testFile.delete();
-        }
+        manager.close();
+    }
+    
+    /**
+     * A manager over this test's own data files, so tests never touch student_data.*
+     */
+    private StudentManager open(boolean autoLoad) {
+        return open(autoLoad, StudentManager.SnapshotFormat.JSON, StudentManager.LoadMode.EAGER);
+    }
+    
+    private StudentManager open(boolean autoLoad, StudentManager.SnapshotFormat format,
+                                StudentManager.LoadMode loadMode) {
+        return new StudentManager(dataDir.resolve("student_data").toString(), autoLoad, format, loadMode);
     }
     
     // ==================== ADD STUDENT TESTS ====================
@@ -135,6 +158,33 @@ class StudentManagerTest {
         assertTrue(results.isEmpty());
     }
     
+    @Test
+    @DisplayName("Should match short and mid-name substrings")
+    void testSearchSubstrings() {
+        manager.addStudent(new Student("S001", "Anna Johnson", "Grade 10"));
+        manager.addStudent(new Student("S002", "Hannah Jones", "Grade 11"));
+        manager.addStudent(new Student("S003", "Bob Smith", "Grade 10"));
+        
+        assertEquals(2, manager.searchByName("nn").size());
+        assertEquals(1, manager.searchByName("JOHN").size());
+        assertEquals(1, manager.searchByName("ones").size());
+        assertEquals(1, manager.searchByName("nna joh").size());
+        assertEquals("S002", manager.searchByName("hannah").get(0).getId());
+    }
+    
+    @Test
+    @DisplayName("Should not find removed students by name or grade")
+    void testSearchAfterRemove() {
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        manager.addStudent(new Student("S002", "Jane Doe", "Grade 10"));
+        manager.removeStudent("S001");
+        
+        List<Student> results = manager.searchByName("doe");
+        assertEquals(1, results.size());
+        assertEquals("S002", results.get(0).getId());
+        assertEquals(1, manager.getStudentsByGrade("GRADE 10").size());
+    }
+    
     // ==================== GRADE LEVEL TESTS ====================
     
     @Test
@@ -263,6 +313,49 @@ class StudentManagerTest {
         assertEquals("S002", topPerformers.get(0).getId());
     }
     
+    @Test
+    @DisplayName("Should keep insertion order for tied averages")
+    void testRankingTiesKeepInsertionOrder() {
+        Student student1 = new Student("S001", "John Doe", "Grade 10");
+        student1.addAssessment("Mathematics", 40, "Test");
+        Student student2 = new Student("S002", "Jane Smith", "Grade 10");
+        student2.addAssessment("Mathematics", 40, "Test");
+        Student student3 = new Student("S003", "Bob Johnson", "Grade 10");
+        student3.addAssessment("Mathematics", 90, "Test");
+        
+        manager.addStudent(student1);
+        manager.addStudent(student2);
+        manager.addStudent(student3);
+        
+        List<Student> top = manager.getTopPerformers(3);
+        assertEquals("S003", top.get(0).getId());
+        assertEquals("S001", top.get(1).getId());
+        assertEquals("S002", top.get(2).getId());
+        
+        List<Student> underperforming = manager.getUnderperformingStudents(50);
+        assertEquals("S001", underperforming.get(0).getId());
+        assertEquals("S002", underperforming.get(1).getId());
+    }
+    
+    @Test
+    @DisplayName("Should re-rank students as assessments arrive")
+    void testRankingUpdatesOnAssessment() {
+        Student student1 = new Student("S001", "John Doe", "Grade 10");
+        student1.addAssessment("Mathematics", 90, "Test");
+        manager.addStudent(student1);
+        manager.addStudent(new Student("S002", "Jane Smith", "Grade 10"));
+        
+        assertEquals(1, manager.getTopPerformers(5).size());
+        
+        manager.addAssessment("S002", "Mathematics", 100, "Test");
+        manager.addAssessment("S001", "Science", 20, "Test");
+        
+        List<Student> top = manager.getTopPerformers(5);
+        assertEquals("S002", top.get(0).getId());
+        assertEquals(1, manager.getUnderperformingStudents(60).size());
+        assertEquals("S001", manager.getUnderperformingStudents(60).get(0).getId());
+    }
+    
     // ==================== CLASS AVERAGE TESTS ====================
     
     @Test
@@ -321,6 +414,235 @@ class StudentManagerTest {
         assertFalse(manager.removeStudent("S999"));
     }
     
+    @Test
+    @DisplayName("Should allow re-adding a removed student ID")
+    void testReAddRemovedStudent() {
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        manager.removeStudent("S001");
+        
+        assertNull(manager.findStudentById("S001"));
+        assertTrue(manager.addStudent(new Student("S001", "Jane Doe", "Grade 11")));
+        assertEquals("Jane Doe", manager.findStudentById("S001").getName());
+    }
+    
+    // ==================== PERSISTENCE TESTS ====================
+    
+    @Test
+    @DisplayName("Should restore journaled mutations on reload")
+    void testJournalReplayOnLoad() {
+        manager.saveData(); // Start from an empty checkpoint
+        
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        manager.addStudent(new Student("S002", "Jane Smith", "Grade 11"));
+        assertTrue(manager.addAssessment("S001", "Mathematics", 85, "Test"));
+        assertTrue(manager.removeStudent("S002"));
+        manager.close();
+        
+        StudentManager reloaded = open(true);
+        assertEquals(1, reloaded.getStudentCount());
+        assertNull(reloaded.findStudentById("S002"));
+        Student restored = reloaded.findStudentById("S001");
+        assertNotNull(restored);
+        assertEquals(85, restored.getLatestScore("Mathematics"));
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should restore journaled mutations after a checkpoint")
+    void testJournalReplayAfterCheckpoint() {
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        manager.saveData();
+        manager.addAssessment("S001", "Science", 70, "Quiz");
+        manager.close();
+        
+        StudentManager reloaded = open(true);
+        assertEquals(1, reloaded.getStudentCount());
+        assertEquals(1, reloaded.findStudentById("S001").getAssessmentCount());
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should cut a torn journal tail so later records survive the next reload")
+    void testTornJournalTail(@TempDir Path dir) throws IOException {
+        String dataName = dir.resolve("data").toString();
+        Path journalFile = dir.resolve("data.journal");
+        StudentManager first = new StudentManager(dataName, false, StudentManager.SnapshotFormat.JSON,
+                StudentManager.LoadMode.EAGER);
+        first.saveData();
+        first.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        first.close();
+        Files.write(journalFile, "{\"op\":\"ADD_STU".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        
+        StudentManager afterCrash = new StudentManager(dataName, true, StudentManager.SnapshotFormat.JSON,
+                StudentManager.LoadMode.EAGER);
+        assertEquals(1, afterCrash.getStudentCount());
+        afterCrash.addStudent(new Student("S002", "Jane Smith", "Grade 11"));
+        afterCrash.close();
+        
+        StudentManager reloaded = new StudentManager(dataName, true, StudentManager.SnapshotFormat.JSON,
+                StudentManager.LoadMode.EAGER);
+        assertEquals(2, reloaded.getStudentCount());
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should treat a journal record without an operation as torn")
+    void testJournalRecordWithoutOp(@TempDir Path dir) throws IOException {
+        String dataName = dir.resolve("data").toString();
+        StudentManager first = new StudentManager(dataName, false, StudentManager.SnapshotFormat.JSON,
+                StudentManager.LoadMode.EAGER);
+        first.saveData();
+        first.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        first.close();
+        Files.write(dir.resolve("data.journal"), "{\"id\":\"S002\"}\n{\"op\":7}\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        
+        StudentManager reloaded = new StudentManager(dataName, true, StudentManager.SnapshotFormat.JSON,
+                StudentManager.LoadMode.EAGER);
+        assertEquals(1, reloaded.getStudentCount());
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should not replay a retired journal over the snapshot that holds its records")
+    void testInterruptedCheckpoint() throws IOException {
+        Path snapshot = dataDir.resolve("student_data.json");
+        Path journalFile = dataDir.resolve("student_data.journal");
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        manager.saveData();
+        manager.addAssessment("S001", "Mathematics", 85, "Test");
+        manager.addAssessment("S001", "Science", 70, "Quiz");
+        manager.flush().join();
+        byte[] oldSnapshot = Files.readAllBytes(snapshot);
+        byte[] oldJournal = Files.readAllBytes(journalFile);
+        manager.saveData();
+        manager.close();
+        byte[] newSnapshot = Files.readAllBytes(snapshot);
+        assertFalse(Files.exists(journalFile));
+        
+        // Stopped after the move, before the retired journal was deleted
+        Files.write(dataDir.resolve("student_data.journal.old"), oldJournal);
+        StudentManager reloaded = open(true);
+        assertEquals(2, reloaded.findStudentById("S001").getAssessmentCount());
+        reloaded.close();
+        assertFalse(Files.exists(dataDir.resolve("student_data.journal.old")));
+        
+        // Stopped after retiring the journal, before the complete snapshot was moved
+        Files.write(snapshot, oldSnapshot);
+        Files.write(dataDir.resolve("student_data.json.tmp"), newSnapshot);
+        Files.write(dataDir.resolve("student_data.journal.old"), oldJournal);
+        reloaded = open(true);
+        assertEquals(2, reloaded.findStudentById("S001").getAssessmentCount());
+        reloaded.addAssessment("S001", "History", 60, "Test");
+        reloaded.close();
+        
+        reloaded = open(true);
+        assertEquals(3, reloaded.findStudentById("S001").getAssessmentCount());
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should persist through a background service")
+    void testBackgroundPersistence() {
+        manager.saveData();
+        PersistenceService service = new PersistenceService(Durability.FSYNC, 60_000, 1_000);
+        manager.setPersistenceService(service);
+        
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        manager.addStudent(new Student("S002", "Jane Smith", "Grade 11"));
+        manager.addAssessment("S001", "Mathematics", 85, "Test");
+        assertDoesNotThrow(() -> manager.flush().get(10, TimeUnit.SECONDS));
+        
+        // Written and forced, so visible to a fresh manager before close
+        StudentManager reloaded = open(true);
+        assertEquals(2, reloaded.getStudentCount());
+        assertEquals(85, reloaded.findStudentById("S001").getLatestScore("Mathematics"));
+        reloaded.close();
+        
+        assertDoesNotThrow(() -> manager.saveDataAsync().get(10, TimeUnit.SECONDS));
+        manager.removeStudent("S002");
+        manager.close();
+        service.close();
+        
+        reloaded = open(true);
+        assertEquals(1, reloaded.getStudentCount());
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should save and reload a binary snapshot")
+    void testBinarySnapshotReload() {
+        StudentManager binaryManager = open(false, StudentManager.SnapshotFormat.BINARY, StudentManager.LoadMode.EAGER);
+        Student student = new Student("S001", "John Doe", "Grade 10");
+        student.addAssessment("Mathematics", 85, "Test");
+        binaryManager.addStudent(student);
+        binaryManager.saveData();
+        binaryManager.close();
+        
+        StudentManager reloaded = open(true, StudentManager.SnapshotFormat.BINARY, StudentManager.LoadMode.EAGER);
+        assertEquals(1, reloaded.getStudentCount());
+        assertEquals(85, reloaded.findStudentById("S001").getLatestScore("Mathematics"));
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should load a binary snapshot lazily and read histories on first access")
+    void testLazyLoad() {
+        StudentManager binaryManager = open(false, StudentManager.SnapshotFormat.BINARY, StudentManager.LoadMode.EAGER);
+        Student john = new Student("S001", "John Doe", "Grade 10");
+        john.addAssessment("Mathematics", 85, "Test");
+        john.addAssessment("Science", 75, "Test");
+        binaryManager.addStudent(john);
+        Student jane = new Student("S002", "Jane Smith", "Grade 10");
+        jane.addAssessment("Mathematics", 95, "Test");
+        binaryManager.addStudent(jane);
+        binaryManager.saveData();
+        binaryManager.close();
+        
+        StudentManager lazy = open(true, StudentManager.SnapshotFormat.BINARY, StudentManager.LoadMode.LAZY);
+        Student loadedJohn = lazy.findStudentById("S001");
+        assertFalse(loadedJohn.isHistoryLoaded());
+        assertEquals(80.0, loadedJohn.calculateOverallAverage(), 0.01);
+        assertEquals(2, loadedJohn.getAssessmentCount());
+        assertEquals(2, loadedJohn.getSubjectCount());
+        assertEquals("S002", lazy.getTopPerformers(1).get(0).getId());
+        assertFalse(lazy.findStudentById("S002").isHistoryLoaded()); // Ranked from the index
+        assertEquals(2, lazy.getAssessmentsBetween("Grade 10", null, null).size());
+        
+        assertTrue(lazy.addAssessment("S001", "Mathematics", 95, "Quiz"));
+        assertTrue(loadedJohn.isHistoryLoaded());
+        assertEquals(3, loadedJohn.getAssessmentCount());
+        assertEquals(95, loadedJohn.getLatestScore("Mathematics"));
+        
+        lazy.saveData(); // Replaces the file unloaded students still read from
+        assertEquals(95, lazy.findStudentById("S002").getLatestScore("Mathematics"));
+        lazy.close();
+    }
+    
+    @Test
+    @DisplayName("Should export and import JSON")
+    void testJsonExportImport() {
+        Student student = new Student("S001", "John Doe", "Grade 10");
+        student.addAssessment("Mathematics", 85, "Test");
+        manager.addStudent(student);
+        
+        String filename = dataDir.resolve("test_export.json").toString();
+        assertTrue(manager.exportToJSON(filename));
+        
+        StudentManager other = new StudentManager(dataDir.resolve("other").toString(), false,
+                StudentManager.SnapshotFormat.JSON, StudentManager.LoadMode.EAGER);
+        assertEquals(1, other.importFromJSON(filename));
+        assertEquals(0, other.importFromJSON(filename)); // Duplicates skipped
+        assertEquals(85.0, other.findStudentById("S001").calculateOverallAverage(), 0.01);
+        other.close();
+    }
+    
+    @Test
+    @DisplayName("Should not add assessment for unknown student")
+    void testAddAssessmentUnknownStudent() {
+        assertFalse(manager.addAssessment("S999", "Mathematics", 85, "Test"));
+    }
+    
     // ==================== GET ALL STUDENTS TESTS ====================
     
     @Test
@@ -331,6 +653,7 @@ class StudentManagerTest {
         
         List<Student> allStudents = manager.getAllStudents();
         assertEquals(2, allStudents.size());
+        assertEquals("S001", allStudents.get(0).getId()); // Insertion order preserved
     }
     
     @Test
@@ -378,6 +701,318 @@ class StudentManagerTest {
         assertTrue(report.contains("Good"));
     }
     
+    @Test
+    @DisplayName("Should build structured report consistent with individual queries")
+    void testBuildClassReport() {
+        int[] scores = {95, 92, 80, 60, 45, 30, 91, 99};
+        for (int i = 0; i < scores.length; i++) {
+            Student s = new Student("S00" + i, "Student " + i, "Grade 10");
+            s.addAssessment("Mathematics", scores[i], "Test");
+            manager.addStudent(s);
+        }
+        manager.addStudent(new Student("S100", "No Data", "Grade 10"));
+        
+        ClassReport report = manager.buildClassReport();
+        assertEquals(9, report.getTotalStudents());
+        assertEquals(manager.getClassAverage(), report.getClassAverage(), 1e-9);
+        assertEquals(4, report.getExcellentCount());
+        assertEquals(1, report.getGoodCount());
+        assertEquals(1, report.getNeedsImprovementCount());
+        assertEquals(2, report.getRequiresAttentionCount());
+        assertEquals(1, report.getNoDataCount());
+        
+        List<Student> expectedTop = manager.getTopPerformers(5);
+        assertEquals(expectedTop.size(), report.getTopPerformers().size());
+        for (int i = 0; i < expectedTop.size(); i++) {
+            assertSame(expectedTop.get(i), report.getTopPerformers().get(i).getStudent());
+        }
+        assertEquals("S005", report.getStudentsNeedingSupport().get(0).getStudent().getId());
+        assertEquals(report.render(), manager.generateClassReport());
+    }
+    
+    // ==================== BATCH TESTS ====================
+    
+    @Test
+    @DisplayName("Should add a batch of students and report rejected duplicates")
+    void testAddStudentsBatch() {
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        
+        BatchResult result = manager.addStudents(Arrays.asList(
+                new Student("S001", "Existing", "Grade 10"),
+                new Student("S002", "Jane Smith", "Grade 11"),
+                new Student("S002", "Repeat", "Grade 11"),
+                null,
+                new Student("S003", "Bob Wilson", "Grade 12")));
+        
+        assertEquals(5, result.getSubmittedCount());
+        assertEquals(2, result.getAcceptedCount());
+        assertEquals(3, result.getRejections().size());
+        assertEquals(0, result.getRejections().get(0).getIndex());
+        assertEquals(2, result.getRejections().get(1).getIndex());
+        assertEquals(3, result.getRejections().get(2).getIndex());
+        assertEquals(3, manager.getStudentCount());
+        assertEquals("Jane Smith", manager.findStudentById("S002").getName());
+        assertEquals(1, manager.getStudentsByGrade("Grade 12").size());
+    }
+    
+    @Test
+    @DisplayName("Should add a batch of assessments, rejecting invalid ones")
+    void testAddAssessmentsBatch() {
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        
+        BatchResult result = manager.addAssessments("S001", Arrays.asList(
+                new Assessment("Mathematics", 80, "Test"),
+                new Assessment("Mathematics", 120, "Test"),
+                new Assessment("", 50, "Quiz"),
+                new Assessment("Science", 60, "Quiz")));
+        
+        assertEquals(2, result.getAcceptedCount());
+        assertEquals(70.0, manager.findStudentById("S001").calculateOverallAverage(), 0.01);
+        assertEquals(1, manager.getTopPerformers(1).size());
+        
+        BatchResult unknown = manager.addAssessments("S999",
+                Collections.singletonList(new Assessment("Mathematics", 80, "Test")));
+        assertEquals(0, unknown.getAcceptedCount());
+    }
+    
+    @Test
+    @DisplayName("Should persist batched changes")
+    void testBatchPersistence() {
+        manager.saveData(); // Start from an empty checkpoint
+        
+        List<Student> small = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            small.add(new Student("S" + i, "Student " + i, "Grade 10"));
+        }
+        manager.addStudents(small); // Journaled
+        
+        List<Student> large = new ArrayList<>();
+        for (int i = 10; i < 1010; i++) {
+            large.add(new Student("S" + i, "Student " + i, "Grade 11"));
+        }
+        manager.addStudents(large); // Journaled, then checkpointed
+        
+        manager.batch(m -> {
+            m.addAssessment("S1", "Mathematics", 90, "Test");
+            m.removeStudent("S2");
+        });
+        manager.close();
+        
+        StudentManager reloaded = open(true);
+        assertEquals(1009, reloaded.getStudentCount());
+        assertNull(reloaded.findStudentById("S2"));
+        assertEquals(90, reloaded.findStudentById("S1").getLatestScore("Mathematics"));
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should keep a large batch in the journal when the checkpoint after it fails")
+    void testBatchSurvivesFailedCheckpoint() throws IOException {
+        manager.saveData();
+        Path blocker = Files.createDirectory(dataDir.resolve("student_data.json.tmp")); // Snapshot cannot be written
+        
+        List<Student> large = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            large.add(new Student("S" + i, "Student " + i, "Grade 11"));
+        }
+        assertEquals(1000, manager.addStudents(large).getAcceptedCount());
+        assertTrue(manager.addAssessment("S7", "Mathematics", 90, "Test"));
+        manager.close();
+        Files.delete(blocker);
+        
+        StudentManager reloaded = open(true);
+        assertEquals(1000, reloaded.getStudentCount());
+        assertEquals(90, reloaded.findStudentById("S7").getLatestScore("Mathematics"));
+        reloaded.close();
+    }
+    
+    // ==================== CONCURRENCY TESTS ====================
+    
+    @Test
+    @DisplayName("Should keep indexes consistent under concurrent writers and readers")
+    void testConcurrentMutations() throws Exception {
+        manager.saveData(); // Start from an empty checkpoint
+        
+        int writers = 8;
+        int perWriter = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        CyclicBarrier addsDone = new CyclicBarrier(writers);
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        AtomicInteger assessed = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>();
+        
+        for (int w = 0; w < writers; w++) {
+            tasks.add(pool.submit(() -> {
+                start.await();
+                // Every writer races on the same IDs; each add and remove must win exactly once
+                for (int i = 0; i < perWriter; i++) {
+                    String id = "S" + i;
+                    if (manager.addStudent(new Student(id, "Student " + i, "Grade " + (i % 3)))) {
+                        added.incrementAndGet();
+                    }
+                    if (manager.addAssessment(id, "Mathematics", i % 101, "Quiz")) {
+                        assessed.incrementAndGet();
+                    }
+                }
+                addsDone.await();
+                for (int i = 0; i < perWriter; i++) {
+                    String id = "S" + i;
+                    if (i % 4 == 0) {
+                        if (manager.removeStudent(id)) {
+                            removed.incrementAndGet();
+                        }
+                    } else if (manager.addAssessment(id, "Science", i % 101, "Test")) {
+                        assessed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        AtomicInteger readerErrors = new AtomicInteger();
+        for (int r = 0; r < 2; r++) {
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    try {
+                        manager.searchByName("student 1");
+                        manager.getStudentsByGrade("grade 1");
+                        manager.getTopPerformers(10);
+                        manager.getUnderperformingStudents(50);
+                        manager.buildClassReport();
+                    } catch (RuntimeException e) {
+                        readerErrors.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        
+        assertEquals(0, readerErrors.get());
+        assertEquals(perWriter, added.get());
+        assertEquals(perWriter / 4, removed.get());
+        
+        List<Student> all = manager.getAllStudents();
+        assertEquals(perWriter - perWriter / 4, all.size());
+        assertEquals(all.size(), manager.getStudentCount());
+        int totalAssessments = 0;
+        for (Student s : all) {
+            assertSame(s, manager.findStudentById(s.getId()));
+            assertTrue(manager.searchByName(s.getName()).contains(s));
+            assertTrue(manager.getStudentsByGrade(s.getGradeLevel()).contains(s));
+            totalAssessments += s.getAssessmentCount();
+        }
+        assertEquals(all.size(), manager.getTopPerformers(Integer.MAX_VALUE).size());
+        // Each writer assessed every student once per phase; removed students take theirs with them
+        assertEquals(writers * perWriter + writers * all.size(), assessed.get());
+        assertEquals(writers * all.size() * 2, totalAssessments);
+        
+        manager.close();
+        StudentManager reloaded = open(true);
+        assertEquals(all.size(), reloaded.getStudentCount());
+        int reloadedAssessments = 0;
+        for (Student s : reloaded.getAllStudents()) {
+            reloadedAssessments += s.getAssessmentCount();
+        }
+        assertEquals(totalAssessments, reloadedAssessments);
+        reloaded.close();
+    }
+    
+    @Test
+    @DisplayName("Should never journal an assessment for a student removed and re-added meanwhile")
+    void testAssessmentRacesRemoveAndReAdd(@TempDir Path dir) throws Exception {
+        String dataName = dir.resolve("race").toString();
+        StudentManager raced = new StudentManager(dataName, false, StudentManager.SnapshotFormat.JSON,
+                StudentManager.LoadMode.EAGER);
+        String[] ids = {"R0", "R1", "R2", "R3"};
+        for (String id : ids) {
+            raced.addStudent(new Student(id, "Raced " + id, "Grade 9"));
+        }
+        
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> tasks = new ArrayList<>();
+        tasks.add(pool.submit(() -> {
+            start.await();
+            // Replace each student with a fresh one over and over
+            for (int round = 0; round < 2_000; round++) {
+                String id = ids[round % ids.length];
+                raced.removeStudent(id);
+                raced.addStudent(new Student(id, "Raced " + id, "Grade 9"));
+            }
+            running.set(false);
+            return null;
+        }));
+        for (int w = 0; w < 4; w++) {
+            int writer = w;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; running.get(); i++) {
+                    raced.addAssessment(ids[(i + writer) % ids.length], "Mathematics", i % 101, "Quiz");
+                }
+                return null;
+            }));
+        }
+        
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        raced.close();
+        
+        // Replaying the journal must rebuild exactly what was in memory
+        StudentManager reloaded = new StudentManager(dataName, true, StudentManager.SnapshotFormat.JSON,
+                StudentManager.LoadMode.EAGER);
+        try {
+            for (String id : ids) {
+                assertEquals(raced.findStudentById(id).getAssessmentCount(),
+                        reloaded.findStudentById(id).getAssessmentCount(), id);
+            }
+        } finally {
+            reloaded.close();
+        }
+    }
+    
+    // ==================== TIME RANGE TESTS ====================
+    
+    @Test
+    @DisplayName("Should find assessments in a date range within one grade")
+    void testAssessmentsBetween() {
+        LocalDateTime march = LocalDateTime.of(2024, 3, 1, 9, 0);
+        manager.addStudent(new Student("S001", "John Doe", "Grade 10"));
+        manager.addStudent(new Student("S002", "Jane Smith", "Grade 11"));
+        manager.addStudent(new Student("S003", "Bob Wilson", "Grade 10"));
+        manager.addAssessments("S003", Arrays.asList(
+                new Assessment("Mathematics", 70, "Test", 100, march.plusDays(3)),
+                new Assessment("Science", 75, "Test", 100, march.plusDays(40))));
+        manager.addAssessments("S001", Collections.singletonList(
+                new Assessment("Mathematics", 80, "Test", 100, march.plusDays(5))));
+        manager.addAssessments("S002", Collections.singletonList(
+                new Assessment("Mathematics", 90, "Test", 100, march.plusDays(4))));
+        
+        Map<Student, List<Assessment>> found = manager.getAssessmentsBetween("grade 10", march, march.plusDays(30));
+        
+        List<String> ids = new ArrayList<>();
+        found.keySet().forEach(s -> ids.add(s.getId()));
+        assertEquals(Arrays.asList("S001", "S003"), ids); // Roster order
+        assertEquals(1, found.get(manager.findStudentById("S003")).size());
+        assertEquals(3, manager.getAssessmentsBetween(null, march, march.plusDays(30)).size());
+        
+        manager.removeStudent("S001");
+        assertEquals(1, manager.getAssessmentsBetween("Grade 10", march, march.plusDays(30)).size());
+        assertTrue(manager.getAssessmentsBetween("Grade 10", march.plusDays(5), march.plusDays(6)).isEmpty());
+    }
+    
     // ==================== EXPORT TESTS ====================
     
     @Test
@@ -387,22 +1022,18 @@ class StudentManagerTest {
         student.addAssessment("Mathematics", 85, "Test");
         manager.addStudent(student);
         
-        String filename = "test_export.csv";
+        String filename = dataDir.resolve("test_export.csv").toString();
         assertTrue(manager.exportToCSV(filename));
         
-        File exportFile = new File(filename);
-        assertTrue(exportFile.exists());
-        exportFile.delete(); // Clean up
+        assertTrue(new File(filename).exists());
     }
     
     @Test
     @DisplayName("Should handle export with no students")
     void testExportEmptyData() {
-        String filename = "test_export_empty.csv";
+        String filename = dataDir.resolve("test_export_empty.csv").toString();
         assertTrue(manager.exportToCSV(filename));
         
-        File exportFile = new File(filename);
-        assertTrue(exportFile.exists());
-        exportFile.delete(); // Clean up
+        assertTrue(new File(filename).exists());
     }
 }
@@ -0,0 +1,66 @@
+package com.learnmax;
+
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Memory benchmark for assessment storage: heap bytes per assessment held as
+ * Assessment objects versus inside a Student's columns.
+ *
+ * Tagged {@code benchmark}, so it is left out of {@code mvn test}; heap deltas after
+ * System.gc() vary between JVMs. Run it with {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+class StudentMemoryTest {
+    
+    private static final int ASSESSMENTS = 200_000;
+    private static final String[] SUBJECTS = {"Mathematics", "Science", "English", "History"};
+    private static final String[] TYPES = {"Test", "Quiz", "Assignment"};
+    
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    private static Assessment assessment(LocalDateTime start, int i) {
+        return new Assessment(SUBJECTS[i % SUBJECTS.length], i % 101, TYPES[i % TYPES.length], 100,
+                start.plusSeconds(i * 37L).plusNanos(i));
+    }
+    
+    @Test
+    @DisplayName("Should store assessments in a fraction of the object heap")
+    void testBytesPerAssessment() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 8, 8, 0);
+        
+        long base = usedMemory();
+        List<Assessment> objects = new ArrayList<>();
+        for (int i = 0; i < ASSESSMENTS; i++) {
+            objects.add(assessment(start, i));
+        }
+        double objectBytes = (double) (usedMemory() - base) / ASSESSMENTS;
+        assertEquals(ASSESSMENTS, objects.size());
+        objects = null;
+        
+        base = usedMemory();
+        Student student = new Student("S001", "John Doe", "Grade 10");
+        for (int i = 0; i < ASSESSMENTS; i++) {
+            student.addAssessment(assessment(start, i));
+        }
+        double columnBytes = (double) (usedMemory() - base) / ASSESSMENTS;
+        assertEquals(ASSESSMENTS, student.getAssessmentCount());
+        
+        System.out.printf("Bytes per assessment: %.1f as objects, %.1f in columns%n", objectBytes, columnBytes);
+        assertTrue(columnBytes * 2 < objectBytes,
+                "Columns should take well under half the heap of Assessment objects");
+    }
+}
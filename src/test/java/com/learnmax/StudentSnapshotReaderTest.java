@@ -0,0 +1,174 @@
+package com.learnmax;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.learnmax.manager.StudentSnapshotReader;
+import com.learnmax.model.Student;
+import com.learnmax.virtuallab.manager.LocalDateTimeAdapter;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for streaming and parallel snapshot loading
+ */
+class StudentSnapshotReaderTest {
+    
+    private Gson gson;
+    private Path dataFile;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        gson = new GsonBuilder()
+                .setPrettyPrinting()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+        dataFile = Files.createTempFile("snapshot_test", ".json");
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(dataFile);
+    }
+    
+    private List<Student> writeStudents(int count) throws IOException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Names with JSON-structural characters and non-ASCII text
+            Student s = new Student("S" + i, "Zoë \"Quote\" [Smith], {" + i + "} \\", "Grade " + (8 + i % 5));
+            s.addAssessment("Mathematics", i % 101, "Test");
+            students.add(s);
+        }
+        try (Writer writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            gson.toJson(students, writer);
+        }
+        return students;
+    }
+    
+    @Test
+    @DisplayName("Should stream students in file order")
+    void testSequentialRead() throws IOException {
+        List<Student> expected = writeStudents(25);
+        List<Student> loaded = new ArrayList<>();
+        
+        int count = new StudentSnapshotReader(gson).read(dataFile, loaded::add, null);
+        
+        assertEquals(25, count);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), loaded.get(i).getId());
+            assertEquals(expected.get(i).getName(), loaded.get(i).getName());
+            assertEquals(expected.get(i).calculateOverallAverage(), loaded.get(i).calculateOverallAverage());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should decode in parallel chunks and keep file order")
+    void testParallelReadMatchesSequential() throws IOException {
+        writeStudents(2000);
+        List<Student> sequential = new ArrayList<>();
+        List<Student> parallel = new ArrayList<>();
+        StudentSnapshotReader reader = new StudentSnapshotReader(gson);
+        
+        reader.read(dataFile, sequential::add, null);
+        int count = reader.readParallel(dataFile, parallel::add, null, 4);
+        
+        assertEquals(2000, count);
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getId(), parallel.get(i).getId());
+            assertEquals(sequential.get(i).getName(), parallel.get(i).getName());
+            assertEquals(sequential.get(i).getAssessmentCount(), parallel.get(i).getAssessmentCount());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should split records that cross read blocks, including one larger than a block")
+    void testParallelReadAcrossBlocks() throws IOException {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Student s = new Student("S" + i, "Student \"" + i + "\" ]},", "Grade 9");
+            int assessments = i == 1500 ? 20_000 : 8; // One record spans several blocks
+            for (int a = 0; a < assessments; a++) {
+                s.addAssessment("Subject " + (a % 7), (i + a) % 101, "Quiz");
+            }
+            students.add(s);
+        }
+        try (Writer writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            gson.toJson(students, writer);
+        }
+        assertTrue(Files.size(dataFile) > 3 * 1024 * 1024);
+        
+        List<Student> loaded = new ArrayList<>();
+        int count = new StudentSnapshotReader(gson).readParallel(dataFile, loaded::add, null, 3);
+        
+        assertEquals(3000, count);
+        for (int i = 0; i < students.size(); i++) {
+            assertEquals(students.get(i).getId(), loaded.get(i).getId());
+            assertEquals(students.get(i).getName(), loaded.get(i).getName());
+            assertEquals(students.get(i).getAssessmentCount(), loaded.get(i).getAssessmentCount());
+        }
+        
+        Files.writeString(dataFile, " [ ] ", StandardCharsets.UTF_8);
+        assertEquals(0, new StudentSnapshotReader(gson).readParallel(dataFile, s -> { }, null, 2));
+    }
+    
+    @Test
+    @DisplayName("Should report progress up to the full file size")
+    void testProgressReported() throws IOException {
+        writeStudents(1500);
+        long[] last = new long[3];
+        
+        new StudentSnapshotReader(gson).read(dataFile, s -> { },
+                (bytesRead, totalBytes, loaded) -> {
+                    assertTrue(bytesRead <= totalBytes);
+                    last[0] = bytesRead;
+                    last[1] = totalBytes;
+                    last[2] = loaded;
+                });
+        
+        assertEquals(Files.size(dataFile), last[0]);
+        assertEquals(last[1], last[0]);
+        assertEquals(1500, last[2]);
+    }
+    
+    @Test
+    @DisplayName("Should reject a truncated file")
+    void testTruncatedFile() throws IOException {
+        Files.writeString(dataFile, "[{\"id\":\"S1\",\"name\":\"A\"", StandardCharsets.UTF_8);
+        StudentSnapshotReader reader = new StudentSnapshotReader(gson);
+        
+        assertThrows(IOException.class, () -> reader.read(dataFile, s -> { }, null));
+        assertThrows(IOException.class, () -> reader.readParallel(dataFile, s -> { }, null, 2));
+    }
+    
+    @Test
+    @DisplayName("Should accept and reject the same content before the array on both paths")
+    void testContentBeforeArray() throws IOException {
+        StudentSnapshotReader reader = new StudentSnapshotReader(gson);
+        String array = "[{\"id\":\"S1\",\"name\":\"A\"}]";
+        
+        for (String text : new String[] {"x" + array, "{}" + array, "nul" + array, "\uFEFF" + "x" + array}) {
+            Files.writeString(dataFile, text, StandardCharsets.UTF_8);
+            assertThrows(IOException.class, () -> reader.read(dataFile, s -> { }, null), text);
+            assertThrows(IOException.class, () -> reader.readParallel(dataFile, s -> { }, null, 2), text);
+        }
+        
+        for (String text : new String[] {" \r\n\t" + array, "\uFEFF" + array}) {
+            Files.writeString(dataFile, text, StandardCharsets.UTF_8);
+            assertEquals(1, reader.read(dataFile, s -> { }, null), text);
+            assertEquals(1, reader.readParallel(dataFile, s -> { }, null, 2), text);
+        }
+        
+        Files.writeString(dataFile, " null", StandardCharsets.UTF_8);
+        assertEquals(0, reader.read(dataFile, s -> { }, null));
+        assertEquals(0, reader.readParallel(dataFile, s -> { }, null, 2));
+    }
+}
@@ -1,11 +1,17 @@
 package com.learnmax;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.learnmax.model.Student;
 import com.learnmax.model.Assessment;
+import com.learnmax.model.SubjectTrend;
+import com.learnmax.virtuallab.manager.LocalDateTimeAdapter;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 
@@ -180,6 +186,58 @@ class StudentTest {
         assertEquals(expected, student.calculateOverallAverage(), 0.01);
     }
     
+    @Test
+    @DisplayName("Should weight subject average and accept unnormalized subject names")
+    void testWeightedSubjectAverage() {
+        student.addAssessment(new Assessment("Mathematics", 80, "Test", 100));
+        student.addAssessment(new Assessment("Mathematics", 50, "Quiz", 50));
+        
+        double expected = (80 * 100 + 50 * 50) / 150.0;
+        assertEquals(expected, student.calculateSubjectAverage("  mATHEMATICS "), 1e-9);
+        assertEquals(2, student.getAssessmentCount("mathematics"));
+        assertEquals(0, student.getAssessmentCount("Science"));
+    }
+    
+    @Test
+    @DisplayName("Should update overall average as assessments are added")
+    void testOverallAverageUpdatesIncrementally() {
+        student.addAssessment("Mathematics", 80, "Test");
+        assertEquals(80.0, student.calculateOverallAverage(), 1e-9);
+        
+        student.addAssessment("Science", 60, "Test");
+        assertEquals(70.0, student.calculateOverallAverage(), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should keep aggregates exact across interleaved adds and reads")
+    void testAggregatesInterleavedWithReads() {
+        int subjects = 300;
+        long[] sums = new long[subjects];
+        int[] counts = new int[subjects];
+        for (int i = 0; i < 6_000; i++) {
+            int subject = (i * 7) % subjects;
+            int score = (i * 13) % 101;
+            student.addAssessment("Subject" + subject, score, "Quiz");
+            sums[subject] += score;
+            counts[subject]++;
+            // Single-subject reads right after a change
+            assertEquals(score, student.getLatestScore("Subject" + subject));
+            assertEquals(counts[subject], student.getAssessmentCount("Subject" + subject));
+            if (i % 1_000 == 0) {
+                assertEquals(Math.min(i + 1, subjects), student.getSubjectCount());
+            }
+        }
+        
+        double overall = 0;
+        for (int subject = 0; subject < subjects; subject++) {
+            double average = (double) sums[subject] / counts[subject];
+            assertEquals(average, student.calculateSubjectAverage("Subject" + subject), 1e-9);
+            overall += average;
+        }
+        assertEquals(overall / subjects, student.calculateOverallAverage(), 1e-9);
+        assertEquals(6_000, student.getAssessmentCount());
+    }
+    
     @Test
     @DisplayName("Should return -1 for subject average with no assessments")
     void testSubjectAverageNoData() {
@@ -330,6 +388,48 @@ class StudentTest {
         assertEquals("stable", student.analyzeSubjectTrend("Mathematics"));
     }
     
+    @Test
+    @DisplayName("Should fit the trend by recording time regardless of arrival order")
+    void testTrendModel() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        student.addAssessment(new Assessment("Mathematics", 80, "Test", 100, start.plusDays(20)));
+        student.addAssessment(new Assessment("Mathematics", 60, "Test", 100, start));
+        student.addAssessment(new Assessment("Mathematics", 70, "Test", 100, start.plusDays(10)));
+        student.addAssessment(new Assessment("Mathematics", 90, "Test", 100, start.plusDays(30)));
+        
+        SubjectTrend trend = student.getSubjectTrend("mathematics");
+        assertEquals(4, trend.getSampleCount());
+        assertEquals(1.0, trend.getSlope(), 1e-9); // One point per day
+        assertEquals(1.0, trend.getConfidence(), 1e-9);
+        assertEquals(20.0, trend.getExpectedChange(), 1e-9);
+        assertEquals("improving", trend.getLabel());
+        assertTrue(trend.getSmoothedScore() > 60 && trend.getSmoothedScore() < 90);
+        
+        assertEquals("insufficient_data", student.analyzeSubjectTrend("Science"));
+        assertEquals(-1, student.getSubjectTrend("Science").getSmoothedScore());
+    }
+    
+    @Test
+    @DisplayName("Should label by the fitted line, and call same-instant scores stable")
+    void testTrendLabelEdgeCases() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int[] alternating = {50, 100, 50, 100};
+        for (int i = 0; i < alternating.length; i++) {
+            student.addAssessment(new Assessment("Mathematics", alternating[i], "Test", 100, start.plusDays(i)));
+        }
+        // The halves average the same, but the least-squares line rises by 20 points
+        assertEquals(20.0, student.getSubjectTrend("Mathematics").getExpectedChange(), 1e-9);
+        assertEquals("improving", student.analyzeSubjectTrend("Mathematics"));
+        
+        for (int score : new int[] {40, 60, 80, 100}) {
+            student.addAssessment(new Assessment("Science", score, "Test", 100, start));
+        }
+        SubjectTrend sameInstant = student.getSubjectTrend("Science");
+        assertEquals(0.0, sameInstant.getSlope());
+        assertEquals(0.0, sameInstant.getConfidence());
+        assertEquals("stable", sameInstant.getLabel());
+    }
+    
     // ==================== SUBJECTS TESTS ====================
     
     @Test
@@ -385,4 +485,96 @@ class StudentTest {
         assertEquals(90, scores.get("Mathematics")); // Latest score
         assertEquals(85, scores.get("Science"));
     }
+    
+    // ==================== STORAGE TESTS ====================
+    
+    @Test
+    @DisplayName("Should materialize stored assessments with their original values")
+    void testAssessmentRoundTrip() {
+        LocalDateTime recorded = LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123456789);
+        student.addAssessment(new Assessment("Mathematics", 77, "Exam", 40000, recorded));
+        student.addAssessment(new Assessment("Science", 88, null, -5, null));
+        
+        List<Assessment> all = student.getAllAssessments();
+        assertEquals(2, all.size());
+        assertNull(all.get(0).getAssessmentType()); // Undated assessments sort first
+        assertEquals(-5, all.get(0).getWeight());
+        assertNull(all.get(0).getDateRecorded());
+        assertEquals("Mathematics", all.get(1).getSubject());
+        assertEquals(77, all.get(1).getScore());
+        assertEquals("Exam", all.get(1).getAssessmentType());
+        assertEquals(40000, all.get(1).getWeight()); // Wider than a short
+        assertEquals(recorded, all.get(1).getDateRecorded());
+    }
+    
+    @Test
+    @DisplayName("Should keep assessments in time order and answer range queries")
+    void testAssessmentsBetween() {
+        LocalDateTime march = LocalDateTime.of(2024, 3, 1, 9, 0);
+        student.addAssessment(new Assessment("Mathematics", 70, "Test", 100, march.plusDays(14)));
+        student.addAssessment(new Assessment("Science", 80, "Test", 100, march));
+        student.addAssessment(new Assessment("History", 90, "Test", 100, null));
+        student.addAssessment(new Assessment("English", 60, "Test", 100, march.plusDays(7)));
+        student.addAssessment(new Assessment("Art", 50, "Test", 100, march.plusDays(7)));
+        
+        List<Assessment> all = student.getAllAssessments();
+        assertEquals("History", all.get(0).getSubject());
+        assertEquals("Science", all.get(1).getSubject());
+        assertEquals("English", all.get(2).getSubject()); // Equal times keep insertion order
+        assertEquals("Art", all.get(3).getSubject());
+        assertEquals("Mathematics", all.get(4).getSubject());
+        
+        List<Assessment> week = student.getAssessmentsBetween(march, march.plusDays(7));
+        assertEquals(1, week.size());
+        assertEquals("Science", week.get(0).getSubject());
+        assertEquals(3, student.getAssessmentsBetween(march.plusDays(7), null).size());
+        assertEquals(4, student.getAssessmentsBetween(null, null).size());
+        assertTrue(student.getAssessmentsBetween(march.plusDays(20), march.plusDays(30)).isEmpty());
+        assertEquals(70, student.getLatestScore("Mathematics"));
+        assertEquals(4, student.getAssessmentsBetween(LocalDateTime.MIN, LocalDateTime.MAX).size());
+    }
+    
+    @Test
+    @DisplayName("Should reject recording dates outside the storable range")
+    void testDateOutOfRange() {
+        LocalDateTime tooEarly = LocalDateTime.of(1500, 1, 1, 0, 0);
+        LocalDateTime tooLate = LocalDateTime.of(2300, 1, 1, 0, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> student.addAssessment(new Assessment("Mathematics", 70, "Test", 100, tooEarly)));
+        assertThrows(IllegalArgumentException.class,
+                () -> student.addAssessment(new Assessment("Mathematics", 70, "Test", 100, tooLate)));
+        student.addAssessment(new Assessment("Mathematics", 70, "Test", 100, Assessment.MIN_DATE));
+        student.addAssessment(new Assessment("Mathematics", 80, "Test", 100, Assessment.MAX_DATE));
+        assertEquals(2, student.getAssessmentCount());
+        assertEquals(Assessment.MAX_DATE, student.getLastAssessmentDate());
+        
+        // A stored file with such a date fails to parse instead of overflowing
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+        String json = "{\"id\":\"S003\",\"name\":\"Old\",\"assessments\":[{\"subject\":\"Mathematics\","
+                + "\"score\":70,\"dateRecorded\":\"1500-01-01T00:00\",\"assessmentType\":\"Test\",\"weight\":100}]}";
+        assertThrows(JsonParseException.class, () -> gson.fromJson(json, Student.class));
+    }
+    
+    @Test
+    @DisplayName("Should serialize to the same JSON layout as before")
+    void testJsonLayout() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+        Student restored = new Student("S002", "Jane Roe", "Grade 9", LocalDateTime.of(2024, 1, 10, 8, 0));
+        restored.addAssessment(new Assessment("Mathematics", 85, "Test", 100, LocalDateTime.of(2024, 2, 1, 9, 0)));
+        
+        String json = gson.toJson(restored);
+        assertEquals("{\"id\":\"S002\",\"name\":\"Jane Roe\",\"gradeLevel\":\"Grade 9\","
+                + "\"enrollmentDate\":\"2024-01-10T08:00\",\"assessments\":[{\"subject\":\"Mathematics\","
+                + "\"score\":85,\"dateRecorded\":\"2024-02-01T09:00\",\"assessmentType\":\"Test\",\"weight\":100}]}",
+                json);
+        
+        Student parsed = gson.fromJson(json, Student.class);
+        assertEquals("Jane Roe", parsed.getName());
+        assertEquals(85, parsed.getLatestScore("Mathematics"));
+        assertEquals(LocalDateTime.of(2024, 2, 1, 9, 0), parsed.getAllAssessments().get(0).getDateRecorded());
+    }
 }
@@ -0,0 +1,70 @@
+package com.learnmax;
+
+import com.learnmax.model.Assessment;
+import com.learnmax.model.Student;
+import com.learnmax.model.SubjectRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the shared subject and assessment-type dictionary
+ */
+class SubjectRegistryTest {
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"mathematics", "  SCIENCE ", "life sciences", "Éducation physique", "x", "Art\t"})
+    @DisplayName("Should canonicalize exactly like normalizeSubjectName")
+    void testCanonicalName(String subject) {
+        int id = SubjectRegistry.subjectId(subject);
+        assertEquals(Student.normalizeSubjectName(subject), SubjectRegistry.subjectName(id));
+    }
+    
+    @Test
+    @DisplayName("Should give every spelling of a subject the same id")
+    void testSameIdForAllSpellings() {
+        int id = SubjectRegistry.subjectId("Geography");
+        assertEquals(id, SubjectRegistry.subjectId("geography"));
+        assertEquals(id, SubjectRegistry.findSubject(" GEOGRAPHY "));
+        assertSame(SubjectRegistry.subjectName(id), SubjectRegistry.canonicalSubject("gEoGrApHy"));
+    }
+    
+    @Test
+    @DisplayName("Should not register subjects on lookup")
+    void testLookupDoesNotRegister() {
+        assertEquals(-1, SubjectRegistry.findSubject("Never Registered Subject"));
+        assertNull(SubjectRegistry.canonicalSubject("Never Registered Subject"));
+        assertEquals(SubjectRegistry.NONE, SubjectRegistry.findSubject("   "));
+        assertEquals(SubjectRegistry.NONE, SubjectRegistry.subjectId(null));
+    }
+    
+    @Test
+    @DisplayName("Should keep assessment types case-sensitive")
+    void testTypesAreCaseSensitive() {
+        assertNotEquals(SubjectRegistry.typeId("Quiz"), SubjectRegistry.typeId("quiz"));
+        assertEquals("quiz", SubjectRegistry.typeName(SubjectRegistry.typeId("quiz")));
+    }
+    
+    @Test
+    @DisplayName("Should stay consistent while many names are registered")
+    void testManyNames() {
+        int[] ids = new int[2000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = SubjectRegistry.subjectId("Registry subject " + i);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], SubjectRegistry.findSubject("registry SUBJECT " + i));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should store assessments by id and report readable names")
+    void testAssessmentUsesIds() {
+        Assessment assessment = new Assessment("history", 70, "Test");
+        assertEquals("History", assessment.getSubject());
+        assertEquals(SubjectRegistry.findSubject("History"), assessment.getSubjectId());
+        assertEquals("Test", assessment.getAssessmentType());
+    }
+}